@@ -20,12 +20,14 @@ export interface CreateProductDto {
 }
 
 export const productApi = {
+  // Full listings: search, category and stock filters still run in the browser, so these stay
+  // unpaged until they move to the server (the listing endpoints page by cursor without the flag).
   getAll(token?: string) {
-    return apiClient.get<Product[]>('/api/v2/products', token);
+    return apiClient.get<Product[]>('/api/v2/products?unpaged=true', token);
   },
 
   getPublic() {
-    return apiClient.get<Product[]>('/api/public/products');
+    return apiClient.get<Product[]>('/api/public/products?unpaged=true');
   },
 
   create(data: CreateProductDto, token: string) {
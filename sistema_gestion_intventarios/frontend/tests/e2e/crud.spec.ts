@@ -11,13 +11,13 @@ test.describe('CRUD flows (mocked backend)', () => {
         route.continue();
       }
     });
-    await page.route('**/api/public/products', route => route.fulfill({ status: 200, contentType: 'application/json', body: '[]' }));
+    await page.route('**/api/public/products*', route => route.fulfill({ status: 200, contentType: 'application/json', body: '[]' }));
     await page.goto('/products');
   });
 
   test('create, edit and delete product (mocked)', async ({ page }) => {
     // Mock create
-    await page.route('**/api/v2/products', async route => {
+    await page.route('**/api/v2/products*', async route => {
       if (route.request().method() === 'POST') {
         const body = JSON.parse(route.request().postData() || '{}');
         body.id = 1001;
@@ -11,7 +11,7 @@ test.describe('Filters and search', () => {
   test.beforeEach(async ({ page }) => {
     await ensureE2EAuth(page, 'guest');
     // Mock the public products endpoint
-    await page.route('**/api/public/products', route => route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify(sampleProducts) }));
+    await page.route('**/api/public/products*', route => route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify(sampleProducts) }));
   });
 
   test('shows categories and filters by category', async ({ page, baseURL }) => {
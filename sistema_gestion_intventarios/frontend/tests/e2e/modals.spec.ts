@@ -5,8 +5,8 @@ test.describe('Product modal', () => {
   test.beforeEach(async ({ page }) => {
     await ensureE2EAuth(page, 'admin');
     // Mock endpoints used by the page
-    await page.route('**/api/v2/products', route => route.fulfill({ status: 200, contentType: 'application/json', body: '[]' }));
-    await page.route('**/api/public/products', route => route.fulfill({ status: 200, contentType: 'application/json', body: '[]' }));
+    await page.route('**/api/v2/products*', route => route.fulfill({ status: 200, contentType: 'application/json', body: '[]' }));
+    await page.route('**/api/public/products*', route => route.fulfill({ status: 200, contentType: 'application/json', body: '[]' }));
     await page.goto('/products');
   });
 
@@ -21,7 +21,7 @@ test.describe('Product modal', () => {
 
   test('submit form successfully (mock POST)', async ({ page }) => {
     // Intercept create call and respond with created product
-    await page.route('**/api/v2/products', route => {
+    await page.route('**/api/v2/products*', route => {
       if (route.request().method() === 'POST') {
         const body = JSON.parse(route.request().postData() || '{}');
         body.id = 9999;
@@ -5,7 +5,7 @@ test.describe('Stock movements', () => {
   test.beforeEach(async ({ page }) => {
     await ensureE2EAuth(page, 'admin');
     await page.route('**/api/v2/stock/movement', route => route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify({ id: 1 }) }));
-    await page.route('**/api/public/products', route => route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify([{ id:1, name:'Item', description:'', category:'', price:1, initialQuantity:5, minimumStock:2 }]) }));
+    await page.route('**/api/public/products*', route => route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify([{ id:1, name:'Item', description:'', category:'', price:1, initialQuantity:5, minimumStock:2 }]) }));
     await page.goto('/products');
   });
 
@@ -4,6 +4,8 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.example.repository.ProductRepository;
+import org.example.service.InventoryStats;
+import org.example.service.StockAlertIndex;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,60 +16,70 @@ public class MetricsConfig {
 
     private final MeterRegistry meterRegistry;
     private final ProductRepository productRepository;
+    private final StockAlertIndex stockAlerts;
+    private final InventoryStats inventoryStats;
 
-    public MetricsConfig(MeterRegistry meterRegistry, ProductRepository productRepository) {
+    public MetricsConfig(MeterRegistry meterRegistry, ProductRepository productRepository,
+                         StockAlertIndex stockAlerts, InventoryStats inventoryStats) {
         this.meterRegistry = meterRegistry;
         this.productRepository = productRepository;
+        this.stockAlerts = stockAlerts;
+        this.inventoryStats = inventoryStats;
     }
 
     @PostConstruct
     public void initializeGauges() {
         // Registrar gauges directamente sin usar @Bean
+        // Totales corrientes en memoria (con la base como respaldo)
         meterRegistry.gauge("inventory_products_total",
-                productRepository,
-                repo -> {
+                inventoryStats,
+                stats -> {
                     try {
-                        return (double) repo.count();
+                        return (double) stats.totals().map(InventoryStats.Totals::products)
+                                .orElseGet(productRepository::count);
                     } catch (Exception e) {
                         return 0.0;
                     }
                 });
 
+        // Contados sobre los conjuntos de alertas en memoria (con la base como respaldo)
         meterRegistry.gauge("inventory_products_low_stock",
-                productRepository,
-                repo -> {
+                stockAlerts,
+                alerts -> {
                     try {
-                        return (double) repo.findLowStockProducts().size();
+                        return (double) alerts.lowStockCount();
                     } catch (Exception e) {
                         return 0.0;
                     }
                 });
 
         meterRegistry.gauge("inventory_products_out_of_stock",
-                productRepository,
-                repo -> {
+                stockAlerts,
+                alerts -> {
                     try {
-                        return (double) repo.findOutOfStockProducts().size();
+                        return (double) alerts.outOfStockCount();
                     } catch (Exception e) {
                         return 0.0;
                     }
                 });
 
         meterRegistry.gauge("inventory_total_value",
-                productRepository,
-                repo -> {
+                inventoryStats,
+                stats -> {
                     try {
-                        return repo.getTotalInventoryValue().doubleValue();
+                        return stats.totals().map(InventoryStats.Totals::value)
+                                .orElseGet(() -> productRepository.getInventoryTotals().value()).doubleValue();
                     } catch (Exception e) {
                         return 0.0;
                     }
                 });
 
         meterRegistry.gauge("inventory_categories_total",
-                productRepository,
-                repo -> {
+                inventoryStats,
+                stats -> {
                     try {
-                        return (double) repo.findAllCategories().size();
+                        return (double) stats.totals().map(InventoryStats.Totals::categories)
+                                .orElseGet(() -> productRepository.findAllCategories().size());
                     } catch (Exception e) {
                         return 0.0;
                     }
@@ -0,0 +1,10 @@
+package org.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas periódicas de mantenimiento (rebalanceo de slots de stock, etc.)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
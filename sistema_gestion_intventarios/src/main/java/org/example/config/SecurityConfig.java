@@ -122,6 +122,8 @@ public class SecurityConfig {
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
+        // Cursor de la siguiente página en los listados paginados
+        configuration.setExposedHeaders(Arrays.asList("X-Next-Cursor", "Link"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,216 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.service.ProductChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-encoded JSON responses for the public catalog endpoints. Each entry keeps the serialized
+ * body (and its gzip form when it is worth compressing) for one key and catalog version, so a
+ * repeated request is a map lookup plus a byte copy instead of a Jackson run over the catalog.
+ * Responses carry a strong ETag derived from the content; a matching If-None-Match gets a 304
+ * without a body. A new version (any product or stock commit) makes the next request re-encode;
+ * entries also expire after the TTL, like the product cache, and reads inside a read-write
+ * transaction bypass the cache.
+ */
+@Component
+public class CachedResponses {
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final int gzipMinBytes;
+
+    // LRU por clave; solo se guarda la última versión de cada una
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter notModified;
+
+    public CachedResponses(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${inventory.response-cache.enabled:true}") boolean enabled,
+                           @Value("${inventory.response-cache.max-entries:1000}") int maxEntries,
+                           @Value("${inventory.response-cache.ttl-seconds:30}") long ttlSeconds,
+                           @Value("${inventory.response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled && ttlSeconds > 0;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.gzipMinBytes = Math.max(0, gzipMinBytes);
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.notModified = requests(meterRegistry, "not_modified");
+        Gauge.builder("inventory_response_cache_size", this, CachedResponses::size)
+                .description("Pre-encoded responses currently held")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached 200 response with the given body.
+     */
+    public ResponseEntity<byte[]> respond(HttpServletRequest request, String key, long version, Supplier<?> body) {
+        return respondWith(request, key, version, () -> ResponseEntity.ok(body.get()));
+    }
+
+    /**
+     * Cached response produced by a controller (status, headers and body). Only 2xx responses
+     * are stored; exceptions thrown by the producer propagate as usual.
+     */
+    public ResponseEntity<byte[]> respondWith(HttpServletRequest request, String key, long version,
+                                              Supplier<? extends ResponseEntity<?>> producer) {
+        Entry entry = usable() ? lookup(key, version) : null;
+        if (entry == null) {
+            entry = encode(version, producer.get());
+            if (usable() && entry.status().is2xxSuccessful()) {
+                store(key, entry);
+            }
+        }
+        return toResponse(request, entry);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // === MÉTODOS PRIVADOS AUXILIARES ===
+
+    private record Entry(long version, long expiresAt, HttpStatus status, HttpHeaders headers,
+                         byte[] identity, byte[] gzip, String etag, String gzipEtag) {
+    }
+
+    private boolean usable() {
+        return enabled && ProductChangeListener.outsideWriteTransaction();
+    }
+
+    private Entry lookup(String key, long version) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version() == version && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return entry;
+            }
+            misses.increment();
+            return null;
+        }
+    }
+
+    private void store(String key, Entry entry) {
+        synchronized (entries) {
+            // Una petición más lenta no pisa una versión más nueva ya guardada
+            Entry current = entries.get(key);
+            if (current != null && current.version() > entry.version()) {
+                return;
+            }
+            entries.put(key, entry);
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private Entry encode(long version, ResponseEntity<?> response) {
+        byte[] identity;
+        try {
+            identity = objectMapper.writeValueAsBytes(response.getBody());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+        byte[] gzip = identity.length >= gzipMinBytes ? gzip(identity) : null;
+        String hash = DigestUtils.md5DigestAsHex(identity);
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        return new Entry(version, System.nanoTime() + ttlNanos, HttpStatus.valueOf(response.getStatusCode().value()),
+                HttpHeaders.readOnlyHttpHeaders(headers), identity, gzip, "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+    }
+
+    private ResponseEntity<byte[]> toResponse(HttpServletRequest request, Entry entry) {
+        boolean gzip = entry.gzip() != null && acceptsGzip(request);
+        String etag = gzip ? entry.gzipEtag() : entry.etag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(entry.headers());
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache().cachePublic());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+
+        if (entry.status().is2xxSuccessful() && matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified.increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ResponseEntity.status(entry.status()).headers(headers).body(gzip ? entry.gzip() : entry.identity());
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    // If-None-Match usa comparación débil: se ignora el prefijo W/ de las etiquetas del cliente
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory_response_cache_requests_total")
+                .description("Pre-encoded response lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
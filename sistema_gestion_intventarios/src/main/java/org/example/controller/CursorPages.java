@@ -0,0 +1,59 @@
+package org.example.controller;
+
+import org.example.dto.ProductPageDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Shared handling of cursor-paginated listings: page size defaults and cap, and the response.
+ * The body stays a plain JSON array (as the unpaged listings); the cursor of the next page travels
+ * in the X-Next-Cursor header and a Link rel="next" header, both absent on the last page.
+ */
+@Component
+public class CursorPages {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public CursorPages(@Value("${inventory.pagination.default-page-size:50}") int defaultSize,
+                       @Value("${inventory.pagination.max-page-size:200}") int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.defaultSize = Math.min(Math.max(1, defaultSize), this.maxSize);
+    }
+
+    // loader recibe el tamaño de página ya acotado
+    public <T> ResponseEntity<List<T>> respond(Integer requestedSize, IntFunction<ProductPageDTO<T>> loader) {
+        if (requestedSize != null && requestedSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be greater than zero");
+        }
+        int size = requestedSize == null ? defaultSize : Math.min(requestedSize, maxSize);
+
+        ProductPageDTO<T> page;
+        try {
+            page = loader.apply(size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .replaceQueryParam("size", size)
+                    .build()
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor())
+                    .header("Link", "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getItems());
+    }
+}
@@ -1,63 +1,107 @@
 package org.example.controller;
 
 import org.example.dto.ProductDTO;
-import org.example.dto.StockMovementDTO;
+import org.example.dto.StockBulkUpdateDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.service.ProductExporter;
+import org.example.service.ProductImporter;
 import org.example.service.ProductService;
-import org.example.service.StockService;
+import org.example.service.StockBulkUpdater;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/integration")
 @PreAuthorize("hasRole('ADMIN')") // Solo Admin puede acceder a la API de integración
 public class IntegrationController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String STREAMING_TIMEOUT_KEY = IntegrationController.class.getName() + ".streamingTimeout";
+
     private final ProductService productService;
-    private final StockService stockService;
+    private final StockBulkUpdater stockBulkUpdater;
+    private final ProductExporter productExporter;
+    private final ProductImporter productImporter;
+    private final ObjectMapper objectMapper;
+    private final int importChunkSize;
+    private final long exportTimeoutMs;
+    private final long importTimeoutMs;
 
-    public IntegrationController(ProductService productService, StockService stockService) {
+    public IntegrationController(ProductService productService,
+                                 StockBulkUpdater stockBulkUpdater,
+                                 ProductExporter productExporter,
+                                 ProductImporter productImporter,
+                                 ObjectMapper objectMapper,
+                                 @Value("${inventory.integration.import.chunk-size:1000}") int importChunkSize,
+                                 @Value("${inventory.integration.export.timeout-ms:1800000}") long exportTimeoutMs,
+                                 @Value("${inventory.integration.import.timeout-ms:1800000}") long importTimeoutMs) {
         this.productService = productService;
-        this.stockService = stockService;
+        this.stockBulkUpdater = stockBulkUpdater;
+        this.productExporter = productExporter;
+        this.productImporter = productImporter;
+        this.objectMapper = objectMapper;
+        this.importChunkSize = Math.max(1, importChunkSize);
+        this.exportTimeoutMs = exportTimeoutMs;
+        this.importTimeoutMs = importTimeoutMs;
     }
 
     // === ENDPOINTS DE INTEGRACIÓN PARA SISTEMAS EXTERNOS ===
 
+    // Se escribe fila a fila desde la base de datos; comprimido si el cliente acepta gzip
     @GetMapping("/products/export")
-    public ResponseEntity<List<ProductDTO>> exportProducts() {
-        List<ProductDTO> products = productService.getAllProducts();
-        return ResponseEntity.ok()
-                .header("Content-Type", "application/json")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            NativeWebRequest request) {
+        streamingTimeout(request, exportTimeoutMs);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
                 .header("Content-Disposition", "attachment; filename=products-export.json")
-                .body(products);
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> productExporter.writeJson(out, gzip));
     }
 
     @PostMapping("/products/import")
     public ResponseEntity<Map<String, Object>> importProducts(@RequestBody List<ProductDTO> products) {
-        int successCount = 0;
         int errorCount = 0;
         List<String> errors = new ArrayList<>();
 
-        for (ProductDTO productDTO : products) {
-            try {
-                productService.createProduct(productDTO);
-                successCount++;
-            } catch (Exception e) {
-                errorCount++;
-                errors.add("Product " + productDTO.getName() + ": " + e.getMessage());
-            }
+        // Un commit por bloque en lugar de uno por producto
+        for (int from = 0; from < products.size(); from += importChunkSize) {
+            List<ProductDTO> chunk = products.subList(from, Math.min(from + importChunkSize, products.size()));
+            List<String> chunkErrors = importChunk(chunk);
+            errorCount += chunkErrors.size();
+            errors.addAll(chunkErrors);
         }
 
         Map<String, Object> result = Map.of(
                 "totalProcessed", products.size(),
-                "successful", successCount,
+                "successful", products.size() - errorCount,
                 "errors", errorCount,
                 "errorDetails", errors
         );
@@ -65,6 +109,63 @@ public class IntegrationController {
         return ResponseEntity.ok(result);
     }
 
+    // Importación en streaming (NDJSON o CSV con cabecera). La respuesta es NDJSON: una línea
+    // {"line","error"} por fila rechazada, una {"processed","successful","errors","done"} por bloque
+    // confirmado y una última con done=true
+    @PostMapping(value = "/products/import/stream",
+            consumes = {NDJSON_MEDIA_TYPE, "application/jsonl", "text/csv"},
+            produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> importProductsStream(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream input,
+            NativeWebRequest request) {
+        streamingTimeout(request, importTimeoutMs);
+        ProductImporter.Format format = contentType.toLowerCase().startsWith("text/csv")
+                ? ProductImporter.Format.CSV
+                : ProductImporter.Format.NDJSON;
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .body(out -> {
+                    try {
+                        productImporter.importStream(input, format, new ImportProgressWriter(out));
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    // Timeout solo para esta respuesta en streaming: el resto de las peticiones asíncronas conserva
+    // el de spring.mvc.async.request-timeout. Se aplica justo antes de iniciar el procesamiento asíncrono
+    private static void streamingTimeout(NativeWebRequest request, long timeoutMs) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(STREAMING_TIMEOUT_KEY,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest asyncRequest, Callable<T> task) {
+                        if (asyncRequest instanceof AsyncWebRequest async) {
+                            async.setTimeout(timeoutMs);
+                        }
+                    }
+                });
+    }
+
+    private List<String> importChunk(List<ProductDTO> chunk) {
+        try {
+            return productService.createProducts(chunk);
+        } catch (Exception chunkFailure) {
+            // El bloque falló en la base de datos: se reintenta producto por producto
+            List<String> errors = new ArrayList<>();
+            for (ProductDTO productDTO : chunk) {
+                try {
+                    productService.createProduct(productDTO);
+                } catch (Exception e) {
+                    errors.add("Product " + productDTO.getName() + ": " + e.getMessage());
+                }
+            }
+            return errors;
+        }
+    }
+
     @GetMapping("/products/sync-status")
     public ResponseEntity<Map<String, Object>> getSyncStatus() {
         Map<String, Object> stats = productService.getBasicStats();
@@ -83,37 +184,16 @@ public class IntegrationController {
 
     @PostMapping("/stock/bulk-update")
     public ResponseEntity<Map<String, Object>> bulkStockUpdate(
-            @RequestBody List<Map<String, Object>> updates,
+            @RequestBody List<StockBulkUpdateDTO> updates,
             Authentication authentication) {
 
-        int successCount = 0;
-        int errorCount = 0;
-        List<String> errors = new ArrayList<>();
-
-        for (Map<String, Object> update : updates) {
-            try {
-                Long productId = Long.valueOf(update.get("productId").toString());
-                Integer newQuantity = Integer.valueOf(update.get("quantity").toString());
-                String reason = update.getOrDefault("reason", "Bulk update via API").toString();
-
-                StockMovementDTO adjustmentRequest = new StockMovementDTO();
-                adjustmentRequest.setProductId(productId);
-                adjustmentRequest.setNewQuantity(newQuantity);
-                adjustmentRequest.setQuantity(1); // Placeholder
-                adjustmentRequest.setReason(reason);
-
-                stockService.registerAdjustment(adjustmentRequest, authentication.getName());
-                successCount++;
-            } catch (Exception e) {
-                errorCount++;
-                errors.add("Product ID " + update.get("productId") + ": " + e.getMessage());
-            }
-        }
+        // Bloques en paralelo, cada uno en su propia transacción
+        List<String> errors = stockBulkUpdater.update(updates, authentication.getName());
 
         Map<String, Object> result = Map.of(
                 "totalProcessed", updates.size(),
-                "successful", successCount,
-                "errors", errorCount,
+                "successful", updates.size() - errors.size(),
+                "errors", errors.size(),
                 "errorDetails", errors
         );
 
@@ -145,4 +225,36 @@ public class IntegrationController {
         );
         return ResponseEntity.ok(health);
     }
-}
\ No newline at end of file
+
+    // Escribe los eventos de la importación a medida que ocurren; se vacía en cada bloque confirmado
+    private class ImportProgressWriter implements ProductImporter.Listener {
+
+        private final OutputStream out;
+
+        ImportProgressWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void onError(ProductImporter.LineError error) {
+            write(error, false);
+        }
+
+        @Override
+        public void onProgress(ProductImporter.Progress progress) {
+            write(progress, true);
+        }
+
+        private void write(Object event, boolean flush) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+                if (flush) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
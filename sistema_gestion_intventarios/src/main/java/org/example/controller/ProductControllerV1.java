@@ -2,6 +2,7 @@ package org.example.controller;
 
 import org.example.entity.Product;
 import org.example.service.ProductService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 
@@ -15,9 +16,11 @@ import java.util.List;
 public class ProductControllerV1 {
 
     private final ProductService service;
+    private final CursorPages cursorPages;
 
-    public ProductControllerV1(ProductService service) {
+    public ProductControllerV1(ProductService service, CursorPages cursorPages) {
         this.service = service;
+        this.cursorPages = cursorPages;
     }
 
     @PostMapping
@@ -27,6 +30,13 @@ public class ProductControllerV1 {
     }
 
     @GetMapping
+    public ResponseEntity<List<Product>> getPage(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @RequestParam(required = false) String sort) {
+        return cursorPages.respond(size, pageSize -> service.getProductEntityPage(cursor, pageSize, sort));
+    }
+
+    @GetMapping(params = "unpaged=true")
     public List<Product> getAll() {
         return service.findAllLegacy();
     }
@@ -1,13 +1,16 @@
 package org.example.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.example.dto.ProductDTO;
 import org.example.dto.ProductSearchDTO;
 import org.example.service.ProductService;
+import org.example.service.PublicCatalog;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Map;
@@ -17,9 +20,16 @@ import java.util.Map;
 public class ProductControllerV2 {
 
     private final ProductService productService;
+    private final CursorPages cursorPages;
+    private final PublicCatalog publicCatalog;
+    private final CachedResponses cachedResponses;
 
-    public ProductControllerV2(ProductService productService) {
+    public ProductControllerV2(ProductService productService, CursorPages cursorPages, PublicCatalog publicCatalog,
+                               CachedResponses cachedResponses) {
         this.productService = productService;
+        this.cursorPages = cursorPages;
+        this.publicCatalog = publicCatalog;
+        this.cachedResponses = cachedResponses;
     }
 
     // === CRUD BÁSICO ===
@@ -35,8 +45,18 @@ public class ProductControllerV2 {
         }
     }
 
+    // Paginado por cursor (keyset); siguiente página en X-Next-Cursor / Link
     @GetMapping
     @PreAuthorize("permitAll()") // Todos pueden ver (incluyendo GUEST)
+    public ResponseEntity<List<ProductDTO>> getProducts(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(required = false) String sort) {
+        return cursorPages.respond(size, pageSize -> productService.getProductPage(cursor, pageSize, sort));
+    }
+
+    // Catálogo completo en una respuesta, para clientes anteriores a la paginación
+    @GetMapping(params = "unpaged=true")
+    @PreAuthorize("permitAll()")
     public List<ProductDTO> getAllProducts() {
         return productService.getAllProducts();
     }
@@ -69,7 +89,7 @@ public class ProductControllerV2 {
     @PostMapping("/search")
     @PreAuthorize("permitAll()")
     public List<ProductDTO> searchProducts(@RequestBody ProductSearchDTO searchRequest) {
-        return productService.searchProducts(searchRequest);
+        return search(searchRequest);
     }
 
 
@@ -78,15 +98,28 @@ public class ProductControllerV2 {
             @RequestParam(required = false) String searchTerm,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Boolean lowStock,
-            @RequestParam(required = false) Boolean outOfStock) {
+            @RequestParam(required = false) Boolean outOfStock,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort) {
 
         ProductSearchDTO search = new ProductSearchDTO();
         search.setSearchTerm(searchTerm);
         search.setCategory(category);
         search.setLowStockOnly(lowStock);
         search.setOutOfStockOnly(outOfStock);
+        search.setLimit(limit);
+        search.setSort(sort);
 
-        return productService.searchProducts(search);
+        return search(search);
+    }
+
+    // Un orden desconocido es un error del cliente
+    private List<ProductDTO> search(ProductSearchDTO search) {
+        try {
+            return productService.searchProducts(search);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 
     @GetMapping("/category/{category}")
@@ -110,16 +143,19 @@ public class ProductControllerV2 {
 
     // === UTILIDADES ===
 
+    // JSON ya codificado por versión del catálogo, con ETag (304 si no cambió)
     @GetMapping("/categories")
     @PreAuthorize("permitAll()") // Stats básicas públicas
-    public List<String> getAllCategories() {
-        return productService.getAllCategories();
+    public ResponseEntity<byte[]> getAllCategories(HttpServletRequest request) {
+        return cachedResponses.respond(request, "categories", publicCatalog.catalogVersion(),
+                productService::getAllCategories);
     }
 
     @GetMapping("/stats")
     @PreAuthorize("permitAll()")
-    public Map<String, Object> getBasicStats() {
-        return productService.getBasicStats();
+    public ResponseEntity<byte[]> getBasicStats(HttpServletRequest request) {
+        return cachedResponses.respond(request, "v2:stats", publicCatalog.catalogVersion(),
+                productService::getBasicStats);
     }
 
     // === REPORTES DETALLADOS SOLO PARA ADMIN ===
@@ -1,14 +1,18 @@
 package org.example.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.example.dto.ProductDTO;
 import org.example.service.ProductService;
+import org.example.service.PublicCatalog;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -16,72 +20,106 @@ import java.util.stream.Collectors;
 public class PublicController {
 
     private final ProductService productService;
+    private final CursorPages cursorPages;
+    private final PublicCatalog publicCatalog;
+    private final CachedResponses cachedResponses;
 
-    public PublicController(ProductService productService) {
+    public PublicController(ProductService productService, CursorPages cursorPages, PublicCatalog publicCatalog,
+                            CachedResponses cachedResponses) {
         this.productService = productService;
+        this.cursorPages = cursorPages;
+        this.publicCatalog = publicCatalog;
+        this.cachedResponses = cachedResponses;
     }
 
     // === ENDPOINTS PÚBLICOS PARA USUARIOS GUEST ===
+    // Se responden desde la foto pública del catálogo (ya saneada); mientras se carga, desde la base.
+    // El JSON queda codificado por versión del catálogo y se sirve con ETag (304 si no cambió).
 
     @GetMapping("/products")
-    public List<ProductDTO> getAllProductsPublic() {
-        // Solo información básica, sin datos sensibles
-        return productService.getAllProducts().stream()
-                .map(this::sanitizeProductForGuest)
-                .collect(Collectors.toList());
+    public ResponseEntity<byte[]> getProductsPublic(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @RequestParam(required = false) String sort,
+                                                    HttpServletRequest request) {
+        String key = "public:products?cursor=" + cursor + "&size=" + size + "&sort=" + sort;
+        if (publicCatalog.isUsable()) {
+            return cachedResponses.respondWith(request, "snapshot:" + key, publicCatalog.snapshot().version(),
+                    () -> cursorPages.respond(size, pageSize -> publicCatalog.page(cursor, pageSize, sort)));
+        }
+        return cachedResponses.respondWith(request, key, publicCatalog.catalogVersion(),
+                () -> cursorPages.respond(size, pageSize ->
+                        productService.getProductPage(cursor, pageSize, sort).map(this::sanitizeProductForGuest)));
+    }
+
+    @GetMapping(value = "/products", params = "unpaged=true")
+    public ResponseEntity<byte[]> getAllProductsPublic(HttpServletRequest request) {
+        return catalogResponse(request, "public:products", publicCatalog::allProducts, () ->
+                // Solo información básica, sin datos sensibles
+                productService.getAllProducts().stream()
+                        .map(this::sanitizeProductForGuest)
+                        .collect(Collectors.toList()));
     }
 
     @GetMapping("/products/{id}")
-    public ProductDTO getProductByIdPublic(@PathVariable Long id) {
-        ProductDTO product = productService.getProductById(id);
-        return sanitizeProductForGuest(product);
+    public ResponseEntity<byte[]> getProductByIdPublic(@PathVariable Long id, HttpServletRequest request) {
+        return catalogResponse(request, "public:products/" + id,
+                () -> publicCatalog.product(id)
+                        .orElseThrow(() -> new RuntimeException("Product not found with id: " + id)),
+                () -> sanitizeProductForGuest(productService.getProductById(id)));
     }
 
     @GetMapping("/products/category/{category}")
-    public List<ProductDTO> getProductsByCategoryPublic(@PathVariable String category) {
-        return productService.findProductsByCategory(category).stream()
-                .map(this::sanitizeProductForGuest)
-                .collect(Collectors.toList());
+    public ResponseEntity<byte[]> getProductsByCategoryPublic(@PathVariable String category,
+                                                              HttpServletRequest request) {
+        return catalogResponse(request, "public:products/category/" + category,
+                () -> publicCatalog.productsByCategory(category),
+                () -> productService.findProductsByCategory(category).stream()
+                        .map(this::sanitizeProductForGuest)
+                        .collect(Collectors.toList()));
     }
 
     @GetMapping("/products/available")
-    public List<ProductDTO> getAvailableProductsPublic() {
-        return productService.getAllProducts().stream()
-                .filter(p -> p.getInitialQuantity() > 0) // Solo productos disponibles
-                .map(this::sanitizeProductForGuest)
-                .collect(Collectors.toList());
+    public ResponseEntity<byte[]> getAvailableProductsPublic(HttpServletRequest request) {
+        return catalogResponse(request, "public:products/available", publicCatalog::availableProducts,
+                () -> productService.getAllProducts().stream()
+                        .filter(p -> p.getInitialQuantity() > 0) // Solo productos disponibles
+                        .map(this::sanitizeProductForGuest)
+                        .collect(Collectors.toList()));
     }
 
+    // Misma respuesta que /api/v2/products/categories, comparten entrada
     @GetMapping("/categories")
-    public List<String> getCategoriesPublic() {
-        return productService.getAllCategories();
+    public ResponseEntity<byte[]> getCategoriesPublic(HttpServletRequest request) {
+        return cachedResponses.respond(request, "categories", publicCatalog.catalogVersion(),
+                productService::getAllCategories);
     }
 
     @GetMapping("/stats/basic")
-    public Map<String, Object> getBasicStatsPublic() {
-        Map<String, Object> stats = productService.getBasicStats();
-        // Remover información sensible para usuarios GUEST
-        return Map.of(
-                "totalProducts", stats.get("totalProducts"),
-                "categories", stats.get("categories"),
-                "availableProducts", stats.get("totalProducts")
-        );
+    public ResponseEntity<byte[]> getBasicStatsPublic(HttpServletRequest request) {
+        return cachedResponses.respond(request, "public:stats/basic", publicCatalog.catalogVersion(), () -> {
+            Map<String, Object> stats = productService.getBasicStats();
+            // Remover información sensible para usuarios GUEST
+            return Map.of(
+                    "totalProducts", stats.get("totalProducts"),
+                    "categories", stats.get("categories"),
+                    "availableProducts", stats.get("totalProducts")
+            );
+        });
+    }
+
+    // Desde la foto, con su versión (se lee antes que el contenido: nunca queda contenido viejo
+    // bajo una versión nueva); si no está lista, desde la base con la versión de escrituras
+    private ResponseEntity<byte[]> catalogResponse(HttpServletRequest request, String key,
+                                                   Supplier<?> fromSnapshot, Supplier<?> fromDatabase) {
+        if (publicCatalog.isUsable()) {
+            return cachedResponses.respond(request, "snapshot:" + key, publicCatalog.snapshot().version(), fromSnapshot);
+        }
+        return cachedResponses.respond(request, key, publicCatalog.catalogVersion(), fromDatabase);
     }
 
     // Método para sanear datos sensibles para usuarios GUEST
+    // NO mostrar: initialQuantity, minimumStock, lowStock, totalValue
     private ProductDTO sanitizeProductForGuest(ProductDTO product) {
-        // Crear copia sin información sensible
-        ProductDTO publicProduct = new ProductDTO();
-        publicProduct.setId(product.getId());
-        publicProduct.setName(product.getName());
-        publicProduct.setDescription(product.getDescription());
-        publicProduct.setCategory(product.getCategory());
-        publicProduct.setPrice(product.getPrice());
-
-        // Solo mostrar disponibilidad básica, no cantidades exactas
-        publicProduct.setOutOfStock(product.getOutOfStock());
-        // NO mostrar: initialQuantity, minimumStock, lowStock, totalValue
-
-        return publicProduct;
+        return PublicCatalog.forGuest(product);
     }
-}
\ No newline at end of file
+}
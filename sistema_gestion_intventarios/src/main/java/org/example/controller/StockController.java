@@ -3,9 +3,14 @@ package org.example.controller;
 import jakarta.validation.Valid;
 import lombok.Getter;
 import lombok.Setter;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
 import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
 import org.example.service.StockService;
+import org.example.service.StockSlotService;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -18,9 +23,13 @@ import java.util.Map;
 public class StockController {
 
     private final StockService stockService;
+    private final StockSlotService stockSlotService;
+    private final CursorPages cursorPages;
 
-    public StockController(StockService stockService) {
+    public StockController(StockService stockService, StockSlotService stockSlotService, CursorPages cursorPages) {
         this.stockService = stockService;
+        this.stockSlotService = stockSlotService;
+        this.cursorPages = cursorPages;
     }
 
     // === MOVIMIENTOS DE STOCK ===
@@ -112,10 +121,68 @@ public class StockController {
         return stockService.registerLoss(request, authentication.getName());
     }
 
+    // === MOVIMIENTOS EN LOTE ===
+
+    @PostMapping("/movements/batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPLOYEE')")
+    public ResponseEntity<StockBatchResultDTO> registerMovementBatch(
+            @Valid @RequestBody StockBatchRequestDTO request,
+            Authentication authentication) {
+
+        // Los ajustes siguen reservados a ADMIN, igual que en /adjustment
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        if (!isAdmin && request.getLines().stream()
+                .anyMatch(line -> line != null && line.getMovementType() == MovementType.ADJUSTMENT)) {
+            throw new AccessDeniedException("Adjustments require the ADMIN role");
+        }
+
+        StockBatchResultDTO result = stockService.registerMovementBatch(request, authentication.getName());
+        if (!result.isCommitted()) {
+            return ResponseEntity.unprocessableEntity().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // === SLOTS DE STOCK (SKUs muy concurridos) ===
+
+    @PutMapping("/slots/{productId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> enableStockSlots(
+            @PathVariable Long productId,
+            @RequestParam int slots) {
+        stockSlotService.enable(productId, slots);
+        return ResponseEntity.ok(Map.of(
+                "productId", productId,
+                "stockSlots", slots,
+                "currentStock", stockService.getCurrentStock(productId)
+        ));
+    }
+
+    @DeleteMapping("/slots/{productId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> disableStockSlots(@PathVariable Long productId) {
+        stockSlotService.disable(productId);
+        return ResponseEntity.ok(Map.of(
+                "productId", productId,
+                "stockSlots", 0,
+                "currentStock", stockService.getCurrentStock(productId)
+        ));
+    }
+
     // === CONSULTAS ===
 
+    // Paginado por cursor (keyset, más nuevos primero); siguiente página en X-Next-Cursor / Link
     @GetMapping("/history/{productId}")
-    public List<StockMovementDTO> getProductHistory(@PathVariable Long productId) {
+    public ResponseEntity<List<StockMovementDTO>> getProductHistory(@PathVariable Long productId,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer size) {
+        return cursorPages.respond(size, pageSize -> stockService.getProductHistoryPage(productId, cursor, pageSize));
+    }
+
+    // Historial completo en una respuesta, para clientes anteriores a la paginación
+    @GetMapping(value = "/history/{productId}", params = "unpaged=true")
+    public List<StockMovementDTO> getAllProductHistory(@PathVariable Long productId) {
         return stockService.getProductHistory(productId);
     }
 
@@ -56,13 +56,13 @@ public class ProductDTO {
         dto.setDescription(product.getDescription());
         dto.setCategory(product.getCategory());
         dto.setPrice(product.getPrice());
-        dto.setInitialQuantity(product.getInitialQuantity());
+        dto.setInitialQuantity(product.getCurrentQuantity());
         dto.setMinimumStock(product.getMinimumStock() != null ? product.getMinimumStock() : 5);
 
         // Campos computados
         dto.setLowStock(product.isLowStock());
         dto.setOutOfStock(product.isOutOfStock());
-        dto.setTotalValue(product.getPrice().multiply(BigDecimal.valueOf(product.getInitialQuantity())));
+        dto.setTotalValue(product.getPrice().multiply(BigDecimal.valueOf(product.getCurrentQuantity())));
 
         return dto;
     }
@@ -0,0 +1,22 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Una página de un listado por cursor (productos, historial de stock); nextCursor es null en la última
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageDTO<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    public <R> ProductPageDTO<R> map(Function<T, R> mapper) {
+        return new ProductPageDTO<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -17,4 +17,6 @@ public class ProductSearchDTO {
     private BigDecimal maxPrice;
     private Boolean lowStockOnly;
     private Boolean outOfStockOnly;
+    private Integer limit; // null = todos los resultados
+    private String sort; // id, name, category, price, initialQuantity ("-price" = descendente); null = relevancia o id
 }
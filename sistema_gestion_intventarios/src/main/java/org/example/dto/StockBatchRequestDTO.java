@@ -0,0 +1,29 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// === BATCH DE MOVIMIENTOS (p. ej. todas las líneas de un pallet) ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchRequestDTO {
+
+    public enum Mode {
+        ALL_OR_NOTHING, // si una línea falla no se aplica ninguna
+        BEST_EFFORT     // se aplican las líneas válidas y se reportan las fallidas
+    }
+
+    private Mode mode = Mode.ALL_OR_NOTHING;
+
+    // Cada línea usa movementType, productId, quantity (newQuantity para ADJUSTMENT) y reason.
+    // Las líneas se validan una a una en el servicio para poder reportar el error de cada línea.
+    @NotEmpty(message = "At least one line is required")
+    @Size(max = 500, message = "A batch cannot exceed 500 lines")
+    private List<StockMovementDTO> lines;
+}
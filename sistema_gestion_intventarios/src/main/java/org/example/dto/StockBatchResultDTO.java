@@ -0,0 +1,30 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchResultDTO {
+
+    private StockBatchRequestDTO.Mode mode;
+    private int totalLines;
+    private int successful;
+    private int failed;
+    private boolean committed;
+    private List<LineResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private int line; // posición en la petición, empezando en 0
+        private boolean success;
+        private StockMovementDTO movement;
+        private String error;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// === FILA DE ACTUALIZACIÓN MASIVA (conteo físico desde sistemas externos) ===
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBulkUpdateDTO {
+
+    private Long productId;
+    private Integer quantity; // cantidad contada: se registra como ajuste a este valor
+    private String reason;
+}
@@ -2,8 +2,10 @@ package org.example.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
 
 @Entity
@@ -16,7 +18,8 @@ import java.util.Objects;
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,6 +38,27 @@ public class Product {
     @Column(name = "minimum_stock", columnDefinition = "integer default 5")
     private Integer minimumStock; // Default value
 
+    // Control optimista: se incrementa en cada actualización del producto
+    @Version
+    private Long version;
+
+    // Número de slots de stock (0 = stock solo en initial_quantity). Con slots, initial_quantity es
+    // la foto del último rebalanceo y el stock real es la suma de product_stock_slots.
+    @Column(name = "stock_slots", nullable = false)
+    private Integer stockSlots;
+
+    // Solo se cargan al pedir el stock actual de un producto repartido (en lotes): cargar un producto
+    // sin slots no consulta product_stock_slots. La clave foránea la define la migración V5
+    @OneToMany(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @BatchSize(size = 50)
+    private List<ProductStockSlot> slots;
+
+    // Suma de los slots ya calculada, para copias fuera de la sesión (caché de productos)
+    @Transient
+    private Integer slotQuantity;
+
     // equals method
     @Override
     public boolean equals(Object o) {
@@ -70,14 +94,52 @@ public class Product {
                 '}';
     }
 
+    @PrePersist
+    void defaultStockSlots() {
+        if (stockSlots == null) {
+            stockSlots = 0;
+        }
+    }
+
+    // Stock actual: suma de los slots si el producto está repartido, si no initial_quantity
+    public Integer getCurrentQuantity() {
+        if (!isSharded()) {
+            return initialQuantity;
+        }
+        if (slotQuantity != null) {
+            return slotQuantity;
+        }
+        return slots.stream().mapToInt(ProductStockSlot::getQuantity).sum();
+    }
+
+    // Copia separada de la sesión con el stock actual ya resuelto: leerla no vuelve a tocar los slots
+    public Product detachedCopy() {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .category(category)
+                .price(price)
+                .initialQuantity(initialQuantity)
+                .minimumStock(minimumStock)
+                .version(version)
+                .stockSlots(stockSlots)
+                .slotQuantity(isSharded() ? getCurrentQuantity() : null)
+                .build();
+    }
+
+    public boolean isSharded() {
+        return stockSlots != null && stockSlots > 0;
+    }
+
     // Utility method to check low stock
     public boolean isLowStock() {
-        return this.initialQuantity <= this.minimumStock;
+        return getCurrentQuantity() <= this.minimumStock;
     }
 
     // Utility method to check out of stock
     public boolean isOutOfStock() {
-        return this.initialQuantity == 0;
+        return getCurrentQuantity() == 0;
     }
 
     // Asegura que siempre devuelva un valor no nulo
@@ -0,0 +1,35 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+// Una porción del stock de un producto repartido en slots
+@Entity
+@Table(name = "product_stock_slots")
+@IdClass(ProductStockSlot.SlotId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockSlot {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SlotId implements Serializable {
+        private Long productId;
+        private Integer slot;
+    }
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class StockMovement {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -44,6 +45,10 @@ public class StockMovement {
     @Column(length = 500)
     private String reason;
 
+    // Secuencia del journal local (modo de auditoría journal); evita insertar dos veces al reproducirlo
+    @Column(name = "journal_seq", unique = true)
+    private Long journalSeq;
+
     @PrePersist
     public void prePersist() {
         if (this.timestamp == null) {
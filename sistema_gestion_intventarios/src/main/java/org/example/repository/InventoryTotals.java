@@ -0,0 +1,7 @@
+package org.example.repository;
+
+import java.math.BigDecimal;
+
+// Product count and stock value (current quantity, slots included) of the whole catalog
+public record InventoryTotals(Long products, BigDecimal value) {
+}
@@ -1,15 +1,39 @@
 package org.example.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.example.dto.ProductDTO;
 import org.example.entity.Product;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    // Stock actual: la suma de slots si el producto está repartido, si no initial_quantity. Solo en las
+    // consultas que lo necesitan: la entidad ya no lo calcula en cada carga
+    String CURRENT_QUANTITY = "CASE WHEN p.stockSlots > 0 THEN (SELECT COALESCE(SUM(s.quantity), 0) " +
+            "FROM ProductStockSlot s WHERE s.productId = p.id) ELSE p.initialQuantity END";
+
+    // Fila de lectura ya calculada en SQL (mismos campos que ProductDTO.from), sin entidad gestionada
+    String PRODUCT_ROW = "SELECT new org.example.dto.ProductDTO(p.id, p.name, p.description, p.category, p.price, " +
+            CURRENT_QUANTITY + ", COALESCE(p.minimumStock, 5), " +
+            "CASE WHEN " + CURRENT_QUANTITY + " <= COALESCE(p.minimumStock, 5) THEN true ELSE false END, " +
+            "CASE WHEN " + CURRENT_QUANTITY + " = 0 THEN true ELSE false END, " +
+            "p.price * " + CURRENT_QUANTITY + ") FROM Product p";
 
     // Métodos existentes
     Optional<Product> findByName(String name);
@@ -47,6 +71,22 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             "LOWER(p.category) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Product> findBySearchTerm(@Param("searchTerm") String searchTerm);
 
+    // === BÚSQUEDA EN POSTGRESQL (índices de V8, ver ProductTextSearch) ===
+    // Consultas nativas: solo funcionan en PostgreSQL. Devuelven los ids en orden de relevancia
+
+    // pg_trgm: mismas coincidencias que findBySearchTerm, ordenadas por similitud del nombre
+    @Query(value = "SELECT p.id FROM products p " +
+            "WHERE lower(p.name) LIKE :pattern OR lower(p.description) LIKE :pattern OR lower(p.category) LIKE :pattern " +
+            "ORDER BY similarity(lower(p.name), :term) DESC, p.id", nativeQuery = true)
+    List<Long> searchIdsByTrigram(@Param("term") String term, @Param("pattern") String pattern);
+
+    // tsvector: todas las palabras de la consulta (palabra:* & palabra:*), ordenadas por ts_rank
+    @Query(value = "SELECT p.id FROM products p " +
+            "WHERE p.search_vector @@ to_tsquery('simple', products_unaccent(:query)) " +
+            "ORDER BY ts_rank(p.search_vector, to_tsquery('simple', products_unaccent(:query))) DESC, p.id",
+            nativeQuery = true)
+    List<Long> searchIdsFullText(@Param("query") String tsQuery);
+
     // Get all unique categories
     @Query("SELECT DISTINCT p.category FROM Product p ORDER BY p.category")
     List<String> findAllCategories();
@@ -66,4 +106,168 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Products with most stock
     @Query("SELECT p FROM Product p ORDER BY p.initialQuantity DESC")
     List<Product> findTopStockProducts();
-}
\ No newline at end of file
+
+    // === PROYECCIONES DE LECTURA (sin hidratar entidades) ===
+    // Las filas las construye la propia consulta: nada entra en el contexto de persistencia, no hay copia
+    // para el dirty checking y lowStock/outOfStock/totalValue llegan calculados desde la base. Los
+    // filtros de stock usan la cantidad actual (slots incluidos), igual que lowStock/outOfStock
+
+    @Query(PRODUCT_ROW)
+    List<ProductDTO> findAllRows();
+
+    @Query(PRODUCT_ROW + " WHERE p.category = :category")
+    List<ProductDTO> findRowsByCategory(@Param("category") String category);
+
+    @Query(PRODUCT_ROW + " WHERE " + CURRENT_QUANTITY + " <= COALESCE(p.minimumStock, 5) ORDER BY p.id")
+    List<ProductDTO> findLowStockRows();
+
+    @Query(PRODUCT_ROW + " WHERE " + CURRENT_QUANTITY + " = 0 ORDER BY p.id")
+    List<ProductDTO> findOutOfStockRows();
+
+    @Query(PRODUCT_ROW + " WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductDTO> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // === NIVELES DE STOCK (conjuntos de alertas, ver StockAlertIndex) ===
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new org.example.repository.StockLevel(p.id, " + CURRENT_QUANTITY + ", COALESCE(p.minimumStock, 5)) " +
+            "FROM Product p ORDER BY p.id")
+    Stream<StockLevel> streamStockLevels();
+
+    @Query("SELECT new org.example.repository.StockLevel(p.id, " + CURRENT_QUANTITY + ", COALESCE(p.minimumStock, 5)) " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<StockLevel> findStockLevelsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COUNT(p) FROM Product p WHERE " + CURRENT_QUANTITY + " <= COALESCE(p.minimumStock, 5)")
+    long countLowStockProducts();
+
+    @Query("SELECT COUNT(p) FROM Product p WHERE " + CURRENT_QUANTITY + " = 0")
+    long countOutOfStockProducts();
+
+    // === VALOR POR PRODUCTO (totales en memoria, ver InventoryStats) ===
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new org.example.repository.ProductValue(p.id, p.category, p.price, " + CURRENT_QUANTITY + ") " +
+            "FROM Product p ORDER BY p.id")
+    Stream<ProductValue> streamProductValues();
+
+    @Query("SELECT new org.example.repository.ProductValue(p.id, p.category, p.price, " + CURRENT_QUANTITY + ") " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<ProductValue> findProductValuesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new org.example.repository.InventoryTotals(COUNT(p), " +
+            "COALESCE(SUM(p.price * " + CURRENT_QUANTITY + "), 0)) FROM Product p")
+    InventoryTotals getInventoryTotals();
+
+    // === PAGINACIÓN POR CURSOR (keyset, sin OFFSET) ===
+    // Cada página empieza justo después de la última fila de la anterior: llegar a la página N cuesta
+    // lo mismo que a la primera. El orden por nombre se apoya en idx_products_name_id
+
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Product> findAllByOrderByNameAscIdAsc(Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE (p.name, p.id) > (:name, :id) ORDER BY p.name, p.id")
+    List<Product> findPageAfterName(@Param("name") String name, @Param("id") Long id, Limit limit);
+
+    // === EXPORTACIÓN (cursor de solo avance) ===
+    // Se consume dentro de una transacción y se cierra. Las filas llegan del servidor en bloques del
+    // fetch size (PostgreSQL solo usa un cursor de servidor con autocommit desactivado)
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllForExport();
+
+    // === ACTUALIZACIONES ATÓMICAS DE STOCK ===
+
+    // Comprobación y actualización en una sola sentencia: solo se aplica si hay stock suficiente
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.initialQuantity = p.initialQuantity - :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.initialQuantity >= :quantity")
+    int decrementQuantityIfSufficient(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    // Incremento incondicional en una sola sentencia
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.initialQuantity = p.initialQuantity + :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :id")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    // Compare-and-set sobre la versión: 0 filas significa que otra transacción cambió antes el producto
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.initialQuantity = :newQuantity, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.version = :version")
+    int updateQuantityIfVersion(@Param("id") Long id, @Param("newQuantity") Integer newQuantity,
+                                @Param("version") Long version);
+
+    // Stock actual y versión sin cargar la entidad
+    @Query("SELECT new org.example.repository.StockSnapshot(p.initialQuantity, p.version, p.stockSlots) FROM Product p WHERE p.id = :id")
+    Optional<StockSnapshot> findStockSnapshotById(@Param("id") Long id);
+
+    // Productos con sus slots ya cargados, para que getCurrentQuantity() funcione sin sesión (los
+    // cargadores de la caché corren sin transacción); los productos sin repartir no tienen slots que unir
+    @EntityGraph(attributePaths = "slots")
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findWithSlotsById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "slots")
+    @Query("SELECT p FROM Product p")
+    List<Product> findAllWithSlots();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // Solo PostgreSQL: el mismo bloqueo que toma la FK de stock_movements al insertar, pedido antes
+    // de tocar un slot para respetar el orden products -> slots (ver StockSlotService)
+    @Query(value = "SELECT p.id FROM products p WHERE p.id = :id FOR KEY SHARE", nativeQuery = true)
+    Optional<Long> lockKeyShareById(@Param("id") Long id);
+
+    // Número de slots de stock (0 = sin repartir)
+    @Query("SELECT p.stockSlots FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockSlotsById(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM Product p WHERE p.stockSlots > 0 ORDER BY p.id")
+    List<Long> findShardedProductIds();
+
+    // Stock actual sin cargar la entidad
+    @Query("SELECT p.initialQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+
+    // Descuento atómico que devuelve las cantidades antes y después, vacío si no hay stock suficiente
+    // o el producto no existe. El UPDATE deja la fila bloqueada hasta el final de la transacción, así
+    // que la cantidad (y stock_slots) leídas después son las que vio este descuento
+    default Optional<StockChange> decrementStockIfSufficient(Long id, Integer quantity) {
+        if (decrementQuantityIfSufficient(id, quantity) == 0) {
+            return Optional.empty();
+        }
+        return findStockSnapshotById(id)
+                .map(row -> new StockChange(row.quantity() + quantity, row.quantity(), 0, row.stockSlots()));
+    }
+
+    // Incremento atómico que devuelve las cantidades antes y después, vacío si el producto no existe
+    default Optional<StockChange> incrementStock(Long id, Integer quantity) {
+        if (incrementQuantity(id, quantity) == 0) {
+            return Optional.empty();
+        }
+        return findStockSnapshotById(id)
+                .map(row -> new StockChange(row.quantity() - quantity, row.quantity(), 0, row.stockSlots()));
+    }
+
+    // Bloquea todos los productos de un lote en una sola consulta. Las filas se bloquean siempre en
+    // orden de id, así dos lotes con los mismos productos no pueden bloquearse mutuamente
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+}
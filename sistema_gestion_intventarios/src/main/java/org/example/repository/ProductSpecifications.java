@@ -0,0 +1,90 @@
+package org.example.repository;
+
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.example.entity.Product;
+import org.example.entity.ProductStockSlot;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Criteria predicates for product searches. They are combined into a single query so that
+ * filtering, ordering and the limit all run in the database (category and price are backed by
+ * idx_products_category and idx_products_price).
+ */
+public final class ProductSpecifications {
+
+    // Atributos por los que se puede ordenar una búsqueda ("-" delante = descendente)
+    private static final Set<String> SORTABLE = Set.of("id", "name", "category", "price", "initialQuantity");
+
+    // Mismo valor por defecto que Product.getMinimumStock()
+    private static final int DEFAULT_MINIMUM_STOCK = 5;
+
+    private ProductSpecifications() {
+    }
+
+    // Same matching as findBySearchTerm: term contained in name, description or category
+    public static Specification<Product> containsTerm(String term) {
+        String pattern = "%" + escapeLike(term.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("name")), pattern, '\\'),
+                cb.like(cb.lower(root.get("description")), pattern, '\\'),
+                cb.like(cb.lower(root.get("category")), pattern, '\\'));
+    }
+
+    public static Specification<Product> inCategory(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Product> priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.between(root.get("price"), minPrice, maxPrice);
+    }
+
+    public static Specification<Product> lowStock() {
+        return (root, query, cb) -> cb.le(currentQuantity(root, query, cb),
+                cb.coalesce(root.<Integer>get("minimumStock"), DEFAULT_MINIMUM_STOCK));
+    }
+
+    public static Specification<Product> outOfStock() {
+        return (root, query, cb) -> cb.equal(currentQuantity(root, query, cb), 0);
+    }
+
+    // "price" -> price ascendente, "-price" -> descendente; null o vacío -> id. Siempre desempata por id.
+    public static Sort sortBy(String value) {
+        if (value == null || value.isBlank()) {
+            return Sort.by("id");
+        }
+        String trimmed = value.trim();
+        boolean descending = trimmed.startsWith("-");
+        String property = descending ? trimmed.substring(1) : trimmed;
+        if (!SORTABLE.contains(property)) {
+            throw new IllegalArgumentException("Invalid sort: " + value + " (expected one of " + SORTABLE + ")");
+        }
+        Sort sort = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, property);
+        return "id".equals(property) ? sort : sort.and(Sort.by("id"));
+    }
+
+    // Backslash is used as the LIKE escape character of these predicates
+    public static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Mismo criterio que Product.getCurrentQuantity() y ProductRepository.CURRENT_QUANTITY
+    private static Expression<Integer> currentQuantity(Root<Product> root, CommonAbstractCriteria query,
+                                                       CriteriaBuilder cb) {
+        Subquery<Integer> slotQuantity = query.subquery(Integer.class);
+        Root<ProductStockSlot> slot = slotQuantity.from(ProductStockSlot.class);
+        slotQuantity.select(cb.coalesce(cb.sum(slot.<Integer>get("quantity")), 0))
+                .where(cb.equal(slot.get("productId"), root.get("id")));
+        return cb.<Integer>selectCase()
+                .when(cb.gt(root.<Integer>get("stockSlots"), 0), slotQuantity)
+                .otherwise(root.<Integer>get("initialQuantity"));
+    }
+}
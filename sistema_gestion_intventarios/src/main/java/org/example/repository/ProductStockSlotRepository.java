@@ -0,0 +1,43 @@
+package org.example.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.entity.ProductStockSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ProductStockSlotRepository extends JpaRepository<ProductStockSlot, ProductStockSlot.SlotId> {
+
+    // === ACTUALIZACIONES DE UN SOLO SLOT ===
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductStockSlot s SET s.quantity = s.quantity + :quantity " +
+            "WHERE s.productId = :productId AND s.slot = :slot")
+    int incrementSlot(@Param("productId") Long productId, @Param("slot") Integer slot,
+                      @Param("quantity") Integer quantity);
+
+    // Only succeeds when this slot alone holds enough stock
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductStockSlot s SET s.quantity = s.quantity - :quantity " +
+            "WHERE s.productId = :productId AND s.slot = :slot AND s.quantity >= :quantity")
+    int decrementSlotIfSufficient(@Param("productId") Long productId, @Param("slot") Integer slot,
+                                  @Param("quantity") Integer quantity);
+
+    // === LECTURAS ===
+
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockSlot s WHERE s.productId = :productId")
+    Long sumQuantity(@Param("productId") Long productId);
+
+    // Locks every slot of a product, always in slot order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockSlot s WHERE s.productId = :productId ORDER BY s.slot")
+    List<ProductStockSlot> findAllForUpdate(@Param("productId") Long productId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM ProductStockSlot s WHERE s.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,7 @@
+package org.example.repository;
+
+import java.math.BigDecimal;
+
+// Category, price and current stock (slots included) of a product, as kept by the inventory totals
+public record ProductValue(Long id, String category, BigDecimal price, Integer quantity) {
+}
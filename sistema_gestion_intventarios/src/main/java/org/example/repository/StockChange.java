@@ -0,0 +1,16 @@
+package org.example.repository;
+
+// Before/after quantities of a stock update applied directly in the database.
+// lockWaitNanos is the time spent acquiring the row lock when it was taken as a separate statement.
+// stockSlots is products.stock_slots as read by the update itself: > 0 means the product was sharded
+// after the caller routed the movement to the products row, and the change must be replayed on the slots.
+public record StockChange(Integer previousQuantity, Integer newQuantity, long lockWaitNanos, int stockSlots) {
+
+    public StockChange(Integer previousQuantity, Integer newQuantity) {
+        this(previousQuantity, newQuantity, 0, 0);
+    }
+
+    public StockChange(Integer previousQuantity, Integer newQuantity, long lockWaitNanos) {
+        this(previousQuantity, newQuantity, lockWaitNanos, 0);
+    }
+}
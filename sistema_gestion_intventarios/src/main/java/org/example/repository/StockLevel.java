@@ -0,0 +1,13 @@
+package org.example.repository;
+
+// Current stock (slots included) and minimum stock of a product, as kept by the stock alert sets
+public record StockLevel(Long id, Integer quantity, Integer minimumStock) {
+
+    public boolean lowStock() {
+        return quantity <= minimumStock;
+    }
+
+    public boolean outOfStock() {
+        return quantity == 0;
+    }
+}
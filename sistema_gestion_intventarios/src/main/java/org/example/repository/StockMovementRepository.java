@@ -3,36 +3,69 @@ package org.example.repository;
 import org.example.entity.MovementType;
 import org.example.entity.Product;
 import org.example.entity.StockMovement;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+// Every list query fetches the product in the same SELECT (join on products): StockMovementDTO
+// reads its id and name, and the LAZY association would otherwise cost one query per row.
+// The product is a single row per movement, so paging still applies in the database.
 public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
 
+    @Override
+    @EntityGraph(attributePaths = "product")
+    List<StockMovement> findAll();
+
     // Find movements by product
+    @EntityGraph(attributePaths = "product")
     List<StockMovement> findByProductOrderByTimestampDesc(Product product);
+    @EntityGraph(attributePaths = "product")
     Page<StockMovement> findByProductOrderByTimestampDesc(Product product, Pageable pageable);
 
+    // === HISTORIAL POR CURSOR (keyset, sin OFFSET) ===
+    // Newest first; each page continues after the (timestamp, id) of the previous one and is a
+    // range scan of idx_stock_movements_product_timestamp_id.
+
+    @EntityGraph(attributePaths = "product")
+    List<StockMovement> findByProductIdOrderByTimestampDescIdDesc(Long productId, Limit limit);
+
+    @EntityGraph(attributePaths = "product")
+    @Query("SELECT sm FROM StockMovement sm WHERE sm.product.id = :productId " +
+            "AND (sm.timestamp, sm.id) < (:timestamp, :id) ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<StockMovement> findHistoryPageAfter(@Param("productId") Long productId,
+                                             @Param("timestamp") LocalDateTime timestamp,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
     // Find movements by type
+    @EntityGraph(attributePaths = "product")
     List<StockMovement> findByMovementTypeOrderByTimestampDesc(MovementType movementType);
+    @EntityGraph(attributePaths = "product")
     Page<StockMovement> findByMovementTypeOrderByTimestampDesc(MovementType movementType, Pageable pageable);
 
     // Find movements by user
+    @EntityGraph(attributePaths = "product")
     List<StockMovement> findByUsernameOrderByTimestampDesc(String username);
+    @EntityGraph(attributePaths = "product")
     Page<StockMovement> findByUsernameOrderByTimestampDesc(String username, Pageable pageable);
 
     // Find movements in date range
+    @EntityGraph(attributePaths = "product")
     @Query("SELECT sm FROM StockMovement sm WHERE sm.timestamp BETWEEN :startDate AND :endDate ORDER BY sm.timestamp DESC")
     List<StockMovement> findByTimestampBetween(
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate
     );
 
+    @EntityGraph(attributePaths = "product")
     @Query("SELECT sm FROM StockMovement sm WHERE sm.timestamp BETWEEN :startDate AND :endDate ORDER BY sm.timestamp DESC")
     Page<StockMovement> findByTimestampBetween(
             @Param("startDate") LocalDateTime startDate,
@@ -40,7 +73,12 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
             Pageable pageable
     );
 
+    // Newest movements first, id as tie-breaker, served by idx_stock_movements_timestamp_id: reads only `limit` rows
+    @EntityGraph(attributePaths = "product")
+    List<StockMovement> findAllByOrderByTimestampDescIdDesc(Limit limit);
+
     // Find recent movements
+    @EntityGraph(attributePaths = "product")
     @Query("SELECT sm FROM StockMovement sm ORDER BY sm.timestamp DESC")
     Page<StockMovement> findRecentMovements(Pageable pageable);
 
@@ -53,6 +91,7 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
     Integer getTotalStockOutByProduct(@Param("product") Product product);
 
     // Complex search query
+    @EntityGraph(attributePaths = "product")
     @Query("SELECT sm FROM StockMovement sm WHERE " +
             "(:productId IS NULL OR sm.product.id = :productId) AND " +
             "(:movementType IS NULL OR sm.movementType = :movementType) AND " +
@@ -86,4 +125,12 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
     @Query("SELECT sm.username, COUNT(sm) as movementCount FROM StockMovement sm " +
             "GROUP BY sm.username ORDER BY movementCount DESC")
     List<Object[]> findMostActiveUsers(Pageable pageable);
-}
\ No newline at end of file
+
+    // === JOURNAL DE MOVIMIENTOS ===
+
+    @Query("SELECT sm.journalSeq FROM StockMovement sm WHERE sm.journalSeq BETWEEN :fromSeq AND :toSeq")
+    List<Long> findJournalSeqsBetween(@Param("fromSeq") Long fromSeq, @Param("toSeq") Long toSeq);
+
+    @Query("SELECT MAX(sm.journalSeq) FROM StockMovement sm WHERE sm.journalSeq BETWEEN :fromSeq AND :toSeq")
+    Optional<Long> findMaxJournalSeqBetween(@Param("fromSeq") Long fromSeq, @Param("toSeq") Long toSeq);
+}
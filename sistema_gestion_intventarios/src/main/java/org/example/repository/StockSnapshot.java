@@ -0,0 +1,5 @@
+package org.example.repository;
+
+// Stock, version and number of stock slots of a product as read by a compare-and-set update
+public record StockSnapshot(Integer quantity, Long version, Integer stockSlots) {
+}
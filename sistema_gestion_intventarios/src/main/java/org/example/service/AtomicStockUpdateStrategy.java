@@ -0,0 +1,52 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockChange;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Increments and decrements are single UPDATE statements (quantity = quantity ± delta), so they
+ * never read a stale value and never need a retry; their row-lock wait is part of the statement.
+ * An absolute ADJUSTMENT has no delta form and locks the row before writing it.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.concurrency", havingValue = "atomic", matchIfMissing = true)
+public class AtomicStockUpdateStrategy implements StockUpdateStrategy {
+
+    private final ProductRepository productRepository;
+    private final StockUpdateMetrics metrics;
+
+    public AtomicStockUpdateStrategy(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.metrics = new StockUpdateMetrics(meterRegistry, "atomic");
+    }
+
+    @Override
+    public StockChange increase(Long productId, Integer quantity) {
+        return metrics.record(() -> productRepository.incrementStock(productId, quantity))
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+    }
+
+    @Override
+    public Optional<StockChange> decreaseIfSufficient(Long productId, Integer quantity) {
+        return metrics.record(() -> productRepository.decrementStockIfSufficient(productId, quantity));
+    }
+
+    @Override
+    public StockChange set(Long productId, Integer newQuantity) {
+        return metrics.record(() -> {
+            long lockStart = System.nanoTime();
+            Product product = productRepository.findByIdForUpdate(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+            long lockWaitNanos = System.nanoTime() - lockStart;
+            Integer previousQuantity = product.getInitialQuantity();
+            product.setInitialQuantity(newQuantity);
+            return new StockChange(previousQuantity, newQuantity, lockWaitNanos, product.getStockSlots());
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.service;
+
+import org.example.dto.ProductPageDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * StockService used when inventory.stock.write-mode=group-commit.
+ * Movements go through StockGroupCommitter so concurrent callers share one transaction and one commit.
+ * Reads go straight through.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "inventory.stock.write-mode", havingValue = "group-commit")
+public class GroupCommitStockService implements StockService {
+
+    private final StockServiceImpl delegate;
+    private final StockGroupCommitter committer;
+
+    public GroupCommitStockService(StockServiceImpl delegate, StockGroupCommitter committer) {
+        this.delegate = delegate;
+        this.committer = committer;
+    }
+
+    // === MOVIMIENTOS BÁSICOS ===
+
+    @Override
+    public StockMovementDTO registerStockIn(StockMovementDTO request, String username) {
+        return committer.submit(new StockMovementCommand(MovementType.STOCK_IN, request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerStockOut(StockMovementDTO request, String username) {
+        return committer.submit(new StockMovementCommand(MovementType.STOCK_OUT, request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerAdjustment(StockMovementDTO request, String username) {
+        return committer.submit(new StockMovementCommand(MovementType.ADJUSTMENT, request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerReturn(StockMovementDTO request, String username) {
+        return committer.submit(new StockMovementCommand(MovementType.RETURN, request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerLoss(StockMovementDTO request, String username) {
+        return committer.submit(new StockMovementCommand(MovementType.LOSS, request, username));
+    }
+
+    // === MOVIMIENTOS EN LOTE ===
+
+    // El lote ya bloquea sus productos en orden de id dentro de una sola transacción
+    @Override
+    public StockBatchResultDTO registerMovementBatch(StockBatchRequestDTO batch, String username) {
+        return delegate.registerMovementBatch(batch, username);
+    }
+
+    // === CONSULTAS BÁSICAS ===
+
+    @Override
+    public List<StockMovementDTO> getProductHistory(Long productId) {
+        return delegate.getProductHistory(productId);
+    }
+
+    @Override
+    public ProductPageDTO<StockMovementDTO> getProductHistoryPage(Long productId, String cursor, int size) {
+        return delegate.getProductHistoryPage(productId, cursor, size);
+    }
+
+    @Override
+    public List<StockMovementDTO> getRecentMovements(int limit) {
+        return delegate.getRecentMovements(limit);
+    }
+
+    // === VALIDACIONES SIMPLES ===
+
+    @Override
+    public boolean hasSufficientStock(Long productId, Integer quantity) {
+        return delegate.hasSufficientStock(productId, quantity);
+    }
+
+    @Override
+    public Integer getCurrentStock(Long productId) {
+        return delegate.getCurrentStock(productId);
+    }
+}
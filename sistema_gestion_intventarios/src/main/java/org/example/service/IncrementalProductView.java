@@ -0,0 +1,202 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory view over the products table that follows committed writes without depending on their
+ * order. Every product or stock commit only marks its products as changed; the next read reloads the
+ * marked products by primary key before answering. The view is built from the database once the
+ * application is up, compared with it periodically and rebuilt if it drifted (writes that bypass the
+ * services, another instance). Until the first load, after a failed one, and inside read-write
+ * transactions, callers fall back to the database.
+ * <p>
+ * Subclasses hold the data under their own monitor and say how to build it, how to apply a reloaded
+ * chunk of products and how to compare it with the database.
+ */
+public abstract class IncrementalProductView implements ProductChangeListener {
+
+    // Productos recargados por consulta al aplicar cambios
+    private static final int LOAD_CHUNK = 1_000;
+
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+
+    protected final ProductRepository productRepository;
+    protected final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final String description;
+    private volatile boolean loaded;
+
+    // Productos modificados por transacciones ya confirmadas, pendientes de recargar
+    private final Object changesLock = new Object();
+    private Set<Long> changed = new HashSet<>();
+
+    // Una recarga a la vez: una lectura no responde mientras otra aplica cambios ya confirmados
+    private final Object refreshLock = new Object();
+
+    private final Counter reloadedProducts;
+    private final Counter drifts;
+
+    protected IncrementalProductView(ProductRepository productRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     boolean enabled,
+                                     String metricPrefix,
+                                     String description) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.description = description;
+        this.reloadedProducts = Counter.builder(metricPrefix + "_reloaded_total")
+                .description("Products reloaded into the " + description + " after a commit")
+                .register(meterRegistry);
+        this.drifts = Counter.builder(metricPrefix + "_drift_total")
+                .description("Reconciliations that found the " + description + " out of date and rebuilt them")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        // Los cambios confirmados durante la carga quedan marcados y se recargan en la primera lectura
+        try {
+            synchronized (refreshLock) {
+                rebuild();
+                loaded = true;
+            }
+        } catch (RuntimeException e) {
+            // Ids o valores fuera de rango, o base no disponible
+            disable();
+            log.warn("Could not load the {}, reading them from the database", description, e);
+        }
+    }
+
+    public boolean isUsable() {
+        return enabled && loaded && ProductChangeListener.outsideWriteTransaction();
+    }
+
+    // === CAMBIOS ===
+
+    // Producto creado, editado, borrado o con stock modificado: se recarga en la siguiente lectura
+    @Override
+    public void productsChanged(ProductChange change) {
+        if (enabled) {
+            markChanged(change.productIds());
+        }
+    }
+
+    // === CONCILIACIÓN PERIÓDICA ===
+
+    // Compara con la base tras aplicar los cambios pendientes; un commit entre medio puede dar una
+    // diferencia pasajera, por eso se vuelve a comparar antes de reconstruir
+    @Scheduled(fixedDelayString = "${inventory.stats.reconcile-ms:300000}",
+            initialDelayString = "${inventory.stats.reconcile-ms:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        if (!loaded) {
+            load();
+            return;
+        }
+        try {
+            if (matchesDatabase() || matchesDatabase()) {
+                return;
+            }
+            drifts.increment();
+            log.warn("The {} drifted from the database, rebuilding them", description);
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Reconciliation of the {} failed", description, e);
+        }
+    }
+
+    // === PARA LAS SUBCLASES ===
+
+    // Carga completa desde la base; reemplaza los datos con el monitor de la instancia tomado
+    protected abstract void rebuild();
+
+    // Recarga los productos dados (los que no vuelven fueron borrados) y los aplica con el monitor tomado
+    protected abstract void reloadChunk(List<Long> productIds);
+
+    protected abstract boolean matchesDatabase();
+
+    // Con el monitor de la instancia tomado: deja la vista vacía
+    protected abstract void clear();
+
+    // Aplica los cambios confirmados pendientes; false si hay que leer de la base
+    protected final boolean refreshed() {
+        if (!isUsable()) {
+            return false;
+        }
+        refresh();
+        return loaded;
+    }
+
+    // Para leer con el monitor tomado: una recarga fallida puede haber vaciado la vista entre medio
+    protected final boolean isLoaded() {
+        return loaded;
+    }
+
+    // === MÉTODOS PRIVADOS AUXILIARES ===
+
+    private void markChanged(Collection<Long> productIds) {
+        synchronized (changesLock) {
+            changed.addAll(productIds);
+        }
+    }
+
+    // Un cambio confirmado mientras se recarga queda marcado para la siguiente lectura
+    private void refresh() {
+        synchronized (refreshLock) {
+            Set<Long> pending;
+            synchronized (changesLock) {
+                if (changed.isEmpty()) {
+                    return;
+                }
+                pending = changed;
+                changed = new HashSet<>();
+            }
+            reload(pending);
+        }
+    }
+
+    private void reload(Set<Long> pending) {
+        try {
+            List<Long> ids = new ArrayList<>(pending);
+            for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+                reloadChunk(ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size())));
+            }
+            reloadedProducts.increment(pending.size());
+        } catch (ArithmeticException e) {
+            // Un valor que no cabe: se deja de usar hasta la próxima carga completa
+            log.warn("The {} are disabled until the next rebuild", description, e);
+            disable();
+        } catch (RuntimeException e) {
+            markChanged(pending);
+            throw e;
+        }
+    }
+
+    private synchronized void disable() {
+        loaded = false;
+        clear();
+    }
+}
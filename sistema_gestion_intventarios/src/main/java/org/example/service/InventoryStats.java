@@ -0,0 +1,222 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.InventoryTotals;
+import org.example.repository.ProductRepository;
+import org.example.repository.ProductValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Running catalog totals for the basic stats: product count, stock value and distinct categories,
+ * read in constant time. Each product's contribution (value in cents and category) is kept in a
+ * primitive hash table keyed by id, so a change is applied as a delta: the old contribution is taken
+ * out and the new one added. The totals follow committed writes as described in
+ * {@link IncrementalProductView}.
+ */
+@Component
+public class InventoryStats extends IncrementalProductView {
+
+    // Se reemplaza entera al reconstruir; se modifica con el monitor de la instancia
+    private Contributions current = new Contributions();
+
+    public record Totals(long products, BigDecimal value, int categories) {
+    }
+
+    public InventoryStats(ProductRepository productRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${inventory.stats.enabled:true}") boolean enabled) {
+        super(productRepository, transactionManager, meterRegistry, enabled,
+                "inventory_stats", "running inventory totals");
+    }
+
+    // === LECTURAS ===
+
+    // Totales al día con todos los commits ya confirmados, o vacío si hay que consultar la base
+    public Optional<Totals> totals() {
+        if (!refreshed()) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            return isLoaded() ? Optional.of(current.totals()) : Optional.empty();
+        }
+    }
+
+    // === CARGA Y RECARGA ===
+
+    @Override
+    protected void rebuild() {
+        Contributions rebuilt = new Contributions();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ProductValue> values = productRepository.streamProductValues()) {
+                values.forEach(rebuilt::add);
+            }
+        });
+        synchronized (this) {
+            current = rebuilt;
+        }
+        Totals totals = rebuilt.totals();
+        log.info("Inventory totals loaded: {} products, {} categories, value {}",
+                totals.products(), totals.categories(), totals.value());
+    }
+
+    @Override
+    protected void reloadChunk(List<Long> productIds) {
+        List<ProductValue> values = readOnlyTransaction.execute(status -> productRepository.findProductValuesByIdIn(productIds));
+        synchronized (this) {
+            productIds.forEach(current::remove);
+            values.forEach(current::add);
+        }
+    }
+
+    @Override
+    protected boolean matchesDatabase() {
+        Totals memory = totals().orElse(null);
+        if (memory == null) {
+            return true;
+        }
+        return Boolean.TRUE.equals(readOnlyTransaction.execute(status -> {
+            InventoryTotals database = productRepository.getInventoryTotals();
+            return database.products() == memory.products()
+                    && database.value().compareTo(memory.value()) == 0
+                    && productRepository.findAllCategories().size() == memory.categories();
+        }));
+    }
+
+    @Override
+    protected void clear() {
+        current = new Contributions();
+    }
+
+    /**
+     * Contribution of each product (value in cents and category code) and the totals they add up to.
+     * Contributions live in an open-addressing table with linear probing over parallel primitive
+     * arrays, so memory follows the number of products rather than the largest id and no entry
+     * objects are allocated. Not thread-safe: InventoryStats guards it with its monitor.
+     */
+    public static final class Contributions {
+
+        private static final int MIN_CAPACITY = 16;
+
+        // Tabla de direccionamiento abierto; categoryOf = 0 marca un hueco libre
+        private long[] ids = new long[MIN_CAPACITY];
+        private long[] valueCents = new long[MIN_CAPACITY];
+        private int[] categoryOf = new int[MIN_CAPACITY];
+
+        // null también es una categoría, como en el DISTINCT de findAllCategories
+        private final Map<String, Integer> categoryCodes = new HashMap<>();
+        private int[] productsInCategory = new int[1];
+
+        private long products;
+        private long totalCents;
+        private int categories;
+
+        public Totals totals() {
+            return new Totals(products, BigDecimal.valueOf(totalCents, 2), categories);
+        }
+
+        // Reemplaza el aporte anterior del producto, si lo había
+        public void add(ProductValue value) {
+            long cents = Math.multiplyExact(value.price().movePointRight(2).longValueExact(), (long) value.quantity());
+            remove(value.id());
+            int code = categoryCodes.computeIfAbsent(value.category(), category -> categoryCodes.size() + 1);
+            if (code >= productsInCategory.length) {
+                productsInCategory = Arrays.copyOf(productsInCategory, code * 2);
+            }
+            totalCents = Math.addExact(totalCents, cents);
+            if ((products + 1) * 4 > ids.length * 3L) {
+                resize(ids.length * 2);
+            }
+            int slot = home(value.id());
+            while (categoryOf[slot] != 0) {
+                slot = (slot + 1) & (ids.length - 1);
+            }
+            ids[slot] = value.id();
+            valueCents[slot] = cents;
+            categoryOf[slot] = code;
+            products++;
+            if (productsInCategory[code]++ == 0) {
+                categories++;
+            }
+        }
+
+        public void remove(Long productId) {
+            int slot = find(productId);
+            if (slot < 0) {
+                return;
+            }
+            int code = categoryOf[slot];
+            totalCents -= valueCents[slot];
+            products--;
+            if (--productsInCategory[code] == 0) {
+                categories--;
+            }
+            delete(slot);
+        }
+
+        private int find(long id) {
+            int mask = ids.length - 1;
+            for (int slot = home(id); categoryOf[slot] != 0; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        // Borrado sin marcas: las entradas siguientes del mismo tramo que pueden ocupar el hueco se
+        // adelantan, así una búsqueda sigue parando en el primer hueco libre
+        private void delete(int slot) {
+            int mask = ids.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; categoryOf[next] != 0; next = (next + 1) & mask) {
+                int home = home(ids[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    ids[hole] = ids[next];
+                    valueCents[hole] = valueCents[next];
+                    categoryOf[hole] = categoryOf[next];
+                    hole = next;
+                }
+            }
+            ids[hole] = 0;
+            valueCents[hole] = 0;
+            categoryOf[hole] = 0;
+        }
+
+        private void resize(int capacity) {
+            long[] oldIds = ids;
+            long[] oldCents = valueCents;
+            int[] oldCategories = categoryOf;
+            ids = new long[capacity];
+            valueCents = new long[capacity];
+            categoryOf = new int[capacity];
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldCategories[i] != 0) {
+                    int slot = home(oldIds[i]);
+                    while (categoryOf[slot] != 0) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    ids[slot] = oldIds[i];
+                    valueCents[slot] = oldCents[i];
+                    categoryOf[slot] = oldCategories[i];
+                }
+            }
+        }
+
+        // Hash multiplicativo: ids consecutivos quedan repartidos por toda la tabla
+        private int home(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & (ids.length - 1);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.service;
+
+import org.example.dto.ProductPageDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
+import org.example.dto.StockMovementDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * StockService used when inventory.stock.write-mode=lanes.
+ * Movements are handed to the lane owning the product; the transaction is opened inside the lane,
+ * so callers queued behind a hot SKU do not hold a database connection. Reads go straight through.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "inventory.stock.write-mode", havingValue = "lanes")
+public class LaneRoutedStockService implements StockService {
+
+    private final StockServiceImpl delegate;
+    private final StockWriteLanes lanes;
+
+    public LaneRoutedStockService(StockServiceImpl delegate, StockWriteLanes lanes) {
+        this.delegate = delegate;
+        this.lanes = lanes;
+    }
+
+    // === MOVIMIENTOS BÁSICOS ===
+
+    @Override
+    public StockMovementDTO registerStockIn(StockMovementDTO request, String username) {
+        return lanes.execute(request.getProductId(), () -> delegate.registerStockIn(request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerStockOut(StockMovementDTO request, String username) {
+        return lanes.execute(request.getProductId(), () -> delegate.registerStockOut(request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerAdjustment(StockMovementDTO request, String username) {
+        return lanes.execute(request.getProductId(), () -> delegate.registerAdjustment(request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerReturn(StockMovementDTO request, String username) {
+        return lanes.execute(request.getProductId(), () -> delegate.registerReturn(request, username));
+    }
+
+    @Override
+    public StockMovementDTO registerLoss(StockMovementDTO request, String username) {
+        return lanes.execute(request.getProductId(), () -> delegate.registerLoss(request, username));
+    }
+
+    // === MOVIMIENTOS EN LOTE ===
+
+    // El lote ya bloquea sus productos en orden de id dentro de una sola transacción
+    @Override
+    public StockBatchResultDTO registerMovementBatch(StockBatchRequestDTO batch, String username) {
+        return delegate.registerMovementBatch(batch, username);
+    }
+
+    // === CONSULTAS BÁSICAS ===
+
+    @Override
+    public List<StockMovementDTO> getProductHistory(Long productId) {
+        return delegate.getProductHistory(productId);
+    }
+
+    @Override
+    public ProductPageDTO<StockMovementDTO> getProductHistoryPage(Long productId, String cursor, int size) {
+        return delegate.getProductHistoryPage(productId, cursor, size);
+    }
+
+    @Override
+    public List<StockMovementDTO> getRecentMovements(int limit) {
+        return delegate.getRecentMovements(limit);
+    }
+
+    // === VALIDACIONES SIMPLES ===
+
+    @Override
+    public boolean hasSufficientStock(Long productId, Integer quantity) {
+        return delegate.hasSufficientStock(productId, quantity);
+    }
+
+    @Override
+    public Integer getCurrentStock(Long productId) {
+        return delegate.getCurrentStock(productId);
+    }
+}
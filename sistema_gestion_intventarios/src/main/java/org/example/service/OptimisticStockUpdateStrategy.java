@@ -0,0 +1,99 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockChange;
+import org.example.repository.StockSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reads quantity and version without locking, then writes with UPDATE ... WHERE version = :read.
+ * A lost race updates no rows and is retried with exponential backoff and jitter up to max-attempts.
+ * The compare-and-set is a plain statement rather than an entity flush, so a conflict does not mark
+ * the surrounding transaction rollback-only and the retry can run inside it (READ COMMITTED sees
+ * the winner's commit on the next read).
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.concurrency", havingValue = "optimistic")
+public class OptimisticStockUpdateStrategy implements StockUpdateStrategy {
+
+    private static final long MAX_BACKOFF_MS = 50;
+
+    private final ProductRepository productRepository;
+    private final StockUpdateMetrics metrics;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public OptimisticStockUpdateStrategy(ProductRepository productRepository,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${inventory.stock.optimistic.max-attempts:5}") int maxAttempts,
+                                         @Value("${inventory.stock.optimistic.backoff-ms:2}") long backoffMs) {
+        this.productRepository = productRepository;
+        this.metrics = new StockUpdateMetrics(meterRegistry, "optimistic");
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = Math.max(0, backoffMs);
+    }
+
+    @Override
+    public StockChange increase(Long productId, Integer quantity) {
+        return update(productId, current -> current + quantity).orElseThrow();
+    }
+
+    @Override
+    public Optional<StockChange> decreaseIfSufficient(Long productId, Integer quantity) {
+        return update(productId, current -> current >= quantity ? current - quantity : null);
+    }
+
+    @Override
+    public StockChange set(Long productId, Integer newQuantity) {
+        return update(productId, current -> newQuantity).orElseThrow();
+    }
+
+    // next devuelve null cuando el cambio no se puede aplicar
+    private Optional<StockChange> update(Long productId, UnaryOperator<Integer> next) {
+        return metrics.record(() -> {
+            for (int attempt = 1; ; attempt++) {
+                StockSnapshot snapshot = productRepository.findStockSnapshotById(productId)
+                        .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+
+                Integer newQuantity = next.apply(snapshot.quantity());
+                if (newQuantity == null) {
+                    return Optional.empty();
+                }
+                if (productRepository.updateQuantityIfVersion(productId, newQuantity, snapshot.version()) == 1) {
+                    // Sharding bumps the version: a snapshot from before it cannot win the compare-and-set
+                    return Optional.of(new StockChange(snapshot.quantity(), newQuantity, 0, snapshot.stockSlots()));
+                }
+
+                metrics.conflict();
+                if (attempt >= maxAttempts) {
+                    metrics.retriesExhausted();
+                    throw new OptimisticLockingFailureException(
+                            "Concurrent stock update on product " + productId + ", gave up after " + maxAttempts + " attempts");
+                }
+                metrics.retry();
+                backoff(attempt);
+            }
+        });
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, backoffMs << Math.min(attempt - 1, 10));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying stock update", e);
+        }
+    }
+}
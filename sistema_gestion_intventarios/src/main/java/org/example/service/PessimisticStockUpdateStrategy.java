@@ -0,0 +1,69 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockChange;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Every stock change loads the product with SELECT ... FOR UPDATE and writes it through the entity.
+ * Concurrent movements on the same SKU queue on the row lock; the wait is reported separately.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.concurrency", havingValue = "pessimistic")
+public class PessimisticStockUpdateStrategy implements StockUpdateStrategy {
+
+    private final ProductRepository productRepository;
+    private final StockUpdateMetrics metrics;
+    private final Timer lockWaitTimer;
+
+    public PessimisticStockUpdateStrategy(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.metrics = new StockUpdateMetrics(meterRegistry, "pessimistic");
+        this.lockWaitTimer = Timer.builder("inventory_stock_update_lock_wait_seconds")
+                .description("Time spent acquiring the product row lock")
+                .tag("strategy", "pessimistic")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public StockChange increase(Long productId, Integer quantity) {
+        return update(productId, current -> current + quantity).orElseThrow();
+    }
+
+    @Override
+    public Optional<StockChange> decreaseIfSufficient(Long productId, Integer quantity) {
+        return update(productId, current -> current >= quantity ? current - quantity : null);
+    }
+
+    @Override
+    public StockChange set(Long productId, Integer newQuantity) {
+        return update(productId, current -> newQuantity).orElseThrow();
+    }
+
+    // next devuelve null cuando el cambio no se puede aplicar
+    private Optional<StockChange> update(Long productId, UnaryOperator<Integer> next) {
+        return metrics.record(() -> {
+            long lockStart = System.nanoTime();
+            Optional<Product> locked = productRepository.findByIdForUpdate(productId);
+            long lockWaitNanos = System.nanoTime() - lockStart;
+            lockWaitTimer.record(lockWaitNanos, TimeUnit.NANOSECONDS);
+            Product product = locked.orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+
+            Integer previousQuantity = product.getInitialQuantity();
+            Integer newQuantity = next.apply(previousQuantity);
+            if (newQuantity == null) {
+                return Optional.empty();
+            }
+            product.setInitialQuantity(newQuantity);
+            return Optional.of(new StockChange(previousQuantity, newQuantity, lockWaitNanos, product.getStockSlots()));
+        });
+    }
+}
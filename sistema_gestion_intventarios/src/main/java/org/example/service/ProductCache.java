@@ -0,0 +1,210 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.dto.ProductDTO;
+import org.example.entity.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded local cache for catalog reads: products by id and product lists (all, by category),
+ * as entities or as the read-only DTO rows built by the projection queries.
+ * Entries are detached copies evicted by LRU size and TTL; callers always receive fresh copies.
+ * Committed writes invalidate through {@link ProductChangePublisher}. A read that started before
+ * an invalidation does not store its result, so a stale row loaded concurrently with a commit
+ * never outlives it. Reads inside a read-write transaction bypass the cache, since they
+ * may see uncommitted rows.
+ */
+@Component
+public class ProductCache implements ProductChangeListener {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Region<Long, Product> products;
+    private final Region<String, List<Product>> lists;
+    private final Region<String, List<ProductDTO>> rows;
+
+    // Se incrementa en cada invalidación; una lectura solo guarda si no cambió mientras cargaba
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${inventory.product-cache.enabled:true}") boolean enabled,
+                        @Value("${inventory.product-cache.max-products:10000}") int maxProducts,
+                        @Value("${inventory.product-cache.max-lists:256}") int maxLists,
+                        @Value("${inventory.product-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.enabled = enabled && ttlSeconds > 0;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.products = new Region<>("products", Math.max(1, maxProducts), meterRegistry);
+        this.lists = new Region<>("lists", Math.max(1, maxLists), meterRegistry);
+        this.rows = new Region<>("rows", Math.max(1, maxLists), meterRegistry);
+    }
+
+    // === LECTURAS ===
+
+    public Optional<Product> product(Long id, Supplier<Optional<Product>> loader) {
+        if (!usable()) {
+            return loader.get();
+        }
+        Product cached = products.get(id);
+        if (cached != null) {
+            return Optional.of(cached.detachedCopy());
+        }
+        long startGeneration = generation.get();
+        Optional<Product> loaded = loader.get();
+        loaded.ifPresent(product -> store(products, id, product.detachedCopy(), startGeneration));
+        return loaded;
+    }
+
+    public List<Product> allProducts(Supplier<List<Product>> loader) {
+        return list(lists, "all", loader, Product::detachedCopy);
+    }
+
+    public List<Product> productsByCategory(String category, Supplier<List<Product>> loader) {
+        return list(lists, "category:" + category, loader, Product::detachedCopy);
+    }
+
+    public List<ProductDTO> allProductRows(Supplier<List<ProductDTO>> loader) {
+        return list(rows, "all", loader, ProductCache::copy);
+    }
+
+    public List<ProductDTO> productRowsByCategory(String category, Supplier<List<ProductDTO>> loader) {
+        return list(rows, "category:" + category, loader, ProductCache::copy);
+    }
+
+    private <T> List<T> list(Region<String, List<T>> region, String key, Supplier<List<T>> loader,
+                             UnaryOperator<T> copy) {
+        if (!usable()) {
+            return loader.get();
+        }
+        List<T> cached = region.get(key);
+        if (cached != null) {
+            return cached.stream().map(copy).toList();
+        }
+        long startGeneration = generation.get();
+        List<T> loaded = loader.get();
+        store(region, key, loaded.stream().map(copy).toList(), startGeneration);
+        return loaded;
+    }
+
+    // === INVALIDACIÓN ===
+
+    // Con el cambio ya confirmado: un alta solo cambia las listas; el resto también su entrada
+    @Override
+    public void productsChanged(ProductChange change) {
+        generation.incrementAndGet();
+        if (change.kind() != ProductChange.Kind.CREATED) {
+            change.productIds().forEach(products::remove);
+        }
+        lists.clear();
+        rows.clear();
+    }
+
+    // === MÉTODOS PRIVADOS AUXILIARES ===
+
+    private boolean usable() {
+        return enabled && ProductChangeListener.outsideWriteTransaction();
+    }
+
+    private <K, V> void store(Region<K, V> region, K key, V value, long startGeneration) {
+        if (generation.get() == startGeneration) {
+            region.put(key, value, System.nanoTime() + ttlNanos, () -> generation.get() == startGeneration);
+        }
+    }
+
+    private static ProductDTO copy(ProductDTO row) {
+        return new ProductDTO(row.getId(), row.getName(), row.getDescription(), row.getCategory(), row.getPrice(),
+                row.getInitialQuantity(), row.getMinimumStock(), row.getLowStock(), row.getOutOfStock(),
+                row.getTotalValue());
+    }
+
+    // LRU acotado con caducidad por entrada; las métricas van etiquetadas por región
+    private static final class Region<K, V> {
+
+        private final int maxEntries;
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter sizeEvictions;
+        private final Counter expirations;
+
+        private Region(String name, int maxEntries, MeterRegistry meterRegistry) {
+            this.maxEntries = maxEntries;
+            this.hits = Counter.builder("inventory_product_cache_requests_total")
+                    .description("Product cache lookups")
+                    .tag("region", name).tag("result", "hit")
+                    .register(meterRegistry);
+            this.misses = Counter.builder("inventory_product_cache_requests_total")
+                    .description("Product cache lookups")
+                    .tag("region", name).tag("result", "miss")
+                    .register(meterRegistry);
+            this.sizeEvictions = Counter.builder("inventory_product_cache_evictions_total")
+                    .description("Product cache entries evicted")
+                    .tag("region", name).tag("cause", "size")
+                    .register(meterRegistry);
+            this.expirations = Counter.builder("inventory_product_cache_evictions_total")
+                    .description("Product cache entries evicted")
+                    .tag("region", name).tag("cause", "expired")
+                    .register(meterRegistry);
+            Gauge.builder("inventory_product_cache_size", this, Region::size)
+                    .description("Entries currently held by the product cache")
+                    .tag("region", name)
+                    .register(meterRegistry);
+        }
+
+        private synchronized V get(K key) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+
+        // stillValid se comprueba bajo el mismo lock que la invalidación
+        private synchronized void put(K key, V value, long expiresAt, Supplier<Boolean> stillValid) {
+            if (!stillValid.get()) {
+                return;
+            }
+            entries.put(key, new Entry<>(value, expiresAt));
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                sizeEvictions.increment();
+            }
+        }
+
+        private synchronized void remove(K key) {
+            entries.remove(key);
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+        }
+
+        private synchronized double size() {
+            return entries.size();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.service;
+
+import org.example.entity.Product;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Products touched by one write, as delivered by {@link ProductChangePublisher} once the write
+ * commits. Saved products are session-free copies taken when the change was published (with the
+ * slot total already summed), so listeners can read them after the transaction has closed.
+ */
+public record ProductChange(Kind kind, Set<Long> productIds, List<Product> saved) {
+
+    public enum Kind {
+        // Alta: todavía no estaba en ninguna lectura por id
+        CREATED,
+        // Edición de los datos del producto, stock incluido
+        UPDATED,
+        DELETED,
+        // Movimiento de stock: solo cambió la cantidad
+        STOCK
+    }
+
+    public ProductChange {
+        productIds = Set.copyOf(productIds);
+        saved = List.copyOf(saved);
+    }
+}
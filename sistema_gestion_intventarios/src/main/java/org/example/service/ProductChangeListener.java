@@ -0,0 +1,20 @@
+package org.example.service;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory view of the products table (caches, indexes, snapshots, running totals) kept up to date
+ * by {@link ProductChangePublisher}. Every bean implementing it receives each committed product or
+ * stock write, so the services publish a change once instead of calling every view.
+ */
+public interface ProductChangeListener {
+
+    // Se llama con la transacción ya confirmada (o en el acto si no había ninguna)
+    void productsChanged(ProductChange change);
+
+    // Fuera de una transacción de escritura: dentro, la base puede tener cambios aún sin notificar
+    static boolean outsideWriteTransaction() {
+        return !(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.service;
+
+import org.example.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Single notification point for product and stock writes: the services publish what they changed and
+ * every {@link ProductChangeListener} receives it after the transaction commits. Nothing is delivered
+ * for a rollback. A listener that fails is logged and does not keep the others from being notified.
+ */
+@Component
+public class ProductChangePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangePublisher.class);
+
+    private final List<ProductChangeListener> listeners;
+
+    public ProductChangePublisher(List<ProductChangeListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+    }
+
+    // === CAMBIOS ===
+
+    public void created(Collection<Product> products) {
+        saved(ProductChange.Kind.CREATED, products);
+    }
+
+    public void updated(Product product) {
+        saved(ProductChange.Kind.UPDATED, List.of(product));
+    }
+
+    public void deleted(Long productId) {
+        publish(new ProductChange(ProductChange.Kind.DELETED, Set.of(productId), List.of()));
+    }
+
+    public void stockChanged(Collection<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            publish(new ProductChange(ProductChange.Kind.STOCK, Set.copyOf(productIds), List.of()));
+        }
+    }
+
+    // === MÉTODOS PRIVADOS AUXILIARES ===
+
+    // Las copias se toman ahora, con la sesión abierta: al confirmar el producto puede estar ya separado
+    private void saved(ProductChange.Kind kind, Collection<Product> products) {
+        List<Product> copies = products.stream()
+                .filter(product -> product.getId() != null)
+                .map(Product::detachedCopy)
+                .toList();
+        if (!copies.isEmpty()) {
+            Set<Long> ids = copies.stream().map(Product::getId).collect(Collectors.toSet());
+            publish(new ProductChange(kind, ids, copies));
+        }
+    }
+
+    private void publish(ProductChange change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyListeners(change);
+                }
+            });
+        } else {
+            notifyListeners(change);
+        }
+    }
+
+    private void notifyListeners(ProductChange change) {
+        for (ProductChangeListener listener : listeners) {
+            try {
+                listener.productsChanged(change);
+            } catch (RuntimeException e) {
+                log.warn("{} failed to apply a {} change of {} products", listener.getClass().getSimpleName(),
+                        change.kind(), change.productIds().size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.service;
+
+import org.example.entity.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for product listings: the sort key of the last row of a page.
+ * Encoded as URL-safe base64 of "id:&lt;id&gt;" or "name:&lt;id&gt;:&lt;name&gt;".
+ */
+public record ProductCursor(Sort sort, Long lastId, String lastName) {
+
+    public enum Sort {
+        ID, NAME;
+
+        public static Sort parse(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid sort: " + value + " (expected id or name)");
+            }
+        }
+    }
+
+    public static ProductCursor after(Sort sort, Product last) {
+        return after(sort, last.getId(), last.getName());
+    }
+
+    public static ProductCursor after(Sort sort, Long lastId, String lastName) {
+        return new ProductCursor(sort, lastId, sort == Sort.NAME ? lastName : null);
+    }
+
+    public String encode() {
+        String raw = sort == Sort.NAME ? "name:" + lastId + ":" + lastName : "id:" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor, Sort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Sort sort = Sort.valueOf(parts[0].toUpperCase());
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor was issued for sort " + parts[0]);
+            }
+            Long lastId = Long.valueOf(parts[1]);
+            if (sort == Sort.NAME && parts.length < 3) {
+                throw new IllegalArgumentException("Name cursor without name");
+            }
+            return new ProductCursor(sort, lastId, sort == Sort.NAME ? parts[2] : null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.example.dto.ProductDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catalog export for /api/integration/products/export.
+ * Products are read through a forward-only cursor (see ProductRepository.streamAllForExport) and
+ * written to the response as they arrive, each entity detached right after it is serialized, so
+ * memory stays flat whatever the size of the catalog.
+ */
+@Component
+public class ProductExporter {
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter productWriter;
+    private final int flushEvery;
+
+    public ProductExporter(ProductRepository productRepository,
+                           EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper,
+                           @Value("${inventory.integration.export.flush-every:1000}") int flushEvery) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        // Por defecto Jackson vacía la salida tras cada valor: aquí se vacía cada flushEvery filas
+        this.productWriter = objectMapper.writerFor(ProductDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.flushEvery = Math.max(1, flushEvery);
+    }
+
+    // Escribe el catálogo como un arreglo JSON y devuelve el número de productos exportados
+    public long writeJson(OutputStream out, boolean gzip) throws IOException {
+        if (!gzip) {
+            return writeJson(out);
+        }
+        GZIPOutputStream compressed = new GZIPOutputStream(out, 8192, true);
+        long rows = writeJson(compressed);
+        compressed.finish();
+        return rows;
+    }
+
+    private long writeJson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // El contenedor del servlet cierra la respuesta, no el generador
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            long rows = readOnlyTransaction.execute(status -> writeRows(generator));
+            generator.writeEndArray();
+            generator.flush();
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeRows(JsonGenerator generator) {
+        long rows = 0;
+        try (Stream<Product> products = productRepository.streamAllForExport()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                productWriter.writeValue(generator, ProductDTO.from(product));
+                entityManager.detach(product);
+                if (++rows % flushEvery == 0) {
+                    generator.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Normalmente el cliente cerró la conexión: se cierra el cursor y se libera la conexión
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,265 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.example.dto.ProductDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming catalog import for /api/integration/products/import/stream.
+ * The input (NDJSON or CSV) is parsed one record at a time and inserted in chunks, each chunk in
+ * one batched transaction (ProductService.importProducts). Only the current chunk is held in
+ * memory; line errors (in line order) and progress reach the listener after each chunk.
+ */
+@Component
+public class ProductImporter {
+
+    public enum Format { NDJSON, CSV }
+
+    public record LineError(long line, String error) {
+    }
+
+    public record Progress(long processed, long successful, long errors, boolean done) {
+    }
+
+    public interface Listener {
+        void onError(LineError error);
+
+        void onProgress(Progress progress);
+    }
+
+    private final ProductService productService;
+    private final ObjectReader productReader;
+    private final int chunkSize;
+
+    public ProductImporter(ProductService productService,
+                           ObjectMapper objectMapper,
+                           @Value("${inventory.integration.import.chunk-size:1000}") int chunkSize) {
+        this.productService = productService;
+        this.productReader = objectMapper.readerFor(ProductDTO.class);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public Progress importStream(InputStream input, Format format, Listener listener) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        skipByteOrderMark(reader);
+        Run run = new Run(listener);
+
+        if (format == Format.CSV) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        run.flush();
+
+        Progress summary = run.progress(true);
+        listener.onProgress(summary);
+        return summary;
+    }
+
+    // === LECTURA POR FORMATO ===
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.add(lineNumber, productReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, Run run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (IllegalArgumentException e) {
+            run.reject(csv.recordLine(), e.getMessage());
+            return;
+        }
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(normalizeColumn(header.get(i)), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            run.reject(csv.recordLine(), "CSV header must contain at least name and price columns");
+            return;
+        }
+
+        while (true) {
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IllegalArgumentException e) {
+                // Comillas sin cerrar: el resto de la entrada pertenece a ese campo
+                run.reject(csv.recordLine(), e.getMessage());
+                return;
+            }
+            if (record == null) {
+                return;
+            }
+            try {
+                run.add(csv.recordLine(), toProduct(record, columns));
+            } catch (IllegalArgumentException e) {
+                run.reject(csv.recordLine(), e.getMessage());
+            }
+        }
+    }
+
+    private ProductDTO toProduct(List<String> record, Map<String, Integer> columns) {
+        ProductDTO product = new ProductDTO();
+        product.setName(field(record, columns, "name"));
+        product.setDescription(field(record, columns, "description"));
+        product.setCategory(field(record, columns, "category"));
+        product.setPrice(number(record, columns, "price"));
+        product.setInitialQuantity(integer(record, columns, "initialquantity"));
+        Integer minimumStock = integer(record, columns, "minimumstock");
+        if (minimumStock != null) {
+            product.setMinimumStock(minimumStock);
+        }
+        return product;
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size() || record.get(index).isBlank()) {
+            return null;
+        }
+        return record.get(index).trim();
+    }
+
+    private static BigDecimal number(List<String> record, Map<String, Integer> columns, String column) {
+        String value = field(record, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in column " + column + ": " + value);
+        }
+    }
+
+    private static Integer integer(List<String> record, Map<String, Integer> columns, String column) {
+        BigDecimal value = number(record, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid integer in column " + column + ": " + value);
+        }
+    }
+
+    // "initial_quantity", "Initial Quantity" e "initialQuantity" son la misma columna
+    private static String normalizeColumn(String column) {
+        String normalized = column.trim().toLowerCase(Locale.ROOT).replaceAll("[ _-]", "");
+        return normalized.equals("quantity") ? "initialquantity" : normalized;
+    }
+
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    // === ESTADO DE UNA IMPORTACIÓN ===
+
+    private class Run {
+
+        private final Listener listener;
+        private final List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+        private final List<Long> chunkLines = new ArrayList<>(chunkSize);
+        // Errores de lectura del bloque en curso: se informan junto con los de validación, en orden de línea
+        private final List<LineError> pendingErrors = new ArrayList<>();
+        private long processed;
+        private long successful;
+        private long errors;
+
+        Run(Listener listener) {
+            this.listener = listener;
+        }
+
+        void add(long line, ProductDTO product) {
+            chunk.add(product);
+            chunkLines.add(line);
+            flushIfFull();
+        }
+
+        void reject(long line, String error) {
+            pendingErrors.add(new LineError(line, error));
+            flushIfFull();
+        }
+
+        private void flushIfFull() {
+            if (chunk.size() + pendingErrors.size() >= chunkSize) {
+                flush();
+                listener.onProgress(progress(false));
+            }
+        }
+
+        void flush() {
+            Map<Integer, String> rejected = chunk.isEmpty() ? Map.of() : insert();
+
+            List<LineError> chunkErrors = new ArrayList<>(pendingErrors);
+            rejected.forEach((index, error) -> chunkErrors.add(new LineError(chunkLines.get(index), error)));
+            chunkErrors.sort(Comparator.comparingLong(LineError::line));
+
+            processed += chunk.size() + pendingErrors.size();
+            successful += chunk.size() - rejected.size();
+            errors += chunkErrors.size();
+            chunkErrors.forEach(listener::onError);
+            chunk.clear();
+            chunkLines.clear();
+            pendingErrors.clear();
+        }
+
+        private Map<Integer, String> insert() {
+            try {
+                return productService.importProducts(chunk);
+            } catch (Exception chunkFailure) {
+                // El bloque falló en la base de datos: se reintenta producto por producto
+                Map<Integer, String> rejected = new HashMap<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    try {
+                        productService.createProduct(chunk.get(i));
+                    } catch (Exception e) {
+                        rejected.put(i, e.getMessage());
+                    }
+                }
+                return rejected;
+            }
+        }
+
+        Progress progress(boolean done) {
+            return new Progress(processed, successful, errors, done);
+        }
+    }
+}
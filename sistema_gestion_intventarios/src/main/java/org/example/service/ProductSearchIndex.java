@@ -0,0 +1,472 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.entity.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name, description and category, used by searchProducts.
+ * Every query token must match a term of the product, either exactly or as a prefix; matches are
+ * ranked with BM25 (name counts three times, category twice). Committed product writes reach the
+ * index through {@link ProductChangePublisher}; the full index is built once at startup
+ * (ProductSearchIndexLoader) and searches fall back to the database until it is ready.
+ */
+@Component
+public class ProductSearchIndex implements ProductChangeListener {
+
+    // === PARÁMETROS DE RANKING ===
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // Una coincidencia solo por prefijo puntúa menos que la palabra exacta
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    // Se compacta cuando los documentos borrados superan esta fracción del total
+    private static final int COMPACT_MIN_DELETED = 10_000;
+
+    // Sin precio nunca pasa un filtro de precio
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    public record Filter(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        public static final Filter NONE = new Filter(null, null, null);
+    }
+
+    private final boolean enabled;
+    private final int maxPrefixExpansions;
+    private final Timer queryTimer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Diccionario ordenado: las expansiones de un prefijo son un rango contiguo
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private final List<Postings> postingsById = new ArrayList<>();
+    private final Map<String, String> categories = new HashMap<>();
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>(); // null = borrado, pendiente de compactar
+    private int deletedDocs;
+    private long totalLength;
+
+    private volatile boolean ready;
+    // Cambios confirmados mientras se construye el índice; se aplican al terminar la carga
+    private List<PreparedDoc> changesDuringBuild;
+
+    public ProductSearchIndex(MeterRegistry meterRegistry,
+                              @Value("${inventory.search.index.enabled:true}") boolean enabled,
+                              @Value("${inventory.search.index.max-prefix-expansions:64}") int maxPrefixExpansions) {
+        this.enabled = enabled;
+        this.maxPrefixExpansions = Math.max(1, maxPrefixExpansions);
+        this.queryTimer = Timer.builder("inventory_search_index_query_seconds")
+                .description("Time spent answering a product search from the in-memory index")
+                .register(meterRegistry);
+        Gauge.builder("inventory_search_index_documents", this, ProductSearchIndex::size)
+                .description("Products held in the in-memory search index")
+                .register(meterRegistry);
+    }
+
+    public boolean isUsable() {
+        return enabled && ready && ProductChangeListener.outsideWriteTransaction();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === CONSULTA ===
+
+    // Ids de los productos que contienen todos los términos, del más relevante al menos (limit null = todos)
+    public List<Long> search(String query, Filter filter, Integer limit) {
+        long start = System.nanoTime();
+        List<String> tokens = tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty() || (limit != null && limit <= 0)) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return rank(tokens, filter, limit);
+        } finally {
+            lock.readLock().unlock();
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private List<Long> rank(List<String> tokens, Filter filter, Integer limit) {
+        List<TokenMatch> matches = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            TokenMatch match = match(token);
+            if (match.isEmpty()) {
+                return List.of();
+            }
+            matches.add(match);
+        }
+        // Los candidatos salen del término más selectivo; el resto se comprueba sobre cada documento
+        matches.sort(Comparator.comparingLong(TokenMatch::postingsSize));
+        TokenMatch driver = matches.getFirst();
+
+        double averageLength = docByProduct.isEmpty() ? 1 : (double) totalLength / docByProduct.size();
+        Long minCents = filter.minPrice() != null && filter.maxPrice() != null ? cents(filter.minPrice(), RoundingMode.CEILING) : null;
+        Long maxCents = filter.minPrice() != null && filter.maxPrice() != null ? cents(filter.maxPrice(), RoundingMode.FLOOR) : null;
+        String category = filter.category() != null && !filter.category().trim().isEmpty() ? filter.category() : null;
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(Hit.WORST_FIRST);
+        List<Hit> all = limit == null ? new ArrayList<>() : null;
+        BitSet seen = new BitSet(docs.size());
+
+        for (int termId : driver.termIds()) {
+            Postings postings = postingsById.get(termId);
+            for (int i = 0; i < postings.size; i++) {
+                int docNumber = postings.docs[i];
+                if (seen.get(docNumber)) {
+                    continue;
+                }
+                seen.set(docNumber);
+                Doc doc = docs.get(docNumber);
+                if (doc == null
+                        || (category != null && !category.equals(doc.category()))
+                        || (minCents != null && (doc.priceCents() < minCents || doc.priceCents() > maxCents))) {
+                    continue;
+                }
+                double score = score(doc, matches, averageLength);
+                if (score < 0) {
+                    continue;
+                }
+                if (all != null) {
+                    all.add(new Hit(doc.productId(), score));
+                } else if (top.size() < limit) {
+                    top.add(new Hit(doc.productId(), score));
+                } else if (score >= top.peek().score()) {
+                    Hit hit = new Hit(doc.productId(), score);
+                    if (Hit.WORST_FIRST.compare(hit, top.peek()) > 0) {
+                        top.poll();
+                        top.add(hit);
+                    }
+                }
+            }
+        }
+
+        List<Hit> hits = all != null ? all : new ArrayList<>(top);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        return hits.stream().map(Hit::productId).toList();
+    }
+
+    // Suma BM25 de la mejor coincidencia de cada término de la consulta; -1 si alguno no aparece
+    private double score(Doc doc, List<TokenMatch> matches, double averageLength) {
+        double norm = K1 * (1 - B + B * doc.length() / averageLength);
+        double total = 0;
+        for (TokenMatch match : matches) {
+            double best = -1;
+            for (int t = 0; t < doc.termIds().length; t++) {
+                int position = Arrays.binarySearch(match.termIds(), doc.termIds()[t]);
+                if (position < 0) {
+                    continue;
+                }
+                int tf = doc.tfs()[t];
+                best = Math.max(best, match.weightedIdf()[position] * tf * (K1 + 1) / (tf + norm));
+            }
+            if (best < 0) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Término exacto más las palabras que empiezan por él (hasta maxPrefixExpansions)
+    private TokenMatch match(String token) {
+        Postings exact = dictionary.get(token);
+        List<Postings> expansions = new ArrayList<>();
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            for (Postings postings : dictionary.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                if (expansions.size() >= maxPrefixExpansions) {
+                    break;
+                }
+                expansions.add(postings);
+            }
+        } else if (exact != null) {
+            expansions.add(exact);
+        }
+        if (exact != null && !expansions.contains(exact)) {
+            expansions.add(exact);
+        }
+
+        // IDF de cada término una sola vez por consulta, ya ponderado por exacto/prefijo
+        expansions.sort(Comparator.comparingInt(Postings::id));
+        int[] termIds = new int[expansions.size()];
+        double[] weightedIdf = new double[expansions.size()];
+        long postingsSize = 0;
+        int liveDocs = docByProduct.size();
+        for (int i = 0; i < expansions.size(); i++) {
+            Postings postings = expansions.get(i);
+            double idf = Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+            termIds[i] = postings.id;
+            weightedIdf[i] = (postings == exact ? 1.0 : PREFIX_WEIGHT) * idf;
+            postingsSize += postings.size;
+        }
+        return new TokenMatch(termIds, weightedIdf, postingsSize);
+    }
+
+    // === ACTUALIZACIONES ===
+
+    // Con el cambio ya confirmado; el stock no forma parte del índice
+    @Override
+    public void productsChanged(ProductChange change) {
+        switch (change.kind()) {
+            case CREATED, UPDATED -> change.saved().forEach(this::index);
+            case DELETED -> change.productIds().forEach(this::remove);
+            case STOCK -> {
+            }
+        }
+    }
+
+    public void index(Product product) {
+        if (enabled && product != null && product.getId() != null) {
+            apply(prepare(product));
+        }
+    }
+
+    public void remove(Long productId) {
+        if (enabled && productId != null) {
+            apply(PreparedDoc.removal(productId));
+        }
+    }
+
+    private void apply(PreparedDoc change) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringBuild != null) {
+                changesDuringBuild.add(change);
+            }
+            put(change);
+            if (deletedDocs >= COMPACT_MIN_DELETED && deletedDocs > docs.size() / 4) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // === CONSTRUCCIÓN INICIAL ===
+
+    void beginBuild() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            clear();
+            changesDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void load(Product product) {
+        PreparedDoc doc = prepare(product);
+        lock.writeLock().lock();
+        try {
+            put(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lo confirmado durante la carga se vuelve a aplicar: la lectura pudo ver una versión anterior
+    void finishBuild() {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringBuild != null) {
+                changesDuringBuild.forEach(this::put);
+                changesDuringBuild = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void abortBuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringBuild = null;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // === ESTRUCTURAS INTERNAS (con el lock de escritura tomado) ===
+
+    private void put(PreparedDoc change) {
+        Integer previous = docByProduct.remove(change.productId());
+        if (previous != null) {
+            totalLength -= docs.get(previous).length();
+            docs.set(previous, null);
+            deletedDocs++;
+        }
+        if (change.isRemoval()) {
+            return;
+        }
+
+        int docNumber = docs.size();
+        int[] termIds = new int[change.termFrequencies().size()];
+        int[] tfs = new int[termIds.length];
+        int i = 0;
+        for (Map.Entry<String, Integer> term : change.termFrequencies().entrySet()) {
+            Postings postings = dictionary.computeIfAbsent(term.getKey(), key -> {
+                Postings created = new Postings(postingsById.size());
+                postingsById.add(created);
+                return created;
+            });
+            postings.add(docNumber);
+            termIds[i] = postings.id;
+            tfs[i++] = term.getValue();
+        }
+        String category = change.category() != null ? categories.computeIfAbsent(change.category(), c -> c) : null;
+        docs.add(new Doc(change.productId(), termIds, tfs, change.length(), category, change.priceCents()));
+        docByProduct.put(change.productId(), docNumber);
+        totalLength += change.length();
+    }
+
+    // Reconstruye las listas sin los documentos borrados
+    private void compact() {
+        List<Doc> live = docs.stream().filter(Objects::nonNull).toList();
+        List<String> termsById = new ArrayList<>(postingsById.size());
+        for (int i = 0; i < postingsById.size(); i++) {
+            termsById.add(null);
+        }
+        dictionary.forEach((term, postings) -> termsById.set(postings.id, term));
+
+        clear();
+        for (Doc doc : live) {
+            Map<String, Integer> frequencies = new LinkedHashMap<>();
+            for (int t = 0; t < doc.termIds().length; t++) {
+                frequencies.put(termsById.get(doc.termIds()[t]), doc.tfs()[t]);
+            }
+            put(new PreparedDoc(doc.productId(), frequencies, doc.length(), doc.category(), doc.priceCents()));
+        }
+    }
+
+    private void clear() {
+        dictionary.clear();
+        postingsById.clear();
+        categories.clear();
+        docByProduct.clear();
+        docs.clear();
+        deletedDocs = 0;
+        totalLength = 0;
+    }
+
+    // === TOKENIZACIÓN ===
+
+    private static PreparedDoc prepare(Product product) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        int length = addTerms(frequencies, product.getName(), NAME_WEIGHT)
+                + addTerms(frequencies, product.getCategory(), CATEGORY_WEIGHT)
+                + addTerms(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+        long priceCents = product.getPrice() != null ? cents(product.getPrice(), RoundingMode.HALF_UP) : NO_PRICE;
+        return new PreparedDoc(product.getId(), frequencies, Math.max(1, length), product.getCategory(), priceCents);
+    }
+
+    private static int addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        int length = 0;
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+            length += weight;
+        }
+        return length;
+    }
+
+    // Minúsculas y sin tildes: "Cámara" y "camara" son el mismo término
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(folded)).filter(token -> !token.isEmpty()).toList();
+    }
+
+    private static long cents(BigDecimal price, RoundingMode rounding) {
+        return price.setScale(2, rounding).unscaledValue().longValueExact();
+    }
+
+    private static final class Postings {
+        private final int id;
+        private int[] docs = new int[1]; // la mayoría de los términos (códigos, modelos) son de un solo producto
+        private int size;
+
+        private Postings(int id) {
+            this.id = id;
+        }
+
+        private int id() {
+            return id;
+        }
+
+        private void add(int docNumber) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = docNumber;
+        }
+    }
+
+    private record Doc(long productId, int[] termIds, int[] tfs, int length, String category, long priceCents) {
+    }
+
+    private record PreparedDoc(Long productId, Map<String, Integer> termFrequencies, int length,
+                               String category, long priceCents) {
+        static PreparedDoc removal(Long productId) {
+            return new PreparedDoc(productId, null, 0, null, NO_PRICE);
+        }
+
+        boolean isRemoval() {
+            return termFrequencies == null;
+        }
+    }
+
+    private record TokenMatch(int[] termIds, double[] weightedIdf, long postingsSize) {
+        boolean isEmpty() {
+            return termIds.length == 0;
+        }
+    }
+
+    private record Hit(long productId, double score) {
+        // A igual puntuación gana el id menor, para que el orden sea estable
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingLong(Hit::productId).reversed());
+    }
+}
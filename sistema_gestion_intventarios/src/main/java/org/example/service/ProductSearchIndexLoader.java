@@ -0,0 +1,90 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Builds the product search index once the application is up, in the background, reading the
+ * catalog through the same forward-only cursor as the export. Until it finishes, searches are
+ * answered from the database.
+ */
+@Component
+public class ProductSearchIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndexLoader.class);
+
+    private final ProductSearchIndex searchIndex;
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile Thread loader;
+
+    public ProductSearchIndexLoader(ProductSearchIndex searchIndex,
+                                    ProductRepository productRepository,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager) {
+        this.searchIndex = searchIndex;
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!searchIndex.isEnabled()) {
+            return;
+        }
+        loader = new Thread(this::build, "product-search-index");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // Construye el índice completo; también sirve para reconstruirlo a mano
+    public void build() {
+        long start = System.nanoTime();
+        searchIndex.beginBuild();
+        try {
+            Long products = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<Product> stream = productRepository.streamAllForExport()) {
+                    Iterator<Product> iterator = stream.iterator();
+                    while (iterator.hasNext() && !Thread.currentThread().isInterrupted()) {
+                        Product product = iterator.next();
+                        searchIndex.load(product);
+                        entityManager.detach(product);
+                        count++;
+                    }
+                }
+                return count;
+            });
+            searchIndex.finishBuild();
+            log.info("Product search index built with {} products in {} ms",
+                    products, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            searchIndex.abortBuild();
+            log.warn("Product search index could not be built, searches stay on the database", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread running = loader;
+        if (running != null) {
+            running.interrupt();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.service;
 
 import org.example.dto.ProductDTO;
+import org.example.dto.ProductPageDTO;
 import org.example.dto.ProductSearchDTO;
 import org.example.entity.Product;
 
@@ -16,6 +17,19 @@ public interface ProductService {
     ProductDTO updateProduct(Long id, ProductDTO productDTO);
     void deleteProduct(Long id);
 
+    // === PAGINACIÓN POR CURSOR ===
+    // Keyset page following the cursor (null for the first page), ordered by id or name
+    ProductPageDTO<ProductDTO> getProductPage(String cursor, int size, String sort);
+    // Same page as entities, for the v1 API that still answers with them
+    ProductPageDTO<Product> getProductEntityPage(String cursor, int size, String sort);
+
+    // === IMPORTACIÓN MASIVA ===
+    // Inserts the valid products in one batched transaction and returns the errors of the rejected ones
+    List<String> createProducts(List<ProductDTO> productDTOs);
+
+    // Same as createProducts, with each error keyed by the position of its product in the chunk
+    Map<Integer, String> importProducts(List<ProductDTO> productDTOs);
+
     // === BÚSQUEDA SIMPLE ===
     List<ProductDTO> searchProducts(ProductSearchDTO searchDTO);
     List<ProductDTO> findProductsByCategory(String category);
@@ -4,32 +4,69 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.example.dto.ProductDTO;
+import org.example.dto.ProductPageDTO;
 import org.example.dto.ProductSearchDTO;
 import org.example.entity.Product;
+import org.example.repository.InventoryTotals;
 import org.example.repository.ProductRepository;
+import org.example.repository.ProductSpecifications;
+import org.example.repository.StockChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ProductServiceImpl implements ProductService {
 
+    // Productos cargados por consulta al materializar un resultado del índice de búsqueda
+    private static final int SEARCH_LOAD_CHUNK = 500;
+
+    // Filas cargadas por consulta al materializar los conjuntos de alertas de stock
+    private static final int ALERT_LOAD_CHUNK = 1_000;
+
     private final ProductRepository repository;
     private final Counter productCreationsCounter;
     private final Counter productDeletionsCounter;
-
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductTextSearch textSearch;
+    private final StockAlertIndex stockAlerts;
+    private final InventoryStats inventoryStats;
+    private final ProductChangePublisher productChanges;
+    private final StockSlotService stockSlots;
 
     public ProductServiceImpl(ProductRepository repository,
                               Counter productCreationsCounter,
-                              Counter productDeletionsCounter) {
+                              Counter productDeletionsCounter,
+                              ProductCache productCache,
+                              ProductSearchIndex searchIndex,
+                              ProductTextSearch textSearch,
+                              StockAlertIndex stockAlerts,
+                              InventoryStats inventoryStats,
+                              ProductChangePublisher productChanges,
+                              StockSlotService stockSlots) {
         this.repository = repository;
         this.productCreationsCounter = productCreationsCounter;
         this.productDeletionsCounter = productDeletionsCounter;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.textSearch = textSearch;
+        this.stockAlerts = stockAlerts;
+        this.inventoryStats = inventoryStats;
+        this.productChanges = productChanges;
+        this.stockSlots = stockSlots;
     }
 
     // === CRUD BÁSICO ===
@@ -39,6 +76,7 @@ public class ProductServiceImpl implements ProductService {
         Product product = productDTO.toEntity();
         validateProduct(product);
         Product saved = repository.save(product);
+        productChanges.created(List.of(saved));
 
         // Incrementar métrica de productos creados
         productCreationsCounter.increment();
@@ -46,18 +84,18 @@ public class ProductServiceImpl implements ProductService {
         return ProductDTO.from(saved);
     }
 
+    // Las lecturas cacheadas no abren transacción: un acierto no toma conexión del pool.
+    // Los listados de solo lectura salen de proyecciones: filas ya calculadas, sin entidades.
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> getAllProducts() {
-        return repository.findAll().stream()
-                .map(ProductDTO::from)
-                .collect(Collectors.toList());
+        return productCache.allProductRows(repository::findAllRows);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductDTO getProductById(Long id) {
-        Product product = repository.findById(id)
+        Product product = productCache.product(id, () -> repository.findWithSlotsById(id))
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         return ProductDTO.from(product);
     }
@@ -66,10 +104,13 @@ public class ProductServiceImpl implements ProductService {
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
         Product existing = repository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        boolean sharded = lockIfSharded(existing);
 
         productDTO.updateEntity(existing);
         validateProduct(existing);
+        applyShardedQuantity(existing, sharded);
         Product updated = repository.save(existing);
+        productChanges.updated(updated);
         return ProductDTO.from(updated);
     }
 
@@ -79,77 +120,215 @@ public class ProductServiceImpl implements ProductService {
             throw new RuntimeException("Product not found with id: " + id);
         }
         repository.deleteById(id);
+        productChanges.deleted(id);
 
         // Incrementar métrica de productos eliminados
         productDeletionsCounter.increment();
     }
 
+    // === PAGINACIÓN POR CURSOR ===
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageDTO<ProductDTO> getProductPage(String cursor, int size, String sort) {
+        return findPage(cursor, size, sort).map(ProductDTO::from);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageDTO<Product> getProductEntityPage(String cursor, int size, String sort) {
+        return findPage(cursor, size, sort);
+    }
+
+    // Se pide una fila de más para saber si hay página siguiente sin contar la tabla
+    private ProductPageDTO<Product> findPage(String cursor, int size, String sort) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        ProductCursor.Sort order = ProductCursor.Sort.parse(sort);
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor, order);
+        Limit limit = Limit.of(size + 1);
+
+        List<Product> rows = switch (order) {
+            case ID -> after == null
+                    ? repository.findAllByOrderByIdAsc(limit)
+                    : repository.findByIdGreaterThanOrderByIdAsc(after.lastId(), limit);
+            case NAME -> after == null
+                    ? repository.findAllByOrderByNameAscIdAsc(limit)
+                    : repository.findPageAfterName(after.lastName(), after.lastId(), limit);
+        };
+
+        if (rows.size() <= size) {
+            return new ProductPageDTO<>(rows, null);
+        }
+        List<Product> page = rows.subList(0, size);
+        return new ProductPageDTO<>(page, ProductCursor.after(order, page.getLast()).encode());
+    }
+
+    // === IMPORTACIÓN MASIVA ===
+
+    @Override
+    public List<String> createProducts(List<ProductDTO> productDTOs) {
+        return importProducts(productDTOs).entrySet().stream()
+                .map(error -> "Product " + productDTOs.get(error.getKey()).getName() + ": " + error.getValue())
+                .toList();
+    }
+
+    @Override
+    public Map<Integer, String> importProducts(List<ProductDTO> productDTOs) {
+        List<Product> valid = new ArrayList<>(productDTOs.size());
+        Map<Integer, String> errors = new TreeMap<>();
+
+        for (int i = 0; i < productDTOs.size(); i++) {
+            try {
+                Product product = productDTOs.get(i).toEntity();
+                validateProduct(product);
+                valid.add(product);
+            } catch (Exception e) {
+                errors.put(i, e.getMessage());
+            }
+        }
+
+        // Con ids de secuencia los INSERT se envían en lotes JDBC
+        repository.saveAll(valid);
+        productChanges.created(valid);
+        productCreationsCounter.increment(valid.size());
+
+        return errors;
+    }
+
     // === Resto de métodos sin cambios ===
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> searchProducts(ProductSearchDTO searchDTO) {
-        List<Product> products = repository.findAll();
+        boolean hasTerm = searchDTO.getSearchTerm() != null && !searchDTO.getSearchTerm().trim().isEmpty();
+        boolean sorted = searchDTO.getSort() != null && !searchDTO.getSort().isBlank();
+        // Sin orden explícito, un término se responde por relevancia
+        if (hasTerm && !sorted && searchIndex.isUsable()) {
+            return searchIndexed(searchDTO);
+        }
+        if (hasTerm && !sorted && textSearch.isRanked()) {
+            return searchRanked(searchDTO);
+        }
 
-        // Filtros básicos
-        if (searchDTO.getSearchTerm() != null && !searchDTO.getSearchTerm().trim().isEmpty()) {
-            products = repository.findBySearchTerm(searchDTO.getSearchTerm());
+        // Una sola consulta: término, categoría, precio, stock, orden y límite en la base
+        Sort sort = ProductSpecifications.sortBy(searchDTO.getSort());
+        Specification<Product> spec = searchSpecification(searchDTO, hasTerm);
+        Integer limit = searchDTO.getLimit();
+        if (limit != null && limit <= 0) {
+            return List.of();
         }
+        List<Product> products = limit == null
+                ? repository.findAll(spec, sort)
+                : repository.findBy(spec, query -> query.sortBy(sort).limit(limit).all());
+        return products.stream()
+                .map(ProductDTO::from)
+                .collect(Collectors.toList());
+    }
 
+    private static Specification<Product> searchSpecification(ProductSearchDTO searchDTO, boolean withTerm) {
+        List<Specification<Product>> predicates = new ArrayList<>();
+        if (withTerm) {
+            predicates.add(ProductSpecifications.containsTerm(searchDTO.getSearchTerm()));
+        }
         if (searchDTO.getCategory() != null && !searchDTO.getCategory().trim().isEmpty()) {
-            products = products.stream()
-                    .filter(p -> searchDTO.getCategory().equals(p.getCategory()))
-                    .collect(Collectors.toList());
+            predicates.add(ProductSpecifications.inCategory(searchDTO.getCategory()));
         }
-
         if (searchDTO.getMinPrice() != null && searchDTO.getMaxPrice() != null) {
-            products = products.stream()
-                    .filter(p -> p.getPrice().compareTo(searchDTO.getMinPrice()) >= 0 &&
-                            p.getPrice().compareTo(searchDTO.getMaxPrice()) <= 0)
-                    .collect(Collectors.toList());
+            predicates.add(ProductSpecifications.priceBetween(searchDTO.getMinPrice(), searchDTO.getMaxPrice()));
         }
-
         if (Boolean.TRUE.equals(searchDTO.getLowStockOnly())) {
-            products = products.stream()
-                    .filter(Product::isLowStock)
-                    .collect(Collectors.toList());
+            predicates.add(ProductSpecifications.lowStock());
         }
-
         if (Boolean.TRUE.equals(searchDTO.getOutOfStockOnly())) {
-            products = products.stream()
-                    .filter(Product::isOutOfStock)
-                    .collect(Collectors.toList());
+            predicates.add(ProductSpecifications.outOfStock());
         }
+        return Specification.allOf(predicates);
+    }
 
-        return products.stream()
+    // Modos trigram/fulltext: la base devuelve el término ya ordenado por relevancia y el resto
+    // de filtros se aplica en una pasada sobre ese resultado
+    private List<ProductDTO> searchRanked(ProductSearchDTO searchDTO) {
+        boolean byCategory = searchDTO.getCategory() != null && !searchDTO.getCategory().trim().isEmpty();
+        boolean byPrice = searchDTO.getMinPrice() != null && searchDTO.getMaxPrice() != null;
+        return textSearch.search(searchDTO.getSearchTerm()).stream()
+                .filter(p -> !byCategory || searchDTO.getCategory().equals(p.getCategory()))
+                .filter(p -> !byPrice || (p.getPrice().compareTo(searchDTO.getMinPrice()) >= 0
+                        && p.getPrice().compareTo(searchDTO.getMaxPrice()) <= 0))
+                .filter(p -> !Boolean.TRUE.equals(searchDTO.getLowStockOnly()) || p.isLowStock())
+                .filter(p -> !Boolean.TRUE.equals(searchDTO.getOutOfStockOnly()) || p.isOutOfStock())
+                .limit(searchDTO.getLimit() != null ? Math.max(0, searchDTO.getLimit()) : Long.MAX_VALUE)
                 .map(ProductDTO::from)
                 .collect(Collectors.toList());
     }
 
+    // El índice resuelve término, categoría y precio; el stock (que cambia con cada movimiento)
+    // se comprueba sobre los productos cargados, por bloques y en orden de relevancia
+    private List<ProductDTO> searchIndexed(ProductSearchDTO searchDTO) {
+        boolean stockFilter = Boolean.TRUE.equals(searchDTO.getLowStockOnly())
+                || Boolean.TRUE.equals(searchDTO.getOutOfStockOnly());
+        Integer limit = searchDTO.getLimit();
+        List<Long> ranked = searchIndex.search(searchDTO.getSearchTerm(),
+                new ProductSearchIndex.Filter(searchDTO.getCategory(), searchDTO.getMinPrice(), searchDTO.getMaxPrice()),
+                stockFilter ? null : limit);
+
+        int wanted = limit != null ? Math.max(0, limit) : Integer.MAX_VALUE;
+        List<ProductDTO> results = new ArrayList<>(Math.min(ranked.size(), wanted));
+        for (int from = 0; from < ranked.size() && results.size() < wanted; from += SEARCH_LOAD_CHUNK) {
+            List<Long> ids = ranked.subList(from, Math.min(from + SEARCH_LOAD_CHUNK, ranked.size()));
+            Map<Long, Product> loaded = repository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, p -> p));
+            for (Long id : ids) {
+                Product product = loaded.get(id);
+                if (product == null
+                        || (Boolean.TRUE.equals(searchDTO.getLowStockOnly()) && !product.isLowStock())
+                        || (Boolean.TRUE.equals(searchDTO.getOutOfStockOnly()) && !product.isOutOfStock())) {
+                    continue;
+                }
+                results.add(ProductDTO.from(product));
+                if (results.size() == wanted) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    // Filas de los ids dados en orden de id; descarta las que cambiaron de estado entre medio
+    private List<ProductDTO> alertRows(List<Long> ids, Predicate<ProductDTO> stillMatches) {
+        List<ProductDTO> rows = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ALERT_LOAD_CHUNK) {
+            repository.findRowsByIdIn(ids.subList(from, Math.min(from + ALERT_LOAD_CHUNK, ids.size()))).stream()
+                    .filter(stillMatches)
+                    .forEach(rows::add);
+        }
+        return rows;
+    }
+
     // === Resto de métodos mantienen la implementación original ===
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> findProductsByCategory(String category) {
-        return repository.findByCategory(category).stream()
-                .map(ProductDTO::from)
-                .collect(Collectors.toList());
+        return productCache.productRowsByCategory(category, () -> repository.findRowsByCategory(category));
     }
 
+    // Los ids salen de los conjuntos de alertas (sin recorrer la tabla); solo se cargan sus filas
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> findLowStockProducts() {
-        return repository.findLowStockProducts().stream()
-                .map(ProductDTO::from)
-                .collect(Collectors.toList());
+        return stockAlerts.lowStockIds()
+                .map(ids -> alertRows(ids, row -> Boolean.TRUE.equals(row.getLowStock())))
+                .orElseGet(repository::findLowStockRows);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> findOutOfStockProducts() {
-        return repository.findOutOfStockProducts().stream()
-                .map(ProductDTO::from)
-                .collect(Collectors.toList());
+        return stockAlerts.outOfStockIds()
+                .map(ids -> alertRows(ids, row -> Boolean.TRUE.equals(row.getOutOfStock())))
+                .orElseGet(repository::findOutOfStockRows);
     }
 
     @Override
@@ -158,23 +337,26 @@ public class ProductServiceImpl implements ProductService {
         return repository.findAllCategories();
     }
 
+    // Totales y contadores corrientes en memoria, sin transacción; sin ellos, agregados en la base
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Map<String, Object> getBasicStats() {
-        List<Product> allProducts = repository.findAll();
-        List<Product> lowStock = repository.findLowStockProducts();
-        List<Product> outOfStock = repository.findOutOfStockProducts();
-        BigDecimal totalValue = repository.getTotalInventoryValue();
+        InventoryStats.Totals totals = inventoryStats.totals().orElseGet(this::totalsFromDatabase);
 
         return Map.of(
-                "totalProducts", allProducts.size(),
-                "lowStockCount", lowStock.size(),
-                "outOfStockCount", outOfStock.size(),
-                "totalValue", totalValue != null ? totalValue : BigDecimal.ZERO,
-                "categories", getAllCategories().size()
+                "totalProducts", Math.toIntExact(totals.products()),
+                "lowStockCount", Math.toIntExact(stockAlerts.lowStockCount()),
+                "outOfStockCount", Math.toIntExact(stockAlerts.outOfStockCount()),
+                "totalValue", totals.value(),
+                "categories", totals.categories()
         );
     }
 
+    private InventoryStats.Totals totalsFromDatabase() {
+        InventoryTotals totals = repository.getInventoryTotals();
+        return new InventoryStats.Totals(totals.products(), totals.value(), repository.findAllCategories().size());
+    }
+
     // === MÉTODOS LEGACY sin cambios ===
 
     @Override
@@ -184,28 +366,39 @@ public class ProductServiceImpl implements ProductService {
         if (product.getMinimumStock() == null) {
             product.setMinimumStock(5);
         }
-        return repository.save(product);
+        boolean created = product.getId() == null;
+        Product saved = repository.save(product);
+        if (created) {
+            productChanges.created(List.of(saved));
+        } else {
+            productChanges.updated(saved);
+        }
+        return saved;
     }
 
+    // Copias separadas de la caché: el llamador puede modificarlas sin afectarla
     @Override
     @Deprecated
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Product> findAllLegacy() {
-        return repository.findAll();
+        return productCache.allProducts(repository::findAllWithSlots);
     }
 
     @Override
     @Deprecated
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Product findByIdLegacy(Long id) {
-        return repository.findById(id)
+        return productCache.product(id, () -> repository.findWithSlotsById(id))
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
 
     @Override
     @Deprecated
     public Product updateLegacy(Long id, Product product) {
-        Product existing = findByIdLegacy(id);
+        // Entidad gestionada, nunca la copia de la caché
+        Product existing = repository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        boolean sharded = lockIfSharded(existing);
         existing.setName(product.getName());
         existing.setDescription(product.getDescription());
         existing.setCategory(product.getCategory());
@@ -217,7 +410,30 @@ public class ProductServiceImpl implements ProductService {
         }
 
         validateProduct(existing);
-        return repository.save(existing);
+        applyShardedQuantity(existing, sharded);
+        Product updated = repository.save(existing);
+        productChanges.updated(updated);
+        return updated;
+    }
+
+    // === EDICIÓN DE PRODUCTOS REPARTIDOS EN SLOTS ===
+    // En un producto repartido initial_quantity es la foto del último rebalanceo: la cantidad editada
+    // se reparte entre los slots, que es donde está el stock. La fila se bloquea antes de tocar los
+    // slots, en el orden de StockSlotService; si se repartiera después de leerla, la versión lo detecta
+
+    private boolean lockIfSharded(Product existing) {
+        if (stockSlots.slotCount(existing) == 0) {
+            return false;
+        }
+        repository.findByIdForUpdate(existing.getId());
+        return true;
+    }
+
+    private void applyShardedQuantity(Product existing, boolean sharded) {
+        if (sharded) {
+            Integer quantity = existing.getInitialQuantity();
+            stockSlots.set(existing.getId(), quantity, () -> new StockChange(quantity, quantity));
+        }
     }
 
     // === VALIDACIÓN PRIVADA sin cambios ===
@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.repository.ProductSpecifications;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Product text search answered by the database, used by searchProducts when the in-memory
+ * index is disabled or still loading. The mode comes from inventory.search.database-mode:
+ * <ul>
+ *   <li>like: portable LOWER(column) LIKE '%term%' query; on PostgreSQL it is served by the
+ *       pg_trgm indexes of migration V8</li>
+ *   <li>trigram: same matching, ranked by how similar the name is to the term</li>
+ *   <li>fulltext: every word of the term (as a prefix) against the weighted search_vector column</li>
+ * </ul>
+ * trigram and fulltext need PostgreSQL; on any other database (H2 in tests) they fall back to like.
+ */
+@Component
+public class ProductTextSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductTextSearch.class);
+
+    // Productos cargados por consulta al materializar los ids ordenados
+    private static final int LOAD_CHUNK = 500;
+
+    public enum Mode { LIKE, TRIGRAM, FULLTEXT }
+
+    private final ProductRepository repository;
+    private final Mode mode;
+
+    public ProductTextSearch(ProductRepository repository,
+                             DataSource dataSource,
+                             @Value("${inventory.search.database-mode:like}") String mode) {
+        this.repository = repository;
+        Mode requested = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        if (requested != Mode.LIKE && !isPostgreSql(dataSource)) {
+            log.warn("inventory.search.database-mode={} requires PostgreSQL, using like", mode);
+            requested = Mode.LIKE;
+        }
+        this.mode = requested;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // like is a plain predicate that can be combined with the other search filters in one query;
+    // trigram and fulltext return their own relevance order
+    public boolean isRanked() {
+        return mode != Mode.LIKE;
+    }
+
+    // Productos que coinciden con el término, en orden de relevancia cuando el modo la calcula
+    public List<Product> search(String term) {
+        return switch (mode) {
+            case LIKE -> repository.findBySearchTerm(term);
+            case TRIGRAM -> load(repository.searchIdsByTrigram(term.toLowerCase(Locale.ROOT),
+                    "%" + ProductSpecifications.escapeLike(term.toLowerCase(Locale.ROOT)) + "%"));
+            case FULLTEXT -> {
+                String query = toTsQuery(term);
+                yield query.isEmpty() ? List.of() : load(repository.searchIdsFullText(query));
+            }
+        };
+    }
+
+    // "Cámara  canon-eos" -> "camara:* & canon:* & eos:*". Los tokens solo tienen letras y
+    // dígitos, así que no queda ningún operador de tsquery del usuario en la consulta.
+    static String toTsQuery(String term) {
+        return ProductSearchIndex.tokenize(term).stream()
+                .distinct()
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    private List<Product> load(List<Long> rankedIds) {
+        List<Product> products = new ArrayList<>(rankedIds.size());
+        for (int from = 0; from < rankedIds.size(); from += LOAD_CHUNK) {
+            List<Long> ids = rankedIds.subList(from, Math.min(from + LOAD_CHUNK, rankedIds.size()));
+            Map<Long, Product> loaded = repository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, p -> p));
+            for (Long id : ids) {
+                Product product = loaded.get(id);
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+        }
+        return products;
+    }
+
+    static boolean isPostgreSql(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase(Locale.ROOT).contains("postgresql");
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not detect the database product: {}", e.getMessage());
+            return false;
+        }
+    }
+}
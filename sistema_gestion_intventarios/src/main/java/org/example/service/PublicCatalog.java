@@ -0,0 +1,347 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductPageDTO;
+import org.example.entity.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Guest view of the catalog: sanitized products (no quantities or stock thresholds) held in an
+ * immutable snapshot, ordered by id and by name and grouped by category. Readers take the current
+ * snapshot without locks or database access. Product writes are published as soon as their
+ * transaction commits. Stock writes only mark their product as changed; PublicCatalogLoader
+ * reloads the changed products in batches and publishes the next snapshot, so guests see a
+ * stock change within the loader's coalescing delay (50 ms by default) after its commit.
+ * <p>
+ * Every product or stock commit also bumps {@link #catalogVersion()}, even with the snapshot
+ * disabled, so responses computed from the database can be cached per catalog version.
+ */
+@Component
+public class PublicCatalog implements ProductChangeListener {
+
+    private static final Comparator<ProductDTO> BY_ID = Comparator.comparing(ProductDTO::getId);
+    private static final Comparator<ProductDTO> BY_NAME = Comparator.comparing(ProductDTO::getName)
+            .thenComparing(ProductDTO::getId);
+
+    private final boolean enabled;
+
+    // null hasta que el cargador publica la primera foto completa
+    private volatile Snapshot snapshot;
+
+    // Productos modificados por transacciones ya confirmadas, pendientes de recargar
+    private final Object changesLock = new Object();
+    private Set<Long> changed = new HashSet<>();
+
+    // Escrituras de productos o stock confirmadas desde el arranque
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    public PublicCatalog(MeterRegistry meterRegistry,
+                         @Value("${inventory.public-catalog.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        Gauge.builder("inventory_public_catalog_products", this, PublicCatalog::size)
+                .description("Products held in the public catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Immutable catalog version: the lists and DTOs are never modified after publication.
+     */
+    public record Snapshot(long version,
+                           List<ProductDTO> byIdOrder,
+                           List<ProductDTO> byNameOrder,
+                           List<ProductDTO> available,
+                           Map<String, List<ProductDTO>> byCategory) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isUsable() {
+        return enabled && snapshot != null && ProductChangeListener.outsideWriteTransaction();
+    }
+
+    // Cambia con cada commit que toca productos o stock (antes de que la foto lo refleje)
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.byIdOrder().size();
+    }
+
+    // === LECTURAS (sin base de datos ni copias) ===
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Public catalog is not loaded yet");
+        }
+        return current;
+    }
+
+    public List<ProductDTO> allProducts() {
+        return snapshot().byIdOrder();
+    }
+
+    public List<ProductDTO> availableProducts() {
+        return snapshot().available();
+    }
+
+    public List<ProductDTO> productsByCategory(String category) {
+        return snapshot().byCategory().getOrDefault(category, List.of());
+    }
+
+    public Optional<ProductDTO> product(Long id) {
+        return Optional.ofNullable(find(snapshot().byIdOrder(), id));
+    }
+
+    // Mismo contrato que getProductPage: página ordenada por id o por nombre a partir del cursor
+    public ProductPageDTO<ProductDTO> page(String cursor, int size, String sort) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        ProductCursor.Sort order = ProductCursor.Sort.parse(sort);
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor, order);
+        Snapshot current = snapshot();
+        List<ProductDTO> rows = order == ProductCursor.Sort.ID ? current.byIdOrder() : current.byNameOrder();
+
+        int from = 0;
+        if (after != null) {
+            ProductDTO key = new ProductDTO();
+            key.setId(after.lastId());
+            key.setName(after.lastName());
+            int position = Collections.binarySearch(rows, key, order == ProductCursor.Sort.ID ? BY_ID : BY_NAME);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        int to = Math.min(from + size, rows.size());
+        List<ProductDTO> page = rows.subList(from, to);
+        String next = to < rows.size() && !page.isEmpty()
+                ? ProductCursor.after(order, page.getLast().getId(), page.getLast().getName()).encode()
+                : null;
+        return new ProductPageDTO<>(page, next);
+    }
+
+    // Copia sin información sensible: ni cantidades, ni stock mínimo, ni valor del inventario
+    public static ProductDTO forGuest(ProductDTO product) {
+        ProductDTO publicProduct = new ProductDTO();
+        publicProduct.setId(product.getId());
+        publicProduct.setName(product.getName());
+        publicProduct.setDescription(product.getDescription());
+        publicProduct.setCategory(product.getCategory());
+        publicProduct.setPrice(product.getPrice());
+        publicProduct.setOutOfStock(product.getOutOfStock());
+        return publicProduct;
+    }
+
+    public static ProductDTO forGuest(Product product) {
+        ProductDTO publicProduct = new ProductDTO();
+        publicProduct.setId(product.getId());
+        publicProduct.setName(product.getName());
+        publicProduct.setDescription(product.getDescription());
+        publicProduct.setCategory(product.getCategory());
+        publicProduct.setPrice(product.getPrice());
+        publicProduct.setOutOfStock(product.isOutOfStock());
+        return publicProduct;
+    }
+
+    // === CAMBIOS ===
+
+    // Con el cambio ya confirmado. Altas y ediciones se publican en el acto (quien escribió ve su
+    // cambio en la siguiente lectura) y se encolan para recargarlas de la base, por si una recarga
+    // anterior en curso publica después un estado más viejo. Un cambio de stock solo se encola: el
+    // hilo de carga agrupa los de muchos commits por recarga
+    @Override
+    public void productsChanged(ProductChange change) {
+        catalogVersion.incrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        switch (change.kind()) {
+            case CREATED, UPDATED -> {
+                applyChanges(change.productIds(), change.saved().stream().map(PublicCatalog::forGuest).toList());
+                requeue(change.productIds());
+            }
+            case DELETED -> {
+                applyChanges(change.productIds(), List.of());
+                requeue(change.productIds());
+            }
+            case STOCK -> requeue(change.productIds());
+        }
+    }
+
+    // Productos a recargar en la siguiente vuelta
+    void requeue(Set<Long> productIds) {
+        synchronized (changesLock) {
+            changed.addAll(productIds);
+            changesLock.notifyAll();
+        }
+    }
+
+    // Espera hasta que haya cambios (o venza el plazo) y se los lleva todos
+    Set<Long> awaitChanges(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (changesLock) {
+            long remaining;
+            while (changed.isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(changesLock, remaining);
+            }
+            Set<Long> drained = changed;
+            changed = new HashSet<>();
+            return drained;
+        }
+    }
+
+    // === PUBLICACIÓN ===
+    // Una sola publicación a la vez: cada foto nueva parte de la anterior
+
+    synchronized void publishAll(List<ProductDTO> guestProducts) {
+        Map<Long, ProductDTO> byId = new HashMap<>(guestProducts.size() * 4 / 3 + 1);
+        guestProducts.forEach(p -> byId.put(p.getId(), p));
+        List<ProductDTO> byIdOrder = new ArrayList<>(byId.values());
+        byIdOrder.sort(BY_ID);
+        List<ProductDTO> byNameOrder = new ArrayList<>(byIdOrder);
+        byNameOrder.sort(BY_NAME);
+
+        Map<String, List<ProductDTO>> byCategory = new HashMap<>();
+        for (ProductDTO product : byIdOrder) {
+            byCategory.computeIfAbsent(product.getCategory(), c -> new ArrayList<>()).add(product);
+        }
+        publish(snapshot, byIdOrder, byNameOrder, byIdOrder.stream().filter(PublicCatalog::isAvailable).toList(),
+                byCategory);
+    }
+
+    // ids: productos a refrescar; replacements: su estado actual (los que faltan se borraron).
+    // Solo cuenta lo que ve un invitado: un movimiento de stock que no agota ni repone deja el
+    // producto igual y no publica nada. Si ningún cambio mueve un producto de lugar (stock o precio),
+    // las listas se copian y se reemplaza cada uno en su posición; si no, se mezclan con los
+    // reemplazos en lugar de reordenarse. Las categorías y los disponibles se mezclan igual y las
+    // categorías que no cambiaron se reutilizan tal cual. Sin foto todavía no hay nada que
+    // actualizar: la carga completa en curso los incluye o los recarga después.
+    synchronized void applyChanges(Set<Long> ids, Collection<ProductDTO> replacements) {
+        Snapshot current = snapshot;
+        if (current == null || ids.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductDTO> replacementsById = new HashMap<>(replacements.size() * 4 / 3 + 1);
+        replacements.forEach(guest -> replacementsById.put(guest.getId(), guest));
+
+        Set<Long> removed = new HashSet<>();
+        List<ProductDTO> additions = new ArrayList<>();
+        Set<String> touchedCategories = new HashSet<>();
+        boolean samePositions = true;
+        for (Long id : ids) {
+            ProductDTO previous = find(current.byIdOrder(), id);
+            ProductDTO replacement = replacementsById.get(id);
+            if (Objects.equals(previous, replacement)) {
+                continue;
+            }
+            if (previous != null) {
+                removed.add(id);
+                touchedCategories.add(previous.getCategory());
+            }
+            if (replacement != null) {
+                additions.add(replacement);
+                touchedCategories.add(replacement.getCategory());
+            }
+            samePositions &= previous != null && replacement != null
+                    && Objects.equals(previous.getName(), replacement.getName());
+        }
+        if (removed.isEmpty() && additions.isEmpty()) {
+            return;
+        }
+
+        additions.sort(BY_NAME);
+        List<ProductDTO> byNameOrder = samePositions
+                ? replaceInPlace(current.byNameOrder(), additions, BY_NAME)
+                : merge(current.byNameOrder(), removed, additions, BY_NAME);
+        additions.sort(BY_ID);
+        List<ProductDTO> byIdOrder = samePositions
+                ? replaceInPlace(current.byIdOrder(), additions, BY_ID)
+                : merge(current.byIdOrder(), removed, additions, BY_ID);
+        List<ProductDTO> available = merge(current.available(), removed,
+                additions.stream().filter(PublicCatalog::isAvailable).toList(), BY_ID);
+
+        Map<String, List<ProductDTO>> byCategory = new HashMap<>(current.byCategory());
+        for (String category : touchedCategories) {
+            List<ProductDTO> products = merge(current.byCategory().getOrDefault(category, List.of()), removed,
+                    additions.stream().filter(p -> Objects.equals(p.getCategory(), category)).toList(), BY_ID);
+            if (products.isEmpty()) {
+                byCategory.remove(category);
+            } else {
+                byCategory.put(category, products);
+            }
+        }
+        publish(current, byIdOrder, byNameOrder, available, byCategory);
+    }
+
+    private void publish(Snapshot previous, List<ProductDTO> byIdOrder, List<ProductDTO> byNameOrder,
+                         List<ProductDTO> available, Map<String, List<ProductDTO>> byCategory) {
+        byCategory.replaceAll((category, products) -> Collections.unmodifiableList(products));
+        snapshot = new Snapshot(previous == null ? 1 : previous.version() + 1,
+                Collections.unmodifiableList(byIdOrder),
+                Collections.unmodifiableList(byNameOrder),
+                Collections.unmodifiableList(available),
+                Collections.unmodifiableMap(byCategory));
+    }
+
+    private static boolean isAvailable(ProductDTO product) {
+        return !Boolean.TRUE.equals(product.getOutOfStock());
+    }
+
+    // Búsqueda binaria por id: la foto no guarda un mapa aparte que habría que copiar en cada cambio
+    private static ProductDTO find(List<ProductDTO> byIdOrder, Long id) {
+        ProductDTO key = new ProductDTO();
+        key.setId(id);
+        int position = Collections.binarySearch(byIdOrder, key, BY_ID);
+        return position >= 0 ? byIdOrder.get(position) : null;
+    }
+
+    // Mismas claves de orden: cada reemplazo ocupa la posición del producto al que reemplaza
+    private static List<ProductDTO> replaceInPlace(List<ProductDTO> base, List<ProductDTO> replacements,
+                                                   Comparator<ProductDTO> order) {
+        List<ProductDTO> replaced = new ArrayList<>(base);
+        for (ProductDTO product : replacements) {
+            replaced.set(Collections.binarySearch(base, product, order), product);
+        }
+        return replaced;
+    }
+
+    // Mezcla lineal: la lista anterior sin los ids cambiados más sus reemplazos, ambas ya ordenadas
+    private static List<ProductDTO> merge(List<ProductDTO> base, Set<Long> removed,
+                                          List<ProductDTO> additions, Comparator<ProductDTO> order) {
+        List<ProductDTO> merged = new ArrayList<>(base.size() + additions.size());
+        int a = 0;
+        for (ProductDTO product : base) {
+            if (removed.contains(product.getId())) {
+                continue;
+            }
+            while (a < additions.size() && order.compare(additions.get(a), product) < 0) {
+                merged.add(additions.get(a++));
+            }
+            merged.add(product);
+        }
+        while (a < additions.size()) {
+            merged.add(additions.get(a++));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.example.dto.ProductDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the public catalog up to date from a single background thread: loads the full snapshot
+ * once the application is up, then reloads the products changed by each batch of commits and
+ * publishes the next snapshot. After each refresh it waits inventory.public-catalog.coalesce-ms so
+ * that a burst of commits is applied as one batch instead of one snapshot per commit. Until the
+ * first load finishes, guest endpoints read the database.
+ */
+@Component
+public class PublicCatalogLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicCatalogLoader.class);
+
+    // Productos recargados por consulta al aplicar cambios
+    private static final int LOAD_CHUNK = 500;
+    private static final long RETRY_DELAY_MS = 1_000;
+
+    private final PublicCatalog catalog;
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long coalesceMs;
+
+    private volatile Thread worker;
+
+    public PublicCatalogLoader(PublicCatalog catalog,
+                               ProductRepository productRepository,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${inventory.public-catalog.coalesce-ms:50}") long coalesceMs) {
+        this.catalog = catalog;
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.coalesceMs = Math.max(0, coalesceMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!catalog.isEnabled()) {
+            return;
+        }
+        worker = new Thread(this::run, "public-catalog");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Set<Long> changed = Set.of();
+            try {
+                if (!catalog.isUsable()) {
+                    build();
+                    continue;
+                }
+                changed = catalog.awaitChanges(1, TimeUnit.SECONDS);
+                if (!changed.isEmpty()) {
+                    refresh(changed);
+                    // Los commits que lleguen mientras tanto se juntan en la próxima recarga
+                    Thread.sleep(coalesceMs);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                catalog.requeue(changed);
+                log.warn("Public catalog could not be updated, retrying", e);
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Foto completa. Los cambios previos quedan incluidos en la lectura; los posteriores se
+    // aplican en la vuelta siguiente.
+    private void build() throws InterruptedException {
+        long start = System.nanoTime();
+        catalog.awaitChanges(0, TimeUnit.NANOSECONDS);
+        List<ProductDTO> products = readOnlyTransaction.execute(status -> {
+            List<ProductDTO> guestProducts = new ArrayList<>();
+            try (Stream<Product> stream = productRepository.streamAllForExport()) {
+                Iterator<Product> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    Product product = iterator.next();
+                    guestProducts.add(PublicCatalog.forGuest(product));
+                    entityManager.detach(product);
+                }
+            }
+            return guestProducts;
+        });
+        catalog.publishAll(products);
+        log.info("Public catalog loaded with {} products in {} ms",
+                products.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void refresh(Set<Long> changed) {
+        List<Long> ids = new ArrayList<>(changed);
+        List<Product> loaded = readOnlyTransaction.execute(status -> {
+            List<Product> products = new ArrayList<>(ids.size());
+            for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+                products.addAll(productRepository.findAllById(ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size()))));
+            }
+            return products;
+        });
+        catalog.applyChanges(changed, loaded.stream().map(PublicCatalog::forGuest).toList());
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread running = worker;
+        if (running != null) {
+            running.interrupt();
+        }
+    }
+}
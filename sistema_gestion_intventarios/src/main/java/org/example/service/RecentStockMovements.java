@@ -0,0 +1,209 @@
+package org.example.service;
+
+import org.example.dto.StockMovementDTO;
+import org.example.entity.StockMovement;
+import org.example.repository.StockMovementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The last stock movements, newest first, held in a fixed-size ring buffer so the recent
+ * movements dashboard does not touch the database. The ring is kept in (timestamp, id) order,
+ * the same order as the bounded database query. Movements are added when their transaction
+ * commits; with the write-behind journal they are held back until the journal inserts them and
+ * their ids are known. The buffer is filled once from the database (idx_stock_movements_timestamp_id)
+ * when the application is up. Until then, or for more movements than the buffer holds, callers use
+ * the bounded database query. Only movements of this instance are added: with several instances
+ * writing to the same database, set inventory.stock.recent-movements.capacity=0.
+ */
+@Component
+public class RecentStockMovements {
+
+    private static final Logger log = LoggerFactory.getLogger(RecentStockMovements.class);
+
+    // Orden de la consulta, del más viejo al más nuevo
+    private static final Comparator<StockMovementDTO> ORDER = Comparator
+            .comparing(StockMovementDTO::getTimestamp)
+            .thenComparing(StockMovementDTO::getId);
+
+    private final StockMovementRepository stockMovementRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int capacity;
+
+    // Anillo: next es la posición del siguiente movimiento, size los ocupados
+    private final StockMovementDTO[] ring;
+    private int next;
+    private int size;
+    private volatile boolean loaded;
+
+    // Confirmados con el journal, aún sin insertar (sin id): por número de secuencia del journal
+    private final Map<Long, StockMovementDTO> awaitingIds = new HashMap<>();
+
+    public RecentStockMovements(StockMovementRepository stockMovementRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${inventory.stock.recent-movements.capacity:1000}") int capacity) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.capacity = Math.max(0, capacity);
+        this.ring = new StockMovementDTO[this.capacity];
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (capacity == 0) {
+            return;
+        }
+        try {
+            List<StockMovementDTO> latest = readOnlyTransaction.execute(status -> fromDatabase(capacity));
+            synchronized (this) {
+                // Los añadidos mientras se cargaba pueden estar también en la consulta: sin repetir
+                List<StockMovementDTO> merged = new ArrayList<>(newestFirst(size));
+                Set<Long> addedIds = new HashSet<>();
+                merged.forEach(movement -> addedIds.add(movement.getId()));
+                latest.stream().filter(movement -> !addedIds.contains(movement.getId())).forEach(merged::add);
+                merged.sort(ORDER);
+
+                next = 0;
+                size = 0;
+                merged.subList(Math.max(0, merged.size() - capacity), merged.size()).forEach(this::push);
+                loaded = true;
+            }
+            log.info("Recent stock movements loaded: {}", Math.min(latest.size(), capacity));
+        } catch (RuntimeException e) {
+            log.warn("Could not load recent stock movements, reading them from the database", e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The newest {@code limit} movements, or empty when they must be read from the database
+     * (buffer disabled or not loaded yet, or more movements than it holds).
+     */
+    public Optional<List<StockMovementDTO>> latest(int limit) {
+        if (!loaded || limit > capacity) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            return Optional.of(newestFirst(Math.min(limit, size)).stream()
+                    .map(RecentStockMovements::copy)
+                    .toList());
+        }
+    }
+
+    // Bounded query on idx_stock_movements_timestamp_id: cost depends on the limit, not on the table
+    public List<StockMovementDTO> fromDatabase(int limit) {
+        return stockMovementRepository.findAllByOrderByTimestampDescIdDesc(Limit.of(limit)).stream()
+                .map(StockMovementDTO::from)
+                .toList();
+    }
+
+    // Se añaden al confirmar la transacción en curso (o en el acto si no hay ninguna)
+    public void added(List<StockMovement> movements) {
+        if (capacity == 0 || movements.isEmpty()) {
+            return;
+        }
+        List<StockMovementDTO> rows = movements.stream().map(StockMovementDTO::from).toList();
+        List<Long> journalSeqs = movements.stream().map(StockMovement::getJournalSeq).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed(rows, journalSeqs);
+                }
+            });
+        } else {
+            committed(rows, journalSeqs);
+        }
+    }
+
+    // Insertados por el journal: ya tienen id y entran al anillo
+    public synchronized void inserted(List<StockMovement> movements) {
+        for (StockMovement movement : movements) {
+            StockMovementDTO row = awaitingIds.remove(movement.getJournalSeq());
+            if (row != null) {
+                row.setId(movement.getId());
+                push(row);
+            }
+        }
+    }
+
+    // Rechazado por la base al insertarlo desde el journal: no llega a la tabla ni al anillo
+    public synchronized void discarded(Long journalSeq) {
+        awaitingIds.remove(journalSeq);
+    }
+
+    // === MÉTODOS PRIVADOS AUXILIARES ===
+
+    // El journal avisa de la inserción después de este commit (su afterCompletion corre tras los afterCommit)
+    private synchronized void committed(List<StockMovementDTO> rows, List<Long> journalSeqs) {
+        for (int i = 0; i < rows.size(); i++) {
+            StockMovementDTO row = rows.get(i);
+            if (row.getId() == null && journalSeqs.get(i) != null) {
+                awaitingIds.put(journalSeqs.get(i), row);
+            } else {
+                push(row);
+            }
+        }
+    }
+
+    // Los commits llegan casi en orden: el nuevo retrocede solo las pocas posiciones de los más nuevos
+    // que él. Con el anillo lleno, uno más viejo que todos queda fuera
+    private void push(StockMovementDTO row) {
+        if (size == capacity && ORDER.compare(row, ring[next]) < 0) {
+            return;
+        }
+        int at = next;
+        ring[at] = row;
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+        for (int moved = 1; moved < size; moved++) {
+            int before = Math.floorMod(at - 1, capacity);
+            if (ORDER.compare(ring[before], row) <= 0) {
+                break;
+            }
+            ring[at] = ring[before];
+            ring[before] = row;
+            at = before;
+        }
+    }
+
+    private List<StockMovementDTO> newestFirst(int count) {
+        List<StockMovementDTO> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rows.add(ring[Math.floorMod(next - i, capacity)]);
+        }
+        return rows;
+    }
+
+    private static StockMovementDTO copy(StockMovementDTO row) {
+        return new StockMovementDTO(row.getId(), row.getProductId(), row.getProductName(), row.getNewQuantity(),
+                row.getQuantity(), row.getReason(), row.getMovementType(), row.getMovementTypeDescription(),
+                row.getPreviousQuantity(), row.getTimestamp(), row.getUsername());
+    }
+}
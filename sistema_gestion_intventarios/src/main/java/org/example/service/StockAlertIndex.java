@@ -0,0 +1,142 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockLevel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Low-stock and out-of-stock products as two bitsets indexed by product id, so the alert lists
+ * and their counts cost O(result) instead of a scan comparing two columns on every row. The sizes
+ * are kept as counters next to the sets. The sets follow committed writes as described in
+ * {@link IncrementalProductView}; the counters are what the periodic reconciliation compares.
+ */
+@Component
+public class StockAlertIndex extends IncrementalProductView {
+
+    // Se protegen con el monitor de la instancia
+    private final BitSet lowStock = new BitSet();
+    private final BitSet outOfStock = new BitSet();
+    private int lowStockCount;
+    private int outOfStockCount;
+
+    public StockAlertIndex(ProductRepository productRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${inventory.stock-alerts.enabled:true}") boolean enabled) {
+        super(productRepository, transactionManager, meterRegistry, enabled,
+                "inventory_stock_alerts", "low/out-of-stock sets");
+    }
+
+    // === LECTURAS ===
+
+    // Ids en orden ascendente, o vacío si hay que consultar la base
+    public Optional<List<Long>> lowStockIds() {
+        return ids(lowStock);
+    }
+
+    public Optional<List<Long>> outOfStockIds() {
+        return ids(outOfStock);
+    }
+
+    // Contadores mantenidos con cada cambio: O(1), sin recorrer los conjuntos
+    public long lowStockCount() {
+        return count(true).orElseGet(productRepository::countLowStockProducts);
+    }
+
+    public long outOfStockCount() {
+        return count(false).orElseGet(productRepository::countOutOfStockProducts);
+    }
+
+    // === CARGA Y RECARGA ===
+
+    @Override
+    protected void rebuild() {
+        BitSet low = new BitSet();
+        BitSet out = new BitSet();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<StockLevel> levels = productRepository.streamStockLevels()) {
+                levels.forEach(level -> set(low, out, level));
+            }
+        });
+        synchronized (this) {
+            clear();
+            lowStock.or(low);
+            outOfStock.or(out);
+            lowStockCount = low.cardinality();
+            outOfStockCount = out.cardinality();
+        }
+        log.info("Stock alert sets loaded: {} low stock, {} out of stock", low.cardinality(), out.cardinality());
+    }
+
+    @Override
+    protected void reloadChunk(List<Long> productIds) {
+        List<StockLevel> levels = readOnlyTransaction.execute(status -> productRepository.findStockLevelsByIdIn(productIds));
+        synchronized (this) {
+            productIds.forEach(id -> update(Math.toIntExact(id), false, false));
+            levels.forEach(level -> update(Math.toIntExact(level.id()), level.lowStock(), level.outOfStock()));
+        }
+    }
+
+    @Override
+    protected boolean matchesDatabase() {
+        long low = count(true).orElse(-1L);
+        long out = count(false).orElse(-1L);
+        return Boolean.TRUE.equals(readOnlyTransaction.execute(status ->
+                productRepository.countLowStockProducts() == low
+                        && productRepository.countOutOfStockProducts() == out));
+    }
+
+    @Override
+    protected void clear() {
+        lowStock.clear();
+        outOfStock.clear();
+        lowStockCount = 0;
+        outOfStockCount = 0;
+    }
+
+    // === MÉTODOS PRIVADOS AUXILIARES ===
+
+    private Optional<List<Long>> ids(BitSet set) {
+        if (!refreshed()) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            return isLoaded() ? Optional.of(set.stream().mapToObj(id -> (long) id).toList()) : Optional.empty();
+        }
+    }
+
+    private Optional<Long> count(boolean low) {
+        if (!refreshed()) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            return isLoaded() ? Optional.of((long) (low ? lowStockCount : outOfStockCount)) : Optional.empty();
+        }
+    }
+
+    // Con el monitor de la instancia tomado
+    private void update(int id, boolean low, boolean out) {
+        if (lowStock.get(id) != low) {
+            lowStock.set(id, low);
+            lowStockCount += low ? 1 : -1;
+        }
+        if (outOfStock.get(id) != out) {
+            outOfStock.set(id, out);
+            outOfStockCount += out ? 1 : -1;
+        }
+    }
+
+    private static void set(BitSet low, BitSet out, StockLevel level) {
+        int id = Math.toIntExact(level.id());
+        low.set(id, level.lowStock());
+        out.set(id, level.outOfStock());
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.service;
+
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
+import org.example.dto.StockBulkUpdateDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bulk stock adjustments for /api/integration/stock/bulk-update.
+ * Rows are split into chunks that run in parallel on virtual threads, each chunk in its own
+ * transaction with its products loaded (and locked) in a single query. All rows of a product
+ * land in the same chunk, so chunks never compete for the same rows and a product's rows are
+ * still applied in request order.
+ */
+@Component
+public class StockBulkUpdater {
+
+    private static final String DEFAULT_REASON = "Bulk update via API";
+
+    private final StockService stockService;
+    private final int chunkSize;
+    private final Semaphore permits;
+
+    public StockBulkUpdater(StockService stockService,
+                            @Value("${inventory.integration.bulk-update.chunk-size:500}") int chunkSize,
+                            @Value("${inventory.integration.bulk-update.parallelism:4}") int parallelism) {
+        this.stockService = stockService;
+        this.chunkSize = Math.max(1, chunkSize);
+        // Cada bloque en curso ocupa una conexión del pool
+        this.permits = new Semaphore(Math.max(1, parallelism));
+    }
+
+    // Devuelve los errores por fila, en el orden de la petición
+    public List<String> update(List<StockBulkUpdateDTO> updates, String username) {
+        List<List<IndexedRow>> chunks = chunk(updates);
+
+        List<RowError> errors = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<RowError>>> results = new ArrayList<>(chunks.size());
+            for (List<IndexedRow> chunk : chunks) {
+                results.add(executor.submit(() -> runChunk(chunk, username)));
+            }
+            for (Future<List<RowError>> result : results) {
+                errors.addAll(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying bulk stock update", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Bulk stock update failed", e.getCause());
+        }
+
+        return errors.stream()
+                .sorted(Comparator.comparingInt(RowError::index))
+                .map(RowError::message)
+                .toList();
+    }
+
+    // Agrupa las filas por producto y reparte los grupos en bloques de ~chunkSize filas
+    private List<List<IndexedRow>> chunk(List<StockBulkUpdateDTO> updates) {
+        Map<Long, List<IndexedRow>> byProduct = new LinkedHashMap<>();
+        List<IndexedRow> withoutProduct = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            IndexedRow row = new IndexedRow(i, updates.get(i));
+            if (row.update() == null || row.update().getProductId() == null) {
+                withoutProduct.add(row);
+            } else {
+                byProduct.computeIfAbsent(row.update().getProductId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<List<IndexedRow>> chunks = new ArrayList<>();
+        List<IndexedRow> current = new ArrayList<>(withoutProduct);
+        for (List<IndexedRow> productRows : byProduct.values()) {
+            if (!current.isEmpty() && current.size() + productRows.size() > chunkSize) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            }
+            current.addAll(productRows);
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private List<RowError> runChunk(List<IndexedRow> chunk, String username) throws InterruptedException {
+        permits.acquire();
+        try {
+            return applyChunk(chunk, username);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private List<RowError> applyChunk(List<IndexedRow> chunk, String username) {
+        StockBatchRequestDTO batch = new StockBatchRequestDTO(StockBatchRequestDTO.Mode.BEST_EFFORT,
+                chunk.stream().map(row -> toAdjustment(row.update())).toList());
+
+        StockBatchResultDTO result;
+        try {
+            result = stockService.registerMovementBatch(batch, username);
+        } catch (Exception chunkFailure) {
+            // El bloque falló en la base de datos: se reintenta fila por fila
+            return applyRowByRow(chunk, username);
+        }
+
+        List<RowError> errors = new ArrayList<>();
+        for (StockBatchResultDTO.LineResult line : result.getResults()) {
+            if (!line.isSuccess()) {
+                IndexedRow row = chunk.get(line.getLine());
+                errors.add(new RowError(row.index(), errorMessage(row.update(), line.getError())));
+            }
+        }
+        return errors;
+    }
+
+    private List<RowError> applyRowByRow(List<IndexedRow> chunk, String username) {
+        List<RowError> errors = new ArrayList<>();
+        for (IndexedRow row : chunk) {
+            try {
+                StockMovementDTO adjustment = toAdjustment(row.update());
+                if (adjustment == null) {
+                    throw new IllegalArgumentException("Line cannot be empty");
+                }
+                stockService.registerAdjustment(adjustment, username);
+            } catch (Exception e) {
+                errors.add(new RowError(row.index(), errorMessage(row.update(), e.getMessage())));
+            }
+        }
+        return errors;
+    }
+
+    private StockMovementDTO toAdjustment(StockBulkUpdateDTO update) {
+        if (update == null) {
+            return null;
+        }
+        StockMovementDTO adjustment = new StockMovementDTO();
+        adjustment.setMovementType(MovementType.ADJUSTMENT);
+        adjustment.setProductId(update.getProductId());
+        adjustment.setNewQuantity(update.getQuantity());
+        adjustment.setReason(update.getReason() != null ? update.getReason() : DEFAULT_REASON);
+        return adjustment;
+    }
+
+    private String errorMessage(StockBulkUpdateDTO update, String error) {
+        return "Product ID " + (update != null ? update.getProductId() : null) + ": " + error;
+    }
+
+    private record IndexedRow(int index, StockBulkUpdateDTO update) {
+    }
+
+    private record RowError(int index, String message) {
+    }
+}
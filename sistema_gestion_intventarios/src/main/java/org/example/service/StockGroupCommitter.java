@@ -0,0 +1,160 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.example.dto.StockMovementDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for stock movements.
+ * Movements arriving within the configured window (or until the group is full) are applied
+ * together in one transaction, paying a single commit for the whole group. Each caller still
+ * receives its own StockMovementDTO or its own error.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.write-mode", havingValue = "group-commit")
+public class StockGroupCommitter {
+
+    private static final Logger log = LoggerFactory.getLogger(StockGroupCommitter.class);
+
+    private final StockServiceImpl stockService;
+    private final BlockingQueue<PendingMovement> queue = new LinkedBlockingQueue<>();
+    private final long windowNanos;
+    private final int maxGroupSize;
+    private final Thread committer;
+    private final DistributionSummary groupSizeSummary;
+    private final Timer groupCommitTimer;
+
+    private volatile boolean running = true;
+
+    public StockGroupCommitter(StockServiceImpl stockService,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventory.stock.group-commit.window-ms:2}") long windowMs,
+                               @Value("${inventory.stock.group-commit.max-size:64}") int maxGroupSize) {
+        this.stockService = stockService;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxGroupSize = Math.max(1, maxGroupSize);
+
+        this.groupSizeSummary = DistributionSummary.builder("inventory_stock_group_commit_size")
+                .description("Stock movements applied per group commit")
+                .register(meterRegistry);
+        this.groupCommitTimer = Timer.builder("inventory_stock_group_commit_seconds")
+                .description("Time taken to apply and commit a group of stock movements")
+                .register(meterRegistry);
+        Gauge.builder("inventory_stock_group_commit_pending", queue, BlockingQueue::size)
+                .description("Stock movements waiting for the next group commit")
+                .register(meterRegistry);
+
+        this.committer = new Thread(this::run, "stock-group-commit");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    // Queues the movement for the next group and waits until that group has been committed
+    public StockMovementDTO submit(StockMovementCommand command) {
+        PendingMovement pending = new PendingMovement(command, new CompletableFuture<>());
+        queue.add(pending);
+
+        try {
+            return pending.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Stock movement failed", e.getCause());
+        }
+    }
+
+    private void run() {
+        List<PendingMovement> group = new ArrayList<>(maxGroupSize);
+        while (running) {
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroupSize) {
+                    PendingMovement next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                // Solo afecta a movimientos de un grupo interrumpido antes de completarse
+                group.forEach(p -> p.result().completeExceptionally(
+                        new IllegalStateException("Stock group commit stopped")));
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingMovement> group) {
+        List<StockMovementCommand> commands = group.stream().map(PendingMovement::command).toList();
+        groupSizeSummary.record(group.size());
+
+        List<StockMovementOutcome> outcomes;
+        try {
+            outcomes = groupCommitTimer.recordCallable(() -> stockService.registerMovementGroup(commands));
+        } catch (Exception e) {
+            // La transacción del grupo falló como un todo: cada movimiento se reintenta por separado
+            log.warn("Group commit of {} stock movements failed, applying them one by one", group.size(), e);
+            group.forEach(this::commitAlone);
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), outcomes.get(i));
+        }
+    }
+
+    private void commitAlone(PendingMovement pending) {
+        try {
+            complete(pending, stockService.registerMovementGroup(List.of(pending.command())).getFirst());
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private void complete(PendingMovement pending, StockMovementOutcome outcome) {
+        if (outcome.isSuccess()) {
+            pending.result().complete(outcome.movement());
+        } else {
+            pending.result().completeExceptionally(outcome.error());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        committer.interrupt();
+
+        List<PendingMovement> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(p -> p.result().completeExceptionally(
+                new IllegalStateException("Stock group commit stopped")));
+    }
+
+    private record PendingMovement(StockMovementCommand command, CompletableFuture<StockMovementDTO> result) {
+    }
+}
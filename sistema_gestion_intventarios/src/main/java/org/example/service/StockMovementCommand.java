@@ -0,0 +1,8 @@
+package org.example.service;
+
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+
+// A stock movement waiting to be applied together with others
+public record StockMovementCommand(MovementType movementType, StockMovementDTO request, String username) {
+}
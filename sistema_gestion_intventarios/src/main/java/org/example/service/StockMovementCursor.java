@@ -0,0 +1,34 @@
+package org.example.service;
+
+import org.example.entity.StockMovement;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for a product's movement history (newest first): the (timestamp, id) of the
+ * last movement of a page. Encoded as URL-safe base64 of "&lt;id&gt;:&lt;ISO timestamp&gt;".
+ */
+public record StockMovementCursor(LocalDateTime lastTimestamp, Long lastId) {
+
+    public static StockMovementCursor after(StockMovement last) {
+        return new StockMovementCursor(last.getTimestamp(), last.getId());
+    }
+
+    public String encode() {
+        String raw = lastId + ":" + lastTimestamp;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static StockMovementCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            return new StockMovementCursor(LocalDateTime.parse(parts[1]), Long.valueOf(parts[0]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,616 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.entity.MovementType;
+import org.example.entity.StockMovement;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockMovementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind journal for the stock_movements audit trail (inventory.stock.audit-mode=journal).
+ * The movement rows of a transaction are appended to a local append-only file (and fsynced) just
+ * before it commits, so the quantity change commits without the INSERT. A background flusher
+ * batch-inserts committed entries into stock_movements; on startup, entries that never reached the
+ * table are replayed. Rows carry their journal sequence number (unique), so a replay never inserts
+ * a movement twice; each instance writing through a journal needs its own node-id, which selects a
+ * disjoint range of sequence numbers.
+ * A crash in the instant between the journal fsync and the database commit can leave an entry for
+ * a change that did not commit; commits that fail while the process is alive are cancelled in the
+ * journal. Until flushed, a movement does not show up in history queries (nor in the recent
+ * movements) and its DTO has no id.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.audit-mode", havingValue = "journal")
+public class StockMovementJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(StockMovementJournal.class);
+
+    private static final String SEGMENT_PREFIX = "movements-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long RETRY_BACKOFF_MS = 1_000;
+    private static final int NODE_BITS = 48;
+    private static final int MAX_NODE_ID = (1 << (63 - NODE_BITS)) - 1;
+
+    private final StockMovementRepository stockMovementRepository;
+    private final ProductRepository productRepository;
+    private final RecentStockMovements recentMovements;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final boolean fsync;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final long segmentBytes;
+    private final long firstSeq;
+    private final long lastSeq;
+
+    private final BlockingQueue<PendingEntry> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final Object writeLock = new Object();
+    private Segment current; // protegido por writeLock
+    private long nextSegmentIndex;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final Counter flushedCounter;
+    private final Counter replayedCounter;
+    private final Counter droppedCounter;
+    private final Timer writeTimer;
+    private final Timer flushTimer;
+
+    public StockMovementJournal(StockMovementRepository stockMovementRepository,
+                                ProductRepository productRepository,
+                                RecentStockMovements recentMovements,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${inventory.stock.journal.dir:data/stock-movement-journal}") Path directory,
+                                @Value("${inventory.stock.journal.fsync:true}") boolean fsync,
+                                @Value("${inventory.stock.journal.flush-interval-ms:200}") long flushIntervalMs,
+                                @Value("${inventory.stock.journal.batch-size:500}") int batchSize,
+                                @Value("${inventory.stock.journal.segment-bytes:16777216}") long segmentBytes,
+                                @Value("${inventory.stock.journal.node-id:0}") int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Journal node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.stockMovementRepository = stockMovementRepository;
+        this.productRepository = productRepository;
+        this.recentMovements = recentMovements;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.fsync = fsync;
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.batchSize = Math.max(1, batchSize);
+        this.segmentBytes = Math.max(1, segmentBytes);
+        this.firstSeq = (long) nodeId << NODE_BITS;
+        this.lastSeq = firstSeq + (1L << NODE_BITS) - 1;
+
+        Gauge.builder("inventory_stock_journal_pending", queue, BlockingQueue::size)
+                .description("Committed stock movements waiting to be inserted into stock_movements")
+                .register(meterRegistry);
+        Gauge.builder("inventory_stock_journal_lag_seconds", this, StockMovementJournal::lagSeconds)
+                .description("Age of the oldest stock movement waiting to be inserted")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("inventory_stock_journal_flushed_total")
+                .description("Stock movements inserted from the journal")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("inventory_stock_journal_replayed_total")
+                .description("Stock movements inserted by replaying the journal on startup")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("inventory_stock_journal_dropped_total")
+                .description("Journal entries rejected by the database (e.g. product deleted)")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("inventory_stock_journal_write_seconds")
+                .description("Time taken to append (and fsync) the movements of a transaction")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("inventory_stock_journal_flush_seconds")
+                .description("Time taken to insert a batch of journal entries")
+                .register(meterRegistry);
+    }
+
+    // === ESCRITURA ===
+
+    public StockMovement append(StockMovement movement) {
+        appendAll(List.of(movement));
+        return movement;
+    }
+
+    // Dentro de una transacción los movimientos se escriben justo antes del commit y pasan al
+    // flusher solo si la transacción confirma
+    public List<StockMovement> appendAll(List<StockMovement> movements) {
+        List<PendingEntry> entries = new ArrayList<>(movements.size());
+        for (StockMovement movement : movements) {
+            long seq = nextSeq.getAndIncrement();
+            movement.setJournalSeq(seq);
+            entries.add(new PendingEntry(Entry.of(seq, movement)));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionEntries().addAll(entries);
+        } else {
+            write(entries);
+            queue.addAll(entries);
+        }
+        return movements;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PendingEntry> transactionEntries() {
+        List<PendingEntry> entries = (List<PendingEntry>) TransactionSynchronizationManager.getResource(this);
+        if (entries != null) {
+            return entries;
+        }
+
+        List<PendingEntry> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean written;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(created);
+                written = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(StockMovementJournal.this);
+                if (status == STATUS_COMMITTED) {
+                    queue.addAll(created);
+                } else if (written) {
+                    cancel(created);
+                }
+            }
+        });
+        return created;
+    }
+
+    private void write(List<PendingEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = encode(entries.stream().map(PendingEntry::entry).toList());
+        writeTimer.record(() -> {
+            synchronized (writeLock) {
+                Segment segment = writeToCurrent(buffer);
+                segment.outstanding += entries.size();
+                entries.forEach(entry -> entry.segment = segment);
+            }
+        });
+    }
+
+    // El commit falló después de escribir: se anulan las entradas en el journal. Si la anulación cae
+    // en otro segmento, ese segmento se retiene mientras exista el de la entrada anulada: borrarlo
+    // antes haría que un reinicio reprodujera el movimiento revertido
+    private void cancel(List<PendingEntry> entries) {
+        ByteBuffer buffer = encode(entries.stream().map(entry -> Entry.cancelled(entry.entry().seq())).toList());
+        synchronized (writeLock) {
+            Segment tombstones = writeToCurrent(buffer);
+            for (PendingEntry entry : entries) {
+                if (entry.segment != null && entry.segment != tombstones) {
+                    tombstones.outstanding++;
+                    entry.segment.tombstones.add(tombstones);
+                }
+            }
+            entries.forEach(this::release);
+        }
+    }
+
+    private Segment writeToCurrent(ByteBuffer buffer) {
+        try {
+            if (current.size >= segmentBytes) {
+                rotate();
+            }
+            int bytes = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                current.channel.write(buffer);
+            }
+            if (fsync) {
+                current.channel.force(false);
+            }
+            current.size += bytes;
+            return current;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write stock movement journal " + current.path, e);
+        }
+    }
+
+    // === CICLO DE VIDA ===
+
+    @PostConstruct
+    public void start() throws IOException {
+        open();
+        running = true;
+        flusher = new Thread(this::runFlusher, "stock-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Reproduce lo pendiente de una ejecución anterior y abre un segmento nuevo
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments();
+
+        long maxSeq = stockMovementRepository.findMaxJournalSeqBetween(firstSeq, lastSeq).orElse(firstSeq);
+        Map<Long, Entry> pending = new LinkedHashMap<>();
+        for (Path segment : segments) {
+            for (Entry entry : readSegment(segment)) {
+                maxSeq = Math.max(maxSeq, entry.seq());
+                if (entry.cancelled()) {
+                    pending.remove(entry.seq());
+                } else {
+                    pending.put(entry.seq(), entry);
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            long minSeq = pending.keySet().stream().mapToLong(Long::longValue).min().orElseThrow();
+            Set<Long> inserted = new HashSet<>(stockMovementRepository.findJournalSeqsBetween(minSeq, lastSeq));
+            List<PendingEntry> replay = pending.values().stream()
+                    .filter(entry -> !inserted.contains(entry.seq()))
+                    .map(PendingEntry::new)
+                    .toList();
+            for (int from = 0; from < replay.size(); from += batchSize) {
+                insertIsolatingFailures(replay.subList(from, Math.min(from + batchSize, replay.size())), true);
+            }
+            replayedCounter.increment(replay.size());
+            log.info("Replayed {} stock movements from the journal ({} were already inserted)",
+                    replay.size(), pending.size() - replay.size());
+        }
+
+        for (Path segment : segments) {
+            Files.delete(segment);
+        }
+        nextSeq.set(maxSeq + 1);
+        nextSegmentIndex = segments.isEmpty() ? 0 : segmentIndex(segments.getLast()) + 1;
+        synchronized (writeLock) {
+            current = openSegment();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(Math.max(5_000, 2 * flushIntervalMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Lo que queda ya está en el journal: se inserta ahora o se reproduce al arrancar
+        List<PendingEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            try {
+                insert(remaining);
+                flushed(remaining);
+            } catch (RuntimeException e) {
+                log.warn("{} stock movements left in the journal for replay on next start", remaining.size(), e);
+            }
+        }
+
+        synchronized (writeLock) {
+            closeQuietly(current);
+        }
+    }
+
+    // === VOLCADO A stock_movements ===
+
+    private void runFlusher() {
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingEntry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flushTimer.record(() -> insertIsolatingFailures(batch, false));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Stock movement journal flusher failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Un lote que falla se reintenta movimiento por movimiento para aislar al que la base rechaza
+    private void insertIsolatingFailures(List<PendingEntry> batch, boolean replaying) {
+        try {
+            insert(batch);
+            flushed(batch);
+            return;
+        } catch (RuntimeException batchFailure) {
+            log.warn("Batch insert of {} journal entries failed, inserting them one by one", batch.size(), batchFailure);
+        }
+
+        for (PendingEntry entry : batch) {
+            while (true) {
+                try {
+                    insert(List.of(entry));
+                    flushed(List.of(entry));
+                    break;
+                } catch (DataIntegrityViolationException e) {
+                    log.error("Dropping journal entry {} rejected by the database: {}", entry.entry(), e.getMessage());
+                    droppedCounter.increment();
+                    recentMovements.discarded(entry.entry().seq());
+                    release(entry);
+                    break;
+                } catch (RuntimeException e) {
+                    if (replaying || !running) {
+                        throw e; // queda en el journal para la próxima ejecución
+                    }
+                    log.warn("Could not insert journal entry {}, retrying", entry.entry().seq(), e);
+                    sleepBeforeRetry();
+                }
+            }
+        }
+    }
+
+    // Con el commit los movimientos tienen id: recién entonces pasan a los últimos movimientos
+    private void insert(List<PendingEntry> entries) {
+        List<StockMovement> inserted = transactionTemplate.execute(status -> stockMovementRepository.saveAll(
+                entries.stream().map(entry -> toMovement(entry.entry())).toList()));
+        recentMovements.inserted(inserted);
+    }
+
+    private void flushed(List<PendingEntry> entries) {
+        flushedCounter.increment(entries.size());
+        synchronized (writeLock) {
+            entries.forEach(this::release);
+        }
+    }
+
+    private void release(PendingEntry entry) {
+        synchronized (writeLock) {
+            Segment segment = entry.segment;
+            if (segment == null) {
+                return;
+            }
+            entry.segment = null;
+            segment.outstanding--;
+            deleteIfUnused(segment);
+        }
+    }
+
+    // Un segmento cerrado sin entradas pendientes ya no hace falta; con él dejan de hacer falta las
+    // anulaciones de sus entradas escritas en segmentos posteriores
+    private void deleteIfUnused(Segment segment) {
+        if (!segment.closed || segment.outstanding > 0) {
+            return;
+        }
+        deleteQuietly(segment.path);
+        for (Segment tombstones : segment.tombstones) {
+            tombstones.outstanding--;
+            deleteIfUnused(tombstones);
+        }
+        segment.tombstones.clear();
+    }
+
+    private StockMovement toMovement(Entry entry) {
+        return StockMovement.builder()
+                .product(productRepository.getReferenceById(entry.productId()))
+                .movementType(entry.movementType())
+                .quantity(entry.quantity())
+                .previousQuantity(entry.previousQuantity())
+                .newQuantity(entry.newQuantity())
+                .timestamp(entry.timestamp())
+                .username(entry.username())
+                .reason(entry.reason())
+                .journalSeq(entry.seq())
+                .build();
+    }
+
+    // === SEGMENTOS ===
+
+    private void rotate() {
+        Segment closed = current;
+        closed.closed = true;
+        closeQuietly(closed);
+        deleteIfUnused(closed);
+        current = openSegment();
+    }
+
+    private Segment openSegment() {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, nextSegmentIndex++, SEGMENT_SUFFIX));
+        try {
+            return new Segment(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create stock movement journal segment " + path, e);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted((a, b) -> Long.compare(segmentIndex(a), segmentIndex(b)))
+                    .toList();
+        }
+    }
+
+    private long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Cada línea es "<crc32> <json>"; una línea incompleta o corrupta marca el final escrito del segmento
+    private List<Entry> readSegment(Path segment) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = decode(line);
+                if (entry == null) {
+                    log.warn("Ignoring torn or corrupt record at the end of {}", segment);
+                    break;
+                }
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private ByteBuffer encode(List<Entry> entries) {
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : entries) {
+            try {
+                String json = objectMapper.writeValueAsString(entry);
+                lines.append(Long.toHexString(crc(json))).append(' ').append(json).append('\n');
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize journal entry " + entry.seq(), e);
+            }
+        }
+        return ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Entry decode(String line) {
+        int separator = line.indexOf(' ');
+        if (separator <= 0) {
+            return null;
+        }
+        String json = line.substring(separator + 1);
+        try {
+            if (Long.parseLong(line.substring(0, separator), 16) != crc(json)) {
+                return null;
+            }
+            return objectMapper.readValue(json, Entry.class);
+        } catch (NumberFormatException | JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static long crc(String json) {
+        CRC32 crc = new CRC32();
+        crc.update(json.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private double lagSeconds() {
+        PendingEntry oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.createdNanos) / 1_000_000_000.0;
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static void closeQuietly(Segment segment) {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close journal segment {}", segment.path, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete flushed journal segment {}", path, e);
+        }
+    }
+
+    // === REGISTROS ===
+
+    // Línea del journal: un movimiento o la anulación de uno (cancelled)
+    public record Entry(long seq, boolean cancelled, Long productId, MovementType movementType, Integer quantity,
+                        Integer previousQuantity, Integer newQuantity, LocalDateTime timestamp,
+                        String username, String reason) {
+
+        static Entry of(long seq, StockMovement movement) {
+            return new Entry(seq, false, movement.getProduct().getId(), movement.getMovementType(),
+                    movement.getQuantity(), movement.getPreviousQuantity(), movement.getNewQuantity(),
+                    movement.getTimestamp(), movement.getUsername(), movement.getReason());
+        }
+
+        static Entry cancelled(long seq) {
+            return new Entry(seq, true, null, null, null, null, null, null, null, null);
+        }
+    }
+
+    private static final class PendingEntry {
+        private final Entry entry;
+        private final long createdNanos = System.nanoTime();
+        private Segment segment; // protegido por writeLock
+
+        private PendingEntry(Entry entry) {
+            this.entry = entry;
+        }
+
+        private Entry entry() {
+            return entry;
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        // Segmentos con anulaciones de entradas de este: cada uno cuenta una por entrada en outstanding
+        private final List<Segment> tombstones = new ArrayList<>();
+        private long size;
+        private int outstanding;
+        private boolean closed;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
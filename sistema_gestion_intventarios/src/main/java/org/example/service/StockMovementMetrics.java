@@ -0,0 +1,91 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.entity.MovementType;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the stock movement hot path, registered once per movement type so recording a
+ * movement is a map lookup and an increment, never a registry lookup.
+ * Each movement is split into phases: the stock update (its lock wait reported apart when the
+ * strategy takes the lock as a separate statement), loading the product and inserting the audit row.
+ * Timers publish a fixed set of buckets so Grafana can compute percentiles per type and phase.
+ */
+public class StockMovementMetrics {
+
+    public enum Phase {
+        PRODUCT_LOAD, LOCK_WAIT, UPDATE, AUDIT_INSERT;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final Duration[] LATENCY_BUCKETS = {
+            Duration.ofNanos(250_000), Duration.ofNanos(500_000), Duration.ofMillis(1), Duration.ofMillis(2),
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2_500)
+    };
+    private static final double[] QUANTITY_BUCKETS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 5_000, 10_000};
+
+    private final Map<MovementType, Counter> movements = new EnumMap<>(MovementType.class);
+    private final Map<MovementType, DistributionSummary> quantities = new EnumMap<>(MovementType.class);
+    private final Map<MovementType, Counter> insufficientStock = new EnumMap<>(MovementType.class);
+    private final Map<MovementType, Map<Phase, Timer>> phases = new EnumMap<>(MovementType.class);
+
+    public StockMovementMetrics(MeterRegistry meterRegistry) {
+        for (MovementType type : MovementType.values()) {
+            String typeTag = type.name().toLowerCase();
+            movements.put(type, Counter.builder("inventory_stock_movements_total")
+                    .description("Stock movements registered")
+                    .tag("type", typeTag)
+                    .register(meterRegistry));
+            quantities.put(type, DistributionSummary.builder("inventory_stock_movement_quantity")
+                    .description("Units moved per stock movement (absolute delta)")
+                    .tag("type", typeTag)
+                    .serviceLevelObjectives(QUANTITY_BUCKETS)
+                    .register(meterRegistry));
+            insufficientStock.put(type, Counter.builder("inventory_stock_insufficient_total")
+                    .description("Stock movements rejected for insufficient stock")
+                    .tag("type", typeTag)
+                    .register(meterRegistry));
+
+            Map<Phase, Timer> typePhases = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                typePhases.put(phase, Timer.builder("inventory_stock_movement_phase_seconds")
+                        .description("Time spent in each phase of a stock movement")
+                        .tag("type", typeTag)
+                        .tag("phase", phase.tag())
+                        .serviceLevelObjectives(LATENCY_BUCKETS)
+                        .register(meterRegistry));
+            }
+            phases.put(type, typePhases);
+        }
+    }
+
+    public <T> T time(MovementType type, Phase phase, Supplier<T> work) {
+        return phases.get(type).get(phase).record(work);
+    }
+
+    public void record(MovementType type, Phase phase, long nanos) {
+        phases.get(type).get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void movement(MovementType type, int quantity) {
+        movements.get(type).increment();
+        quantities.get(type).record(quantity);
+    }
+
+    public void insufficientStock(MovementType type) {
+        insufficientStock.get(type).increment();
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.service;
+
+import org.example.dto.StockMovementDTO;
+
+// Result of one movement inside a group: the registered movement or the error that rejected it
+public record StockMovementOutcome(StockMovementDTO movement, RuntimeException error) {
+
+    public static StockMovementOutcome success(StockMovementDTO movement) {
+        return new StockMovementOutcome(movement, null);
+    }
+
+    public static StockMovementOutcome failure(RuntimeException error) {
+        return new StockMovementOutcome(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
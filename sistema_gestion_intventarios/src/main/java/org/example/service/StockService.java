@@ -1,6 +1,10 @@
 package org.example.service;
 
+import org.example.dto.ProductPageDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
 import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
 
 import java.util.List;
 
@@ -13,8 +17,24 @@ public interface StockService {
     StockMovementDTO registerReturn(StockMovementDTO request, String username);
     StockMovementDTO registerLoss(StockMovementDTO request, String username);
 
+    default StockMovementDTO registerMovement(MovementType movementType, StockMovementDTO request, String username) {
+        return switch (movementType) {
+            case STOCK_IN -> registerStockIn(request, username);
+            case STOCK_OUT -> registerStockOut(request, username);
+            case ADJUSTMENT -> registerAdjustment(request, username);
+            case RETURN -> registerReturn(request, username);
+            case LOSS -> registerLoss(request, username);
+            default -> throw new IllegalArgumentException("Invalid movement type: " + movementType);
+        };
+    }
+
+    // === MOVIMIENTOS EN LOTE ===
+    StockBatchResultDTO registerMovementBatch(StockBatchRequestDTO batch, String username);
+
     // === CONSULTAS BÁSICAS ===
     List<StockMovementDTO> getProductHistory(Long productId);
+    // Keyset page of a product's history, newest first, following the cursor (null for the first page)
+    ProductPageDTO<StockMovementDTO> getProductHistoryPage(Long productId, String cursor, int size);
     List<StockMovementDTO> getRecentMovements(int limit);
 
     // === VALIDACIONES SIMPLES ===
@@ -1,18 +1,35 @@
 package org.example.service;
 
-import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.ProductPageDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
 import org.example.dto.StockMovementDTO;
 import org.example.entity.MovementType;
 import org.example.entity.Product;
 import org.example.entity.StockMovement;
 import org.example.repository.ProductRepository;
+import org.example.repository.StockChange;
 import org.example.repository.StockMovementRepository;
+import org.example.service.StockMovementMetrics.Phase;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,158 +38,253 @@ public class StockServiceImpl implements StockService {
 
     private final StockMovementRepository stockMovementRepository;
     private final ProductRepository productRepository;
-    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
+    private final StockUpdateStrategy stockUpdateStrategy;
+    private final StockSlotService stockSlots;
+    private final StockMovementMetrics metrics;
+    private final RecentStockMovements recentMovements;
+    private final ProductChangePublisher productChanges;
+    private final StockMovementJournal movementJournal; // null salvo inventory.stock.audit-mode=journal
 
     public StockServiceImpl(StockMovementRepository stockMovementRepository,
                             ProductRepository productRepository,
-                            MeterRegistry meterRegistry) {
+                            EntityManager entityManager,
+                            StockUpdateStrategy stockUpdateStrategy,
+                            StockSlotService stockSlots,
+                            MeterRegistry meterRegistry,
+                            RecentStockMovements recentMovements,
+                            ProductChangePublisher productChanges,
+                            @Nullable StockMovementJournal movementJournal) {
         this.stockMovementRepository = stockMovementRepository;
         this.productRepository = productRepository;
-        this.meterRegistry = meterRegistry;
+        this.entityManager = entityManager;
+        this.stockUpdateStrategy = stockUpdateStrategy;
+        this.stockSlots = stockSlots;
+        this.metrics = new StockMovementMetrics(meterRegistry != null ? meterRegistry : new SimpleMeterRegistry());
+        this.recentMovements = recentMovements;
+        this.productChanges = productChanges;
+        this.movementJournal = movementJournal;
     }
 
     // === MOVIMIENTOS BÁSICOS ===
 
     @Override
     public StockMovementDTO registerStockIn(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-        Integer newQuantity = previousQuantity + request.getQuantity();
-
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+        Product product = loadProduct(MovementType.STOCK_IN, request.getProductId());
+        StockChange change = timeUpdate(MovementType.STOCK_IN,
+                () -> increaseStock(product, request.getQuantity()));
 
         StockMovement movement = createMovement(product, MovementType.STOCK_IN, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
-
-        // Registrar métrica
-        if (meterRegistry != null) {
-            Counter.builder("inventory_stock_movements_total")
-                    .tag("type", "stock_in")
-                    .register(meterRegistry)
-                    .increment();
-        }
+                change.previousQuantity(), change.newQuantity(), username, request.getReason());
 
         return StockMovementDTO.from(movement);
     }
 
     @Override
     public StockMovementDTO registerStockOut(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-
-        if (previousQuantity < request.getQuantity()) {
-            throw new IllegalArgumentException(
-                    String.format("Insufficient stock. Available: %d, Requested: %d",
-                            previousQuantity, request.getQuantity()));
-        }
-
-        Integer newQuantity = previousQuantity - request.getQuantity();
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+        Product product = loadProduct(MovementType.STOCK_OUT, request.getProductId());
+        StockChange change = timeUpdate(MovementType.STOCK_OUT,
+                () -> decrementStock(MovementType.STOCK_OUT, product, request.getQuantity(),
+                        "Insufficient stock. Available: %d, Requested: %d"));
 
         StockMovement movement = createMovement(product, MovementType.STOCK_OUT, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
-
-        // Registrar métrica
-        if (meterRegistry != null) {
-            Counter.builder("inventory_stock_movements_total")
-                    .tag("type", "stock_out")
-                    .register(meterRegistry)
-                    .increment();
-        }
+                change.previousQuantity(), change.newQuantity(), username, request.getReason());
 
         return StockMovementDTO.from(movement);
     }
 
     @Override
     public StockMovementDTO registerAdjustment(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
-
         if (request.getNewQuantity() == null) {
             throw new IllegalArgumentException("New quantity is required for adjustment");
         }
 
         validateQuantity(request.getNewQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-        Integer difference = Math.abs(request.getNewQuantity() - previousQuantity);
-
-        product.setInitialQuantity(request.getNewQuantity());
-        productRepository.save(product);
+        Product product = loadProduct(MovementType.ADJUSTMENT, request.getProductId());
+        StockChange change = timeUpdate(MovementType.ADJUSTMENT,
+                () -> setStock(product, request.getNewQuantity()));
+        Integer difference = Math.abs(change.newQuantity() - change.previousQuantity());
 
         StockMovement movement = createMovement(product, MovementType.ADJUSTMENT, difference,
-                previousQuantity, request.getNewQuantity(), username, request.getReason());
-
-        // Registrar métrica
-        if (meterRegistry != null) {
-            Counter.builder("inventory_stock_movements_total")
-                    .tag("type", "adjustment")
-                    .register(meterRegistry)
-                    .increment();
-        }
+                change.previousQuantity(), change.newQuantity(), username, request.getReason());
 
         return StockMovementDTO.from(movement);
     }
 
     @Override
     public StockMovementDTO registerReturn(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
-        Integer newQuantity = previousQuantity + request.getQuantity();
-
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+        Product product = loadProduct(MovementType.RETURN, request.getProductId());
+        StockChange change = timeUpdate(MovementType.RETURN,
+                () -> increaseStock(product, request.getQuantity()));
 
         StockMovement movement = createMovement(product, MovementType.RETURN, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
-
-        // Registrar métrica
-        if (meterRegistry != null) {
-            Counter.builder("inventory_stock_movements_total")
-                    .tag("type", "return")
-                    .register(meterRegistry)
-                    .increment();
-        }
+                change.previousQuantity(), change.newQuantity(), username, request.getReason());
 
         return StockMovementDTO.from(movement);
     }
 
     @Override
     public StockMovementDTO registerLoss(StockMovementDTO request, String username) {
-        Product product = getProductById(request.getProductId());
         validateQuantity(request.getQuantity());
 
-        Integer previousQuantity = product.getInitialQuantity();
+        Product product = loadProduct(MovementType.LOSS, request.getProductId());
+        StockChange change = timeUpdate(MovementType.LOSS,
+                () -> decrementStock(MovementType.LOSS, product, request.getQuantity(),
+                        "Insufficient stock for loss registration. Available: %d, Loss: %d"));
+
+        StockMovement movement = createMovement(product, MovementType.LOSS, request.getQuantity(),
+                change.previousQuantity(), change.newQuantity(), username, request.getReason());
 
-        if (previousQuantity < request.getQuantity()) {
-            throw new IllegalArgumentException(
-                    String.format("Insufficient stock for loss registration. Available: %d, Loss: %d",
-                            previousQuantity, request.getQuantity()));
+        return StockMovementDTO.from(movement);
+    }
+
+    // === MOVIMIENTOS AGRUPADOS ===
+
+    // Aplica varios movimientos en una sola transacción, en orden. Los rechazos de negocio (cantidad
+    // inválida, producto inexistente, stock insuficiente) saltan antes de escribir nada, así que un
+    // movimiento rechazado no afecta al resto del grupo
+    public List<StockMovementOutcome> registerMovementGroup(List<StockMovementCommand> commands) {
+        List<StockMovementOutcome> outcomes = new ArrayList<>(commands.size());
+        for (StockMovementCommand command : commands) {
+            try {
+                outcomes.add(StockMovementOutcome.success(
+                        registerMovement(command.movementType(), command.request(), command.username())));
+            } catch (RuntimeException e) {
+                outcomes.add(StockMovementOutcome.failure(e));
+            }
         }
+        return outcomes;
+    }
 
-        Integer newQuantity = previousQuantity - request.getQuantity();
-        product.setInitialQuantity(newQuantity);
-        productRepository.save(product);
+    // === MOVIMIENTOS EN LOTE ===
 
-        StockMovement movement = createMovement(product, MovementType.LOSS, request.getQuantity(),
-                previousQuantity, newQuantity, username, request.getReason());
+    @Override
+    public StockBatchResultDTO registerMovementBatch(StockBatchRequestDTO batch, String username) {
+        List<StockMovementDTO> lines = batch.getLines();
+        StockBatchRequestDTO.Mode mode = batch.getMode() != null ? batch.getMode() : StockBatchRequestDTO.Mode.ALL_OR_NOTHING;
+
+        // Un solo SELECT ... FOR UPDATE, ordenado por id, para todos los productos del lote
+        List<Long> productIds = lines.stream()
+                .map(StockMovementDTO::getProductId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+        Map<Long, Product> products = productRepository.findAllByIdForUpdate(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // Las líneas se aplican sobre un stock de trabajo; los productos solo se tocan si el lote se confirma
+        Map<Long, Integer> workingStock = new HashMap<>();
+        products.values().forEach(p -> workingStock.put(p.getId(),
+                p.isSharded() ? stockSlots.lockTotal(p.getId()) : p.getInitialQuantity()));
+
+        StockMovement[] planned = new StockMovement[lines.size()];
+        String[] errors = new String[lines.size()];
+        int failed = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                planned[i] = planBatchLine(lines.get(i), products, workingStock, username);
+            } catch (RuntimeException e) {
+                errors[i] = e.getMessage();
+                failed++;
+            }
+        }
 
-        // Registrar métrica
-        if (meterRegistry != null) {
-            Counter.builder("inventory_stock_movements_total")
-                    .tag("type", "loss")
-                    .register(meterRegistry)
-                    .increment();
+        boolean commit = failed == 0 || mode == StockBatchRequestDTO.Mode.BEST_EFFORT;
+        if (commit) {
+            productChanges.stockChanged(workingStock.keySet());
+            workingStock.forEach((productId, quantity) -> {
+                Product product = products.get(productId);
+                if (product.isSharded()) {
+                    stockSlots.setLockedTotal(productId, quantity);
+                } else {
+                    product.setInitialQuantity(quantity);
+                }
+            });
+            saveMovements(Arrays.stream(planned).filter(Objects::nonNull).toList());
         }
 
-        return StockMovementDTO.from(movement);
+        List<StockBatchResultDTO.LineResult> results = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            if (errors[i] != null) {
+                results.add(new StockBatchResultDTO.LineResult(i, false, null, errors[i]));
+            } else if (commit) {
+                metrics.movement(planned[i].getMovementType(), planned[i].getQuantity());
+                results.add(new StockBatchResultDTO.LineResult(i, true, StockMovementDTO.from(planned[i]), null));
+            } else {
+                results.add(new StockBatchResultDTO.LineResult(i, false, null,
+                        "Not applied: another line of this all-or-nothing batch failed"));
+            }
+        }
+
+        int successful = commit ? lines.size() - failed : 0;
+        return new StockBatchResultDTO(mode, lines.size(), successful, lines.size() - successful, commit, results);
+    }
+
+    // Valida una línea contra el stock de trabajo y devuelve el movimiento a insertar
+    private StockMovement planBatchLine(StockMovementDTO line, Map<Long, Product> products,
+                                        Map<Long, Integer> workingStock, String username) {
+        if (line == null) {
+            throw new IllegalArgumentException("Line cannot be empty");
+        }
+        MovementType movementType = line.getMovementType();
+        if (movementType == null) {
+            throw new IllegalArgumentException("Movement type is required");
+        }
+        if (line.getProductId() == null) {
+            throw new IllegalArgumentException("Product ID is required");
+        }
+        Product product = products.get(line.getProductId());
+        if (product == null) {
+            throw new RuntimeException("Product not found with ID: " + line.getProductId());
+        }
+
+        Integer previousQuantity = workingStock.get(product.getId());
+        Integer quantity = line.getQuantity();
+        Integer newQuantity;
+
+        switch (movementType) {
+            case STOCK_IN, RETURN -> {
+                validateQuantity(quantity);
+                newQuantity = previousQuantity + quantity;
+            }
+            case STOCK_OUT, LOSS -> {
+                validateQuantity(quantity);
+                if (previousQuantity < quantity) {
+                    metrics.insufficientStock(movementType);
+                    throw new IllegalArgumentException(
+                            String.format("Insufficient stock. Available: %d, Requested: %d",
+                                    previousQuantity, quantity));
+                }
+                newQuantity = previousQuantity - quantity;
+            }
+            case ADJUSTMENT -> {
+                if (line.getNewQuantity() == null) {
+                    throw new IllegalArgumentException("New quantity is required for adjustment");
+                }
+                validateQuantity(line.getNewQuantity());
+                newQuantity = line.getNewQuantity();
+                quantity = Math.abs(newQuantity - previousQuantity);
+                // Sin diferencia no hay movimiento (chk_quantity_positive): falla solo esta línea, no el
+                // lote entero al hacer flush
+                if (quantity == 0) {
+                    throw new IllegalArgumentException(
+                            String.format("Stock is already %d: nothing to adjust", newQuantity));
+                }
+            }
+            default -> throw new IllegalArgumentException("Invalid movement type: " + movementType);
+        }
+
+        workingStock.put(product.getId(), newQuantity);
+        return buildMovement(product, movementType, quantity, previousQuantity, newQuantity,
+                username, line.getReason());
     }
 
     // === CONSULTAS BÁSICAS ===
@@ -188,18 +300,40 @@ public class StockServiceImpl implements StockService {
                 .collect(Collectors.toList());
     }
 
+    // Se pide una fila de más para saber si hay página siguiente sin contar el historial
     @Override
     @Transactional(readOnly = true)
-    public List<StockMovementDTO> getRecentMovements(int limit) {
-        List<StockMovement> movements = stockMovementRepository.findAll()
-                .stream()
-                .sorted((m1, m2) -> m2.getTimestamp().compareTo(m1.getTimestamp()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    public ProductPageDTO<StockMovementDTO> getProductHistoryPage(Long productId, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        StockMovementCursor after = cursor == null || cursor.isBlank() ? null : StockMovementCursor.decode(cursor);
+        getProductById(productId);
+        Limit limit = Limit.of(size + 1);
 
-        return movements.stream()
-                .map(StockMovementDTO::from)
-                .collect(Collectors.toList());
+        List<StockMovement> rows = after == null
+                ? stockMovementRepository.findByProductIdOrderByTimestampDescIdDesc(productId, limit)
+                : stockMovementRepository.findHistoryPageAfter(productId, after.lastTimestamp(), after.lastId(), limit);
+
+        if (rows.size() <= size) {
+            return new ProductPageDTO<>(rows, null).map(StockMovementDTO::from);
+        }
+        List<StockMovement> page = rows.subList(0, size);
+        return new ProductPageDTO<>(page, StockMovementCursor.after(page.getLast()).encode()).map(StockMovementDTO::from);
+    }
+
+    // Desde el anillo de últimos movimientos, sin transacción; si no alcanza, consulta acotada por índice
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<StockMovementDTO> getRecentMovements(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        if (limit == 0) {
+            return List.of();
+        }
+        return recentMovements.latest(limit)
+                .orElseGet(() -> recentMovements.fromDatabase(limit));
     }
 
     // === VALIDACIONES SIMPLES ===
@@ -208,14 +342,14 @@ public class StockServiceImpl implements StockService {
     @Transactional(readOnly = true)
     public boolean hasSufficientStock(Long productId, Integer quantity) {
         Product product = getProductById(productId);
-        return product.getInitialQuantity() >= quantity;
+        return product.getCurrentQuantity() >= quantity;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Integer getCurrentStock(Long productId) {
         Product product = getProductById(productId);
-        return product.getInitialQuantity();
+        return product.getCurrentQuantity();
     }
 
     // === MÉTODOS PRIVADOS AUXILIARES ===
@@ -225,16 +359,108 @@ public class StockServiceImpl implements StockService {
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
     }
 
+    // Los productos repartidos en slots se actualizan en sus slots; el resto con la estrategia de
+    // concurrencia, que valida el stock suficiente y descuenta sin perder actualizaciones
+    private StockChange increaseStock(Product product, Integer quantity) {
+        Long productId = product.getId();
+        productChanges.stockChanged(List.of(productId));
+        int slots = stockSlots.slotCount(product);
+        if (slots > 0) {
+            return stockSlots.increase(productId, slots, quantity,
+                    () -> stockUpdateStrategy.increase(productId, quantity));
+        }
+        StockChange change = stockUpdateStrategy.increase(productId, quantity);
+        stockSlots.afterRowChange(productId, change, false);
+        return change;
+    }
+
+    private StockChange decrementStock(MovementType movementType, Product product, Integer quantity,
+                                       String insufficientMessage) {
+        Long productId = product.getId();
+        productChanges.stockChanged(List.of(productId));
+        int slots = stockSlots.slotCount(product);
+        Optional<StockChange> change;
+        if (slots > 0) {
+            change = stockSlots.decreaseIfSufficient(productId, slots, quantity,
+                    () -> stockUpdateStrategy.decreaseIfSufficient(productId, quantity));
+        } else {
+            change = stockUpdateStrategy.decreaseIfSufficient(productId, quantity);
+            change.ifPresent(c -> stockSlots.afterRowChange(productId, c, false));
+        }
+        if (change.isEmpty()) {
+            metrics.insufficientStock(movementType);
+            throw new IllegalArgumentException(String.format(insufficientMessage,
+                    getProductById(productId).getCurrentQuantity(), quantity));
+        }
+        return change.get();
+    }
+
+    private StockChange setStock(Product product, Integer newQuantity) {
+        Long productId = product.getId();
+        productChanges.stockChanged(List.of(productId));
+        int slots = stockSlots.slotCount(product);
+        if (slots > 0) {
+            return stockSlots.set(productId, newQuantity, () -> stockUpdateStrategy.set(productId, newQuantity));
+        }
+        StockChange change = stockUpdateStrategy.set(productId, newQuantity);
+        stockSlots.afterRowChange(productId, change, true);
+        return change;
+    }
+
     private void validateQuantity(Integer quantity) {
         if (quantity == null || quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
     }
 
+    // La espera del bloqueo, cuando la estrategia la mide aparte, se descuenta de la fase de actualización
+    private StockChange timeUpdate(MovementType movementType, Supplier<StockChange> update) {
+        long start = System.nanoTime();
+        StockChange change = update.get();
+        long elapsed = System.nanoTime() - start;
+        metrics.record(movementType, Phase.LOCK_WAIT, change.lockWaitNanos());
+        metrics.record(movementType, Phase.UPDATE, Math.max(0, elapsed - change.lockWaitNanos()));
+        return change;
+    }
+
+    // Antes de actualizar: sus stock_slots deciden si el movimiento va a los slots o a la fila. Del
+    // producto solo se usan id, nombre y stock_slots; se separa de la sesión para que las lecturas
+    // con bloqueo de la estrategia carguen la fila al día en lugar de devolver esta instancia. El flush
+    // previo no añade sentencias (la consulta siguiente ya lo haría) y evita perder un alta pendiente
+    private Product loadProduct(MovementType movementType, Long productId) {
+        Product product = metrics.time(movementType, Phase.PRODUCT_LOAD, () -> getProductById(productId));
+        entityManager.flush();
+        entityManager.detach(product);
+        return product;
+    }
+
     private StockMovement createMovement(Product product, MovementType movementType, Integer quantity,
                                          Integer previousQuantity, Integer newQuantity,
                                          String username, String reason) {
-        StockMovement movement = StockMovement.builder()
+        StockMovement movement = buildMovement(product, movementType, quantity,
+                previousQuantity, newQuantity, username, reason);
+        StockMovement saved = metrics.time(movementType, Phase.AUDIT_INSERT, () -> movementJournal != null
+                ? movementJournal.append(movement)
+                : stockMovementRepository.save(movement));
+        metrics.movement(movementType, quantity);
+        recentMovements.added(List.of(saved));
+        return saved;
+    }
+
+    private void saveMovements(List<StockMovement> movements) {
+        if (movementJournal != null) {
+            movementJournal.appendAll(movements);
+        } else {
+            // Todos los movimientos en un único saveAll: INSERT en lotes JDBC
+            stockMovementRepository.saveAll(movements);
+        }
+        recentMovements.added(movements);
+    }
+
+    private StockMovement buildMovement(Product product, MovementType movementType, Integer quantity,
+                                        Integer previousQuantity, Integer newQuantity,
+                                        String username, String reason) {
+        return StockMovement.builder()
                 .product(product)
                 .movementType(movementType)
                 .quantity(quantity)
@@ -244,7 +470,5 @@ public class StockServiceImpl implements StockService {
                 .username(username != null ? username : "System")
                 .reason(reason != null ? reason : movementType.getDescription())
                 .build();
-
-        return stockMovementRepository.save(movement);
     }
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.entity.Product;
+import org.example.entity.ProductStockSlot;
+import org.example.repository.ProductRepository;
+import org.example.repository.ProductStockSlotRepository;
+import org.example.repository.StockChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Sharded stock for very hot products.
+ * A sharded product keeps its stock in N rows of product_stock_slots. Increments go to a random slot,
+ * decrements to a slot that holds enough on its own (or, failing that, to several slots locked in
+ * slot order), so concurrent movements on the same SKU touch different rows. Reads sum the slots;
+ * products.initial_quantity is refreshed with the total on every periodic rebalance, so aggregate
+ * queries over products see a sharded product as of its last rebalance.
+ * Movements applied to a single slot record as previous/new quantity the total read right after
+ * the slot update, without locking the other slots: concurrent movements on other slots of the same
+ * product can land between them, so for sharded products the previous/new quantities of consecutive
+ * audit rows need not chain (the quantity of each row is exact).
+ * Lock order is always products row first, then slots by slot number. Movements routed to the slots
+ * do not lock the products row for update, but inserting their stock_movements row takes FOR KEY SHARE
+ * on it through the foreign key; on PostgreSQL that lock is taken up front, before the first slot,
+ * so a movement never holds a slot while waiting on a rebalance that holds the products row.
+ */
+@Service
+public class StockSlotService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockSlotService.class);
+
+    private static final int MAX_ROUTING_ATTEMPTS = 3;
+
+    private final ProductRepository productRepository;
+    private final ProductStockSlotRepository slotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxSlots;
+    private final boolean keyShareLocks;
+    private final Counter singleSlotUpdates;
+    private final Counter multiSlotUpdates;
+    private final Timer rebalanceTimer;
+
+    public StockSlotService(ProductRepository productRepository,
+                            ProductStockSlotRepository slotRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            DataSource dataSource,
+                            @Value("${inventory.stock.slots.enabled:false}") boolean enabled,
+                            @Value("${inventory.stock.slots.max-slots:64}") int maxSlots) {
+        this.productRepository = productRepository;
+        this.slotRepository = slotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxSlots = maxSlots;
+        this.keyShareLocks = enabled && ProductTextSearch.isPostgreSql(dataSource);
+
+        this.singleSlotUpdates = Counter.builder("inventory_stock_slot_updates_total")
+                .description("Stock changes applied to sharded products")
+                .tag("path", "single-slot")
+                .register(meterRegistry);
+        this.multiSlotUpdates = Counter.builder("inventory_stock_slot_updates_total")
+                .description("Stock changes applied to sharded products")
+                .tag("path", "multi-slot")
+                .register(meterRegistry);
+        this.rebalanceTimer = Timer.builder("inventory_stock_slot_rebalance_seconds")
+                .description("Time taken to rebalance the slots of one product")
+                .register(meterRegistry);
+    }
+
+    // === ENRUTAMIENTO ===
+
+    // Slots of the product as already loaded by the movement, 0 when sharding is disabled or the
+    // product is not sharded. Sharding it afterwards is caught by afterRowChange
+    public int slotCount(Product product) {
+        return enabled ? product.getStockSlots() : 0;
+    }
+
+    // === MOVIMIENTOS SOBRE SLOTS ===
+    // rowPath se usa si los slots se desactivaron entre la lectura de slotCount y la actualización
+
+    public StockChange increase(Long productId, int slots, Integer quantity, Supplier<StockChange> rowPath) {
+        lockProductKey(productId);
+        for (int attempt = 0; attempt < MAX_ROUTING_ATTEMPTS; attempt++) {
+            if (slots == 0) {
+                return rowPath.get();
+            }
+            int slot = ThreadLocalRandom.current().nextInt(slots);
+            if (slotRepository.incrementSlot(productId, slot, quantity) == 1) {
+                singleSlotUpdates.increment();
+                // Total sin bloquear los demás slots: ver la nota de la clase sobre el historial
+                int newTotal = total(productId);
+                return new StockChange(newTotal - quantity, newTotal);
+            }
+            // El número de slots cambió desde la lectura
+            slots = productRepository.findStockSlotsById(productId).orElse(0);
+        }
+        throw new IllegalStateException("Stock slots of product " + productId + " keep changing, movement not applied");
+    }
+
+    // Empty when the product does not have enough stock across all its slots
+    public Optional<StockChange> decreaseIfSufficient(Long productId, int slots, Integer quantity,
+                                                      Supplier<Optional<StockChange>> rowPath) {
+        lockProductKey(productId);
+        // Camino rápido: un slot que alcance por sí solo, empezando por uno al azar
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            if (slotRepository.decrementSlotIfSufficient(productId, (start + i) % slots, quantity) == 1) {
+                singleSlotUpdates.increment();
+                // Total sin bloquear los demás slots: ver la nota de la clase sobre el historial
+                int newTotal = total(productId);
+                return Optional.of(new StockChange(newTotal + quantity, newTotal));
+            }
+        }
+
+        // Ningún slot alcanza: se bloquean todos en orden y se descuenta de varios
+        List<ProductStockSlot> locked = slotRepository.findAllForUpdate(productId);
+        if (locked.isEmpty()) {
+            return rowPath.get();
+        }
+        multiSlotUpdates.increment();
+        return take(locked, quantity);
+    }
+
+    public StockChange set(Long productId, Integer newQuantity, Supplier<StockChange> rowPath) {
+        lockProductKey(productId);
+        List<ProductStockSlot> locked = slotRepository.findAllForUpdate(productId);
+        if (locked.isEmpty()) {
+            return rowPath.get();
+        }
+        multiSlotUpdates.increment();
+        int previousQuantity = sum(locked);
+        distribute(locked, newQuantity);
+        return new StockChange(previousQuantity, newQuantity);
+    }
+
+    // A movement that went to products.initial_quantity while the product was being sharded: the
+    // slots were built from the quantity before it, so the same change is replayed on the slots.
+    // Runs while the movement still holds the products row lock; stock_slots comes from the update's
+    // own read of the row, so routing to the row costs no extra query.
+    public void afterRowChange(Long productId, StockChange change, boolean absolute) {
+        if (!enabled || change.stockSlots() == 0) {
+            return;
+        }
+        List<ProductStockSlot> locked = slotRepository.findAllForUpdate(productId);
+        int delta = change.newQuantity() - change.previousQuantity();
+        if (absolute) {
+            distribute(locked, change.newQuantity());
+        } else if (delta >= 0) {
+            locked.getFirst().setQuantity(locked.getFirst().getQuantity() + delta);
+        } else if (take(locked, -delta).isEmpty()) {
+            throw new IllegalArgumentException(String.format("Insufficient stock. Available: %d, Requested: %d",
+                    sum(locked), -delta));
+        }
+    }
+
+    // === LOTES (el producto ya está bloqueado por el llamador) ===
+
+    public int lockTotal(Long productId) {
+        return sum(slotRepository.findAllForUpdate(productId));
+    }
+
+    public void setLockedTotal(Long productId, int total) {
+        distribute(slotRepository.findAllForUpdate(productId), total);
+    }
+
+    // === ACTIVACIÓN POR PRODUCTO ===
+
+    @Transactional
+    public void enable(Long productId, int slots) {
+        if (!enabled) {
+            throw new IllegalStateException("Stock slots are disabled (inventory.stock.slots.enabled=false)");
+        }
+        if (slots < 1 || slots > maxSlots) {
+            throw new IllegalArgumentException("Slots must be between 1 and " + maxSlots);
+        }
+
+        Product product = lockProduct(productId);
+        int total = product.isSharded() ? fold(productId) : product.getInitialQuantity();
+
+        List<ProductStockSlot> created = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            created.add(new ProductStockSlot(productId, i, 0));
+        }
+        distribute(created, total);
+        slotRepository.saveAll(created);
+
+        product.setStockSlots(slots);
+        product.setInitialQuantity(total);
+    }
+
+    @Transactional
+    public void disable(Long productId) {
+        unshard(productId);
+    }
+
+    // === REBALANCEO PERIÓDICO ===
+
+    @Scheduled(fixedDelayString = "${inventory.stock.slots.rebalance-ms:60000}",
+            initialDelayString = "${inventory.stock.slots.rebalance-ms:60000}")
+    public void rebalanceAll() {
+        if (!enabled) {
+            return;
+        }
+        for (Long productId : productRepository.findShardedProductIds()) {
+            try {
+                rebalance(productId);
+            } catch (Exception e) {
+                log.warn("Rebalance of stock slots failed for product {}", productId, e);
+            }
+        }
+    }
+
+    // Reparte el total a partes iguales entre los slots y actualiza la foto en products
+    public void rebalance(Long productId) {
+        rebalanceTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            Product product = lockProduct(productId);
+            if (!product.isSharded()) {
+                return;
+            }
+            List<ProductStockSlot> locked = slotRepository.findAllForUpdate(productId);
+            int total = sum(locked);
+            distribute(locked, total);
+            product.setInitialQuantity(total);
+        }));
+    }
+
+    // Con los slots desactivados por configuración, el stock repartido vuelve a products al arrancar
+    @EventListener(ApplicationReadyEvent.class)
+    public void unshardWhenDisabled() {
+        if (enabled) {
+            return;
+        }
+        List<Long> sharded = productRepository.findShardedProductIds();
+        if (!sharded.isEmpty()) {
+            log.warn("Stock slots are disabled, folding the slots of {} products back into products", sharded.size());
+            sharded.forEach(productId -> transactionTemplate.executeWithoutResult(status -> unshard(productId)));
+        }
+    }
+
+    // === MÉTODOS PRIVADOS AUXILIARES ===
+
+    private void unshard(Long productId) {
+        Product product = lockProduct(productId);
+        if (!product.isSharded()) {
+            return;
+        }
+        int total = fold(productId);
+        product.setStockSlots(0);
+        product.setInitialQuantity(total);
+    }
+
+    // Bloquea y borra los slots, devolviendo su total
+    private int fold(Long productId) {
+        List<ProductStockSlot> locked = slotRepository.findAllForUpdate(productId);
+        int total = sum(locked);
+        slotRepository.deleteAll(locked);
+        slotRepository.flush();
+        return total;
+    }
+
+    // El INSERT del movimiento pide FOR KEY SHARE sobre products por la FK: si lo pidiera después de
+    // tomar un slot podría quedar esperando a un rebalanceo que ya bloqueó products y espera ese slot
+    private void lockProductKey(Long productId) {
+        if (keyShareLocks) {
+            productRepository.lockKeyShareById(productId);
+        }
+    }
+
+    private Product lockProduct(Long productId) {
+        return productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+    }
+
+    private Optional<StockChange> take(List<ProductStockSlot> slots, int quantity) {
+        int total = sum(slots);
+        if (total < quantity) {
+            return Optional.empty();
+        }
+        int remaining = quantity;
+        for (ProductStockSlot slot : slots) {
+            int taken = Math.min(slot.getQuantity(), remaining);
+            slot.setQuantity(slot.getQuantity() - taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return Optional.of(new StockChange(total, total - quantity));
+    }
+
+    private void distribute(List<ProductStockSlot> slots, int total) {
+        int share = total / slots.size();
+        int remainder = total % slots.size();
+        for (int i = 0; i < slots.size(); i++) {
+            slots.get(i).setQuantity(share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private int total(Long productId) {
+        return Math.toIntExact(slotRepository.sumQuantity(productId));
+    }
+
+    private int sum(List<ProductStockSlot> slots) {
+        return slots.stream().mapToInt(ProductStockSlot::getQuantity).sum();
+    }
+}
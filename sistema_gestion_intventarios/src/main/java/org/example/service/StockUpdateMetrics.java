@@ -0,0 +1,54 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters shared by the stock update strategies, tagged with the strategy name so the
+ * modes can be compared side by side.
+ */
+public class StockUpdateMetrics {
+
+    private final Timer updateTimer;
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter retriesExhausted;
+
+    public StockUpdateMetrics(MeterRegistry meterRegistry, String strategy) {
+        this.updateTimer = Timer.builder("inventory_stock_update_seconds")
+                .description("Time taken to apply a stock change to the product row")
+                .tag("strategy", strategy)
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("inventory_stock_update_conflicts_total")
+                .description("Stock updates that lost a race against a concurrent update")
+                .tag("strategy", strategy)
+                .register(meterRegistry);
+        this.retries = Counter.builder("inventory_stock_update_retries_total")
+                .description("Stock updates retried after a conflict")
+                .tag("strategy", strategy)
+                .register(meterRegistry);
+        this.retriesExhausted = Counter.builder("inventory_stock_update_retries_exhausted_total")
+                .description("Stock updates rejected after running out of retries")
+                .tag("strategy", strategy)
+                .register(meterRegistry);
+    }
+
+    public <T> T record(Supplier<T> update) {
+        return updateTimer.record(update);
+    }
+
+    public void conflict() {
+        conflicts.increment();
+    }
+
+    public void retry() {
+        retries.increment();
+    }
+
+    public void retriesExhausted() {
+        retriesExhausted.increment();
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.service;
+
+import org.example.repository.StockChange;
+
+import java.util.Optional;
+
+/**
+ * How a stock movement changes Product.initialQuantity under concurrency.
+ * Selected per deployment with inventory.stock.concurrency:
+ * atomic (single-statement SQL delta), pessimistic (SELECT ... FOR UPDATE)
+ * or optimistic (version compare-and-set with bounded retry).
+ * Every method runs inside the caller's transaction and throws when the product does not exist.
+ */
+public interface StockUpdateStrategy {
+
+    // STOCK_IN y RETURN
+    StockChange increase(Long productId, Integer quantity);
+
+    // STOCK_OUT y LOSS: vacío si no hay stock suficiente
+    Optional<StockChange> decreaseIfSufficient(Long productId, Integer quantity);
+
+    // ADJUSTMENT
+    StockChange set(Long productId, Integer newQuantity);
+}
@@ -0,0 +1,113 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer lanes for stock movements.
+ * Every product id is pinned to one lane (a single-thread executor), so movements on the same SKU
+ * queue in memory instead of waiting on the database row lock while holding a pool connection,
+ * and movements on different SKUs run in parallel across lanes.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.stock.write-mode", havingValue = "lanes")
+public class StockWriteLanes {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Timer queueWaitTimer;
+
+    public StockWriteLanes(MeterRegistry meterRegistry,
+                           @Value("${inventory.stock.write-lanes.count:0}") int laneCount,
+                           @Value("${inventory.stock.write-lanes.queue-capacity:10000}") int queueCapacity) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[count];
+
+        for (int i = 0; i < count; i++) {
+            String threadName = "stock-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+            ThreadPoolExecutor lane = lanes[i];
+            Gauge.builder("inventory_stock_lane_depth", lane, l -> l.getQueue().size())
+                    .description("Stock movements waiting in a single-writer lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+
+        Gauge.builder("inventory_stock_lane_depth_max", this, StockWriteLanes::maxDepth)
+                .description("Deepest single-writer lane")
+                .register(meterRegistry);
+
+        this.queueWaitTimer = Timer.builder("inventory_stock_lane_wait_seconds")
+                .description("Time a stock movement waits in its lane before running")
+                .register(meterRegistry);
+    }
+
+    // Runs the task on the lane owning the product and waits for its result
+    public <T> T execute(Long productId, Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future = laneFor(productId).submit(() -> {
+            queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            return task.get();
+        });
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for stock lane", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Stock movement failed", e.getCause());
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int depth(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+
+    public int maxDepth() {
+        int max = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            max = Math.max(max, lane.getQueue().size());
+        }
+        return max;
+    }
+
+    private ThreadPoolExecutor laneFor(Long productId) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Product ID is required");
+        }
+        return lanes[Math.floorMod(productId.hashCode(), lanes.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+-- Migration to order the recent movements dashboard like the in-memory ring: newest (timestamp, id) first
+-- With the tie-breaker in the index, ORDER BY timestamp DESC, id DESC LIMIT n reads n index entries
+-- with no sort step, also when several movements share a timestamp.
+
+CREATE INDEX idx_stock_movements_timestamp_id ON stock_movements(timestamp DESC, id DESC);
+
+-- Covered by the leading column of the new index
+DROP INDEX IF EXISTS idx_stock_movements_timestamp;
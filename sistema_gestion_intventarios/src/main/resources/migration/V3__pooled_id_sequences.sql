@@ -0,0 +1,20 @@
+-- Migration to replace SERIAL/BIGSERIAL keys with pooled sequences
+-- IDENTITY keys force Hibernate to insert rows one by one; with pooled sequences
+-- ids are reserved in blocks of 50 and inserts can be sent in JDBC batches.
+
+-- Sequences start one block above the current max id (Hibernate uses value-49..value)
+CREATE SEQUENCE products_seq INCREMENT BY 50;
+SELECT setval('products_seq', COALESCE((SELECT MAX(id) FROM products), 0) + 50, false);
+
+CREATE SEQUENCE stock_movements_seq INCREMENT BY 50;
+SELECT setval('stock_movements_seq', COALESCE((SELECT MAX(id) FROM stock_movements), 0) + 50, false);
+
+-- Drop the old per-row defaults so nothing keeps drawing ids from the SERIAL sequences
+ALTER TABLE products ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS products_id_seq;
+
+ALTER TABLE stock_movements ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS stock_movements_id_seq;
+
+COMMENT ON SEQUENCE products_seq IS 'Pooled id sequence for products (allocation size 50)';
+COMMENT ON SEQUENCE stock_movements_seq IS 'Pooled id sequence for stock_movements (allocation size 50)';
@@ -0,0 +1,6 @@
+-- Migration to add an optimistic-locking version column to products
+-- Every stock update (entity save or single-statement UPDATE) increments it.
+
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN products.version IS 'Optimistic-locking version, incremented on every update';
@@ -0,0 +1,26 @@
+-- Migration to allow splitting the stock of very hot products into slot rows
+-- Concurrent movements on a sharded product update different slot rows instead of
+-- serializing on its products row.
+
+-- Number of slots (0 = stock kept in products.initial_quantity)
+ALTER TABLE products ADD COLUMN stock_slots INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE product_stock_slots (
+                                     product_id BIGINT NOT NULL,
+                                     slot INTEGER NOT NULL,
+                                     quantity INTEGER NOT NULL,
+
+                                     PRIMARY KEY (product_id, slot),
+
+                                     CONSTRAINT fk_stock_slot_product
+                                         FOREIGN KEY (product_id)
+                                             REFERENCES products(id)
+                                             ON DELETE CASCADE,
+
+                                     CONSTRAINT chk_stock_slot_quantity
+                                         CHECK (quantity >= 0)
+);
+
+COMMENT ON TABLE product_stock_slots IS 'Stock of sharded products, split across slot rows';
+COMMENT ON COLUMN products.stock_slots IS 'Number of stock slots (0 = not sharded)';
+COMMENT ON COLUMN products.initial_quantity IS 'Current stock; for sharded products, the total at the last slot rebalance';
@@ -0,0 +1,9 @@
+-- Migration to support the write-behind journal for stock movements
+-- Rows inserted from the local journal carry its sequence number, so replaying the journal
+-- after a restart never inserts the same movement twice.
+
+ALTER TABLE stock_movements ADD COLUMN journal_seq BIGINT;
+
+CREATE UNIQUE INDEX uk_stock_movements_journal_seq ON stock_movements(journal_seq);
+
+COMMENT ON COLUMN stock_movements.journal_seq IS 'Sequence number in the local movement journal (NULL when inserted directly)';
@@ -0,0 +1,4 @@
+-- Migration to support keyset pagination of products ordered by name
+-- Pages continue after the last (name, id) returned, which needs both columns in one index.
+
+CREATE INDEX idx_products_name_id ON products(name, id);
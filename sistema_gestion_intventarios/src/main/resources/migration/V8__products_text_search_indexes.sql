@@ -0,0 +1,26 @@
+-- Migration for database-side product search (inventory.search.database-mode)
+-- like/trigram: pg_trgm GIN indexes let LOWER(column) LIKE '%term%' run as a bitmap index scan
+--               instead of reading every row (findBySearchTerm, findByNameContainingIgnoreCase)
+-- fulltext: weighted tsvector generated column (name A, category B, description C) with a GIN index
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+CREATE INDEX idx_products_name_trgm ON products USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX idx_products_description_trgm ON products USING gin (lower(description) gin_trgm_ops);
+CREATE INDEX idx_products_category_trgm ON products USING gin (lower(category) gin_trgm_ops);
+
+-- unaccent() is only STABLE and a generated column needs an IMMUTABLE expression
+CREATE OR REPLACE FUNCTION products_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+ALTER TABLE products ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', products_unaccent(coalesce(name, ''))), 'A') ||
+    setweight(to_tsvector('simple', products_unaccent(coalesce(category, ''))), 'B') ||
+    setweight(to_tsvector('simple', products_unaccent(coalesce(description, ''))), 'C')
+) STORED;
+
+CREATE INDEX idx_products_search_vector ON products USING gin (search_vector);
+
+COMMENT ON COLUMN products.search_vector IS 'Full-text search document, maintained by PostgreSQL';
@@ -0,0 +1,9 @@
+-- Migration to support keyset pagination of a product's movement history (newest first)
+-- Pages continue after the last (timestamp, id) returned. With the product, the sort key and the
+-- tie-breaker in one index, each page is a range scan in index order: no sort, no OFFSET.
+-- id is descending like timestamp so ORDER BY timestamp DESC, id DESC reads the index as is.
+
+CREATE INDEX idx_stock_movements_product_timestamp_id ON stock_movements(product_id, timestamp DESC, id DESC);
+
+-- Covered by the leading column of the new index
+DROP INDEX IF EXISTS idx_stock_movements_product_id;
@@ -51,7 +51,7 @@ public class ProductApiStepDefinitions {
         try {
             System.out.println(">>>>> SETUP: Clearing all products before scenario");
 
-            MvcResult result = mockMvc.perform(get("/api/v2/products")
+            MvcResult result = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                             .contentType("application/json"))
                     .andReturn();
 
@@ -69,7 +69,7 @@ public class ProductApiStepDefinitions {
                 }
 
                 // Verify cleanup
-                MvcResult verifyResult = mockMvc.perform(get("/api/v2/products")
+                MvcResult verifyResult = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                                 .contentType("application/json"))
                         .andReturn();
 
@@ -149,7 +149,7 @@ public class ProductApiStepDefinitions {
         String productName = updates.get("name");
 
         // Find the product ID by name
-        MvcResult listResult = mockMvc.perform(get("/api/v2/products")
+        MvcResult listResult = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                         .contentType("application/json"))
                 .andReturn();
 
@@ -187,7 +187,7 @@ public class ProductApiStepDefinitions {
     @When("I send a DELETE request for product {string}")
     public void sendDeleteRequestForProduct(String productName) throws Exception {
         // Find the product ID by name
-        MvcResult listResult = mockMvc.perform(get("/api/v2/products")
+        MvcResult listResult = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                         .contentType("application/json"))
                 .andReturn();
 
@@ -258,7 +258,7 @@ public class ProductApiStepDefinitions {
 
     @And("the product {string} should exist in the system")
     public void verifyProductExists(String productName) throws Exception {
-        MvcResult result = mockMvc.perform(get("/api/v2/products")
+        MvcResult result = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                         .contentType("application/json"))
                 .andExpect(status().isOk())
                 .andReturn();
@@ -278,7 +278,7 @@ public class ProductApiStepDefinitions {
 
     @And("the product {string} should have quantity {int}")
     public void verifyProductQuantity(String productName, int expectedQuantity) throws Exception {
-        MvcResult result = mockMvc.perform(get("/api/v2/products")
+        MvcResult result = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                         .contentType("application/json"))
                 .andExpect(status().isOk())
                 .andReturn();
@@ -299,7 +299,7 @@ public class ProductApiStepDefinitions {
 
     @And("the product {string} should have description {string}")
     public void verifyProductDescription(String productName, String expectedDescription) throws Exception {
-        MvcResult result = mockMvc.perform(get("/api/v2/products")
+        MvcResult result = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                         .contentType("application/json"))
                 .andExpect(status().isOk())
                 .andReturn();
@@ -320,7 +320,7 @@ public class ProductApiStepDefinitions {
 
     @And("the product {string} should have price {int}")
     public void verifyProductPrice(String productName, int expectedPrice) throws Exception {
-        MvcResult result = mockMvc.perform(get("/api/v2/products")
+        MvcResult result = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                         .contentType("application/json"))
                 .andExpect(status().isOk())
                 .andReturn();
@@ -346,7 +346,7 @@ public class ProductApiStepDefinitions {
         // Wait for delete transaction to complete
         Thread.sleep(500);
 
-        MvcResult result = mockMvc.perform(get("/api/v2/products")
+        MvcResult result = mockMvc.perform(get("/api/v2/products").param("unpaged", "true")
                         .contentType("application/json"))
                 .andExpect(status().isOk())
                 .andReturn();
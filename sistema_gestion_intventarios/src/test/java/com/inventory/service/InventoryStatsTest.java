@@ -0,0 +1,112 @@
+package com.inventory.service;
+
+import org.example.repository.ProductValue;
+import org.example.service.InventoryStats;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryStatsTest {
+
+    @Test
+    void contributionsAddUpProductsValueAndDistinctCategories() {
+        InventoryStats.Contributions contributions = new InventoryStats.Contributions();
+
+        contributions.add(value(1L, "Electronics", "10.50", 2));
+        contributions.add(value(2L, "Electronics", "1.25", 4));
+        contributions.add(value(3L, null, "3.00", 1)); // Sin categoría también cuenta como una
+
+        assertEquals(new InventoryStats.Totals(3, new BigDecimal("29.00"), 2), contributions.totals());
+    }
+
+    @Test
+    void addingAnExistingProductReplacesItsContribution() {
+        InventoryStats.Contributions contributions = new InventoryStats.Contributions();
+        contributions.add(value(1L, "Electronics", "10.00", 2));
+        contributions.add(value(2L, "Books", "5.00", 1));
+
+        contributions.add(value(1L, "Books", "10.00", 3));
+
+        assertEquals(new InventoryStats.Totals(2, new BigDecimal("35.00"), 1), contributions.totals());
+    }
+
+    @Test
+    void removingTakesTheContributionOutAndIgnoresUnknownIds() {
+        InventoryStats.Contributions contributions = new InventoryStats.Contributions();
+        contributions.add(value(1L, "Electronics", "10.00", 2));
+        contributions.add(value(2L, "Books", "5.00", 1));
+
+        contributions.remove(2L);
+        contributions.remove(2L);
+        contributions.remove(99L);
+
+        assertEquals(new InventoryStats.Totals(1, new BigDecimal("20.00"), 1), contributions.totals());
+        contributions.remove(1L);
+        assertEquals(new InventoryStats.Totals(0, new BigDecimal("0.00"), 0), contributions.totals());
+    }
+
+    @Test
+    void idsBeyondTheIntRangeAreKeptWithoutSizingByTheLargestId() {
+        InventoryStats.Contributions contributions = new InventoryStats.Contributions();
+
+        contributions.add(value(Long.MAX_VALUE, "A", "1.00", 1));
+        contributions.add(value(5_000_000_000L, "A", "2.00", 1));
+        contributions.add(value(-1L, "B", "4.00", 1));
+        contributions.remove(5_000_000_000L);
+
+        assertEquals(new InventoryStats.Totals(2, new BigDecimal("5.00"), 2), contributions.totals());
+    }
+
+    // Altas, reemplazos y bajas al azar (con crecimiento de la tabla y borrados dentro de los mismos
+    // tramos de sondeo) comparados con un mapa de referencia
+    @Test
+    void randomChurnMatchesAReferenceMap() {
+        InventoryStats.Contributions contributions = new InventoryStats.Contributions();
+        Map<Long, ProductValue> reference = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(4_000) * 1_024L; // Ids con los bits bajos a cero
+            if (random.nextInt(3) == 0) {
+                contributions.remove(id);
+                reference.remove(id);
+            } else {
+                ProductValue value = value(id, "C" + random.nextInt(20), random.nextInt(10_000) + ".99", random.nextInt(50));
+                contributions.add(value);
+                reference.put(id, value);
+            }
+        }
+
+        assertEquals(expectedTotals(reference), contributions.totals());
+        reference.keySet().forEach(contributions::remove);
+        assertEquals(new InventoryStats.Totals(0, new BigDecimal("0.00"), 0), contributions.totals());
+    }
+
+    @Test
+    void priceWithMoreThanTwoDecimalsCannotBeKeptInCents() {
+        InventoryStats.Contributions contributions = new InventoryStats.Contributions();
+
+        assertThrows(ArithmeticException.class, () -> contributions.add(value(1L, "A", "0.001", 1)));
+    }
+
+    private static InventoryStats.Totals expectedTotals(Map<Long, ProductValue> reference) {
+        BigDecimal total = new BigDecimal("0.00");
+        Set<String> categories = new HashSet<>();
+        for (ProductValue value : reference.values()) {
+            total = total.add(value.price().multiply(BigDecimal.valueOf(value.quantity())));
+            categories.add(value.category());
+        }
+        return new InventoryStats.Totals(reference.size(), total, categories.size());
+    }
+
+    private static ProductValue value(Long id, String category, String price, int quantity) {
+        return new ProductValue(id, category, new BigDecimal(price), quantity);
+    }
+}
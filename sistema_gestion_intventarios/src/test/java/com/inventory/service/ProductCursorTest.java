@@ -0,0 +1,58 @@
+package com.inventory.service;
+
+import org.example.service.ProductCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCursorTest {
+
+    @Test
+    void idCursorRoundTripsWithoutTheName() {
+        ProductCursor cursor = ProductCursor.after(ProductCursor.Sort.ID, 42L, "Ignored");
+
+        ProductCursor decoded = ProductCursor.decode(cursor.encode(), ProductCursor.Sort.ID);
+
+        assertEquals(new ProductCursor(ProductCursor.Sort.ID, 42L, null), decoded);
+    }
+
+    @Test
+    void nameCursorKeepsColonsAndNonAsciiCharactersInTheName() {
+        ProductCursor cursor = ProductCursor.after(ProductCursor.Sort.NAME, 7L, "Café: edición 2/3");
+
+        String encoded = cursor.encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), "Cursor seguro para URL y sin relleno");
+        assertEquals(cursor, ProductCursor.decode(encoded, ProductCursor.Sort.NAME));
+    }
+
+    @Test
+    void cursorIssuedForAnotherSortIsRejected() {
+        String byName = ProductCursor.after(ProductCursor.Sort.NAME, 7L, "Laptop").encode();
+
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(byName, ProductCursor.Sort.ID));
+    }
+
+    @Test
+    void malformedCursorsAreRejectedAsIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("not-a-cursor", ProductCursor.Sort.ID));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(raw("id:abc"), ProductCursor.Sort.ID));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(raw("name:7"), ProductCursor.Sort.NAME));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(raw("id"), ProductCursor.Sort.ID));
+    }
+
+    @Test
+    void sortParsingDefaultsToIdAndRejectsUnknownValues() {
+        assertEquals(ProductCursor.Sort.ID, ProductCursor.Sort.parse(null));
+        assertEquals(ProductCursor.Sort.ID, ProductCursor.Sort.parse(" "));
+        assertEquals(ProductCursor.Sort.NAME, ProductCursor.Sort.parse(" Name "));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.Sort.parse("price"));
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
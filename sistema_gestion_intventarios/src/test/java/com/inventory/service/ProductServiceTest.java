@@ -1,17 +1,32 @@
 package com.inventory.service;
 
 import org.example.dto.ProductDTO;
+import org.example.dto.ProductPageDTO;
 import org.example.dto.ProductSearchDTO;
 import org.example.entity.Product;
+import org.example.repository.InventoryTotals;
 import org.example.repository.ProductRepository;
+import org.example.service.InventoryStats;
+import org.example.service.ProductCache;
+import org.example.service.ProductChangePublisher;
+import org.example.service.ProductSearchIndex;
+import org.example.service.ProductTextSearch;
 import org.example.service.ProductServiceImpl;
+import org.example.service.StockAlertIndex;
+import org.example.service.StockSlotService;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.util.Collections;
@@ -34,6 +49,30 @@ class ProductServiceTest {
     @Mock
     private Counter productDeletionsCounter;
 
+    // Caché desactivada: cada lectura llega al repositorio simulado
+    @Spy
+    private ProductCache productCache = new ProductCache(new SimpleMeterRegistry(), false, 0, 0, 0);
+
+    @Spy
+    private ProductSearchIndex searchIndex = new ProductSearchIndex(new SimpleMeterRegistry(), false, 64);
+
+    @Mock
+    private ProductTextSearch textSearch;
+
+    // Sin conjuntos cargados: las alertas de stock se consultan al repositorio
+    @Mock
+    private StockAlertIndex stockAlerts;
+
+    @Mock
+    private InventoryStats inventoryStats;
+
+    @Mock
+    private ProductChangePublisher productChanges;
+
+    // Sin slots: slotCount devuelve 0 y la cantidad editada queda en la fila
+    @Mock
+    private StockSlotService stockSlots;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -93,34 +132,63 @@ class ProductServiceTest {
 
     @Test
     void getAllProducts_returnsProductDTOList() {
-        when(productRepository.findAll()).thenReturn(Collections.singletonList(product));
+        when(productRepository.findAllRows()).thenReturn(Collections.singletonList(ProductDTO.from(product)));
 
         List<ProductDTO> result = productService.getAllProducts();
 
         assertEquals(1, result.size());
         assertEquals("Laptop HP", result.getFirst().getName());
-        verify(productRepository, times(1)).findAll();
+        verify(productRepository, times(1)).findAllRows();
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getProductPage_returnsCursorOfLastRowAndContinuesAfterIt() {
+        Product second = new Product();
+        second.setId(2L);
+        second.setName("Mouse");
+        second.setPrice(BigDecimal.TEN);
+        second.setInitialQuantity(3);
+        second.setMinimumStock(5);
+        Product third = new Product();
+        third.setId(3L);
+        third.setName("Teclado");
+        third.setPrice(BigDecimal.TEN);
+        third.setInitialQuantity(0);
+        third.setMinimumStock(5);
+        when(productRepository.findAllByOrderByIdAsc(Limit.of(3))).thenReturn(List.of(product, second, third));
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3))).thenReturn(List.of(third));
+
+        ProductPageDTO<ProductDTO> first = productService.getProductPage(null, 2, "id");
+        ProductPageDTO<ProductDTO> last = productService.getProductPage(first.getNextCursor(), 2, "id");
+
+        assertEquals(List.of(1L, 2L), first.getItems().stream().map(ProductDTO::getId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(3L), last.getItems().stream().map(ProductDTO::getId).toList());
+        assertNull(last.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> productService.getProductPage(first.getNextCursor(), 2, "name"));
+        assertThrows(IllegalArgumentException.class, () -> productService.getProductPage("not-a-cursor", 2, "id"));
     }
 
     @Test
     void getProductById_returnsProductDTO() {
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.findWithSlotsById(1L)).thenReturn(Optional.of(product));
 
         ProductDTO result = productService.getProductById(1L);
 
         assertNotNull(result);
         assertEquals("Laptop HP", result.getName());
-        verify(productRepository, times(1)).findById(1L);
+        verify(productRepository, times(1)).findWithSlotsById(1L);
     }
 
     @Test
     void getProductById_throwsExceptionForInvalidId() {
-        when(productRepository.findById(2L)).thenReturn(Optional.empty());
+        when(productRepository.findWithSlotsById(2L)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> productService.getProductById(2L));
         assertEquals("Product not found with id: 2", exception.getMessage());
-        verify(productRepository, times(1)).findById(2L);
+        verify(productRepository, times(1)).findWithSlotsById(2L);
     }
 
     @Test
@@ -155,6 +223,21 @@ class ProductServiceTest {
         verify(productRepository, times(1)).save(any(Product.class));
     }
 
+    @Test
+    void updateProduct_shardedProductSpreadsTheQuantityOverItsSlots() {
+        productDTO.setInitialQuantity(40);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(stockSlots.slotCount(product)).thenReturn(4);
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        productService.updateProduct(1L, productDTO);
+
+        InOrder order = inOrder(productRepository, stockSlots);
+        order.verify(productRepository).findByIdForUpdate(1L);
+        order.verify(stockSlots).set(eq(1L), eq(40), any());
+        assertEquals(40, product.getInitialQuantity());
+    }
+
     @Test
     void deleteProduct_deletesProduct() {
         when(productRepository.existsById(1L)).thenReturn(true);
@@ -170,7 +253,8 @@ class ProductServiceTest {
 
     @Test
     void searchProducts_returnsFilteredResults() {
-        when(productRepository.findBySearchTerm("Laptop")).thenReturn(Collections.singletonList(product));
+        when(productRepository.findAll(anySpecification(), any(Sort.class)))
+                .thenReturn(Collections.singletonList(product));
 
         ProductSearchDTO searchDTO = new ProductSearchDTO();
         searchDTO.setSearchTerm("Laptop");
@@ -179,18 +263,20 @@ class ProductServiceTest {
 
         assertEquals(1, result.size());
         assertEquals("Laptop HP", result.getFirst().getName());
-        verify(productRepository, times(1)).findBySearchTerm("Laptop");
+        verify(productRepository, times(1)).findAll(anySpecification(), eq(Sort.by("id")));
+        verify(productRepository, never()).findAll();
     }
 
     @Test
     void findProductsByCategory_returnsProducts() {
-        when(productRepository.findByCategory("Electronics")).thenReturn(Collections.singletonList(product));
+        when(productRepository.findRowsByCategory("Electronics"))
+                .thenReturn(Collections.singletonList(ProductDTO.from(product)));
 
         List<ProductDTO> result = productService.findProductsByCategory("Electronics");
 
         assertEquals(1, result.size());
         assertEquals("Laptop HP", result.getFirst().getName());
-        verify(productRepository, times(1)).findByCategory("Electronics");
+        verify(productRepository, times(1)).findRowsByCategory("Electronics");
     }
 
     @Test
@@ -202,14 +288,14 @@ class ProductServiceTest {
         lowStockProduct.setMinimumStock(5);
         lowStockProduct.setPrice(BigDecimal.valueOf(1));
 
-        when(productRepository.findLowStockProducts()).thenReturn(Collections.singletonList(lowStockProduct));
+        when(productRepository.findLowStockRows()).thenReturn(Collections.singletonList(ProductDTO.from(lowStockProduct)));
 
         List<ProductDTO> result = productService.findLowStockProducts();
 
         assertEquals(1, result.size());
         assertEquals("Low Stock Item", result.getFirst().getName());
         assertTrue(result.getFirst().getLowStock());
-        verify(productRepository, times(1)).findLowStockProducts();
+        verify(productRepository, times(1)).findLowStockRows();
     }
 
     @Test
@@ -221,14 +307,15 @@ class ProductServiceTest {
         outOfStockProduct.setMinimumStock(5);
         outOfStockProduct.setPrice(BigDecimal.valueOf(1));
 
-        when(productRepository.findOutOfStockProducts()).thenReturn(Collections.singletonList(outOfStockProduct));
+        when(productRepository.findOutOfStockRows())
+                .thenReturn(Collections.singletonList(ProductDTO.from(outOfStockProduct)));
 
         List<ProductDTO> result = productService.findOutOfStockProducts();
 
         assertEquals(1, result.size());
         assertEquals("Out of Stock Item", result.getFirst().getName());
         assertTrue(result.getFirst().getOutOfStock());
-        verify(productRepository, times(1)).findOutOfStockProducts();
+        verify(productRepository, times(1)).findOutOfStockRows();
     }
 
     // === TESTS PARA UTILIDADES ===
@@ -246,14 +333,7 @@ class ProductServiceTest {
 
     @Test
     void getBasicStats_returnsStatistics() {
-        List<Product> allProducts = List.of(product);
-        List<Product> lowStockProducts = List.of();
-        List<Product> outOfStockProducts = List.of();
-
-        when(productRepository.findAll()).thenReturn(allProducts);
-        when(productRepository.findLowStockProducts()).thenReturn(lowStockProducts);
-        when(productRepository.findOutOfStockProducts()).thenReturn(outOfStockProducts);
-        when(productRepository.getTotalInventoryValue()).thenReturn(BigDecimal.valueOf(9999.99));
+        when(productRepository.getInventoryTotals()).thenReturn(new InventoryTotals(1L, BigDecimal.valueOf(9999.99)));
         when(productRepository.findAllCategories()).thenReturn(List.of("Electronics"));
 
         var result = productService.getBasicStats();
@@ -263,6 +343,24 @@ class ProductServiceTest {
         assertEquals(0, result.get("outOfStockCount"));
         assertEquals(0, BigDecimal.valueOf(9999.99).compareTo((BigDecimal) result.get("totalValue")));
         assertEquals(1, result.get("categories"));
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getBasicStats_readsRunningTotalsWithoutQueries() {
+        when(inventoryStats.totals()).thenReturn(Optional.of(
+                new InventoryStats.Totals(3, new BigDecimal("150.00"), 2)));
+        when(stockAlerts.lowStockCount()).thenReturn(2L);
+        when(stockAlerts.outOfStockCount()).thenReturn(1L);
+
+        var result = productService.getBasicStats();
+
+        assertEquals(3, result.get("totalProducts"));
+        assertEquals(2, result.get("lowStockCount"));
+        assertEquals(1, result.get("outOfStockCount"));
+        assertEquals(new BigDecimal("150.00"), result.get("totalValue"));
+        assertEquals(2, result.get("categories"));
+        verifyNoInteractions(productRepository);
     }
 
     // === TESTS PARA LÓGICA DE NEGOCIO ===
@@ -311,7 +409,8 @@ class ProductServiceTest {
         product2.setInitialQuantity(2);
         product2.setMinimumStock(5);
 
-        when(productRepository.findAll()).thenReturn(List.of(product1, product2));
+        // Los filtros van en la consulta: el repositorio ya devuelve solo lo que coincide
+        when(productRepository.findAll(anySpecification(), any(Sort.class))).thenReturn(List.of(product2));
 
         ProductSearchDTO searchDTO = new ProductSearchDTO();
         searchDTO.setCategory("Electronics");
@@ -324,5 +423,20 @@ class ProductServiceTest {
         assertEquals(1, result.size());
         assertEquals("Laptop HP", result.getFirst().getName());
         assertTrue(result.getFirst().getLowStock());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void searchWithUnknownSort_throwsException() {
+        ProductSearchDTO searchDTO = new ProductSearchDTO();
+        searchDTO.setSort("password");
+
+        assertThrows(IllegalArgumentException.class, () -> productService.searchProducts(searchDTO));
+        verifyNoInteractions(productRepository);
+    }
+
+    // any(Specification.class) devuelve el tipo crudo y el stub queda sin chequear
+    private static Specification<Product> anySpecification() {
+        return any();
     }
 }
\ No newline at end of file
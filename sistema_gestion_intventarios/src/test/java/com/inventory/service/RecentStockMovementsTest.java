@@ -0,0 +1,137 @@
+package com.inventory.service;
+
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+import org.example.entity.Product;
+import org.example.entity.StockMovement;
+import org.example.repository.StockMovementRepository;
+import org.example.service.RecentStockMovements;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecentStockMovementsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+    }
+
+    @Test
+    void journalMovementsEnterTheRingOnlyOnceInsertedWithTheirIds() {
+        RecentStockMovements recent = loaded(10);
+        StockMovement pending = movement(null, 0);
+        pending.setJournalSeq(100L);
+
+        recent.added(List.of(pending));
+        assertEquals(List.of(), recent.latest(10).orElseThrow()); // Sin id todavía
+
+        StockMovement inserted = movement(7L, 0);
+        inserted.setJournalSeq(100L);
+        recent.inserted(List.of(inserted));
+        assertEquals(List.of(7L), ids(recent.latest(10).orElseThrow()));
+    }
+
+    @Test
+    void journalMovementsRejectedByTheDatabaseAreDiscarded() {
+        RecentStockMovements recent = loaded(10);
+        StockMovement pending = movement(null, 0);
+        pending.setJournalSeq(100L);
+        recent.added(List.of(pending));
+
+        recent.discarded(100L);
+        StockMovement late = movement(7L, 0);
+        late.setJournalSeq(100L);
+        recent.inserted(List.of(late));
+
+        assertEquals(List.of(), recent.latest(10).orElseThrow());
+    }
+
+    @Test
+    void ringIsOrderedByTimestampThenIdWhateverTheCommitOrder() {
+        RecentStockMovements recent = loaded(10);
+
+        recent.added(List.of(movement(3L, 2), movement(1L, 1)));
+        recent.added(List.of(movement(5L, 1), movement(4L, 3)));
+
+        assertEquals(List.of(4L, 3L, 5L, 1L), ids(recent.latest(10).orElseThrow()));
+    }
+
+    @Test
+    void loadMergesMovementsAddedMeanwhileWithoutDuplicates() {
+        RecentStockMovements recent = loaded(10);
+        recent.added(List.of(movement(5L, 5), movement(6L, 6)));
+
+        when(stockMovementRepository.findAllByOrderByTimestampDescIdDesc(any()))
+                .thenReturn(List.of(movement(5L, 5), movement(4L, 4)));
+        recent.load();
+
+        assertEquals(List.of(6L, 5L, 4L), ids(recent.latest(10).orElseThrow()));
+    }
+
+    @Test
+    void ringWrapsAroundKeepingOnlyTheNewestMovements() {
+        RecentStockMovements recent = loaded(3);
+
+        for (long id = 1; id <= 5; id++) {
+            recent.added(List.of(movement(id, (int) id)));
+        }
+        assertEquals(List.of(5L, 4L, 3L), ids(recent.latest(3).orElseThrow()));
+        assertEquals(List.of(5L, 4L), ids(recent.latest(2).orElseThrow()));
+
+        // Más viejo que todo el anillo lleno: no entra; uno nuevo pisa el más antiguo tras dar la vuelta
+        recent.added(List.of(movement(9L, 0)));
+        recent.added(List.of(movement(6L, 6), movement(7L, 7)));
+        assertEquals(List.of(7L, 6L, 5L), ids(recent.latest(3).orElseThrow()));
+
+        // Más de lo que cabe: hay que ir a la base
+        assertTrue(recent.latest(4).isEmpty());
+    }
+
+    private RecentStockMovements loaded(int capacity) {
+        RecentStockMovements recent = new RecentStockMovements(stockMovementRepository, transactionManager, capacity);
+        when(stockMovementRepository.findAllByOrderByTimestampDescIdDesc(any())).thenReturn(List.of());
+        recent.load();
+        return recent;
+    }
+
+    private StockMovement movement(Long id, int minute) {
+        return StockMovement.builder()
+                .id(id)
+                .product(product)
+                .movementType(MovementType.STOCK_IN)
+                .quantity(1)
+                .previousQuantity(0)
+                .newQuantity(1)
+                .timestamp(NOW.plusMinutes(minute))
+                .username("test")
+                .build();
+    }
+
+    private static List<Long> ids(List<StockMovementDTO> movements) {
+        return movements.stream().map(StockMovementDTO::getId).toList();
+    }
+}
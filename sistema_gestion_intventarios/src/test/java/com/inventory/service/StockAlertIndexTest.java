@@ -0,0 +1,124 @@
+package com.inventory.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockLevel;
+import org.example.service.ProductChange;
+import org.example.service.StockAlertIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockAlertIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void loadSplitsProductsIntoLowAndOutOfStockSets() {
+        StockAlertIndex index = loaded(level(1L, 10), level(2L, 3), level(3L, 0));
+
+        assertEquals(Optional.of(List.of(2L, 3L)), index.lowStockIds());
+        assertEquals(Optional.of(List.of(3L)), index.outOfStockIds());
+        assertEquals(2, index.lowStockCount());
+        assertEquals(1, index.outOfStockCount());
+    }
+
+    @Test
+    void changedProductsMoveBetweenSetsOnTheNextRead() {
+        StockAlertIndex index = loaded(level(1L, 10), level(2L, 3), level(3L, 0));
+
+        // 1 baja justo al mínimo (5 <= 5); 3 repone sin salir de low stock
+        index.productsChanged(change(ProductChange.Kind.STOCK, 1L, 3L));
+        when(productRepository.findStockLevelsByIdIn(any())).thenReturn(List.of(level(1L, 5), level(3L, 4)));
+
+        assertEquals(Optional.of(List.of(1L, 2L, 3L)), index.lowStockIds());
+        assertEquals(Optional.of(List.of()), index.outOfStockIds());
+        assertEquals(3, index.lowStockCount());
+        assertEquals(0, index.outOfStockCount());
+        verify(productRepository, times(1)).findStockLevelsByIdIn(any());
+    }
+
+    @Test
+    void deletedProductsLeaveBothSets() {
+        StockAlertIndex index = loaded(level(1L, 10), level(2L, 3), level(3L, 0));
+
+        index.productsChanged(change(ProductChange.Kind.DELETED, 3L));
+        when(productRepository.findStockLevelsByIdIn(any())).thenReturn(List.of());
+
+        assertEquals(Optional.of(List.of(2L)), index.lowStockIds());
+        assertEquals(0, index.outOfStockCount());
+    }
+
+    @Test
+    void readsInsideAWriteTransactionFallBackToTheDatabase() {
+        StockAlertIndex index = loaded(level(2L, 3));
+        when(productRepository.countLowStockProducts()).thenReturn(7L);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertEquals(Optional.empty(), index.lowStockIds());
+            assertEquals(7, index.lowStockCount());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertEquals(1, index.lowStockCount());
+    }
+
+    @Test
+    void productIdOutsideTheBitsetDisablesTheSetsUntilTheNextLoad() {
+        StockAlertIndex index = loaded(level(2L, 3));
+
+        index.productsChanged(change(ProductChange.Kind.CREATED, 5_000_000_000L));
+        when(productRepository.findStockLevelsByIdIn(any())).thenReturn(List.of(level(5_000_000_000L, 0)));
+
+        assertEquals(Optional.empty(), index.lowStockIds());
+        assertFalse(index.isUsable());
+    }
+
+    @Test
+    void disabledIndexAlwaysReadsFromTheDatabase() {
+        StockAlertIndex index = new StockAlertIndex(productRepository, transactionManager, new SimpleMeterRegistry(), false);
+        when(productRepository.countOutOfStockProducts()).thenReturn(4L);
+
+        index.load();
+
+        assertFalse(index.isUsable());
+        assertEquals(Optional.empty(), index.outOfStockIds());
+        assertEquals(4, index.outOfStockCount());
+        verify(productRepository, never()).streamStockLevels();
+    }
+
+    private StockAlertIndex loaded(StockLevel... levels) {
+        StockAlertIndex index = new StockAlertIndex(productRepository, transactionManager, new SimpleMeterRegistry(), true);
+        when(productRepository.streamStockLevels()).thenReturn(Stream.of(levels));
+        index.load();
+        assertTrue(index.isUsable());
+        return index;
+    }
+
+    private static ProductChange change(ProductChange.Kind kind, Long... ids) {
+        return new ProductChange(kind, Set.of(ids), List.of());
+    }
+
+    // Mínimo 5 en todos, como el valor por defecto
+    private static StockLevel level(Long id, int quantity) {
+        return new StockLevel(id, quantity, 5);
+    }
+}
@@ -0,0 +1,46 @@
+package com.inventory.service;
+
+import org.example.entity.StockMovement;
+import org.example.service.StockMovementCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockMovementCursorTest {
+
+    @Test
+    void cursorRoundTripsTimestampWithNanosAndId() {
+        StockMovement last = StockMovement.builder()
+                .id(1234L)
+                .timestamp(LocalDateTime.of(2025, 3, 9, 23, 59, 58, 123_456_789))
+                .build();
+
+        StockMovementCursor decoded = StockMovementCursor.decode(StockMovementCursor.after(last).encode());
+
+        assertEquals(new StockMovementCursor(last.getTimestamp(), 1234L), decoded);
+    }
+
+    @Test
+    void timestampAtMidnightStillRoundTrips() {
+        // LocalDateTime.toString omite los segundos a cero: "2025-01-01T00:00"
+        StockMovementCursor cursor = new StockMovementCursor(LocalDateTime.of(2025, 1, 1, 0, 0), 5L);
+
+        assertEquals(cursor, StockMovementCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void malformedCursorsAreRejectedAsIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> StockMovementCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> StockMovementCursor.decode(raw("12")));
+        assertThrows(IllegalArgumentException.class, () -> StockMovementCursor.decode(raw("x:2025-01-01T00:00")));
+        assertThrows(IllegalArgumentException.class, () -> StockMovementCursor.decode(raw("12:yesterday")));
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
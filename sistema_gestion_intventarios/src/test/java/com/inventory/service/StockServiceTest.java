@@ -1,25 +1,40 @@
 package com.inventory.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.dto.ProductPageDTO;
+import org.example.dto.StockBatchRequestDTO;
+import org.example.dto.StockBatchResultDTO;
 import org.example.dto.StockMovementDTO;
 import org.example.entity.MovementType;
 import org.example.entity.Product;
 import org.example.entity.StockMovement;
 import org.example.repository.ProductRepository;
+import org.example.repository.StockChange;
 import org.example.repository.StockMovementRepository;
+import org.example.service.ProductChangePublisher;
+import org.example.service.RecentStockMovements;
 import org.example.service.StockServiceImpl;
+import org.example.service.StockSlotService;
+import org.example.service.StockUpdateStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +46,21 @@ class StockServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private StockUpdateStrategy stockUpdateStrategy;
+
+    @Mock
+    private StockSlotService stockSlotService;
+
+    @Mock
+    private RecentStockMovements recentMovements;
+
+    @Mock
+    private ProductChangePublisher productChanges;
+
     @InjectMocks
     private StockServiceImpl stockService;
 
@@ -54,6 +84,7 @@ class StockServiceTest {
 
     @Test
     void registerStockIn_increasesStockAndCreatesMovement() {
+        when(stockUpdateStrategy.increase(1L, 10)).thenReturn(new StockChange(50, 60));
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(stockMovementRepository.save(any(StockMovement.class))).thenAnswer(invocation -> {
             StockMovement movement = invocation.getArgument(0);
@@ -68,7 +99,8 @@ class StockServiceTest {
         assertEquals(50, result.getPreviousQuantity());
         assertEquals(60, result.getNewQuantity());
         assertEquals("testuser", result.getUsername());
-        verify(productRepository, times(1)).save(product);
+        verify(stockUpdateStrategy, times(1)).increase(1L, 10);
+        verify(productRepository, never()).save(any(Product.class));
         verify(stockMovementRepository, times(1)).save(any(StockMovement.class));
     }
 
@@ -76,6 +108,7 @@ class StockServiceTest {
     void registerStockOut_decreasesStockAndCreatesMovement() {
         stockMovementDTO.setQuantity(20);
 
+        when(stockUpdateStrategy.decreaseIfSufficient(1L, 20)).thenReturn(Optional.of(new StockChange(50, 30)));
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(stockMovementRepository.save(any(StockMovement.class))).thenAnswer(invocation -> {
             StockMovement movement = invocation.getArgument(0);
@@ -89,13 +122,15 @@ class StockServiceTest {
         assertEquals(MovementType.STOCK_OUT, result.getMovementType());
         assertEquals(50, result.getPreviousQuantity());
         assertEquals(30, result.getNewQuantity());
-        verify(productRepository, times(1)).save(product);
+        verify(stockUpdateStrategy, times(1)).decreaseIfSufficient(1L, 20);
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     @Test
     void registerStockOut_throwsExceptionForInsufficientStock() {
         stockMovementDTO.setQuantity(100); // Más del stock disponible
 
+        when(stockUpdateStrategy.decreaseIfSufficient(1L, 100)).thenReturn(Optional.empty());
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -106,10 +141,57 @@ class StockServiceTest {
         verify(stockMovementRepository, never()).save(any(StockMovement.class));
     }
 
+    @Test
+    void movementsRecordPhaseTimersQuantitiesAndInsufficientStock() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        StockServiceImpl service = new StockServiceImpl(stockMovementRepository, productRepository, entityManager,
+                stockUpdateStrategy, stockSlotService, registry, recentMovements, productChanges, null);
+
+        when(stockUpdateStrategy.decreaseIfSufficient(1L, 10))
+                .thenReturn(Optional.of(new StockChange(50, 40, 3_000_000)));
+        when(stockUpdateStrategy.decreaseIfSufficient(1L, 100)).thenReturn(Optional.empty());
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(stockMovementRepository.save(any(StockMovement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.registerStockOut(stockMovementDTO, "testuser");
+        stockMovementDTO.setQuantity(100);
+        assertThrows(IllegalArgumentException.class, () -> service.registerStockOut(stockMovementDTO, "testuser"));
+
+        // Los medidores existen desde el arranque para todos los tipos
+        assertEquals(0, registry.get("inventory_stock_movements_total").tag("type", "return").counter().count());
+        assertEquals(1, registry.get("inventory_stock_movements_total").tag("type", "stock_out").counter().count());
+        assertEquals(1, registry.get("inventory_stock_insufficient_total").tag("type", "stock_out").counter().count());
+        assertEquals(10, registry.get("inventory_stock_movement_quantity").tag("type", "stock_out").summary().totalAmount());
+        // El producto se carga antes de actualizar: también en el movimiento rechazado
+        assertEquals(2, registry.get("inventory_stock_movement_phase_seconds")
+                .tag("type", "stock_out").tag("phase", "product_load").timer().count());
+        for (String phase : List.of("lock_wait", "update", "audit_insert")) {
+            assertEquals(1, registry.get("inventory_stock_movement_phase_seconds")
+                    .tag("type", "stock_out").tag("phase", phase).timer().count(), phase);
+        }
+        assertEquals(3, registry.get("inventory_stock_movement_phase_seconds")
+                .tag("type", "stock_out").tag("phase", "lock_wait").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    void registerLoss_throwsExceptionForInsufficientStock() {
+        stockMovementDTO.setQuantity(60);
+
+        when(stockUpdateStrategy.decreaseIfSufficient(1L, 60)).thenReturn(Optional.empty());
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> stockService.registerLoss(stockMovementDTO, "testuser"));
+
+        assertEquals("Insufficient stock for loss registration. Available: 50, Loss: 60", exception.getMessage());
+        verify(stockMovementRepository, never()).save(any(StockMovement.class));
+    }
+
     @Test
     void registerAdjustment_updatesStockAndCreatesMovement() {
         stockMovementDTO.setNewQuantity(25); // Ajustar a 25 unidades
 
+        when(stockUpdateStrategy.set(1L, 25)).thenReturn(new StockChange(50, 25));
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(stockMovementRepository.save(any(StockMovement.class))).thenAnswer(invocation -> {
             StockMovement movement = invocation.getArgument(0);
@@ -124,7 +206,7 @@ class StockServiceTest {
         assertEquals(50, result.getPreviousQuantity());
         assertEquals(25, result.getNewQuantity());
         assertEquals(25, result.getQuantity()); // Diferencia absoluta
-        verify(productRepository, times(1)).save(product);
+        verify(stockUpdateStrategy, times(1)).set(1L, 25);
     }
 
     @Test
@@ -153,4 +235,112 @@ class StockServiceTest {
 
         assertEquals(50, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void registerMovementBatch_bestEffortAppliesValidLinesAndReportsFailures() {
+        when(productRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(product));
+
+        StockBatchRequestDTO batch = new StockBatchRequestDTO(StockBatchRequestDTO.Mode.BEST_EFFORT, List.of(
+                line(MovementType.STOCK_OUT, 30),
+                line(MovementType.STOCK_OUT, 30),
+                line(MovementType.STOCK_IN, 5)));
+
+        StockBatchResultDTO result = stockService.registerMovementBatch(batch, "testuser");
+
+        assertTrue(result.isCommitted());
+        assertEquals(2, result.getSuccessful());
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getResults().get(1).getError().contains("Insufficient stock. Available: 20"));
+        assertEquals(25, result.getResults().get(2).getMovement().getNewQuantity());
+        assertEquals(25, product.getInitialQuantity());
+        verify(stockMovementRepository, times(1)).saveAll(anyList());
+        verify(stockMovementRepository, never()).save(any(StockMovement.class));
+    }
+
+    @Test
+    void registerMovementBatch_unchangedAdjustmentFailsOnlyItsLine() {
+        when(productRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(product));
+
+        StockBatchRequestDTO batch = new StockBatchRequestDTO(StockBatchRequestDTO.Mode.BEST_EFFORT, List.of(
+                adjustment(50),
+                adjustment(40),
+                adjustment(40)));
+
+        StockBatchResultDTO result = stockService.registerMovementBatch(batch, "testuser");
+
+        assertTrue(result.isCommitted());
+        assertEquals(1, result.getSuccessful());
+        assertEquals("Stock is already 50: nothing to adjust", result.getResults().get(0).getError());
+        assertEquals(10, result.getResults().get(1).getMovement().getQuantity());
+        assertEquals("Stock is already 40: nothing to adjust", result.getResults().get(2).getError());
+        assertEquals(40, product.getInitialQuantity());
+        verify(stockMovementRepository).saveAll(argThat((List<StockMovement> movements) -> movements.size() == 1));
+    }
+
+    @Test
+    void registerMovementBatch_allOrNothingRejectsWholeBatch() {
+        when(productRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(product));
+
+        StockBatchRequestDTO batch = new StockBatchRequestDTO(StockBatchRequestDTO.Mode.ALL_OR_NOTHING, List.of(
+                line(MovementType.STOCK_IN, 10),
+                line(MovementType.LOSS, 100)));
+
+        StockBatchResultDTO result = stockService.registerMovementBatch(batch, "testuser");
+
+        assertFalse(result.isCommitted());
+        assertEquals(0, result.getSuccessful());
+        assertEquals(2, result.getFailed());
+        assertFalse(result.getResults().getFirst().isSuccess());
+        assertEquals(50, product.getInitialQuantity());
+        verify(stockMovementRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void getProductHistoryPage_returnsCursorOfLastMovementAndContinuesAfterIt() {
+        LocalDateTime now = LocalDateTime.now();
+        StockMovement newest = movement(3L, now);
+        StockMovement middle = movement(2L, now.minusMinutes(1));
+        StockMovement oldest = movement(1L, now.minusMinutes(1));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(stockMovementRepository.findByProductIdOrderByTimestampDescIdDesc(1L, Limit.of(3)))
+                .thenReturn(List.of(newest, middle, oldest));
+        when(stockMovementRepository.findHistoryPageAfter(1L, middle.getTimestamp(), 2L, Limit.of(3)))
+                .thenReturn(List.of(oldest));
+
+        ProductPageDTO<StockMovementDTO> first = stockService.getProductHistoryPage(1L, null, 2);
+        ProductPageDTO<StockMovementDTO> last = stockService.getProductHistoryPage(1L, first.getNextCursor(), 2);
+
+        assertEquals(List.of(3L, 2L), first.getItems().stream().map(StockMovementDTO::getId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(1L), last.getItems().stream().map(StockMovementDTO::getId).toList());
+        assertNull(last.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> stockService.getProductHistoryPage(1L, "not-a-cursor", 2));
+    }
+
+    private StockMovement movement(Long id, LocalDateTime timestamp) {
+        return StockMovement.builder()
+                .id(id)
+                .product(product)
+                .movementType(MovementType.STOCK_IN)
+                .quantity(1)
+                .timestamp(timestamp)
+                .username("testuser")
+                .build();
+    }
+
+    private StockMovementDTO adjustment(int newQuantity) {
+        StockMovementDTO line = new StockMovementDTO();
+        line.setMovementType(MovementType.ADJUSTMENT);
+        line.setProductId(1L);
+        line.setNewQuantity(newQuantity);
+        return line;
+    }
+
+    private StockMovementDTO line(MovementType movementType, int quantity) {
+        StockMovementDTO line = new StockMovementDTO();
+        line.setMovementType(movementType);
+        line.setProductId(1L);
+        line.setQuantity(quantity);
+        return line;
+    }
+}
@@ -0,0 +1,155 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockBulkUpdateDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.StockBulkUpdater;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conteo físico masivo: el camino anterior de /stock/bulk-update (un ajuste y un commit por fila)
+ * frente a bloques en paralelo sobre hilos virtuales con los productos cargados en una consulta.
+ * Para la corrida completa: -Dstress.bulk.size=50000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.integration.bulk-update.chunk-size=500",
+        "inventory.integration.bulk-update.parallelism=4",
+        "spring.datasource.url=jdbc:h2:mem:bulkupdatedb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class BulkStockUpdateStressTest {
+
+    private static final int BULK_SIZE = Integer.getInteger("stress.bulk.size", 5_000);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockBulkUpdater stockBulkUpdater;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void chunkedBulkUpdateReportsRowsPerSecond() {
+        List<Long> sequentialIds = createProducts("Sequential");
+        long start = System.nanoTime();
+        int sequentialErrors = 0;
+        for (int i = 0; i < sequentialIds.size(); i++) {
+            try {
+                StockMovementDTO adjustment = new StockMovementDTO();
+                adjustment.setProductId(sequentialIds.get(i));
+                adjustment.setNewQuantity(countedQuantity(i));
+                adjustment.setReason("Bulk update via API");
+                stockService.registerAdjustment(adjustment, "integration");
+            } catch (Exception e) {
+                sequentialErrors++;
+            }
+        }
+        double sequentialSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        List<Long> chunkedIds = createProducts("Chunked");
+        List<StockBulkUpdateDTO> updates = new ArrayList<>(chunkedIds.size());
+        for (int i = 0; i < chunkedIds.size(); i++) {
+            updates.add(new StockBulkUpdateDTO(chunkedIds.get(i), countedQuantity(i), null));
+        }
+        start = System.nanoTime();
+        List<String> errors = stockBulkUpdater.update(updates, "integration");
+        double chunkedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.println("=== ACTUALIZACIÓN MASIVA DE STOCK ===");
+        System.out.printf("Filas por corrida: %d%n", BULK_SIZE);
+        System.out.printf("Secuencial, una transacción por fila: %.2f s (%.0f filas/s)%n",
+                sequentialSeconds, BULK_SIZE / sequentialSeconds);
+        System.out.printf("Bloques en paralelo: %.2f s (%.0f filas/s)%n", chunkedSeconds, BULK_SIZE / chunkedSeconds);
+        System.out.printf("Ganancia: %.2fx%n", sequentialSeconds / chunkedSeconds);
+
+        assertEquals(0, sequentialErrors);
+        assertTrue(errors.isEmpty(), "No debería haber errores: " + errors);
+        for (int i = 0; i < chunkedIds.size(); i += Math.max(1, BULK_SIZE / 50)) {
+            assertEquals(countedQuantity(i), productRepository.findQuantityById(chunkedIds.get(i)).orElseThrow());
+        }
+    }
+
+    @Test
+    void rowErrorsKeepRequestOrderAndRowsOfTheSameProductApplyInOrder() {
+        List<Long> ids = createProducts("Ordered").subList(0, 3);
+        List<StockBulkUpdateDTO> updates = List.of(
+                new StockBulkUpdateDTO(ids.get(0), 10, null),
+                new StockBulkUpdateDTO(Long.MAX_VALUE, 5, null),
+                new StockBulkUpdateDTO(ids.get(0), 20, "recount"),
+                new StockBulkUpdateDTO(ids.get(1), null, null),
+                new StockBulkUpdateDTO(ids.get(2), 7, null));
+
+        List<String> errors = stockBulkUpdater.update(updates, "integration");
+
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0).startsWith("Product ID " + Long.MAX_VALUE + ": Product not found"));
+        assertTrue(errors.get(1).contains("New quantity is required"));
+        assertEquals(20, productRepository.findQuantityById(ids.get(0)).orElseThrow());
+        assertEquals(7, productRepository.findQuantityById(ids.get(2)).orElseThrow());
+    }
+
+    // Conteo nocturno con casi todo sin cambios: solo fallan las filas sin diferencia, el resto del bloque se aplica
+    @Test
+    void unchangedRowsAreReportedWithoutFailingTheirChunk() {
+        List<Long> ids = createProducts("Unchanged").subList(0, 4);
+        List<StockBulkUpdateDTO> updates = List.of(
+                new StockBulkUpdateDTO(ids.get(0), 100, null),
+                new StockBulkUpdateDTO(ids.get(1), 60, null),
+                new StockBulkUpdateDTO(ids.get(2), 100, null),
+                new StockBulkUpdateDTO(ids.get(3), 120, null));
+
+        List<String> errors = stockBulkUpdater.update(updates, "integration");
+
+        assertEquals(List.of("Product ID " + ids.get(0) + ": Stock is already 100: nothing to adjust",
+                "Product ID " + ids.get(2) + ": Stock is already 100: nothing to adjust"), errors);
+        assertEquals(60, productRepository.findQuantityById(ids.get(1)).orElseThrow());
+        assertEquals(120, productRepository.findQuantityById(ids.get(3)).orElseThrow());
+        assertTrue(stockService.getProductHistory(ids.get(0)).stream().noneMatch(m -> m.getQuantity() == 0));
+    }
+
+    private List<Long> createProducts(String prefix) {
+        List<ProductDTO> products = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName(prefix + "-" + i);
+            product.setCategory("Bulk-Stress");
+            product.setPrice(BigDecimal.ONE);
+            product.setInitialQuantity(100);
+            product.setMinimumStock(5);
+            products.add(product);
+        }
+        for (int from = 0; from < products.size(); from += 1_000) {
+            productService.createProducts(products.subList(from, Math.min(from + 1_000, products.size())));
+        }
+        return productRepository.findAll().stream()
+                .filter(p -> p.getName().startsWith(prefix + "-"))
+                .map(Product::getId)
+                .sorted()
+                .toList();
+    }
+
+    // Siempre distinto del stock inicial (100): las filas sin cambios se prueban aparte
+    private static int countedQuantity(int row) {
+        return 101 + row % 250;
+    }
+}
@@ -0,0 +1,188 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.Product;
+import org.example.repository.InventoryTotals;
+import org.example.repository.ProductRepository;
+import org.example.service.InventoryStats;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Totales corrientes de getBasicStats frente a los agregados de la base: tras movimientos y ediciones
+ * concurrentes (precio, categoría), altas y borrados deben coincidir exactamente; una escritura que no
+ * pasa por los servicios se corrige en la conciliación. Mide getBasicStats frente al camino anterior
+ * (findAll y listas de entidades solo para contarlas).
+ * Para un catálogo más grande: -Dstress.stats.size=200000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventorystatsdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class InventoryStatsStressTest {
+
+    private static final int SIZE = Integer.getInteger("stress.stats.size", 20_000);
+    private static final int CATEGORIES = 30;
+    private static final int WRITES = 2_000;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryStats inventoryStats;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void runningTotalsMatchTheDatabaseAndCostNoQueries() throws Exception {
+        loadCatalog();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertTrue(inventoryStats.isUsable(), "Los totales se cargan al arrancar");
+        compare(readOnly);
+
+        // Movimientos de stock y ediciones de precio y categoría concurrentes
+        List<Long> ids = productRepository.findAll().stream().map(Product::getId).sorted().toList();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                // Cada hilo edita sus propios productos: sin conflictos de versión entre ediciones
+                List<Long> own = ids.subList(t * 100, t * 100 + 100);
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < WRITES / THREADS; i++) {
+                        Long productId = own.get(random.nextInt(own.size()));
+                        try {
+                            if (i % 10 == 0) {
+                                ProductDTO product = productService.getProductById(productId);
+                                product.setPrice(BigDecimal.valueOf(100 + random.nextInt(10_000), 2));
+                                product.setCategory("Stats-" + random.nextInt(CATEGORIES + 5));
+                                productService.updateProduct(productId, product);
+                            } else {
+                                StockMovementDTO request = new StockMovementDTO();
+                                request.setProductId(productId);
+                                request.setQuantity(1 + random.nextInt(4));
+                                if (random.nextBoolean()) {
+                                    stockService.registerStockIn(request, "stress");
+                                } else {
+                                    stockService.registerStockOut(request, "stress");
+                                }
+                            }
+                        } catch (IllegalArgumentException insufficient) {
+                            // Stock insuficiente: el producto no cambia
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        compare(readOnly);
+
+        // Borrado del único producto de una categoría y alta en una categoría nueva
+        ProductDTO only = productService.createProduct(product("Stats-única", "Stats-sola", 3));
+        compare(readOnly);
+        productService.deleteProduct(only.getId());
+        productService.createProduct(product("Stats-nuevo", "Stats-nueva", 7));
+        compare(readOnly);
+
+        // Escritura directa en SQL: los totales quedan atrasados hasta la conciliación
+        jdbcTemplate.update("UPDATE products SET initial_quantity = initial_quantity + 1000 WHERE id = ?", ids.getLast());
+        assertNotEquals(readOnly.execute(status -> productRepository.getInventoryTotals().value())
+                .compareTo(inventoryStats.totals().orElseThrow().value()), 0);
+        inventoryStats.reconcile();
+        compare(readOnly);
+
+        double legacy = millis(() -> readOnly.execute(status -> Map.of(
+                "totalProducts", productRepository.findAll().size(),
+                "lowStockCount", productRepository.findLowStockProducts().size(),
+                "outOfStockCount", productRepository.findOutOfStockProducts().size(),
+                "totalValue", productRepository.getTotalInventoryValue(),
+                "categories", productRepository.findAllCategories().size())));
+        double running = millis(productService::getBasicStats);
+
+        System.out.println("=== ESTADÍSTICAS BÁSICAS ===");
+        System.out.printf("Productos: %d, estadísticas: %s%n", productRepository.count(), productService.getBasicStats());
+        System.out.printf("Entidades y listas contadas: %.3f ms, totales corrientes: %.4f ms%n", legacy, running);
+        assertTrue(running < legacy, "Los totales en memoria deberían costar menos que las consultas");
+    }
+
+    private void compare(TransactionTemplate readOnly) {
+        InventoryTotals database = readOnly.execute(status -> productRepository.getInventoryTotals());
+        int categories = readOnly.execute(status -> productRepository.findAllCategories().size());
+        InventoryStats.Totals memory = inventoryStats.totals().orElseThrow();
+        assertEquals(database.products(), memory.products(), "Número de productos");
+        assertEquals(0, database.value().compareTo(memory.value()), "Valor del inventario");
+        assertEquals(categories, memory.categories(), "Categorías distintas");
+
+        Map<String, Object> stats = productService.getBasicStats();
+        assertEquals(Math.toIntExact(database.products()), stats.get("totalProducts"));
+        assertEquals(Math.toIntExact(readOnly.execute(status -> productRepository.countLowStockProducts())),
+                stats.get("lowStockCount"));
+        assertEquals(Math.toIntExact(readOnly.execute(status -> productRepository.countOutOfStockProducts())),
+                stats.get("outOfStockCount"));
+    }
+
+    private static double millis(Supplier<?> call) {
+        for (int i = 0; i < ROUNDS / 4; i++) {
+            call.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            call.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+    }
+
+    private void loadCatalog() {
+        for (int from = 0; from < SIZE; from += 1_000) {
+            List<ProductDTO> chunk = new ArrayList<>(1_000);
+            for (int i = from; i < Math.min(from + 1_000, SIZE); i++) {
+                ProductDTO product = product("Stats-" + i, "Stats-" + (i % CATEGORIES), i % 40);
+                product.setPrice(BigDecimal.valueOf(100 + i % 500 * 7L, 2));
+                chunk.add(product);
+            }
+            productService.createProducts(chunk);
+        }
+    }
+}
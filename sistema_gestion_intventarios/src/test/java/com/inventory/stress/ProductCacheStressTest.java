@@ -0,0 +1,179 @@
+package com.inventory.stress;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inventory.stress.StressFixtures.product;
+import static com.inventory.stress.StressFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lecturas del catálogo con y sin la caché local de productos: 80% por id, 15% por categoría
+ * y 5% del listado completo. También comprueba que escrituras y movimientos la invalidan.
+ * Para la corrida completa: -Dstress.cache.threads=32 -Dstress.cache.reads=20000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.product-cache.ttl-seconds=60",
+        "spring.datasource.url=jdbc:h2:mem:productcachedb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class ProductCacheStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.cache.threads", 8);
+    private static final int READS_PER_THREAD = Integer.getInteger("stress.cache.reads", 2_000);
+    private static final int PRODUCTS = 200;
+    private static final int CATEGORIES = 10;
+
+    @Autowired
+    private ProductService productService; // con caché
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void cachedReadsReportThroughputAgainstDatabaseReads() throws InterruptedException {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(createProduct("Cache-" + i, "CacheCat-" + (i % CATEGORIES)).getId());
+        }
+        MeterRegistry unusedRegistry = new SimpleMeterRegistry();
+        ProductService uncached = StressServices.uncachedProductService(context, unusedRegistry);
+
+        // Calentamiento (JIT, pool de conexiones): no se mide
+        run("warmup", uncached, productIds);
+
+        RunResult database = run("SIN CACHÉ", uncached, productIds);
+        double hitsBefore = cacheRequests("hit");
+        double missesBefore = cacheRequests("miss");
+        RunResult cached = run("CON CACHÉ", productService, productIds);
+        double hits = cacheRequests("hit") - hitsBefore;
+        double misses = cacheRequests("miss") - missesBefore;
+
+        System.out.printf("Tasa de aciertos: %.1f%% (%.0f aciertos, %.0f fallos)%n",
+                100 * hits / Math.max(1, hits + misses), hits, misses);
+        System.out.printf("Ganancia de throughput: %.2fx%n", cached.opsPerSecond() / database.opsPerSecond());
+
+        assertTrue(database.finished && cached.finished, "Ambas corridas deberían completarse");
+        assertEquals(0, database.errors + cached.errors, "No debería haber lecturas fallidas");
+        assertTrue(hits > misses, "La mayoría de las lecturas deberían resolverse en la caché");
+    }
+
+    @Test
+    void writesAndStockMovementsInvalidateCachedReads() {
+        ProductDTO product = createProduct("Cache-Invalidation", "CacheInvalidation");
+        Long id = product.getId();
+        assertEquals(10, productService.getProductById(id).getInitialQuantity());
+        assertEquals(1, productService.findProductsByCategory("CacheInvalidation").size());
+
+        stockService.registerStockIn(request(id, 5), "cache-test");
+        assertEquals(15, productService.getProductById(id).getInitialQuantity());
+        assertEquals(15, productService.findProductsByCategory("CacheInvalidation").getFirst().getInitialQuantity());
+
+        product.setInitialQuantity(15);
+        product.setName("Cache-Invalidation-Renamed");
+        productService.updateProduct(id, product);
+        assertEquals("Cache-Invalidation-Renamed", productService.getProductById(id).getName());
+        assertEquals("Cache-Invalidation-Renamed",
+                productService.findProductsByCategory("CacheInvalidation").getFirst().getName());
+
+        Long secondId = createProduct("Cache-Invalidation-2", "CacheInvalidation").getId();
+        assertEquals(2, productService.findProductsByCategory("CacheInvalidation").size());
+        assertEquals(10, productService.getProductById(secondId).getInitialQuantity());
+
+        productService.deleteProduct(secondId);
+        assertThrows(RuntimeException.class, () -> productService.getProductById(secondId));
+        assertEquals(1, productService.findProductsByCategory("CacheInvalidation").size());
+    }
+
+    private RunResult run(String title, ProductService service, List<Long> productIds) throws InterruptedException {
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int j = 0; j < READS_PER_THREAD; j++) {
+                        try {
+                            int kind = random.nextInt(100);
+                            if (kind < 80) {
+                                service.getProductById(productIds.get(random.nextInt(productIds.size())));
+                            } else if (kind < 95) {
+                                service.findProductsByCategory("CacheCat-" + random.nextInt(CATEGORIES));
+                            } else {
+                                service.getAllProducts();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(120, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        RunResult result = new RunResult(finished, THREADS * READS_PER_THREAD, errors.get(), elapsed);
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Hilos concurrentes: %d sobre %d productos%n", THREADS, productIds.size());
+        System.out.printf("Lecturas: %d, errores: %d%n", result.reads, result.errors);
+        System.out.printf("Lecturas por segundo: %.2f%n", result.opsPerSecond());
+        return result;
+    }
+
+    private double cacheRequests(String result) {
+        return meterRegistry.get("inventory_product_cache_requests_total").tag("result", result).counters()
+                .stream().mapToDouble(Counter::count).sum();
+    }
+
+    private ProductDTO createProduct(String name, String category) {
+        return productService.createProduct(product(name, category, 10));
+    }
+
+    private record RunResult(boolean finished, int reads, int errors, long elapsedNanos) {
+        double opsPerSecond() {
+            return reads / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductSearchDTO;
+import org.example.service.ProductService;
+import org.example.service.ProductTextSearch;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda de productos resuelta por la base (índice en memoria desactivado). En H2 el modo
+ * fulltext cae a LIKE; el plan de los índices de V8 solo se comprueba contra un PostgreSQL
+ * real, que debe ser una base desechable (se le aplican todas las migraciones):
+ * -Dstress.postgres.url=jdbc:postgresql://localhost:5432/inventory_explain
+ * -Dstress.postgres.user=... -Dstress.postgres.password=... -Dstress.postgres.rows=200000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:databasesearchdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "inventory.search.index.enabled=false",
+        "inventory.search.database-mode=fulltext"
+})
+@ActiveProfiles("test")
+public class ProductDatabaseSearchStressTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductTextSearch textSearch;
+
+    @Test
+    void fulltextModeFallsBackToLikeOutsidePostgreSql() {
+        assertEquals(ProductTextSearch.Mode.LIKE, textSearch.getMode());
+
+        create("Monitor Dell 24", "Pantalla IPS", "Electrónica");
+        create("Mouse inalámbrico", "Compatible con monitor", "Oficina");
+        create("Taladro Bosch", "Percutor", "Herramientas");
+
+        List<String> names = search("MONITOR").stream().map(ProductDTO::getName).sorted().toList();
+        assertEquals(List.of("Monitor Dell 24", "Mouse inalámbrico"), names);
+        assertEquals(List.of("Taladro Bosch"), search("herramient").stream().map(ProductDTO::getName).toList());
+        assertTrue(search("inexistente").isEmpty());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "stress.postgres.url", matches = ".+")
+    void postgreSqlSearchesUseTheV8Indexes() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty("stress.postgres.url"),
+                System.getProperty("stress.postgres.user", "postgres"),
+                System.getProperty("stress.postgres.password", ""));
+        Flyway.configure().dataSource(dataSource).locations("classpath:migration").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        int rows = Integer.getInteger("stress.postgres.rows", 200_000);
+        long firstId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM products", Long.class);
+        jdbc.update("INSERT INTO products (id, name, description, category, price, initial_quantity, minimum_stock) " +
+                "SELECT ? + g, 'Producto ' || g || ' SKU' || g, 'Descripción ' || (g % 5000), 'Cat' || (g % 50), 10, 10, 5 " +
+                "FROM generate_series(0, ? - 1) g", firstId, rows);
+        jdbc.execute("SELECT setval('products_seq', (SELECT MAX(id) FROM products) + 50, false)");
+        jdbc.execute("ANALYZE products");
+
+        // Lo que genera Hibernate para findBySearchTerm
+        String like = plan(jdbc, "SELECT p.id FROM products p WHERE lower(p.name) LIKE '%sku12345%' " +
+                "OR lower(p.description) LIKE '%sku12345%' OR lower(p.category) LIKE '%sku12345%'");
+        String fulltext = plan(jdbc, "SELECT p.id FROM products p " +
+                "WHERE p.search_vector @@ to_tsquery('simple', products_unaccent('sku12345:*'))");
+
+        System.out.println("=== PLAN LIKE (pg_trgm) ===");
+        System.out.println(like);
+        System.out.println("=== PLAN FULLTEXT (tsvector) ===");
+        System.out.println(fulltext);
+        assertTrue(like.contains("idx_products_name_trgm"), like);
+        assertTrue(fulltext.contains("idx_products_search_vector"), fulltext);
+    }
+
+    private static String plan(JdbcTemplate jdbc, String sql) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    private List<ProductDTO> search(String term) {
+        ProductSearchDTO search = new ProductSearchDTO();
+        search.setSearchTerm(term);
+        return productService.searchProducts(search);
+    }
+
+    private void create(String name, String description, String category) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategory(category);
+        product.setPrice(BigDecimal.TEN);
+        product.setInitialQuantity(10);
+        productService.createProduct(product);
+    }
+}
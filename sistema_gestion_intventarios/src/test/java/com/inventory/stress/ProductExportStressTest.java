@@ -0,0 +1,201 @@
+package com.inventory.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductExporter;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exportación del catálogo en streaming: la memoria retenida durante la exportación debe ser
+ * plana (no crece con el número de productos escritos), frente a armar la lista completa en heap.
+ * La memoria se mide tras un GC en varios puntos de la exportación. Corre sola con -Xmx256m
+ * (./gradlew exportStressTest): la lista de DTOs del millón de productos (~170 MB) más el JSON
+ * armado en memoria (~200 MB) del camino anterior no entrarían en ese heap.
+ * La base H2 va en disco para que las filas tampoco lo ocupen.
+ * Para una corrida más liviana: -Dstress.export.size=200000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/inventory-exportdb;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ProductExportStressTest {
+
+    private static final int EXPORT_SIZE = Integer.getInteger("stress.export.size", 1_000_000);
+    private static final int CHECKPOINTS = 5;
+    private static final int MATERIALIZED_SAMPLE = 50_000;
+    private static final long MB = 1024 * 1024;
+
+    @Autowired
+    private ProductExporter productExporter;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @Order(2)
+    void exportKeepsRetainedHeapFlat() throws IOException {
+        loadCatalog(EXPORT_SIZE);
+
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(EXPORT_SIZE * 150L / CHECKPOINTS);
+        long start = System.nanoTime();
+        long rows = productExporter.writeJson(out, false);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        // Referencia: costo en heap de la lista de DTOs del camino anterior, medido sobre una muestra.
+        // Después de exportar: justo tras la carga, H2 aún libera páginas y el GC da diferencias negativas
+        long before = retainedHeap();
+        List<ProductDTO> materialized = productRepository.findAllByOrderByIdAsc(Limit.of(MATERIALIZED_SAMPLE))
+                .stream().map(ProductDTO::from).toList();
+        long materializedBytes = retainedHeap() - before;
+        assertEquals(MATERIALIZED_SAMPLE, materialized.size());
+        materialized = null;
+
+        long growth = out.maxRetained - out.firstRetained;
+        double materializedMb = (double) materializedBytes / MATERIALIZED_SAMPLE * EXPORT_SIZE / MB;
+
+        System.out.println("=== EXPORTACIÓN EN STREAMING ===");
+        System.out.printf("Productos exportados: %d en %.2f s (%.0f filas/s), %d MB escritos%n",
+                rows, seconds, rows / seconds, out.bytes / MB);
+        System.out.printf("Heap retenido durante la exportación: primer punto %d MB, máximo %d MB (crecimiento %d MB en %d puntos)%n",
+                out.firstRetained / MB, out.maxRetained / MB, growth / MB, out.samples);
+        System.out.printf("Lista completa en memoria (camino anterior, extrapolado): ~%.0f MB%n", materializedMb);
+
+        assertEquals(productRepository.count(), rows);
+        assertTrue(out.samples >= CHECKPOINTS - 1, "Debería haber medido varios puntos de la exportación");
+        assertTrue(growth < 32 * MB, "El heap retenido no debería crecer con las filas exportadas: " + growth / MB + " MB");
+    }
+
+    // Corre antes de cargar el catálogo grande: la respuesta simulada de MockMvc se guarda entera en memoria
+    @Test
+    @Order(1)
+    @WithMockUser(roles = "ADMIN")
+    void endpointStreamsJsonAndGzipWhenAccepted() throws Exception {
+        loadCatalog(2_000);
+
+        MvcResult plain = mockMvc.perform(get("/api/integration/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(plain))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=products-export.json"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        String body = plain.getResponse().getContentAsString();
+        assertTrue(body.startsWith("[{\"id\":"));
+        assertTrue(body.endsWith("}]"));
+
+        MvcResult gzip = mockMvc.perform(get("/api/integration/products/export")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(gzip))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+        byte[] compressed = gzip.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            JsonNode products = objectMapper.readTree(in);
+            assertEquals(productRepository.count(), products.size());
+            assertEquals(products.size(), objectMapper.readTree(body).size());
+            assertTrue(compressed.length < body.length() / 3, "La exportación comprimida debería ser bastante menor");
+        }
+    }
+
+    private void loadCatalog(int size) {
+        long existing = productRepository.count();
+        if (existing >= size) {
+            return;
+        }
+        // Carga directa en SQL: armar un millón de entidades para insertarlas no es lo que se mide
+        jdbcTemplate.update("""
+                INSERT INTO products (id, name, description, category, price, initial_quantity,
+                                      minimum_stock, version, stock_slots)
+                SELECT X, CONCAT('Export-', X), CONCAT('Producto exportado ', X), CONCAT('Export-', MOD(X, 50)),
+                       10 + MOD(X, 90), MOD(X, 100), 5, 0, 0
+                FROM SYSTEM_RANGE(?, ?)
+                """, existing + 1, size);
+        jdbcTemplate.execute("ALTER SEQUENCE products_seq RESTART WITH " + (size + 1));
+    }
+
+    private static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Descarta lo escrito y mide el heap retenido cada cierto número de bytes.
+     */
+    private static class HeapSamplingOutputStream extends OutputStream {
+
+        private final long sampleEvery;
+        private long bytes;
+        private long nextSample;
+        private int samples;
+        private long firstRetained;
+        private long maxRetained;
+
+        HeapSamplingOutputStream(long sampleEvery) {
+            this.sampleEvery = sampleEvery;
+            this.nextSample = sampleEvery;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            if (bytes >= nextSample) {
+                nextSample += sampleEvery;
+                long retained = retainedHeap();
+                if (samples++ == 0) {
+                    firstRetained = retained;
+                }
+                maxRetained = Math.max(maxRetained, retained);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.inventory.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.controller.CursorPages;
+import org.example.dto.ProductPageDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockMovementRepository;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Historial de un producto paginado por cursor (timestamp, id): una página profunda cuesta lo mismo
+ * que la primera, frente a la página con OFFSET que recorre todo lo anterior. Recorre el historial
+ * completo y comprueba que cada movimiento aparece una vez y en orden, también con timestamps repetidos.
+ * Para un historial más largo: -Dstress.history.size=1000000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:historypaginationdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductHistoryPaginationStressTest {
+
+    private static final int HISTORY_SIZE = Integer.getInteger("stress.history.size", 100_000);
+    private static final int OTHER_PRODUCT_MOVEMENTS = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int SAMPLES = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void deepHistoryPagesCostTheSameAsTheFirst() throws Exception {
+        // Índice de V9 (H2 no corre las migraciones)
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_stock_movements_product_timestamp_id " +
+                "ON stock_movements(product_id, timestamp DESC, id DESC)");
+        Long productId = createProduct("Historial largo");
+        Long otherId = createProduct("Historial corto");
+        insertMovements(otherId, OTHER_PRODUCT_MOVEMENTS);
+        insertMovements(productId, HISTORY_SIZE);
+
+        // Recorrido completo: cada movimiento una vez, del más nuevo al más viejo
+        List<StockMovementDTO> walked = new ArrayList<>(HISTORY_SIZE);
+        String cursor = null;
+        String deepCursor = null;
+        do {
+            ProductPageDTO<StockMovementDTO> page = stockService.getProductHistoryPage(productId, cursor, PAGE_SIZE);
+            walked.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            if (walked.size() >= HISTORY_SIZE * 9 / 10 && deepCursor == null) {
+                deepCursor = cursor;
+            }
+        } while (cursor != null);
+        assertEquals(HISTORY_SIZE, walked.size());
+        assertEquals(HISTORY_SIZE, new HashSet<>(walked.stream().map(StockMovementDTO::getId).toList()).size());
+        assertTrue(walked.stream().allMatch(movement -> productId.equals(movement.getProductId())));
+        Comparator<StockMovementDTO> newestFirst = Comparator.comparing(StockMovementDTO::getTimestamp)
+                .thenComparing(StockMovementDTO::getId).reversed();
+        assertEquals(walked.stream().sorted(newestFirst).toList(), walked, "Orden (timestamp, id) descendente");
+
+        // Primera página, página profunda por cursor y la misma página con OFFSET (Page del repositorio)
+        String deep = deepCursor;
+        int deepPage = HISTORY_SIZE * 9 / 10 / PAGE_SIZE;
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Product product = productRepository.findById(productId).orElseThrow();
+
+        double first = millis(() -> stockService.getProductHistoryPage(productId, null, PAGE_SIZE));
+        double keyset = millis(() -> stockService.getProductHistoryPage(productId, deep, PAGE_SIZE));
+        double offset = millis(() -> readOnly.execute(status -> stockMovementRepository
+                .findByProductOrderByTimestampDesc(product, PageRequest.of(deepPage, PAGE_SIZE))
+                .map(StockMovementDTO::from).getContent()));
+
+        System.out.println("=== HISTORIAL POR CURSOR ===");
+        System.out.printf("Movimientos del producto: %d, páginas de %d%n", HISTORY_SIZE, PAGE_SIZE);
+        System.out.printf("Primera página: %.3f ms%n", first);
+        System.out.printf("Página %d por cursor: %.3f ms%n", deepPage, keyset);
+        System.out.printf("Página %d con OFFSET (y COUNT): %.3f ms%n", deepPage, offset);
+        assertTrue(keyset < offset, "La página profunda por cursor debería costar menos que con OFFSET");
+        assertTrue(keyset < Math.max(first * 5, 5.0), "La página profunda no debería crecer con el historial");
+
+        // Endpoint: cuerpo como arreglo, siguiente página en la cabecera; unpaged mantiene la lista completa
+        MvcResult response = mockMvc.perform(get("/api/v2/stock/history/" + otherId).param("size", "10")).andReturn();
+        JsonNode body = objectMapper.readTree(response.getResponse().getContentAsString());
+        assertEquals(200, response.getResponse().getStatus());
+        assertEquals(10, body.size());
+        assertNotNull(response.getResponse().getHeader(CursorPages.NEXT_CURSOR_HEADER));
+        MvcResult unpaged = mockMvc.perform(get("/api/v2/stock/history/" + otherId).param("unpaged", "true")).andReturn();
+        assertEquals(OTHER_PRODUCT_MOVEMENTS, objectMapper.readTree(unpaged.getResponse().getContentAsString()).size());
+        assertEquals(400, mockMvc.perform(get("/api/v2/stock/history/" + otherId).param("cursor", "roto"))
+                .andReturn().getResponse().getStatus());
+    }
+
+    private static double millis(Supplier<?> call) {
+        for (int i = 0; i < SAMPLES / 4; i++) {
+            call.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            call.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / SAMPLES;
+    }
+
+    // Carga directa en SQL; cada timestamp se repite tres veces para ejercitar el desempate por id
+    private void insertMovements(Long productId, int count) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM stock_movements", Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO stock_movements (id, product_id, movement_type, quantity, previous_quantity,
+                                             new_quantity, timestamp, username, reason)
+                SELECT ? + X, ?, 'STOCK_IN', 1, 0, 1, DATEADD('SECOND', X / 3, TIMESTAMP '2020-01-01 00:00:00'),
+                       'bulk', 'Carga masiva'
+                FROM SYSTEM_RANGE(1, ?)
+                """, maxId, productId, count);
+        jdbcTemplate.execute("ALTER SEQUENCE stock_movements_seq RESTART WITH " + (maxId + count + 1));
+    }
+
+    private Long createProduct(String name) {
+        return productService.createProduct(product(name, "Historial", 0)).getId();
+    }
+}
@@ -0,0 +1,96 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importación masiva: un INSERT y un commit por producto (camino anterior de /products/import)
+ * frente a bloques insertados con lotes JDBC gracias a los ids de secuencia.
+ * Para la corrida completa: -Dstress.import.size=100000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:importdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class ProductImportStressTest {
+
+    private static final int IMPORT_SIZE = Integer.getInteger("stress.import.size", 5_000);
+    private static final int CHUNK_SIZE = 1_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void batchedImportReportsRowsPerSecond() {
+        long countBefore = productRepository.count();
+
+        List<ProductDTO> rowByRow = generateProducts("RowByRow");
+        long start = System.nanoTime();
+        for (ProductDTO product : rowByRow) {
+            productService.createProduct(product);
+        }
+        double rowByRowSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        List<ProductDTO> batched = generateProducts("Batched");
+        List<String> errors = new ArrayList<>();
+        start = System.nanoTime();
+        for (int from = 0; from < batched.size(); from += CHUNK_SIZE) {
+            errors.addAll(productService.createProducts(batched.subList(from, Math.min(from + CHUNK_SIZE, batched.size()))));
+        }
+        double batchedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.println("=== IMPORTACIÓN MASIVA DE PRODUCTOS ===");
+        System.out.printf("Productos por corrida: %d%n", IMPORT_SIZE);
+        System.out.printf("Fila por fila: %.2f s (%.0f filas/s)%n", rowByRowSeconds, IMPORT_SIZE / rowByRowSeconds);
+        System.out.printf("Bloques de %d con lotes JDBC: %.2f s (%.0f filas/s)%n",
+                CHUNK_SIZE, batchedSeconds, IMPORT_SIZE / batchedSeconds);
+        System.out.printf("Ganancia: %.2fx%n", rowByRowSeconds / batchedSeconds);
+
+        assertTrue(errors.isEmpty(), "No debería haber errores de importación: " + errors);
+        assertEquals(countBefore + 2L * IMPORT_SIZE, productRepository.count());
+    }
+
+    @Test
+    void invalidRowsAreReportedWithoutRejectingTheChunk() {
+        List<ProductDTO> products = generateProducts("Mixed").subList(0, 10);
+        products.get(3).setPrice(BigDecimal.valueOf(-1));
+        products.get(7).setName(" ");
+
+        List<String> errors = productService.createProducts(products);
+
+        assertEquals(2, errors.size());
+        assertTrue(errors.getFirst().contains("Price must be positive"));
+        assertTrue(errors.get(1).contains("Name cannot be empty"));
+    }
+
+    private List<ProductDTO> generateProducts(String prefix) {
+        List<ProductDTO> products = new ArrayList<>(IMPORT_SIZE);
+        for (int i = 0; i < IMPORT_SIZE; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName(prefix + "-" + i);
+            product.setDescription("Producto importado " + i);
+            product.setCategory("Import-" + (i % 20));
+            product.setPrice(BigDecimal.valueOf(10 + i % 90));
+            product.setInitialQuantity(i % 100);
+            product.setMinimumStock(5);
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,181 @@
+package com.inventory.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.controller.CursorPages;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductPageDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductCursor;
+import org.example.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Paginación por cursor del catálogo: el costo de una página profunda debe ser el de la primera
+ * (sin OFFSET), frente al listado completo que crece con la tabla. Recorre todas las páginas por
+ * id y por nombre y comprueba que cada producto aparece exactamente una vez.
+ * Para la corrida completa: -Dstress.pagination.size=1000000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:paginationdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductPaginationStressTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("stress.pagination.size", 20_000);
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int SAMPLES = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void deepPagesCostTheSameAsTheFirstOne() throws Exception {
+        loadCatalog();
+        long total = productRepository.count();
+
+        // Calentamiento (JIT, pool de conexiones): no se mide
+        averageMillis(() -> productService.getProductPage(null, PAGE_SIZE, "id"));
+
+        List<Product> lastIds = productRepository.findAllByOrderByIdAsc(Limit.of((int) total - PAGE_SIZE));
+        String deepIdCursor = ProductCursor.after(ProductCursor.Sort.ID, lastIds.getLast()).encode();
+        List<Product> lastNames = productRepository.findAllByOrderByNameAscIdAsc(Limit.of((int) total - PAGE_SIZE));
+        String deepNameCursor = ProductCursor.after(ProductCursor.Sort.NAME, lastNames.getLast()).encode();
+
+        double firstPage = averageMillis(() -> productService.getProductPage(null, PAGE_SIZE, "id"));
+        double deepPage = averageMillis(() -> productService.getProductPage(deepIdCursor, PAGE_SIZE, "id"));
+        double firstByName = averageMillis(() -> productService.getProductPage(null, PAGE_SIZE, "name"));
+        double deepByName = averageMillis(() -> productService.getProductPage(deepNameCursor, PAGE_SIZE, "name"));
+        double unpaged = averageMillis(productService::getAllProducts, 3);
+
+        System.out.println("=== PAGINACIÓN POR CURSOR ===");
+        System.out.printf("Productos en catálogo: %d, tamaño de página: %d%n", total, PAGE_SIZE);
+        System.out.printf("Primera página por id: %.2f ms, página final por id: %.2f ms%n", firstPage, deepPage);
+        System.out.printf("Primera página por nombre: %.2f ms, página final por nombre: %.2f ms%n", firstByName, deepByName);
+        System.out.printf("Listado completo (unpaged): %.2f ms%n", unpaged);
+
+        assertEquals(PAGE_SIZE, productService.getProductPage(deepIdCursor, PAGE_SIZE, "id").getItems().size());
+        assertNull(productService.getProductPage(deepIdCursor, PAGE_SIZE, "id").getNextCursor());
+        assertTrue(deepPage < unpaged, "Una página profunda no debería costar como el catálogo completo");
+    }
+
+    @Test
+    void walkingAllPagesVisitsEveryProductOnce() throws Exception {
+        loadCatalog();
+        long total = productRepository.count();
+
+        for (String sort : List.of("id", "name")) {
+            Set<Long> seen = new HashSet<>();
+            List<ProductDTO> previousPage = List.of();
+            String cursor = null;
+            int pages = 0;
+            do {
+                ProductPageDTO<ProductDTO> page = productService.getProductPage(cursor, 500, sort);
+                for (ProductDTO product : page.getItems()) {
+                    assertTrue(seen.add(product.getId()), "Producto repetido " + product.getId() + " (" + sort + ")");
+                }
+                if (!previousPage.isEmpty() && !page.getItems().isEmpty() && sort.equals("name")) {
+                    assertTrue(previousPage.getLast().getName().compareTo(page.getItems().getFirst().getName()) <= 0);
+                }
+                previousPage = page.getItems();
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+            assertEquals(total, seen.size(), "Orden " + sort + " en " + pages + " páginas");
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void endpointsReturnAPageWithTheNextCursorInHeaders() throws Exception {
+        loadCatalog();
+
+        for (String endpoint : List.of("/api/v2/products", "/api/v1/products", "/api/public/products")) {
+            MvcResult first = mockMvc.perform(get(endpoint).param("size", "1000"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode items = objectMapper.readTree(first.getResponse().getContentAsString());
+            String next = first.getResponse().getHeader(CursorPages.NEXT_CURSOR_HEADER);
+
+            assertEquals(200, items.size(), endpoint + " debería acotar la página al máximo configurado");
+            assertNotNull(next, endpoint + " debería devolver el cursor de la siguiente página");
+            assertTrue(first.getResponse().getHeader("Link").contains("rel=\"next\""));
+
+            MvcResult second = mockMvc.perform(get(endpoint).param("cursor", next).param("size", "200"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode secondItems = objectMapper.readTree(second.getResponse().getContentAsString());
+            assertTrue(secondItems.get(0).get("id").asLong() > items.get(199).get("id").asLong());
+
+            mockMvc.perform(get(endpoint).param("cursor", "%%%")).andExpect(status().isBadRequest());
+        }
+
+        MvcResult unpaged = mockMvc.perform(get("/api/v2/products").param("unpaged", "true"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(productRepository.count(),
+                objectMapper.readTree(unpaged.getResponse().getContentAsString()).size());
+    }
+
+    private synchronized void loadCatalog() {
+        long missing = CATALOG_SIZE - productRepository.count();
+        for (int from = 0; from < missing; from += CHUNK_SIZE) {
+            List<ProductDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + CHUNK_SIZE, missing); i++) {
+                ProductDTO product = new ProductDTO();
+                // Nombres desordenados respecto al id para que el orden por nombre no coincida
+                product.setName("Page-" + Integer.toHexString((int) ((i * 2_654_435_761L) & 0xffffff)) + "-" + i);
+                product.setCategory("Page-" + (i % 50));
+                product.setPrice(BigDecimal.TEN);
+                product.setInitialQuantity(i % 100);
+                product.setMinimumStock(5);
+                chunk.add(product);
+            }
+            productService.createProducts(chunk);
+        }
+    }
+
+    private static double averageMillis(Runnable call) {
+        return averageMillis(call, SAMPLES);
+    }
+
+    private static double averageMillis(Runnable call, int samples) {
+        long start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / samples;
+    }
+}
@@ -0,0 +1,122 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Listados de solo lectura: entidades gestionadas mapeadas con ProductDTO.from frente a las
+ * proyecciones que construyen la fila en la consulta (con lowStock, outOfStock y totalValue en SQL).
+ * Comprueba que ambas dan las mismas filas y mide latencia y bytes asignados por llamada.
+ * Para un catálogo más grande: -Dstress.projection.size=100000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.product-cache.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:projectiondb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class ProductProjectionStressTest {
+
+    private static final int SIZE = Integer.getInteger("stress.projection.size", 20_000);
+    private static final int CATEGORIES = 20;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void projectionsReturnSameRowsWithLessWork() {
+        loadCatalog();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // Camino anterior: entidades en el contexto de persistencia y cálculo por fila en Java
+        Supplier<List<ProductDTO>> entities = () -> readOnly.execute(status ->
+                productRepository.findAll().stream().map(ProductDTO::from).collect(Collectors.toList()));
+        Supplier<List<ProductDTO>> rows = () -> readOnly.execute(status -> productRepository.findAllRows());
+
+        assertEquals(sorted(entities.get()), sorted(rows.get()), "Misma información por ambos caminos");
+        assertEquals(sorted(readOnly.execute(status -> productRepository.findLowStockProducts().stream()
+                        .map(ProductDTO::from).toList())),
+                sorted(productService.findLowStockProducts()));
+        assertEquals(sorted(readOnly.execute(status -> productRepository.findByCategory("Projection-3").stream()
+                        .map(ProductDTO::from).toList())),
+                sorted(productService.findProductsByCategory("Projection-3")));
+
+        Measure entityMeasure = measure(entities);
+        Measure rowMeasure = measure(rows);
+
+        System.out.println("=== PROYECCIONES DE LECTURA ===");
+        System.out.printf("Productos: %d%n", productRepository.count());
+        System.out.printf("Entidades + ProductDTO.from: %.2f ms / %,d bytes asignados por llamada%n",
+                entityMeasure.millis(), entityMeasure.bytes());
+        System.out.printf("Proyección: %.2f ms / %,d bytes%n", rowMeasure.millis(), rowMeasure.bytes());
+        System.out.printf("Ganancia: %.1fx en tiempo, %.1fx en memoria%n",
+                entityMeasure.millis() / rowMeasure.millis(), (double) entityMeasure.bytes() / rowMeasure.bytes());
+        assertTrue(rowMeasure.bytes() < entityMeasure.bytes(), "La proyección no debería asignar más que las entidades");
+    }
+
+    private record Measure(double millis, long bytes) {
+    }
+
+    private static Measure measure(Supplier<List<ProductDTO>> call) {
+        for (int i = 0; i < ROUNDS / 4; i++) {
+            call.get();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            assertFalse(call.get().isEmpty());
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+        return new Measure(millis, (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / ROUNDS);
+    }
+
+    private static List<ProductDTO> sorted(List<ProductDTO> products) {
+        return products.stream().sorted(Comparator.comparing(ProductDTO::getId)).toList();
+    }
+
+    private void loadCatalog() {
+        long missing = SIZE - productRepository.count();
+        for (int from = 0; from < missing; from += 1_000) {
+            List<ProductDTO> chunk = new ArrayList<>(1_000);
+            for (int i = from; i < Math.min(from + 1_000, missing); i++) {
+                ProductDTO product = new ProductDTO();
+                product.setName("Projection-" + i);
+                product.setDescription("Producto proyectado " + i);
+                product.setCategory("Projection-" + (i % CATEGORIES));
+                // Misma escala que la columna: precio * cantidad coincide en SQL y en Java
+                product.setPrice(BigDecimal.valueOf(100 + i % 500 * 100L, 2));
+                product.setInitialQuantity(i % 20);
+                product.setMinimumStock(5);
+                chunk.add(product);
+            }
+            productService.createProducts(chunk);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.inventory.stress;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductSearchDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductSearchIndex;
+import org.example.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda de productos con el índice invertido en memoria frente al LIKE '%término%' de la base,
+ * ranking BM25, prefijos y actualización incremental desde ProductService. La latencia se mide
+ * además sobre un índice de catálogo grande armado directamente, sin base de datos.
+ * Para la corrida completa: -Dstress.search.catalog-size=1000000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:searchindexdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class ProductSearchIndexStressTest {
+
+    private static final int DB_PRODUCTS = Integer.getInteger("stress.search.size", 20_000);
+    private static final int CATALOG_SIZE = Integer.getInteger("stress.search.catalog-size", 300_000);
+    private static final int QUERIES = 2_000;
+
+    private static final String[] BRANDS = {"Samsung", "Lenovo", "Logitech", "Sony", "Philips", "Bosch",
+            "Makita", "Canon", "Epson", "Xiaomi", "Asus", "Acer", "Dell", "Nikon", "Kingston", "Corsair"};
+    private static final String[] NOUNS = {"Laptop", "Mouse", "Teclado", "Monitor", "Cámara", "Impresora",
+            "Taladro", "Auriculares", "Parlante", "Router", "Disco", "Memoria", "Cargador", "Cable", "Tablet"};
+    private static final String[] CATEGORIES = {"Electrónica", "Oficina", "Herramientas", "Audio",
+            "Fotografía", "Redes", "Almacenamiento", "Accesorios"};
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Test
+    void indexedSearchIsRankedAndFollowsProductWrites() throws InterruptedException {
+        loadDatabase();
+        awaitIndex();
+
+        List<ProductDTO> laptops = search("lapt", null);
+        assertFalse(laptops.isEmpty());
+        assertTrue(laptops.stream().allMatch(p -> p.getName().contains("Laptop")), "El prefijo debería encontrar Laptop");
+
+        // Coincidencia en el nombre antes que solo en la descripción
+        ProductDTO inName = create("Zafiro Monitor", "Pantalla", "Electrónica");
+        ProductDTO inDescription = create("Pantalla curva", "Con brillo zafiro", "Electrónica");
+        List<ProductDTO> ranked = search("zafiro", null);
+        assertEquals(List.of(inName.getId(), inDescription.getId()), ranked.stream().map(ProductDTO::getId).toList());
+
+        // Sin tildes, varios términos y límite
+        assertFalse(search("camara canon", null).isEmpty());
+        assertTrue(search("camara canon", null).stream()
+                .allMatch(p -> p.getName().contains("Cámara") && p.getName().contains("Canon")));
+        assertEquals(5, search("monitor", 5).size());
+
+        // Actualización incremental
+        ProductDTO renamed = new ProductDTO();
+        renamed.setName("Topacio Monitor");
+        renamed.setCategory("Electrónica");
+        renamed.setPrice(BigDecimal.TEN);
+        renamed.setInitialQuantity(1);
+        productService.updateProduct(inName.getId(), renamed);
+        assertEquals(List.of(inDescription.getId()), search("zafiro", null).stream().map(ProductDTO::getId).toList());
+        assertEquals(inName.getId(), search("topacio", null).getFirst().getId());
+        productService.deleteProduct(inName.getId());
+        assertTrue(search("topacio", null).isEmpty());
+
+        // Filtros de categoría, precio y stock sobre el resultado del índice
+        ProductSearchDTO filtered = new ProductSearchDTO();
+        filtered.setSearchTerm("monitor");
+        filtered.setCategory("Oficina");
+        filtered.setMinPrice(BigDecimal.valueOf(100));
+        filtered.setMaxPrice(BigDecimal.valueOf(500));
+        filtered.setLowStockOnly(true);
+        List<ProductDTO> monitors = productService.searchProducts(filtered);
+        assertFalse(monitors.isEmpty());
+        assertTrue(monitors.stream().allMatch(p -> "Oficina".equals(p.getCategory())
+                && p.getPrice().compareTo(BigDecimal.valueOf(100)) >= 0
+                && p.getPrice().compareTo(BigDecimal.valueOf(500)) <= 0
+                && p.getLowStock()));
+
+        // Contra la consulta LIKE de la base con el mismo término
+        String[] terms = {"logitech", "router", "kingston disco", "impresora epson"};
+        long start = System.nanoTime();
+        for (int i = 0; i < 200; i++) {
+            productRepository.findBySearchTerm(terms[i % terms.length].split(" ")[0]);
+        }
+        double databaseMs = (System.nanoTime() - start) / 1_000_000.0 / 200;
+        start = System.nanoTime();
+        for (int i = 0; i < 200; i++) {
+            search(terms[i % terms.length], 20);
+        }
+        double indexedMs = (System.nanoTime() - start) / 1_000_000.0 / 200;
+
+        System.out.println("=== BÚSQUEDA CON ÍNDICE INVERTIDO (servicio) ===");
+        System.out.printf("Productos en base: %d, en el índice: %d%n", productRepository.count(), searchIndex.size());
+        System.out.printf("LIKE en la base (todas las filas): %.2f ms por búsqueda%n", databaseMs);
+        System.out.printf("Índice + carga de los 20 primeros: %.2f ms por búsqueda%n", indexedMs);
+        System.out.printf("Ganancia: %.2fx%n", databaseMs / indexedMs);
+    }
+
+    @Test
+    void queryLatencyOnALargeCatalog() {
+        ProductSearchIndex index = new ProductSearchIndex(new SimpleMeterRegistry(), true, 64);
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 1; i <= CATALOG_SIZE; i++) {
+            index.index(syntheticProduct(i, random));
+        }
+        double buildSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.println("=== LATENCIA DEL ÍNDICE (catálogo grande) ===");
+        System.out.printf("Productos indexados: %d en %.2f s%n", index.size(), buildSeconds);
+
+        // Código de modelo único: la consulta típica de un mostrador
+        double selective = report("código de modelo exacto", index, i -> "sku" + (1 + (i * 7919) % CATALOG_SIZE));
+        report("prefijo de código", index, i -> "sku" + (1 + (i * 7919) % CATALOG_SIZE) / 10);
+        report("marca + producto + modelo", index, i -> BRANDS[i % BRANDS.length] + " "
+                + NOUNS[i % NOUNS.length] + " m" + (i % 997));
+        report("término frecuente (~1/15 del catálogo)", index, i -> NOUNS[i % NOUNS.length]);
+
+        assertEquals(CATALOG_SIZE, index.size());
+        // El código exacto primero y después los que lo tienen como prefijo (SKU770, SKU7700...)
+        List<Long> sku77 = index.search("SKU77", ProductSearchIndex.Filter.NONE, 20);
+        assertEquals(77L, sku77.getFirst());
+        assertTrue(sku77.contains(770L));
+        assertTrue(selective < 1.0, "Una búsqueda selectiva debería tardar menos de 1 ms: " + selective);
+    }
+
+    // Devuelve la mediana en ms
+    private double report(String title, ProductSearchIndex index, java.util.function.IntFunction<String> query) {
+        for (int i = 0; i < QUERIES; i++) {
+            index.search(query.apply(i), ProductSearchIndex.Filter.NONE, 20);
+        }
+        long[] nanos = new long[QUERIES];
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            found += index.search(query.apply(i + QUERIES), ProductSearchIndex.Filter.NONE, 20).isEmpty() ? 0 : 1;
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[QUERIES / 2] / 1_000_000.0;
+        double p99 = nanos[QUERIES * 99 / 100] / 1_000_000.0;
+        System.out.printf("%s: p50 %.3f ms, p99 %.3f ms (%d de %d con resultados)%n", title, p50, p99, found, QUERIES);
+        return p50;
+    }
+
+    private static Product syntheticProduct(long id, Random random) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(BRANDS[random.nextInt(BRANDS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]
+                + " M" + random.nextInt(997) + " SKU" + id);
+        StringBuilder description = new StringBuilder();
+        for (int w = 0; w < 8; w++) {
+            description.append("palabra").append(random.nextInt(5_000)).append(' ');
+        }
+        product.setDescription(description.toString());
+        product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        product.setPrice(BigDecimal.valueOf(1 + random.nextInt(2_000)));
+        product.setInitialQuantity(random.nextInt(100));
+        product.setMinimumStock(5);
+        return product;
+    }
+
+    private List<ProductDTO> search(String term, Integer limit) {
+        ProductSearchDTO search = new ProductSearchDTO();
+        search.setSearchTerm(term);
+        search.setLimit(limit);
+        return productService.searchProducts(search);
+    }
+
+    private ProductDTO create(String name, String description, String category) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategory(category);
+        product.setPrice(BigDecimal.TEN);
+        product.setInitialQuantity(10);
+        return productService.createProduct(product);
+    }
+
+    private void loadDatabase() {
+        if (productRepository.count() >= DB_PRODUCTS) {
+            return;
+        }
+        Random random = new Random(7);
+        for (int from = 0; from < DB_PRODUCTS; from += 1_000) {
+            List<ProductDTO> chunk = new ArrayList<>(1_000);
+            for (int i = from; i < Math.min(from + 1_000, DB_PRODUCTS); i++) {
+                Product product = syntheticProduct(i, random);
+                ProductDTO dto = new ProductDTO();
+                dto.setName(product.getName());
+                dto.setDescription(product.getDescription());
+                dto.setCategory(product.getCategory());
+                dto.setPrice(product.getPrice());
+                dto.setInitialQuantity(product.getInitialQuantity());
+                dto.setMinimumStock(product.getMinimumStock());
+                chunk.add(dto);
+            }
+            productService.createProducts(chunk);
+        }
+    }
+
+    // El índice se construye en segundo plano al arrancar; los productos creados después llegan por escritura
+    private void awaitIndex() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!searchIndex.isUsable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(searchIndex.isUsable(), "El índice debería estar listo");
+        assertEquals(productRepository.count(), searchIndex.size());
+    }
+}
@@ -0,0 +1,154 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductSearchDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda con filtros (categoría, rango de precio, stock, orden y límite) resuelta en una sola
+ * consulta frente al camino anterior: leer toda la tabla y filtrar en Java. El índice en memoria
+ * está desactivado para que el término también lo resuelva la base. Los índices de categoría y
+ * precio se crean como en la migración V2.
+ * Para un catálogo más grande: -Dstress.search-query.size=500000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:searchquerydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "inventory.search.index.enabled=false"
+})
+@ActiveProfiles("test")
+public class ProductSearchQueryStressTest {
+
+    private static final int SIZE = Integer.getInteger("stress.search-query.size", 100_000);
+    private static final int CATEGORIES = 50;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void filtersRunInOneQueryInsteadOfOverTheWholeTable() {
+        loadCatalog();
+
+        ProductSearchDTO byCategoryAndPrice = search(null, "Cat-7", 20, 40);
+        ProductSearchDTO lowStockInCategory = search(null, "Cat-12", null, null);
+        lowStockInCategory.setLowStockOnly(true);
+        ProductSearchDTO termWithLimit = search("producto 42", "Cat-42", null, null);
+        termWithLimit.setLimit(20);
+        ProductSearchDTO cheapestOutOfStock = search(null, null, null, null);
+        cheapestOutOfStock.setOutOfStockOnly(true);
+        cheapestOutOfStock.setSort("-price");
+        cheapestOutOfStock.setLimit(50);
+        List<ProductSearchDTO> searches = List.of(byCategoryAndPrice, lowStockInCategory, termWithLimit, cheapestOutOfStock);
+
+        // Mismo resultado que el camino anterior
+        for (ProductSearchDTO search : searches) {
+            assertEquals(ids(legacySearch(search)), ids(productService.searchProducts(search)), search.toString());
+        }
+        assertFalse(productService.searchProducts(lowStockInCategory).isEmpty());
+        assertEquals(20, productService.searchProducts(termWithLimit).size());
+
+        // Calentamiento
+        searches.forEach(this::legacySearch);
+        searches.forEach(productService::searchProducts);
+
+        double legacyMs = measure(() -> searches.stream().mapToInt(s -> legacySearch(s).size()).sum());
+        double queryMs = measure(() -> searches.stream().mapToInt(s -> productService.searchProducts(s).size()).sum());
+
+        System.out.println("=== BÚSQUEDA CON FILTROS EN UNA SOLA CONSULTA ===");
+        System.out.printf("Productos: %d, búsquedas por ronda: %d%n", productRepository.count(), searches.size());
+        System.out.printf("Toda la tabla + filtros en Java: %.2f ms por ronda%n", legacyMs);
+        System.out.printf("Consulta con Criteria: %.2f ms por ronda%n", queryMs);
+        System.out.printf("Ganancia: %.2fx%n", legacyMs / queryMs);
+        assertTrue(queryMs < legacyMs, "La consulta filtrada debería ser más rápida que leer toda la tabla");
+    }
+
+    // El camino anterior de searchProducts sin término en el índice: findAll y un filtro por criterio
+    private List<ProductDTO> legacySearch(ProductSearchDTO search) {
+        List<Product> products = search.getSearchTerm() != null
+                ? productRepository.findBySearchTerm(search.getSearchTerm())
+                : productRepository.findAll();
+        if (search.getCategory() != null) {
+            products = products.stream().filter(p -> search.getCategory().equals(p.getCategory())).collect(Collectors.toList());
+        }
+        if (search.getMinPrice() != null && search.getMaxPrice() != null) {
+            products = products.stream()
+                    .filter(p -> p.getPrice().compareTo(search.getMinPrice()) >= 0
+                            && p.getPrice().compareTo(search.getMaxPrice()) <= 0)
+                    .collect(Collectors.toList());
+        }
+        if (Boolean.TRUE.equals(search.getLowStockOnly())) {
+            products = products.stream().filter(Product::isLowStock).collect(Collectors.toList());
+        }
+        if (Boolean.TRUE.equals(search.getOutOfStockOnly())) {
+            products = products.stream().filter(Product::isOutOfStock).collect(Collectors.toList());
+        }
+        Comparator<Product> order = "-price".equals(search.getSort())
+                ? Comparator.comparing(Product::getPrice).reversed().thenComparing(Product::getId)
+                : Comparator.comparing(Product::getId);
+        return products.stream()
+                .sorted(order)
+                .limit(search.getLimit() != null ? search.getLimit() : Long.MAX_VALUE)
+                .map(ProductDTO::from)
+                .collect(Collectors.toList());
+    }
+
+    private static double measure(Supplier<Integer> round) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+
+    private static ProductSearchDTO search(String term, String category, Integer minPrice, Integer maxPrice) {
+        ProductSearchDTO search = new ProductSearchDTO();
+        search.setSearchTerm(term);
+        search.setCategory(category);
+        search.setMinPrice(minPrice != null ? BigDecimal.valueOf(minPrice) : null);
+        search.setMaxPrice(maxPrice != null ? BigDecimal.valueOf(maxPrice) : null);
+        return search;
+    }
+
+    private void loadCatalog() {
+        if (productRepository.count() >= SIZE) {
+            return;
+        }
+        jdbcTemplate.update("""
+                INSERT INTO products (id, name, description, category, price, initial_quantity,
+                                      minimum_stock, version, stock_slots)
+                SELECT X, CONCAT('Producto ', X), CONCAT('Descripción ', MOD(X, 1000)), CONCAT('Cat-', MOD(X, ?)),
+                       1 + MOD(X / 7, 100), MOD(X / 50, 60), 5, 0, 0
+                FROM SYSTEM_RANGE(1, ?)
+                """, CATEGORIES, SIZE);
+        jdbcTemplate.execute("ALTER SEQUENCE products_seq RESTART WITH " + (SIZE + 1));
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_products_category ON products(category)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_products_price ON products(price)");
+    }
+}
@@ -0,0 +1,186 @@
+package com.inventory.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductImporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Importación en streaming: la entrada se genera a medida que se lee (nunca está entera en memoria)
+ * y se inserta en bloques; se mide el throughput y que los errores lleguen con su número de línea.
+ * Para una corrida tipo feed de proveedor: -Dstress.stream-import.size=1000000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:streamimportdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "inventory.integration.import.chunk-size=1000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductStreamImportStressTest {
+
+    private static final int IMPORT_SIZE = Integer.getInteger("stress.stream-import.size", 100_000);
+    private static final int INVALID_EVERY = 10_000;
+
+    @Autowired
+    private ProductImporter productImporter;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void ndjsonFeedIsImportedInChunksWithLineNumberedErrors() throws IOException {
+        long countBefore = productRepository.count();
+        List<ProductImporter.LineError> errors = new ArrayList<>();
+        AtomicInteger progressEvents = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ProductImporter.Progress summary = productImporter.importStream(generatedFeed(), ProductImporter.Format.NDJSON,
+                new ProductImporter.Listener() {
+                    @Override
+                    public void onError(ProductImporter.LineError error) {
+                        errors.add(error);
+                    }
+
+                    @Override
+                    public void onProgress(ProductImporter.Progress progress) {
+                        progressEvents.incrementAndGet();
+                    }
+                });
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        int expectedErrors = IMPORT_SIZE / INVALID_EVERY;
+        System.out.println("=== IMPORTACIÓN NDJSON EN STREAMING ===");
+        System.out.printf("Líneas: %d en %.2f s (%.0f filas/s)%n", summary.processed(), seconds, summary.processed() / seconds);
+        System.out.printf("Correctas: %d, rechazadas: %d, eventos de progreso: %d%n",
+                summary.successful(), summary.errors(), progressEvents.get());
+
+        assertTrue(summary.done());
+        assertEquals(IMPORT_SIZE, summary.processed());
+        assertEquals(expectedErrors, summary.errors());
+        assertEquals(countBefore + IMPORT_SIZE - expectedErrors, productRepository.count());
+        assertEquals(INVALID_EVERY, errors.getFirst().line());
+        assertTrue(errors.getFirst().error().contains("Price must be positive"));
+        assertTrue(progressEvents.get() >= (IMPORT_SIZE - expectedErrors) / 1000);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void csvEndpointReportsProgressAndPerLineErrors() throws Exception {
+        String csv = "\uFEFFName,Description,Category,Price,Initial Quantity,minimum_stock\r\n"
+                + "CSV-Teclado,\"Teclado, mecánico\",Periféricos,49.90,10,2\r\n"
+                + "CSV-Monitor,\"Monitor de 27\"\"\r\ncon soporte\",Pantallas,199.00,4,1\r\n"
+                + "\r\n"
+                + "CSV-Sin precio,,Varios,,3,\r\n"
+                + "CSV-Mouse,,Periféricos,abc,5,\r\n"
+                + "CSV-Cable,,Varios,3.50,1.5,\r\n"
+                + "CSV-Hub,,Periféricos,25,7,\r\n";
+
+        List<JsonNode> events = importStream("/api/integration/products/import/stream", "text/csv", csv);
+
+        List<JsonNode> errors = events.stream().filter(e -> e.has("error")).toList();
+        JsonNode summary = events.getLast();
+        assertEquals(3, errors.size());
+        assertEquals(6, errors.get(0).get("line").asLong());
+        assertTrue(errors.get(0).get("error").asText().contains("Price must be positive"));
+        assertEquals(7, errors.get(1).get("line").asLong());
+        assertTrue(errors.get(1).get("error").asText().contains("price"));
+        assertEquals(8, errors.get(2).get("line").asLong());
+        assertTrue(summary.get("done").asBoolean());
+        assertEquals(6, summary.get("processed").asLong());
+        assertEquals(3, summary.get("successful").asLong());
+
+        assertEquals("Monitor de 27\"\r\ncon soporte",
+                productRepository.findByNameContainingIgnoreCase("CSV-Monitor").getFirst().getDescription());
+        assertEquals("Teclado, mecánico",
+                productRepository.findByNameContainingIgnoreCase("CSV-Teclado").getFirst().getDescription());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void ndjsonEndpointRejectsMalformedLinesOnly() throws Exception {
+        String ndjson = """
+                {"name":"NDJSON-1","category":"Feed","price":10,"initialQuantity":1}
+                {"name":"NDJSON-2","price":
+                {"name":"NDJSON-3","category":"Feed","price":12,"initialQuantity":3}
+                """;
+
+        List<JsonNode> events = importStream("/api/integration/products/import/stream", "application/x-ndjson", ndjson);
+
+        List<JsonNode> errors = events.stream().filter(e -> e.has("error")).toList();
+        assertEquals(1, errors.size());
+        assertEquals(2, errors.getFirst().get("line").asLong());
+        assertTrue(errors.getFirst().get("error").asText().startsWith("Invalid JSON"));
+        assertEquals(2, events.getLast().get("successful").asLong());
+    }
+
+    private List<JsonNode> importStream(String url, String contentType, String body) throws Exception {
+        MvcResult started = mockMvc.perform(post(url)
+                        .contentType(contentType)
+                        .content(body.getBytes(StandardCharsets.UTF_8))
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : started.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            events.add(objectMapper.readTree(line));
+        }
+        return events;
+    }
+
+    // Genera las líneas NDJSON a medida que se leen; cada INVALID_EVERY líneas una tiene precio negativo
+    private static InputStream generatedFeed() {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int line = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return line < IMPORT_SIZE;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                line++;
+                String price = line % INVALID_EVERY == 0 ? "-1" : String.valueOf(10 + line % 90);
+                String json = "{\"name\":\"Feed-" + line + "\",\"description\":\"Producto del proveedor " + line
+                        + "\",\"category\":\"Feed-" + (line % 20) + "\",\"price\":" + price
+                        + ",\"initialQuantity\":" + (line % 100) + ",\"minimumStock\":5}\n";
+                return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
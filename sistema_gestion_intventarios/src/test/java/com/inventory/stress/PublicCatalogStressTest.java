@@ -0,0 +1,192 @@
+package com.inventory.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.PublicCatalog;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Catálogo público servido desde la foto en memoria frente al camino anterior (leer todas las
+ * entidades, convertirlas a DTO y sanearlas en cada petición). Comprueba además que la foto sigue
+ * a las altas, cambios de stock, cambios de categoría y bajas, y mide bytes asignados por petición.
+ * Para un catálogo más grande: -Dstress.public-catalog.size=100000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:publiccatalogdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class PublicCatalogStressTest {
+
+    private static final int SIZE = Integer.getInteger("stress.public-catalog.size", 20_000);
+    private static final int CATEGORIES = 40;
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PublicCatalog publicCatalog;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(roles = "GUEST")
+    void guestReadsComeFromTheSnapshotAndFollowWrites() throws Exception {
+        loadCatalog();
+        await(() -> publicCatalog.isUsable() && publicCatalog.size() == productRepository.count(), "foto completa");
+
+        // Saneado: sin cantidades ni valor del inventario
+        JsonNode product = objectMapper.readTree(mockMvc.perform(get("/api/public/products/category/Public-3"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get(0);
+        assertTrue(product.get("initialQuantity").isNull());
+        assertTrue(product.get("totalValue").isNull());
+
+        // Alta, agotado, cambio de categoría y baja
+        ProductDTO created = create("Vitrina pública", "Public-Nueva", 3);
+        await(() -> publicCatalog.product(created.getId()).isPresent(), "alta");
+        assertEquals(List.of(created.getId()), ids(publicCatalog.productsByCategory("Public-Nueva")));
+        assertTrue(publicCatalog.availableProducts().stream().anyMatch(p -> p.getId().equals(created.getId())));
+
+        StockMovementDTO out = new StockMovementDTO();
+        out.setProductId(created.getId());
+        out.setQuantity(3);
+        out.setReason("Venta");
+        stockService.registerStockOut(out, "stress");
+        await(() -> publicCatalog.availableProducts().stream().noneMatch(p -> p.getId().equals(created.getId())), "agotado");
+        assertTrue(publicCatalog.product(created.getId()).orElseThrow().getOutOfStock());
+
+        created.setCategory("Public-Movida");
+        productService.updateProduct(created.getId(), created);
+        await(() -> publicCatalog.productsByCategory("Public-Nueva").isEmpty(), "cambio de categoría");
+        assertEquals(List.of(created.getId()), ids(publicCatalog.productsByCategory("Public-Movida")));
+
+        // Sin movimientos de stock para poder borrarlo
+        ProductDTO discontinued = create("Vitrina descontinuada", "Public-Nueva", 1);
+        productService.deleteProduct(discontinued.getId());
+        await(() -> publicCatalog.product(discontinued.getId()).isEmpty(), "baja");
+        assertEquals(productRepository.count(), publicCatalog.allProducts().size());
+
+        // Mismo contenido que el camino anterior
+        assertEquals(ids(legacyAll()), ids(publicCatalog.allProducts()));
+        assertEquals(ids(legacyByCategory("Public-7")), ids(publicCatalog.productsByCategory("Public-7")));
+        assertEquals(ids(legacyAvailable()), ids(publicCatalog.availableProducts()));
+
+        System.out.println("=== CATÁLOGO PÚBLICO EN MEMORIA ===");
+        System.out.printf("Productos: %d%n", publicCatalog.size());
+        compare("/products", this::legacyAll, publicCatalog::allProducts);
+        compare("/products/category", () -> legacyByCategory("Public-7"), () -> publicCatalog.productsByCategory("Public-7"));
+        compare("/products/available", this::legacyAvailable, publicCatalog::availableProducts);
+    }
+
+    private void compare(String endpoint, Supplier<List<ProductDTO>> legacy, Supplier<List<ProductDTO>> snapshot) {
+        Measure before = measure(legacy);
+        Measure after = measure(snapshot);
+        System.out.printf("%s: camino anterior (con ProductCache) %.3f ms / %,d bytes, foto %.4f ms / %,d bytes por petición. Ganancia: %.1fx%n",
+                endpoint, before.millis(), before.bytes(), after.millis(), after.bytes(), before.millis() / after.millis());
+        assertTrue(after.millis() < before.millis(), endpoint + " debería ser más rápido desde la foto");
+    }
+
+    private record Measure(double millis, long bytes) {
+    }
+
+    private static Measure measure(Supplier<List<ProductDTO>> call) {
+        for (int i = 0; i < REQUESTS / 4; i++) {
+            call.get();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            call.get();
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / REQUESTS;
+        return new Measure(millis, (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / REQUESTS);
+    }
+
+    // Camino anterior del controlador: entidades -> DTO -> copia saneada
+    private List<ProductDTO> legacyAll() {
+        return productService.getAllProducts().stream().map(PublicCatalog::forGuest).collect(Collectors.toList());
+    }
+
+    private List<ProductDTO> legacyByCategory(String category) {
+        return productService.findProductsByCategory(category).stream().map(PublicCatalog::forGuest).collect(Collectors.toList());
+    }
+
+    private List<ProductDTO> legacyAvailable() {
+        return productService.getAllProducts().stream()
+                .filter(p -> p.getInitialQuantity() > 0)
+                .map(PublicCatalog::forGuest)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).sorted().toList();
+    }
+
+    private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "La foto pública debería reflejar: " + what);
+    }
+
+    private ProductDTO create(String name, String category, int quantity) {
+        return productService.createProduct(product(name, category, quantity));
+    }
+
+    private void loadCatalog() {
+        long missing = SIZE - productRepository.count();
+        for (int from = 0; from < missing; from += 1_000) {
+            List<ProductDTO> chunk = new ArrayList<>(1_000);
+            for (int i = from; i < Math.min(from + 1_000, missing); i++) {
+                ProductDTO product = new ProductDTO();
+                product.setName("Public-" + i);
+                product.setDescription("Producto de vitrina " + i);
+                product.setCategory("Public-" + (i % CATEGORIES));
+                product.setPrice(BigDecimal.valueOf(1 + i % 500));
+                product.setInitialQuantity(i % 20);
+                product.setMinimumStock(5);
+                chunk.add(product);
+            }
+            productService.createProducts(chunk);
+        }
+    }
+}
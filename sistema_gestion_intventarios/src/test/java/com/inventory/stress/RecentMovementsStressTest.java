@@ -0,0 +1,154 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.StockMovement;
+import org.example.repository.StockMovementRepository;
+import org.example.service.ProductService;
+import org.example.service.RecentStockMovements;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Últimos movimientos del dashboard: findAll y orden en Java (camino anterior) frente a la consulta
+ * acotada sobre idx_stock_movements_timestamp_id y al anillo en memoria. La consulta acotada se mide
+ * con la tabla chica y con la tabla completa: su latencia no debería depender del historial.
+ * La base es un archivo H2 para no llevar el historial al heap. Corrida completa:
+ * -Dstress.recent.movements=10000000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.stock.audit-mode=sync",
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/inventory-recentdb;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class RecentMovementsStressTest {
+
+    private static final int MOVEMENTS = Integer.getInteger("stress.recent.movements", 1_000_000);
+    // El camino anterior carga la tabla entera: solo se mide hasta este tamaño
+    private static final int LEGACY_MAX = 100_000;
+    private static final int LIMIT = 20;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private RecentStockMovements recentMovements;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void recentMovementsCostIsIndependentOfHistorySize() {
+        ProductDTO product = createProduct();
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_stock_movements_timestamp_id ON stock_movements(timestamp DESC, id DESC)");
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // Tabla chica: camino anterior frente a la consulta acotada
+        insertMovements(product.getId(), Math.min(MOVEMENTS / 10, LEGACY_MAX));
+        long smallTable = stockMovementRepository.count();
+        double legacy = smallTable <= LEGACY_MAX
+                ? millis(3, () -> readOnly.execute(status -> stockMovementRepository.findAll().stream()
+                        .sorted(Comparator.comparing(StockMovement::getTimestamp).reversed())
+                        .limit(LIMIT)
+                        .map(StockMovementDTO::from)
+                        .toList()))
+                : Double.NaN;
+        double boundedSmall = millis(ROUNDS, () -> recentMovements.fromDatabase(LIMIT));
+
+        // Tabla completa: la consulta acotada lee las mismas LIMIT entradas del índice
+        insertMovements(product.getId(), MOVEMENTS);
+        long fullTable = stockMovementRepository.count();
+        double boundedFull = millis(ROUNDS, () -> recentMovements.fromDatabase(LIMIT));
+
+        // Anillo: se recarga como al arrancar y sigue a los movimientos nuevos
+        recentMovements.load();
+        for (int i = 0; i < 5; i++) {
+            StockMovementDTO request = new StockMovementDTO();
+            request.setProductId(product.getId());
+            request.setQuantity(1);
+            stockService.registerStockIn(request, "recent");
+        }
+        List<StockMovementDTO> fromRing = stockService.getRecentMovements(LIMIT);
+        assertEquals(ids(recentMovements.fromDatabase(LIMIT)), ids(fromRing), "El anillo debería coincidir con la base");
+        assertEquals("recent", fromRing.getFirst().getUsername());
+        double ring = millis(ROUNDS * 100, () -> stockService.getRecentMovements(LIMIT));
+
+        System.out.println("=== ÚLTIMOS MOVIMIENTOS ===");
+        System.out.printf("findAll y orden en Java (%,d movimientos): %.2f ms%n", smallTable, legacy);
+        System.out.printf("Consulta acotada (%,d movimientos): %.3f ms%n", smallTable, boundedSmall);
+        System.out.printf("Consulta acotada (%,d movimientos): %.3f ms%n", fullTable, boundedFull);
+        System.out.printf("Anillo en memoria: %.4f ms%n", ring);
+
+        if (!Double.isNaN(legacy)) {
+            assertTrue(boundedSmall < legacy, "La consulta acotada debería costar menos que leer toda la tabla");
+        }
+        assertTrue(boundedFull < Math.max(boundedSmall * 10, 5.0),
+                "La consulta acotada no debería crecer con el historial: " + boundedSmall + " ms -> " + boundedFull + " ms");
+        assertTrue(ring < boundedFull, "El anillo debería costar menos que la consulta");
+    }
+
+    private static List<Long> ids(List<StockMovementDTO> movements) {
+        return movements.stream().map(StockMovementDTO::getId).toList();
+    }
+
+    private static double millis(int rounds, Supplier<?> call) {
+        for (int i = 0; i < Math.max(1, rounds / 5); i++) {
+            call.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            call.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / rounds;
+    }
+
+    // Carga directa en SQL hasta tener `size` movimientos, con fechas anteriores a los de la prueba
+    private void insertMovements(Long productId, int size) {
+        long existing = stockMovementRepository.count();
+        if (existing >= size) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM stock_movements", Long.class);
+        long from = maxId + 1;
+        long to = maxId + size - existing;
+        jdbcTemplate.update("""
+                INSERT INTO stock_movements (id, product_id, movement_type, quantity, previous_quantity,
+                                             new_quantity, timestamp, username, reason)
+                SELECT X, ?, 'STOCK_IN', 1, 0, 1, DATEADD('SECOND', X, TIMESTAMP '2020-01-01 00:00:00'),
+                       'bulk', 'Carga masiva'
+                FROM SYSTEM_RANGE(?, ?)
+                """, productId, from, to);
+        // Optimizador pooled (allocationSize 50): el valor leído es el último del bloque que reserva
+        jdbcTemplate.execute("ALTER SEQUENCE stock_movements_seq RESTART WITH " + (to + 50));
+    }
+
+    private ProductDTO createProduct() {
+        return productService.createProduct(product("Recientes", "Recientes", 0));
+    }
+}
@@ -0,0 +1,199 @@
+package com.inventory.stress;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.example.controller.PublicController;
+import org.example.dto.ProductDTO;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.PublicCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Respuestas JSON ya codificadas para los endpoints públicos: la petición repetida copia bytes en
+ * lugar de serializar el catálogo con Jackson, y un cliente con la ETag recibe 304 sin cuerpo.
+ * Comprueba ETag, 304, gzip y que una escritura cambia la versión (y la ETag si cambia el contenido).
+ * Para un catálogo más grande: -Dstress.response-cache.size=100000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:responsecachedb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ResponseCacheStressTest {
+
+    private static final int SIZE = Integer.getInteger("stress.response-cache.size", 20_000);
+    private static final int CATEGORIES = 40;
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PublicCatalog publicCatalog;
+
+    @Autowired
+    private PublicController publicController;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(roles = "GUEST")
+    void repeatedRequestsAreServedPreEncodedWithEtags() throws Exception {
+        loadCatalog();
+        await(() -> publicCatalog.isUsable() && publicCatalog.size() == productRepository.count(), "foto completa");
+
+        // Mismo JSON que serializar la foto, con ETag y revalidación obligatoria
+        MockHttpServletResponse first = perform(get("/api/public/products").param("unpaged", "true"));
+        assertEquals(200, first.getStatus());
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(first.getHeader(HttpHeaders.CACHE_CONTROL).contains("no-cache"));
+        assertArrayEquals(objectMapper.writeValueAsBytes(publicCatalog.allProducts()), first.getContentAsByteArray());
+
+        // If-None-Match con la misma ETag: 304 sin cuerpo
+        MockHttpServletResponse revalidated = perform(get("/api/public/products").param("unpaged", "true")
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertEquals(304, revalidated.getStatus());
+        assertEquals(0, revalidated.getContentAsByteArray().length);
+
+        // gzip: otra representación (otra ETag) con el mismo contenido
+        MockHttpServletResponse compressed = perform(get("/api/public/products").param("unpaged", "true")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+        assertEquals("gzip", compressed.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(etag, compressed.getHeader(HttpHeaders.ETAG));
+        assertArrayEquals(first.getContentAsByteArray(), gunzip(compressed.getContentAsByteArray()));
+        System.out.println("=== RESPUESTAS PRECODIFICADAS CON ETAG ===");
+        System.out.printf("Productos: %d, JSON %,d bytes, gzip %,d bytes%n", publicCatalog.size(),
+                first.getContentAsByteArray().length, compressed.getContentAsByteArray().length);
+
+        // Una escritura cambia la versión: estadísticas al confirmar, el listado al publicarse la foto.
+        // Las categorías se recodifican pero su contenido (y su ETag) no cambia.
+        String statsEtag = perform(get("/api/v2/products/stats")).getHeader(HttpHeaders.ETAG);
+        String categoriesEtag = perform(get("/api/public/categories")).getHeader(HttpHeaders.ETAG);
+        ProductDTO created = create("Respuesta nueva", "Public-1", 3);
+
+        assertEquals(200, perform(get("/api/v2/products/stats").header(HttpHeaders.IF_NONE_MATCH, statsEtag)).getStatus());
+        assertEquals(304, perform(get("/api/public/categories").header(HttpHeaders.IF_NONE_MATCH, categoriesEtag)).getStatus());
+        await(() -> publicCatalog.product(created.getId()).isPresent(), "alta");
+        MockHttpServletResponse afterWrite = perform(get("/api/public/products").param("unpaged", "true")
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertEquals(200, afterWrite.getStatus());
+        assertNotEquals(etag, afterWrite.getHeader(HttpHeaders.ETAG));
+        String currentEtag = afterWrite.getHeader(HttpHeaders.ETAG);
+
+        // Coste por petición en el controlador: serializar con Jackson (lo que hacía cada petición)
+        // frente a tomar el cuerpo ya codificado y frente a la revalidación con 304. Se llama al
+        // controlador directamente: el stream de MockMvc copia el cuerpo byte a byte y su coste
+        // (igual para ambos caminos) taparía la diferencia.
+        MockHttpServletRequest plain = new MockHttpServletRequest("GET", "/api/public/products");
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/api/public/products");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, currentEtag);
+        assertEquals(304, publicController.getAllProductsPublic(conditional).getStatusCode().value());
+
+        Measure jackson = measure(() -> objectMapper.writeValueAsBytes(publicCatalog.allProducts()));
+        Measure cached = measure(() -> publicController.getAllProductsPublic(plain));
+        Measure notModified = measure(() -> publicController.getAllProductsPublic(conditional));
+
+        System.out.printf("Serializar con Jackson: %.3f ms / %,d bytes asignados por petición%n", jackson.millis(), jackson.bytes());
+        System.out.printf("JSON precodificado: %.4f ms / %,d bytes%n", cached.millis(), cached.bytes());
+        System.out.printf("If-None-Match (304): %.4f ms / %,d bytes%n", notModified.millis(), notModified.bytes());
+        System.out.printf("Ganancia: %.1fx (200), %.1fx (304)%n",
+                jackson.millis() / cached.millis(), jackson.millis() / notModified.millis());
+        assertTrue(cached.millis() < jackson.millis(), "La respuesta precodificada debería costar menos que serializar");
+        assertTrue(cached.bytes() < jackson.bytes() / 100, "El cuerpo precodificado no debería volver a generarse");
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    private record Measure(double millis, long bytes) {
+    }
+
+    private static Measure measure(Call call) throws Exception {
+        for (int i = 0; i < REQUESTS / 4; i++) {
+            call.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            call.run();
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / REQUESTS;
+        return new Measure(millis, (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / REQUESTS);
+    }
+
+    private static byte[] gunzip(byte[] content) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "La foto pública debería reflejar: " + what);
+    }
+
+    private ProductDTO create(String name, String category, int quantity) {
+        return productService.createProduct(product(name, category, quantity));
+    }
+
+    private void loadCatalog() {
+        long missing = SIZE - productRepository.count();
+        for (int from = 0; from < missing; from += 1_000) {
+            List<ProductDTO> chunk = new ArrayList<>(1_000);
+            for (int i = from; i < Math.min(from + 1_000, missing); i++) {
+                ProductDTO product = new ProductDTO();
+                product.setName("Public-" + i);
+                product.setDescription("Producto de vitrina " + i);
+                product.setCategory("Public-" + (i % CATEGORIES));
+                // Misma escala que la columna: la foto recargada de la base serializa igual
+                product.setPrice(BigDecimal.valueOf(100 + i % 500 * 100L, 2));
+                product.setInitialQuantity(i % 20);
+                product.setMinimumStock(5);
+                chunk.add(product);
+            }
+            productService.createProducts(chunk);
+        }
+    }
+}
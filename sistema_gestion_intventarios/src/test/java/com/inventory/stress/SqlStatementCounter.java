@@ -0,0 +1,46 @@
+package com.inventory.stress;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual. Se registra en el test con
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector=com.inventory.stress.SqlStatementCounter
+ * y sirve para detectar N+1: una consulta de listado debe costar un número fijo de sentencias,
+ * no una por fila. Solo cuenta el hilo que llama (MockMvc atiende la petición en ese mismo hilo),
+ * así los hilos de fondo (journal, foto pública) no se mezclan en la medida.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    public static long current() {
+        return STATEMENTS.get()[0];
+    }
+
+    public record Counted<T>(T result, long statements) {
+    }
+
+    public static <T> Counted<T> count(Supplier<T> call) {
+        long before = current();
+        T result = call.get();
+        return new Counted<>(result, current() - before);
+    }
+
+    // Falla si la llamada emite más de maxStatements sentencias
+    public static <T> T assertAtMost(long maxStatements, String what, Supplier<T> call) {
+        Counted<T> counted = count(call);
+        assertTrue(counted.statements() <= maxStatements, what + ": " + counted.statements()
+                + " sentencias SQL, se esperaban como mucho " + maxStatements);
+        return counted.result();
+    }
+}
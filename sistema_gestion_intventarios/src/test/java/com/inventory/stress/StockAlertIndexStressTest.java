@@ -0,0 +1,169 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.StockAlertIndex;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conjuntos de alertas de stock en memoria frente a las consultas que recorren la tabla: tras
+ * movimientos concurrentes, ediciones y borrados, /low-stock y /out-of-stock deben dar exactamente
+ * las filas de la base, y los contadores de los gauges el mismo número. Mide la latencia de ambos caminos.
+ * Para un catálogo más grande: -Dstress.stock-alerts.size=200000
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:stockalertsdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class StockAlertIndexStressTest {
+
+    private static final int SIZE = Integer.getInteger("stress.stock-alerts.size", 20_000);
+    private static final int MOVEMENTS = 2_000;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockAlertIndex stockAlerts;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void alertSetsFollowWritesAndAnswerWithoutScanning() throws Exception {
+        loadCatalog();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Supplier<List<ProductDTO>> lowStockScan = () -> readOnly.execute(status -> productRepository.findLowStockRows());
+        Supplier<List<ProductDTO>> outOfStockScan = () -> readOnly.execute(status -> productRepository.findOutOfStockRows());
+        assertTrue(stockAlerts.isUsable(), "Los conjuntos se cargan al arrancar");
+        compare(lowStockScan, outOfStockScan);
+
+        // Entradas y salidas concurrentes que cruzan el mínimo y el cero en ambos sentidos
+        List<Long> ids = productRepository.findAll().stream().map(Product::getId).sorted().toList();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < MOVEMENTS / THREADS; i++) {
+                        StockMovementDTO request = new StockMovementDTO();
+                        request.setProductId(ids.get(random.nextInt(Math.min(ids.size(), 500))));
+                        request.setQuantity(1 + random.nextInt(4));
+                        try {
+                            if (random.nextBoolean()) {
+                                stockService.registerStockIn(request, "stress");
+                            } else {
+                                stockService.registerStockOut(request, "stress");
+                            }
+                        } catch (IllegalArgumentException insufficient) {
+                            // Stock insuficiente: el producto no cambia
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        compare(lowStockScan, outOfStockScan);
+
+        // Ediciones del mínimo (en un producto sin movimientos), borrados y altas
+        ProductDTO edited = productService.getProductById(ids.getLast());
+        edited.setMinimumStock(edited.getInitialQuantity() + 1);
+        productService.updateProduct(edited.getId(), edited);
+        // Se borra un producto agotado fuera de los que recibieron movimientos: su historial lo impediría
+        Long lastMoved = ids.get(Math.min(ids.size(), 500) - 1);
+        productService.deleteProduct(productService.findOutOfStockProducts().stream()
+                .map(ProductDTO::getId)
+                .filter(id -> id > lastMoved)
+                .findFirst().orElseThrow());
+        productService.createProduct(product("Alerta-nuevo", 0));
+        compare(lowStockScan, outOfStockScan);
+        assertTrue(productService.findLowStockProducts().stream().anyMatch(p -> p.getId().equals(edited.getId())));
+
+        // Reconstrucción completa desde la base: mismo resultado que el mantenido por cambios
+        List<ProductDTO> maintained = productService.findLowStockProducts();
+        stockAlerts.load();
+        assertEquals(maintained, productService.findLowStockProducts());
+
+        double scanLow = millis(lowStockScan);
+        double indexLow = millis(productService::findLowStockProducts);
+        double scanCount = millis(() -> readOnly.execute(status -> productRepository.countOutOfStockProducts()));
+        double indexCount = millis(stockAlerts::outOfStockCount);
+
+        System.out.println("=== CONJUNTOS DE ALERTAS DE STOCK ===");
+        System.out.printf("Productos: %d, low stock: %d, out of stock: %d%n", productRepository.count(),
+                stockAlerts.lowStockCount(), stockAlerts.outOfStockCount());
+        System.out.printf("Low stock recorriendo la tabla: %.3f ms, desde el conjunto: %.3f ms%n", scanLow, indexLow);
+        System.out.printf("Conteo out of stock en SQL: %.3f ms, desde el conjunto: %.4f ms%n", scanCount, indexCount);
+        assertTrue(indexCount < scanCount, "El conteo en memoria debería costar menos que la consulta");
+    }
+
+    private void compare(Supplier<List<ProductDTO>> lowStockScan, Supplier<List<ProductDTO>> outOfStockScan) {
+        List<ProductDTO> lowStock = lowStockScan.get();
+        List<ProductDTO> outOfStock = outOfStockScan.get();
+        assertEquals(lowStock, productService.findLowStockProducts(), "Low stock igual que la base");
+        assertEquals(outOfStock, productService.findOutOfStockProducts(), "Out of stock igual que la base");
+        assertEquals(lowStock.size(), stockAlerts.lowStockCount());
+        assertEquals(outOfStock.size(), stockAlerts.outOfStockCount());
+    }
+
+    private static double millis(Supplier<?> call) {
+        for (int i = 0; i < ROUNDS / 4; i++) {
+            call.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            call.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+    }
+
+    private void loadCatalog() {
+        for (int from = 0; from < SIZE; from += 1_000) {
+            List<ProductDTO> chunk = new ArrayList<>(1_000);
+            for (int i = from; i < Math.min(from + 1_000, SIZE); i++) {
+                chunk.add(product("Alerta-" + i, i % 40));
+            }
+            productService.createProducts(chunk);
+        }
+    }
+
+    private static ProductDTO product(String name, int quantity) {
+        return StressFixtures.product(name, "Alertas", quantity);
+    }
+}
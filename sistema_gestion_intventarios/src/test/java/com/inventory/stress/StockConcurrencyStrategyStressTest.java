@@ -0,0 +1,174 @@
+package com.inventory.stress;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Main;
+import org.example.dto.StockMovementDTO;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockMovementRepository;
+import org.example.service.AtomicStockUpdateStrategy;
+import org.example.service.OptimisticStockUpdateStrategy;
+import org.example.service.PessimisticStockUpdateStrategy;
+import org.example.service.ProductService;
+import org.example.service.StockServiceImpl;
+import org.example.service.StockUpdateStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contención sobre SKUs calientes con cada estrategia de concurrencia (atomic, pessimistic, optimistic).
+ * El 80% de los movimientos cae sobre un solo producto; se mide throughput, conflictos y reintentos,
+ * y se comprueba que ninguna estrategia pierde actualizaciones.
+ * Para la corrida completa: -Dstress.concurrency.threads=64 -Dstress.concurrency.ops=500
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrencydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class StockConcurrencyStrategyStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.concurrency.threads", 16);
+    private static final int OPS_PER_THREAD = Integer.getInteger("stress.concurrency.ops", 50);
+    private static final int PRODUCTS = 8;
+    private static final double HOT_SHARE = 0.8;
+    private static final int INITIAL_STOCK = 1_000_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void strategiesReportThroughputConflictsAndRetriesUnderSkew() throws InterruptedException {
+        // Calentamiento (JIT, pool de conexiones): no se mide
+        run("warmup", registry -> new AtomicStockUpdateStrategy(productRepository, registry));
+
+        List<RunResult> results = List.of(
+                run("atomic", registry -> new AtomicStockUpdateStrategy(productRepository, registry)),
+                run("pessimistic", registry -> new PessimisticStockUpdateStrategy(productRepository, registry)),
+                run("optimistic", registry -> new OptimisticStockUpdateStrategy(productRepository, registry, 5, 2)));
+
+        System.out.println("=== ESTRATEGIAS DE CONCURRENCIA DE STOCK ===");
+        System.out.printf("Hilos: %d, movimientos por hilo: %d, %d productos (%.0f%% sobre el más caliente)%n",
+                THREADS, OPS_PER_THREAD, PRODUCTS, HOT_SHARE * 100);
+        for (RunResult result : results) {
+            System.out.printf("%-12s %8.0f mov/s  errores: %4d  conflictos: %5.0f  reintentos: %5.0f  agotados: %3.0f%n",
+                    result.strategy, result.opsPerSecond(), result.errors, result.conflicts, result.retries, result.exhausted);
+        }
+
+        for (RunResult result : results) {
+            assertTrue(result.finished, result.strategy + " debería completarse");
+            assertTrue(result.consistent, result.strategy + " no debería perder actualizaciones");
+        }
+        assertEquals(0, results.get(0).errors, "atomic no debería rechazar movimientos");
+        assertEquals(0, results.get(1).errors, "pessimistic no debería rechazar movimientos");
+    }
+
+    private RunResult run(String strategyName, Function<MeterRegistry, StockUpdateStrategy> factory)
+            throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        StockServiceImpl service = StressServices.stockService(context, factory.apply(registry), registry);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(createProduct(strategyName + "-" + i));
+        }
+        AtomicIntegerArray netChange = new AtomicIntegerArray(PRODUCTS);
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int j = 0; j < OPS_PER_THREAD; j++) {
+                        int product = random.nextDouble() < HOT_SHARE ? 0 : 1 + random.nextInt(PRODUCTS - 1);
+                        boolean stockIn = random.nextBoolean();
+                        StockMovementDTO request = new StockMovementDTO();
+                        request.setProductId(productIds.get(product));
+                        request.setQuantity(1);
+                        try {
+                            transaction.executeWithoutResult(status -> {
+                                if (stockIn) {
+                                    service.registerStockIn(request, "stress");
+                                } else {
+                                    service.registerStockOut(request, "stress");
+                                }
+                            });
+                            netChange.addAndGet(product, stockIn ? 1 : -1);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(180, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        boolean consistent = true;
+        for (int i = 0; i < PRODUCTS; i++) {
+            int expected = INITIAL_STOCK + netChange.get(i);
+            consistent &= productRepository.findQuantityById(productIds.get(i)).orElseThrow() == expected;
+        }
+
+        return new RunResult(strategyName, finished, consistent, THREADS * OPS_PER_THREAD, errors.get(), elapsed,
+                registry.counter("inventory_stock_update_conflicts_total", "strategy", strategyName).count(),
+                registry.counter("inventory_stock_update_retries_total", "strategy", strategyName).count(),
+                registry.counter("inventory_stock_update_retries_exhausted_total", "strategy", strategyName).count());
+    }
+
+    private Long createProduct(String name) {
+        return productService.createProduct(product(name, "Stress", INITIAL_STOCK)).getId();
+    }
+
+    private record RunResult(String strategy, boolean finished, boolean consistent, int movements, int errors,
+                             long elapsedNanos, double conflicts, double retries, double exhausted) {
+        double opsPerSecond() {
+            return (movements - errors) / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
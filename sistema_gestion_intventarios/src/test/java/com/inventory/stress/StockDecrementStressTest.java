@@ -0,0 +1,162 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Salidas concurrentes sobre un mismo SKU: el decremento atómico de StockServiceImpl
+ * no debe sobrevender nunca. Como referencia se mide también el patrón anterior
+ * (leer producto, validar en Java y guardar) para reportar la ganancia de throughput.
+ */
+@SpringBootTest(classes = Main.class)
+@ActiveProfiles("test")
+public class StockDecrementStressTest {
+
+    private static final int THREADS = 16;
+    private static final int INITIAL_STOCK = 200;
+    private static final int ATTEMPTS_PER_THREAD = 25; // 400 intentos para 200 unidades
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void atomicDecrementNeverOversells() throws InterruptedException {
+        Long productId = createProduct("Atomic-Decrement-SKU");
+
+        RunResult atomic = runConcurrently(() -> {
+            StockMovementDTO request = new StockMovementDTO();
+            request.setProductId(productId);
+            request.setQuantity(1);
+            stockService.registerStockOut(request, "stress");
+        });
+
+        Integer finalStock = stockService.getCurrentStock(productId);
+        int recordedMovements = stockService.getProductHistory(productId).size();
+
+        atomic.print("DECREMENTO ATÓMICO", finalStock);
+
+        assertTrue(atomic.finished, "La prueba debería completarse dentro del tiempo límite");
+        assertEquals(INITIAL_STOCK, atomic.successes, "Solo deben aceptarse tantas salidas como unidades había");
+        assertEquals(0, finalStock, "El stock final debe quedar exactamente en cero");
+        assertEquals(atomic.successes, recordedMovements, "Cada salida aceptada debe tener su movimiento");
+    }
+
+    @Test
+    void atomicDecrementOutperformsReadModifyWrite() throws InterruptedException {
+        Long legacyId = createProduct("Read-Modify-Write-SKU");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // Patrón anterior: SELECT, validación en Java y UPDATE de la fila completa
+        RunResult legacy = runConcurrently(() -> tx.executeWithoutResult(status -> {
+            Product product = productRepository.findById(legacyId).orElseThrow();
+            if (product.getInitialQuantity() < 1) {
+                throw new IllegalArgumentException("Insufficient stock");
+            }
+            product.setInitialQuantity(product.getInitialQuantity() - 1);
+            productRepository.save(product);
+        }));
+        Integer legacyFinal = productRepository.findQuantityById(legacyId).orElseThrow();
+
+        Long atomicId = createProduct("Atomic-Benchmark-SKU");
+        RunResult atomic = runConcurrently(() -> tx.executeWithoutResult(status -> {
+            if (productRepository.decrementStockIfSufficient(atomicId, 1).isEmpty()) {
+                throw new IllegalArgumentException("Insufficient stock");
+            }
+        }));
+        Integer atomicFinal = productRepository.findQuantityById(atomicId).orElseThrow();
+
+        legacy.print("LEER-MODIFICAR-ESCRIBIR", legacyFinal);
+        atomic.print("DECREMENTO ATÓMICO", atomicFinal);
+        System.out.printf("Sobreventa leer-modificar-escribir: %d unidades%n",
+                legacy.successes - (INITIAL_STOCK - legacyFinal));
+        System.out.printf("Ganancia de throughput: %.2fx%n", atomic.opsPerSecond() / legacy.opsPerSecond());
+
+        assertTrue(legacy.finished && atomic.finished, "Ambas corridas deberían completarse");
+        assertEquals(INITIAL_STOCK, atomic.successes);
+        assertEquals(0, atomicFinal);
+    }
+
+    private Long createProduct(String name) {
+        return productService.createProduct(product(name, "Stress", INITIAL_STOCK)).getId();
+    }
+
+    private RunResult runConcurrently(Runnable stockOut) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        try {
+                            stockOut.run();
+                            successes.incrementAndGet();
+                        } catch (Exception e) {
+                            rejections.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        return new RunResult(finished, successes.get(), rejections.get(), elapsed);
+    }
+
+    private record RunResult(boolean finished, int successes, int rejections, long elapsedNanos) {
+
+        double opsPerSecond() {
+            return (successes + rejections) / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        void print(String title, int finalStock) {
+            System.out.println("=== " + title + " ===");
+            System.out.printf("Hilos concurrentes: %d%n", THREADS);
+            System.out.printf("Salidas aceptadas: %d%n", successes);
+            System.out.printf("Salidas rechazadas: %d%n", rejections);
+            System.out.printf("Stock final: %d%n", finalStock);
+            System.out.printf("Operaciones por segundo: %.2f%n", opsPerSecond());
+        }
+    }
+}
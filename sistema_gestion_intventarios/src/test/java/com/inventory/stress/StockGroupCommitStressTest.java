@@ -0,0 +1,153 @@
+package com.inventory.stress;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.Main;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.example.service.StockServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inventory.stress.StressFixtures.product;
+import static com.inventory.stress.StressFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Group commit de movimientos: cada llamador recibe su propio resultado o su propio error,
+ * y se compara el throughput contra una transacción por movimiento.
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.stock.write-mode=group-commit",
+        "inventory.stock.group-commit.window-ms=2",
+        "inventory.stock.group-commit.max-size=64",
+        "spring.datasource.url=jdbc:h2:mem:groupcommitdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class StockGroupCommitStressTest {
+
+    private static final int THREADS = 32;
+    private static final int MOVEMENTS_PER_THREAD = 30;
+    private static final int PRODUCTS = 16;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService; // GroupCommitStockService
+
+    @Autowired
+    private StockServiceImpl directStockService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void eachCallerGetsItsOwnResultOrError() {
+        Long productId = createProduct("GroupCommit-Errors", 3);
+
+        StockMovementDTO ok = stockService.registerMovement(MovementType.STOCK_OUT, request(productId, 2), "picker-1");
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+                () -> stockService.registerMovement(MovementType.STOCK_OUT, request(productId, 5), "picker-2"));
+        RuntimeException notFound = assertThrows(RuntimeException.class,
+                () -> stockService.registerStockIn(request(Long.MAX_VALUE, 1), "picker-3"));
+
+        assertEquals("picker-1", ok.getUsername());
+        assertEquals(3, ok.getPreviousQuantity());
+        assertEquals(1, ok.getNewQuantity());
+        assertTrue(rejected.getMessage().contains("Insufficient stock"));
+        assertTrue(notFound.getMessage().contains("Product not found"));
+        assertEquals(1, stockService.getCurrentStock(productId));
+    }
+
+    @Test
+    void groupCommitReportsThroughputAgainstOneTransactionPerMovement() throws InterruptedException {
+        RunResult direct = run("UNA TRANSACCIÓN POR MOVIMIENTO", directStockService);
+
+        DistributionSummary groups = meterRegistry.get("inventory_stock_group_commit_size").summary();
+        long groupsBefore = groups.count();
+        RunResult grouped = run("GROUP COMMIT", stockService);
+        long groupCount = groups.count() - groupsBefore;
+
+        System.out.printf("Transacciones con group commit: %d (%.1f movimientos por commit)%n",
+                groupCount, (double) grouped.movements / Math.max(1, groupCount));
+        System.out.printf("Ganancia de throughput: %.2fx%n", grouped.opsPerSecond() / direct.opsPerSecond());
+
+        assertTrue(direct.finished && grouped.finished, "Ambas corridas deberían completarse");
+        assertEquals(grouped.movements, grouped.ownResults, "Cada llamador debe recibir su propio movimiento");
+        assertTrue(groupCount < grouped.movements, "Los movimientos concurrentes deberían compartir commit");
+    }
+
+    private RunResult run(String title, StockService service) throws InterruptedException {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(createProduct(title + "-" + i, 100));
+        }
+        AtomicInteger ownResults = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            final String username = "user-" + t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < MOVEMENTS_PER_THREAD; j++) {
+                        Long productId = productIds.get(Math.floorMod(username.hashCode() + j, PRODUCTS));
+                        try {
+                            StockMovementDTO result = service.registerStockIn(request(productId, 1), username);
+                            if (username.equals(result.getUsername()) && productId.equals(result.getProductId())) {
+                                ownResults.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(120, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        RunResult result = new RunResult(finished, THREADS * MOVEMENTS_PER_THREAD, ownResults.get(), errors.get(), elapsed);
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Hilos concurrentes: %d sobre %d productos%n", THREADS, PRODUCTS);
+        System.out.printf("Movimientos: %d, errores: %d%n", result.movements, result.errors);
+        System.out.printf("Movimientos por segundo: %.2f%n", result.opsPerSecond());
+        return result;
+    }
+
+    private Long createProduct(String name, int quantity) {
+        return productService.createProduct(product(name, "Stress", quantity)).getId();
+    }
+
+    private record RunResult(boolean finished, int movements, int ownResults, int errors, long elapsedNanos) {
+        double opsPerSecond() {
+            return movements / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
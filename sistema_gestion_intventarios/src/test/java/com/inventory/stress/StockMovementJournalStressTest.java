@@ -0,0 +1,333 @@
+package com.inventory.stress;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.Main;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+import org.example.entity.Product;
+import org.example.entity.StockMovement;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockMovementRepository;
+import org.example.service.AtomicStockUpdateStrategy;
+import org.example.service.ProductService;
+import org.example.service.RecentStockMovements;
+import org.example.service.StockMovementJournal;
+import org.example.service.StockService;
+import org.example.service.StockServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.inventory.stress.StressFixtures.product;
+import static com.inventory.stress.StressFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Auditoría write-behind: los movimientos se escriben en un journal local antes del commit y se
+ * insertan en stock_movements por lotes. Se compara contra el INSERT síncrono y se simula una caída
+ * con entradas sin volcar, una línea cortada al final del segmento y un commit fallido.
+ * Para la corrida completa: -Dstress.journal.threads=64 -Dstress.journal.ops=500
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.stock.audit-mode=journal",
+        "inventory.stock.journal.flush-interval-ms=50",
+        "spring.datasource.url=jdbc:h2:mem:journaldb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class StockMovementJournalStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.journal.threads", 16);
+    private static final int OPS_PER_THREAD = Integer.getInteger("stress.journal.ops", 50);
+    private static final int PRODUCTS = 16;
+    private static final int CRASH_NODE_ID = 7; // distinto del journal del contexto (nodo 0)
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) {
+        registry.add("inventory.stock.journal.dir", () -> tempDirectory("stock-journal-context").toString());
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService; // escribe a través del journal
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private RecentStockMovements recentMovements;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void journalReportsThroughputAgainstSynchronousInserts() throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        StockServiceImpl synchronous = StressServices.stockService(context,
+                new AtomicStockUpdateStrategy(productRepository, registry), registry);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // Calentamiento (JIT, pool de conexiones): no se mide
+        run("warmup", request -> transaction.execute(status -> synchronous.registerStockIn(request, "warmup")));
+
+        RunResult sync = run("INSERT SÍNCRONO",
+                request -> transaction.execute(status -> synchronous.registerStockIn(request, "sync")));
+        long rowsBefore = stockMovementRepository.count();
+        RunResult journal = run("JOURNAL WRITE-BEHIND", request -> stockService.registerStockIn(request, "journal"));
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (stockMovementRepository.count() - rowsBefore < journal.movements && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        System.out.printf("Ganancia de throughput: %.2fx%n", journal.opsPerSecond() / sync.opsPerSecond());
+        System.out.printf("Pendientes de volcar al terminar: %.0f%n",
+                meterRegistry.get("inventory_stock_journal_pending").gauge().value());
+
+        assertTrue(sync.finished && journal.finished, "Ambas corridas deberían completarse");
+        assertEquals(0, sync.errors + journal.errors, "No debería haber movimientos rechazados");
+        assertEquals(journal.movements, stockMovementRepository.count() - rowsBefore,
+                "Todos los movimientos del journal deberían llegar a stock_movements");
+    }
+
+    @Test
+    void crashRecoveryReplaysOnlyMovementsMissingFromTheTable() throws IOException {
+        Path directory = tempDirectory("stock-journal-crash");
+        Product product = productRepository.findById(createProduct("Journal-Crash", 100)).orElseThrow();
+
+        // Primera instancia sin flusher: nada llega a la base antes de la "caída"
+        StockMovementJournal crashed = newJournal(directory);
+        crashed.open();
+        List<Long> seqs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            seqs.add(crashed.append(movement(product, "before-crash-" + i)).getJournalSeq());
+        }
+
+        // Un movimiento alcanzó a insertarse antes de la caída
+        StockMovement alreadyInserted = movement(product, "before-crash-0");
+        alreadyInserted.setJournalSeq(seqs.getFirst());
+        stockMovementRepository.save(alreadyInserted);
+
+        // Una transacción revertida nunca escribe; un commit fallido se anula en el journal
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            crashed.append(movement(product, "rolled-back"));
+            status.setRollbackOnly();
+        });
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            crashed.append(movement(product, "commit-failed"));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("simulated commit failure");
+                }
+            });
+        }));
+
+        // Escritura cortada a la mitad al caer el proceso
+        Files.writeString(segments(directory).getLast(), "1a2b3c {\"seq\":99999,\"cance",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        StockMovementJournal recovered = newJournal(directory, registry);
+        recovered.open();
+
+        Set<Long> inserted = insertedSeqsFrom(seqs.getFirst());
+        double replayed = registry.get("inventory_stock_journal_replayed_total").counter().count();
+        System.out.println("=== RECUPERACIÓN DEL JOURNAL ===");
+        System.out.printf("Entradas escritas antes de la caída: %d, ya insertadas: 1, reproducidas: %.0f%n",
+                seqs.size(), replayed);
+
+        assertTrue(inserted.containsAll(seqs), "Todos los movimientos confirmados deberían estar insertados");
+        assertEquals(seqs.size(), inserted.size(), "Ni el revertido ni el anulado deberían insertarse");
+        assertEquals(4, replayed, "El movimiento ya insertado no se reproduce");
+        assertTrue(recovered.append(movement(product, "after-recovery")).getJournalSeq() > seqs.getLast() + 1,
+                "La secuencia continúa después de la última entrada del journal");
+
+        // Una segunda recuperación no encuentra nada pendiente
+        MeterRegistry secondRegistry = new SimpleMeterRegistry();
+        newJournal(directory, secondRegistry).open();
+        assertEquals(seqs.size() + 1, insertedSeqsFrom(seqs.getFirst()).size());
+        assertEquals(1, secondRegistry.get("inventory_stock_journal_replayed_total").counter().count(),
+                "Solo se reproduce el movimiento escrito después de la primera recuperación");
+    }
+
+    @Test
+    void cancelledMovementStaysCancelledAfterItsTombstoneSegmentIsRotated() throws IOException {
+        Path directory = tempDirectory("stock-journal-tombstone");
+        Product product = productRepository.findById(createProduct("Journal-Tombstone", 100)).orElseThrow();
+
+        // Segmentos de 1 KiB: el movimiento pendiente y los diez anulados comparten el primero y las
+        // diez anulaciones llenan el segundo, que rota con la escritura siguiente
+        StockMovementJournal crashed = newJournal(directory, new SimpleMeterRegistry(), 1024);
+        crashed.open();
+        long pending = crashed.append(movement(product, "pending")).getJournalSeq();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            for (int i = 0; i < 10; i++) {
+                crashed.append(movement(product, "commit-failed-" + i));
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("simulated commit failure");
+                }
+            });
+        }));
+        assertEquals(2, segments(directory).size(), "Las anulaciones deberían ir a un segmento nuevo");
+        long afterCancel = crashed.append(movement(product, "after-cancel")).getJournalSeq();
+
+        // El segmento de las anulaciones sigue mientras el pendiente no se vuelque
+        assertEquals(3, segments(directory).size());
+        newJournal(directory).open();
+
+        assertEquals(Set.of(pending, afterCancel), insertedSeqsFrom(pending),
+                "Los movimientos anulados no deberían reproducirse al reiniciar");
+    }
+
+    private RunResult run(String title, MovementCall call) throws InterruptedException {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(createProduct(title + "-" + i, 100));
+        }
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < OPS_PER_THREAD; j++) {
+                        try {
+                            call.apply(request(productIds.get((thread + j) % PRODUCTS), 1));
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(120, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        RunResult result = new RunResult(finished, THREADS * OPS_PER_THREAD, errors.get(), elapsed);
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Hilos concurrentes: %d sobre %d productos%n", THREADS, PRODUCTS);
+        System.out.printf("Movimientos: %d, errores: %d%n", result.movements, result.errors);
+        System.out.printf("Movimientos por segundo: %.2f%n", result.opsPerSecond());
+        return result;
+    }
+
+    private Set<Long> insertedSeqsFrom(Long firstSeq) {
+        return new HashSet<>(stockMovementRepository.findJournalSeqsBetween(firstSeq, Long.MAX_VALUE));
+    }
+
+    private StockMovementJournal newJournal(Path directory) {
+        return newJournal(directory, new SimpleMeterRegistry());
+    }
+
+    private StockMovementJournal newJournal(Path directory, MeterRegistry registry) {
+        return newJournal(directory, registry, 16 * 1024 * 1024);
+    }
+
+    private StockMovementJournal newJournal(Path directory, MeterRegistry registry, long segmentBytes) {
+        return new StockMovementJournal(stockMovementRepository, productRepository, recentMovements, transactionManager,
+                objectMapper, registry, directory, true, 50, 500, segmentBytes, CRASH_NODE_ID);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Path tempDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StockMovement movement(Product product, String reason) {
+        return StockMovement.builder()
+                .product(product)
+                .movementType(MovementType.STOCK_IN)
+                .quantity(1)
+                .previousQuantity(100)
+                .newQuantity(101)
+                .timestamp(LocalDateTime.now())
+                .username("journal-test")
+                .reason(reason)
+                .build();
+    }
+
+    private Long createProduct(String name, int quantity) {
+        return productService.createProduct(product(name, "Stress", quantity)).getId();
+    }
+
+    @FunctionalInterface
+    private interface MovementCall {
+        void apply(StockMovementDTO request);
+    }
+
+    private record RunResult(boolean finished, int movements, int errors, long elapsedNanos) {
+        double opsPerSecond() {
+            return movements / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
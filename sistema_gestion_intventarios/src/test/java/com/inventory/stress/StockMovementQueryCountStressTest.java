@@ -0,0 +1,127 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.entity.MovementType;
+import org.example.repository.StockMovementRepository;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Listados de movimientos sin N+1: cada consulta trae el producto en el mismo SELECT, así que
+ * una petición cuesta un número fijo de sentencias SQL sea cual sea el número de filas.
+ * Falla si un listado emite más de MAX_STATEMENTS sentencias.
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.inventory.stress.SqlStatementCounter",
+        "inventory.stock.audit-mode=sync",
+        "inventory.product-cache.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:movementquerydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class StockMovementQueryCountStressTest {
+
+    private static final int PRODUCTS = 60;
+    private static final int MOVEMENTS_PER_PRODUCT = 3;
+    // Producto (si la consulta lo necesita), movimientos y, en las páginas, el COUNT
+    private static final int MAX_STATEMENTS = 3;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void movementListingsIssueConstantNumberOfQueries() throws Exception {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductDTO product = createProduct("Movimientos-" + i);
+            productIds.add(product.getId());
+            for (int m = 0; m < MOVEMENTS_PER_PRODUCT; m++) {
+                StockMovementDTO request = new StockMovementDTO();
+                request.setProductId(product.getId());
+                request.setQuantity(1);
+                request.setReason("Conteo de consultas");
+                stockService.registerStockIn(request, "tester");
+            }
+        }
+
+        // Petición completa: filtros, controlador, servicio y serialización
+        MvcResult recent = SqlStatementCounter.assertAtMost(MAX_STATEMENTS, "/api/v2/stock/recent",
+                () -> perform("/api/v2/stock/recent?limit=" + PRODUCTS * MOVEMENTS_PER_PRODUCT));
+        assertEquals(200, recent.getResponse().getStatus());
+        MvcResult history = SqlStatementCounter.assertAtMost(MAX_STATEMENTS, "/api/v2/stock/history",
+                () -> perform("/api/v2/stock/history/" + productIds.getFirst()));
+        assertEquals(200, history.getResponse().getStatus());
+
+        List<StockMovementDTO> movements = SqlStatementCounter.assertAtMost(MAX_STATEMENTS, "getRecentMovements",
+                () -> stockService.getRecentMovements(PRODUCTS * MOVEMENTS_PER_PRODUCT));
+        assertEquals(PRODUCTS * MOVEMENTS_PER_PRODUCT, movements.size());
+        assertTrue(movements.stream().allMatch(m -> m.getProductName().startsWith("Movimientos-")));
+
+        // Resto de listados del repositorio, con el mapeo a DTO dentro de la transacción
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<StockMovementDTO> byType = SqlStatementCounter.assertAtMost(MAX_STATEMENTS, "findByMovementType",
+                () -> readOnly.execute(status -> stockMovementRepository
+                        .findByMovementTypeOrderByTimestampDesc(MovementType.STOCK_IN).stream()
+                        .map(StockMovementDTO::from).toList()));
+        assertTrue(byType.size() >= PRODUCTS * MOVEMENTS_PER_PRODUCT);
+        SqlStatementCounter.assertAtMost(MAX_STATEMENTS, "findByUsername",
+                () -> readOnly.execute(status -> stockMovementRepository
+                        .findByUsernameOrderByTimestampDesc("tester").stream()
+                        .map(StockMovementDTO::from).toList()));
+        SqlStatementCounter.assertAtMost(MAX_STATEMENTS, "findMovementsByCriteria",
+                () -> readOnly.execute(status -> stockMovementRepository
+                        .findMovementsByCriteria(null, MovementType.STOCK_IN, "test", null, null, PageRequest.of(0, 50))
+                        .map(StockMovementDTO::from).getContent()));
+        SqlStatementCounter.assertAtMost(MAX_STATEMENTS, "findRecentMovements",
+                () -> readOnly.execute(status -> stockMovementRepository
+                        .findRecentMovements(PageRequest.of(0, 50))
+                        .map(StockMovementDTO::from).getContent()));
+    }
+
+    private MvcResult perform(String url) {
+        try {
+            return mockMvc.perform(get(url)).andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ProductDTO createProduct(String name) {
+        return productService.createProduct(product(name, "Movimientos", 100));
+    }
+}
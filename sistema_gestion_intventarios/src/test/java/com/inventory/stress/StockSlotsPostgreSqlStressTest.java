@@ -0,0 +1,133 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.example.service.StockSlotService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inventory.stress.StressFixtures.product;
+import static com.inventory.stress.StressFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Movimientos sobre un SKU repartido en slots mientras otro hilo lo rebalancea sin parar, contra un
+ * PostgreSQL real: el INSERT de cada movimiento toma FOR KEY SHARE sobre products por la FK, algo que
+ * H2 no hace, así que el orden de bloqueos products -> slots solo se comprueba ahí. La base debe ser
+ * desechable (se le aplican todas las migraciones):
+ * -Dstress.postgres.url=jdbc:postgresql://localhost:5432/inventory_locks
+ * -Dstress.postgres.user=... -Dstress.postgres.password=...
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.stock.slots.enabled=true",
+        "inventory.stock.slots.rebalance-ms=3600000",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "stress.postgres.url", matches = ".+")
+public class StockSlotsPostgreSqlStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.slots.threads", 16);
+    private static final int OPS_PER_THREAD = Integer.getInteger("stress.slots.ops", 50);
+    private static final int INITIAL_STOCK = 100_000;
+
+    @DynamicPropertySource
+    static void postgreSql(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("stress.postgres.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("stress.postgres.user", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("stress.postgres.password", ""));
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.flyway.locations", () -> "classpath:migration");
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockSlotService stockSlotService;
+
+    @Test
+    void movementsAndRebalancesDoNotDeadlock() throws InterruptedException {
+        Long productId = productService.createProduct(product("Slots-PostgreSQL", "Stress", INITIAL_STOCK)).getId();
+        stockSlotService.enable(productId, 4);
+
+        AtomicInteger netChange = new AtomicInteger();
+        Queue<Exception> errors = new ConcurrentLinkedQueue<>();
+        AtomicBoolean moving = new AtomicBoolean(true);
+        AtomicInteger rebalances = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        executor.submit(() -> {
+            try {
+                start.await();
+                while (moving.get()) {
+                    stockSlotService.rebalance(productId);
+                    rebalances.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                errors.add(e);
+            }
+        });
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < OPS_PER_THREAD; j++) {
+                        boolean stockIn = ThreadLocalRandom.current().nextBoolean();
+                        try {
+                            if (stockIn) {
+                                stockService.registerStockIn(request(productId, 1), "stress");
+                            } else {
+                                stockService.registerStockOut(request(productId, 1), "stress");
+                            }
+                            netChange.addAndGet(stockIn ? 1 : -1);
+                        } catch (Exception e) {
+                            errors.add(e);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        boolean finished = done.await(180, TimeUnit.SECONDS);
+        moving.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        System.out.printf("Rebalanceos durante los movimientos: %d%n", rebalances.get());
+        assertTrue(finished);
+        assertTrue(errors.isEmpty(), () -> "Ningún movimiento ni rebalanceo debería fallar: " + errors.peek());
+        assertEquals(INITIAL_STOCK + netChange.get(), stockService.getCurrentStock(productId));
+    }
+}
@@ -0,0 +1,187 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.example.service.StockSlotService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inventory.stress.StressFixtures.product;
+import static com.inventory.stress.StressFixtures.request;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Un solo SKU caliente con su stock repartido en 0 (sin slots), 4 y 16 slots: mismo número de hilos
+ * y movimientos, se mide el throughput y se comprueba que la suma de los slots cuadra con los movimientos.
+ * Para la corrida completa: -Dstress.slots.threads=64 -Dstress.slots.ops=500
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.stock.slots.enabled=true",
+        "inventory.stock.slots.rebalance-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:slotsdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class StockSlotsStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.slots.threads", 16);
+    private static final int OPS_PER_THREAD = Integer.getInteger("stress.slots.ops", 50);
+    private static final int INITIAL_STOCK = 100_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockSlotService stockSlotService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void throughputScalesWithSlotCount() throws InterruptedException {
+        run("calentamiento", 4);
+
+        List<RunResult> results = new ArrayList<>();
+        for (int slots : new int[]{0, 4, 16}) {
+            results.add(run("slots-" + slots, slots));
+        }
+
+        System.out.println("=== SLOTS DE STOCK PARA UN SKU CALIENTE ===");
+        System.out.printf("Hilos: %d, movimientos por hilo: %d%n", THREADS, OPS_PER_THREAD);
+        for (RunResult result : results) {
+            System.out.printf("%2d slots: %8.0f mov/s  errores: %d%n",
+                    result.slots, result.opsPerSecond(), result.errors);
+        }
+        System.out.printf("Ganancia con 16 slots: %.2fx%n", results.get(2).opsPerSecond() / results.get(0).opsPerSecond());
+
+        for (RunResult result : results) {
+            assertTrue(result.finished);
+            assertEquals(0, result.errors, "No debería haber movimientos rechazados con " + result.slots + " slots");
+            assertTrue(result.consistent, "El stock debe cuadrar con los movimientos con " + result.slots + " slots");
+        }
+    }
+
+    @Test
+    void decrementsSpanningSeveralSlotsAndRebalanceKeepTheTotal() {
+        Long productId = createProduct("Slots-Gather", 10);
+        stockSlotService.enable(productId, 4); // 3 + 3 + 2 + 2
+
+        StockMovementDTO out = stockService.registerStockOut(request(productId, 7), "picker");
+        assertEquals(10, out.getPreviousQuantity());
+        assertEquals(3, out.getNewQuantity());
+        assertThrows(IllegalArgumentException.class,
+                () -> stockService.registerLoss(request(productId, 4), "picker"));
+
+        StockMovementDTO adjustment = request(productId, 1);
+        adjustment.setNewQuantity(12);
+        stockService.registerAdjustment(adjustment, "admin");
+        stockService.registerStockIn(request(productId, 5), "receiver");
+        assertEquals(17, stockService.getCurrentStock(productId));
+        assertEquals(17, productService.getProductById(productId).getInitialQuantity());
+
+        stockSlotService.rebalance(productId);
+        assertEquals(17, productRepository.findQuantityById(productId).orElseThrow());
+
+        stockSlotService.disable(productId);
+        assertEquals(17, productRepository.findQuantityById(productId).orElseThrow());
+        assertEquals(17, stockService.getCurrentStock(productId));
+    }
+
+    @Test
+    void editingTheQuantityOfAShardedProductGoesToItsSlots() {
+        Long productId = createProduct("Slots-Edit", 10);
+        stockSlotService.enable(productId, 4);
+        stockService.registerStockIn(request(productId, 6), "receiver");
+
+        ProductDTO edited = productService.getProductById(productId);
+        assertEquals(16, edited.getInitialQuantity());
+        edited.setInitialQuantity(30);
+        assertEquals(30, productService.updateProduct(productId, edited).getInitialQuantity());
+        assertEquals(30, stockService.getCurrentStock(productId));
+
+        // Editar otro campo con la cantidad leída no cambia el stock repartido
+        edited = productService.getProductById(productId);
+        edited.setName("Slots-Edit renombrado");
+        productService.updateProduct(productId, edited);
+        stockService.registerStockOut(request(productId, 5), "picker");
+        assertEquals(25, stockService.getCurrentStock(productId));
+
+        stockSlotService.rebalance(productId);
+        assertEquals(25, productRepository.findQuantityById(productId).orElseThrow());
+    }
+
+    private RunResult run(String name, int slots) throws InterruptedException {
+        Long productId = createProduct("Slots-" + name, INITIAL_STOCK);
+        if (slots > 0) {
+            stockSlotService.enable(productId, slots);
+        }
+        AtomicInteger netChange = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < OPS_PER_THREAD; j++) {
+                        boolean stockIn = ThreadLocalRandom.current().nextBoolean();
+                        try {
+                            if (stockIn) {
+                                stockService.registerStockIn(request(productId, 1), "stress");
+                            } else {
+                                stockService.registerStockOut(request(productId, 1), "stress");
+                            }
+                            netChange.addAndGet(stockIn ? 1 : -1);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(180, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        boolean consistent = stockService.getCurrentStock(productId) == INITIAL_STOCK + netChange.get();
+        return new RunResult(slots, finished, consistent, THREADS * OPS_PER_THREAD, errors.get(), elapsed);
+    }
+
+    private Long createProduct(String name, int quantity) {
+        return productService.createProduct(product(name, "Stress", quantity)).getId();
+    }
+
+    private record RunResult(int slots, boolean finished, boolean consistent, int movements, int errors,
+                             long elapsedNanos) {
+        double opsPerSecond() {
+            return movements / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
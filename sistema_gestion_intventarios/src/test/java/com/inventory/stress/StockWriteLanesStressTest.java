@@ -0,0 +1,141 @@
+package com.inventory.stress;
+
+import org.example.Main;
+import org.example.dto.StockMovementDTO;
+import org.example.service.ProductService;
+import org.example.service.StockService;
+import org.example.service.StockServiceImpl;
+import org.example.service.StockWriteLanes;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static com.inventory.stress.StressFixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput sobre un SKU caliente: movimientos directos (cada hilo compite por la fila)
+ * frente a los carriles de escritura por producto.
+ */
+@SpringBootTest(classes = Main.class, properties = {
+        "inventory.stock.write-mode=lanes",
+        "inventory.stock.write-lanes.count=4",
+        "spring.datasource.url=jdbc:h2:mem:lanesdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+public class StockWriteLanesStressTest {
+
+    private static final int THREADS = 24;
+    private static final int MOVEMENTS_PER_THREAD = 40;
+    private static final int COLD_PRODUCTS = 8;
+    private static final double HOT_RATIO = 0.8;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService; // LaneRoutedStockService
+
+    @Autowired
+    private StockServiceImpl directStockService;
+
+    @Autowired
+    private StockWriteLanes lanes;
+
+    @Test
+    void lanesKeepHotSkuConsistentAndReportThroughput() throws InterruptedException {
+        RunResult direct = run("DIRECTO (SIN CARRILES)", directStockService);
+        RunResult laned = run("CARRILES POR SKU", stockService);
+
+        System.out.printf("Ganancia de throughput en SKU caliente: %.2fx%n",
+                laned.opsPerSecond() / direct.opsPerSecond());
+
+        assertTrue(direct.finished && laned.finished, "Ambas corridas deberían completarse");
+        assertEquals(0, laned.errors, "Con carriles no debería haber conflictos de escritura");
+        assertEquals(0, laned.lostUpdates, "Con carriles no se deben perder actualizaciones");
+        assertEquals(0, lanes.maxDepth(), "Los carriles deberían quedar vacíos al terminar");
+    }
+
+    private RunResult run(String title, StockService service) throws InterruptedException {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i <= COLD_PRODUCTS; i++) {
+            productIds.add(createProduct(title + "-" + i));
+        }
+        AtomicIntegerArray applied = new AtomicIntegerArray(productIds.size());
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger maxDepth = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < MOVEMENTS_PER_THREAD; j++) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        int index = random.nextDouble() < HOT_RATIO ? 0 : 1 + random.nextInt(COLD_PRODUCTS);
+                        StockMovementDTO request = new StockMovementDTO();
+                        request.setProductId(productIds.get(index));
+                        request.setQuantity(1);
+                        try {
+                            service.registerStockIn(request, "stress");
+                            applied.incrementAndGet(index);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        maxDepth.accumulateAndGet(lanes.maxDepth(), Math::max);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(120, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+
+        int lostUpdates = 0;
+        for (int i = 0; i < productIds.size(); i++) {
+            int expected = 100 + applied.get(i);
+            lostUpdates += expected - stockService.getCurrentStock(productIds.get(i));
+        }
+
+        RunResult result = new RunResult(finished, THREADS * MOVEMENTS_PER_THREAD, errors.get(), lostUpdates, elapsed);
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Hilos concurrentes: %d (%.0f%% sobre un SKU)%n", THREADS, HOT_RATIO * 100);
+        System.out.printf("Movimientos: %d, errores: %d%n", result.movements, result.errors);
+        System.out.printf("Actualizaciones perdidas: %d%n", result.lostUpdates);
+        System.out.printf("Profundidad máxima de carril observada: %d%n", maxDepth.get());
+        System.out.printf("Movimientos por segundo: %.2f%n", result.opsPerSecond());
+        return result;
+    }
+
+    private Long createProduct(String name) {
+        return productService.createProduct(product(name, "Stress", 100)).getId();
+    }
+
+    private record RunResult(boolean finished, int movements, int errors, int lostUpdates, long elapsedNanos) {
+        double opsPerSecond() {
+            return movements / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
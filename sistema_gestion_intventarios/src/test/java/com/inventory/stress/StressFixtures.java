@@ -0,0 +1,34 @@
+package com.inventory.stress;
+
+import org.example.dto.ProductDTO;
+import org.example.dto.StockMovementDTO;
+
+import java.math.BigDecimal;
+
+/**
+ * Request builders shared by the benchmarks. Each test only states what it measures (name,
+ * category, starting stock); price and minimum stock are the same everywhere.
+ */
+final class StressFixtures {
+
+    private StressFixtures() {
+    }
+
+    // Precio fijo y el mínimo por defecto (5)
+    static ProductDTO product(String name, String category, int quantity) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setInitialQuantity(quantity);
+        product.setMinimumStock(5);
+        return product;
+    }
+
+    static StockMovementDTO request(Long productId, int quantity) {
+        StockMovementDTO request = new StockMovementDTO();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,57 @@
+package com.inventory.stress;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.repository.ProductRepository;
+import org.example.repository.StockMovementRepository;
+import org.example.service.InventoryStats;
+import org.example.service.ProductCache;
+import org.example.service.ProductChangePublisher;
+import org.example.service.ProductSearchIndex;
+import org.example.service.ProductService;
+import org.example.service.ProductServiceImpl;
+import org.example.service.ProductTextSearch;
+import org.example.service.RecentStockMovements;
+import org.example.service.StockAlertIndex;
+import org.example.service.StockServiceImpl;
+import org.example.service.StockSlotService;
+import org.example.service.StockUpdateStrategy;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Services built by hand from the application beans with one piece swapped, for the benchmarks that
+ * compare variants side by side. Constructor changes are absorbed here instead of in every test.
+ */
+final class StressServices {
+
+    private StressServices() {
+    }
+
+    // Servicio de stock síncrono (sin journal) con la estrategia y los medidores dados
+    static StockServiceImpl stockService(ApplicationContext context, StockUpdateStrategy strategy,
+                                         MeterRegistry registry) {
+        return new StockServiceImpl(context.getBean(StockMovementRepository.class),
+                context.getBean(ProductRepository.class),
+                context.getBean(EntityManager.class),
+                strategy,
+                context.getBean(StockSlotService.class),
+                registry,
+                context.getBean(RecentStockMovements.class),
+                context.getBean(ProductChangePublisher.class),
+                null);
+    }
+
+    // Servicio de productos sin caché ni índice de búsqueda: cada lectura llega a la base
+    static ProductService uncachedProductService(ApplicationContext context, MeterRegistry registry) {
+        return new ProductServiceImpl(context.getBean(ProductRepository.class),
+                registry.counter("created"),
+                registry.counter("deleted"),
+                new ProductCache(registry, false, 0, 0, 0),
+                new ProductSearchIndex(registry, false, 64),
+                context.getBean(ProductTextSearch.class),
+                context.getBean(StockAlertIndex.class),
+                context.getBean(InventoryStats.class),
+                context.getBean(ProductChangePublisher.class),
+                context.getBean(StockSlotService.class));
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedResponsesTest {
+
+    private CachedResponses responses;
+    private AtomicInteger encodes;
+
+    @BeforeEach
+    void setUp() {
+        // gzip a partir de 1 KB, como el valor por defecto
+        responses = new CachedResponses(new ObjectMapper(), new SimpleMeterRegistry(), true, 100, 30, 1024);
+        encodes = new AtomicInteger();
+    }
+
+    @Test
+    void repeatedRequestIsServedFromTheCacheWithAStrongEtag() {
+        ResponseEntity<byte[]> first = responses.respond(request(), "all", 1, counted(List.of("a", "b")));
+        ResponseEntity<byte[]> second = responses.respond(request(), "all", 1, counted(List.of("a", "b")));
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals("[\"a\",\"b\"]", new String(first.getBody()));
+        assertTrue(first.getHeaders().getETag().matches("\"[0-9a-f]{32}\""));
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertArrayEquals(first.getBody(), second.getBody());
+        assertEquals(1, encodes.get());
+    }
+
+    @Test
+    void matchingIfNoneMatchGetsNotModifiedWithoutBody() {
+        String etag = responses.respond(request(), "all", 1, counted(List.of("a"))).getHeaders().getETag();
+
+        for (String ifNoneMatch : List.of(etag, "W/" + etag, "\"other\", " + etag, "*")) {
+            MockHttpServletRequest request = request();
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+
+            ResponseEntity<byte[]> response = responses.respond(request, "all", 1, counted(List.of("a")));
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode(), ifNoneMatch);
+            assertNull(response.getBody());
+            assertEquals(etag, response.getHeaders().getETag());
+        }
+    }
+
+    @Test
+    void staleIfNoneMatchGetsTheFullBody() {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0123456789abcdef0123456789abcdef\"");
+
+        ResponseEntity<byte[]> response = responses.respond(request, "all", 1, counted(List.of("a")));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+    }
+
+    @Test
+    void newVersionReencodesAndChangesTheEtag() {
+        ResponseEntity<byte[]> before = responses.respond(request(), "all", 1, counted(List.of("a")));
+        ResponseEntity<byte[]> after = responses.respond(request(), "all", 2, counted(List.of("a", "b")));
+
+        assertEquals(2, encodes.get());
+        assertNotEquals(before.getHeaders().getETag(), after.getHeaders().getETag());
+
+        // Una petición lenta con la versión anterior no pisa la nueva
+        responses.respond(request(), "all", 1, counted(List.of("a")));
+        responses.respond(request(), "all", 2, counted(List.of("a", "b")));
+        assertEquals(3, encodes.get());
+    }
+
+    @Test
+    void largeBodiesAreGzippedForClientsThatAcceptIt() throws IOException {
+        List<String> large = List.of("x".repeat(2_000));
+        MockHttpServletRequest gzipRequest = request();
+        gzipRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, GZIP");
+
+        ResponseEntity<byte[]> gzipped = responses.respond(gzipRequest, "large", 1, counted(large));
+        ResponseEntity<byte[]> identity = responses.respond(request(), "large", 1, counted(large));
+
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzipped.getHeaders().getETag().endsWith("-gzip\""));
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), gzipped.getHeaders().getVary());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertArrayEquals(identity.getBody(), in.readAllBytes());
+        }
+
+        assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(gzipped.getHeaders().getETag(), identity.getHeaders().getETag());
+        assertEquals(1, encodes.get());
+    }
+
+    @Test
+    void smallBodiesAreNeverGzipped() {
+        MockHttpServletRequest gzipRequest = request();
+        gzipRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        ResponseEntity<byte[]> response = responses.respond(gzipRequest, "small", 1, counted(List.of("a")));
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertFalse(response.getHeaders().getETag().endsWith("-gzip\""));
+    }
+
+    @Test
+    void errorResponsesAreNotStoredNorAnsweredWithNotModified() {
+        Supplier<ResponseEntity<?>> notFound = () -> {
+            encodes.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "missing"));
+        };
+        String etag = responses.respondWith(request(), "missing", 1, notFound).getHeaders().getETag();
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        ResponseEntity<byte[]> response = responses.respondWith(request, "missing", 1, notFound);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, encodes.get());
+        assertEquals(0, responses.size());
+    }
+
+    @Test
+    void disabledCacheEncodesEveryRequest() {
+        responses = new CachedResponses(new ObjectMapper(), new SimpleMeterRegistry(), false, 100, 30, 1024);
+
+        responses.respond(request(), "all", 1, counted(List.of("a")));
+        responses.respond(request(), "all", 1, counted(List.of("a")));
+
+        assertEquals(2, encodes.get());
+        assertEquals(0, responses.size());
+    }
+
+    private Supplier<Object> counted(Object body) {
+        return () -> {
+            encodes.incrementAndGet();
+            return body;
+        };
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/public/products");
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublicCatalogTest {
+
+    private PublicCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new PublicCatalog(new SimpleMeterRegistry(), true);
+        catalog.publishAll(List.of(
+                guest(1L, "Taladro", "Herramientas", false),
+                guest(2L, "Monitor", "Electrónica", false),
+                guest(3L, "Mouse", "Electrónica", true)));
+    }
+
+    @Test
+    void stockChangeThatLeavesTheGuestViewEqualPublishesNothing() {
+        PublicCatalog.Snapshot before = catalog.snapshot();
+
+        catalog.applyChanges(Set.of(1L, 2L), List.of(
+                guest(1L, "Taladro", "Herramientas", false),
+                guest(2L, "Monitor", "Electrónica", false)));
+
+        assertSame(before, catalog.snapshot());
+    }
+
+    @Test
+    void productRunningOutKeepsItsPlaceAndLeavesTheAvailableList() {
+        PublicCatalog.Snapshot before = catalog.snapshot();
+
+        catalog.applyChanges(Set.of(2L), List.of(guest(2L, "Monitor", "Electrónica", true)));
+
+        PublicCatalog.Snapshot after = catalog.snapshot();
+        assertEquals(before.version() + 1, after.version());
+        assertEquals(List.of(1L, 2L, 3L), ids(after.byIdOrder()));
+        assertEquals(List.of(2L, 3L, 1L), ids(after.byNameOrder()));
+        assertEquals(List.of(1L), ids(after.available()));
+        assertTrue(catalog.product(2L).orElseThrow().getOutOfStock());
+        assertSame(before.byCategory().get("Herramientas"), after.byCategory().get("Herramientas"));
+        // La foto anterior no cambia
+        assertFalse(before.byIdOrder().get(1).getOutOfStock());
+    }
+
+    @Test
+    void renamesCreationsAndDeletionsAreMergedInOrder() {
+        catalog.applyChanges(Set.of(1L, 3L, 4L), List.of(
+                guest(1L, "Amoladora", "Herramientas", false),
+                guest(4L, "Nivel", "Herramientas", true)));
+
+        PublicCatalog.Snapshot after = catalog.snapshot();
+        assertEquals(List.of(1L, 2L, 4L), ids(after.byIdOrder()));
+        assertEquals(List.of(1L, 2L, 4L), ids(after.byNameOrder()));
+        assertEquals(List.of(1L, 2L), ids(after.available()));
+        assertEquals(List.of(2L), ids(catalog.productsByCategory("Electrónica")));
+        assertEquals(List.of(1L, 4L), ids(catalog.productsByCategory("Herramientas")));
+        assertTrue(catalog.product(3L).isEmpty());
+        assertEquals(3, catalog.size());
+    }
+
+    @Test
+    void emptiedCategoryDisappears() {
+        catalog.applyChanges(Set.of(1L), List.of(guest(1L, "Taladro", "Electrónica", false)));
+
+        assertEquals(List.of(), catalog.productsByCategory("Herramientas"));
+        assertFalse(catalog.snapshot().byCategory().containsKey("Herramientas"));
+        assertEquals(List.of(1L, 2L, 3L), ids(catalog.productsByCategory("Electrónica")));
+    }
+
+    private static ProductDTO guest(Long id, String name, String category, boolean outOfStock) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setPrice(BigDecimal.TEN);
+        product.setOutOfStock(outOfStock);
+        return product;
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+}